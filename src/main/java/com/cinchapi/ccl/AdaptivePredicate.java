@@ -0,0 +1,415 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.cinchapi.ccl.grammar.ConjunctionSymbol;
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.syntax.ConjunctionTree;
+import com.cinchapi.ccl.syntax.ExpressionTree;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.common.function.TriFunction;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+
+/**
+ * A {@link Predicate} that tests data against a {@link ConditionTree} and
+ * reorders the operands of each conjunction based on a {@link CostModel} and
+ * the selectivity of each operand that it observes.
+ * <p>
+ * Nested conjunctions of the same kind are flattened (e.g.
+ * {@code (a and b) and c} has three operands). The operands of an {@code AND}
+ * are ordered so that those that are cheap and likely to be {@code false} go
+ * first, and the operands of an {@code OR} are ordered so that those that are
+ * cheap and likely to be {@code true} go first. The order is recomputed every
+ * {@link #REORDER_INTERVAL} times a conjunction is tested.
+ * </p>
+ * <p>
+ * Each thread that tests data keeps its own statistics and its own order, so
+ * a {@link Predicate} that is shared among threads doesn't cause them to
+ * contend on the statistics, and the order that each thread uses adapts to
+ * the data that it sees.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@ThreadSafe
+final class AdaptivePredicate implements Predicate<Multimap<String, Object>> {
+
+    /**
+     * The number of tests after which a conjunction reorders its operands.
+     */
+    static final int REORDER_INTERVAL = 1024;
+
+    /**
+     * The number of observations that the {@link CostModel}'s estimated
+     * selectivity is worth.
+     */
+    private static final double PRIOR_WEIGHT = 16;
+
+    /**
+     * The smallest probability that is used when ranking operands, so that an
+     * operand that has always (or never) been satisfied can still be ranked.
+     */
+    private static final double EPSILON = 1e-6;
+
+    /**
+     * The root of the tree of {@link Node Nodes} that is copied for each
+     * thread. It is never tested, so its statistics aren't modified.
+     */
+    private final Node prototype;
+
+    /**
+     * The root of each thread's copy of the {@link #prototype}.
+     */
+    private final ThreadLocal<Node> roots;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param compiler
+     * @param tree
+     * @param evaluator
+     * @param model
+     */
+    AdaptivePredicate(Compiler compiler, ConditionTree tree,
+            TriFunction<Object, Operator, List<Object>, Boolean> evaluator,
+            CostModel model) {
+        this.prototype = build(compiler, tree, evaluator, model);
+        this.roots = ThreadLocal.withInitial(prototype::copy);
+    }
+
+    @Override
+    public boolean test(Multimap<String, Object> data) {
+        return roots.get().test(data);
+    }
+
+    /**
+     * Return the expressions in the order that they are currently tested by
+     * the calling thread.
+     *
+     * @return the expressions
+     */
+    List<ExpressionSymbol> order() {
+        List<ExpressionSymbol> order = Lists.newArrayList();
+        roots.get().collect(order);
+        return order;
+    }
+
+    /**
+     * Return the {@link Node} for the {@code tree}.
+     *
+     * @param compiler
+     * @param tree
+     * @param evaluator
+     * @param model
+     * @return the {@link Node}
+     */
+    private static Node build(Compiler compiler, AbstractSyntaxTree tree,
+            TriFunction<Object, Operator, List<Object>, Boolean> evaluator,
+            CostModel model) {
+        if(tree instanceof ConjunctionTree) {
+            List<ConditionTree> operands = ((ConjunctionTree) tree)
+                    .operands();
+            Node[] nodes = new Node[operands.size()];
+            for (int i = 0; i < nodes.length; ++i) {
+                nodes[i] = build(compiler, operands.get(i), evaluator, model);
+            }
+            return new Junction(tree.root() == ConjunctionSymbol.AND, nodes);
+        }
+        else {
+            ExpressionSymbol expression = (ExpressionSymbol) tree.root();
+            return new Leaf(expression,
+                    compiler.compile((ExpressionTree) tree, evaluator),
+                    model.cost(expression), model.selectivity(expression));
+        }
+    }
+
+    /**
+     * A node in the tree that is tested.
+     *
+     * @author Jeff Nelson
+     */
+    private static abstract class Node {
+
+        /**
+         * The number of times that this {@link Node} has been tested.
+         */
+        long tests = 0;
+
+        /**
+         * The number of times that this {@link Node} has been satisfied.
+         */
+        long hits = 0;
+
+        /**
+         * Test the {@code data} and record the outcome.
+         *
+         * @param data
+         * @return {@code true} if the {@code data} satisfies this {@link Node}
+         */
+        final boolean test(Multimap<String, Object> data) {
+            boolean result = evaluate(data);
+            ++tests;
+            if(result) {
+                ++hits;
+            }
+            return result;
+        }
+
+        /**
+         * Return the observed probability that data satisfies this
+         * {@link Node}, blended with the {@link #estimate()}.
+         *
+         * @return the selectivity
+         */
+        final double selectivity() {
+            return (hits + PRIOR_WEIGHT * estimate()) / (tests + PRIOR_WEIGHT);
+        }
+
+        /**
+         * Add the expressions in this {@link Node} to {@code expressions} in
+         * the order that they are tested.
+         *
+         * @param expressions
+         */
+        abstract void collect(List<ExpressionSymbol> expressions);
+
+        /**
+         * Return a copy of this {@link Node}, without any of its
+         * observations.
+         *
+         * @return the copy
+         */
+        abstract Node copy();
+
+        /**
+         * Return the expected cost of testing this {@link Node}.
+         *
+         * @return the cost
+         */
+        abstract double cost();
+
+        /**
+         * Return the estimated probability that data satisfies this
+         * {@link Node} without regard to the observations.
+         *
+         * @return the estimated selectivity
+         */
+        abstract double estimate();
+
+        /**
+         * Test the {@code data}.
+         *
+         * @param data
+         * @return {@code true} if the {@code data} satisfies this {@link Node}
+         */
+        abstract boolean evaluate(Multimap<String, Object> data);
+    }
+
+    /**
+     * A {@link Node} for an expression.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class Leaf extends Node {
+
+        /**
+         * The expression.
+         */
+        private final ExpressionSymbol expression;
+
+        /**
+         * The compiled expression.
+         */
+        private final Predicate<Multimap<String, Object>> predicate;
+
+        /**
+         * The cost of the expression.
+         */
+        private final double cost;
+
+        /**
+         * The estimated selectivity of the expression.
+         */
+        private final double estimate;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param expression
+         * @param predicate
+         * @param cost
+         * @param estimate
+         */
+        Leaf(ExpressionSymbol expression,
+                Predicate<Multimap<String, Object>> predicate, double cost,
+                double estimate) {
+            this.expression = expression;
+            this.predicate = predicate;
+            this.cost = cost;
+            this.estimate = estimate;
+        }
+
+        @Override
+        void collect(List<ExpressionSymbol> expressions) {
+            expressions.add(expression);
+        }
+
+        @Override
+        Node copy() {
+            return new Leaf(expression, predicate, cost, estimate);
+        }
+
+        @Override
+        double cost() {
+            return cost;
+        }
+
+        @Override
+        double estimate() {
+            return estimate;
+        }
+
+        @Override
+        boolean evaluate(Multimap<String, Object> data) {
+            return predicate.test(data);
+        }
+
+    }
+
+    /**
+     * A {@link Node} for an {@code AND} or {@code OR} of two or more operands.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class Junction extends Node {
+
+        /**
+         * A flag that indicates whether this is an {@code AND}.
+         */
+        private final boolean and;
+
+        /**
+         * The operands in the order that they are tested.
+         */
+        private Node[] operands;
+
+        /**
+         * The number of tests since the {@link #operands} were last
+         * reordered.
+         */
+        private int since = 0;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param and
+         * @param operands
+         */
+        Junction(boolean and, Node[] operands) {
+            this.and = and;
+            this.operands = operands;
+            reorder();
+        }
+
+        @Override
+        void collect(List<ExpressionSymbol> expressions) {
+            for (Node operand : operands) {
+                operand.collect(expressions);
+            }
+        }
+
+        @Override
+        Node copy() {
+            Node[] copies = new Node[operands.length];
+            for (int i = 0; i < copies.length; ++i) {
+                copies[i] = operands[i].copy();
+            }
+            return new Junction(and, copies);
+        }
+
+        @Override
+        double cost() {
+            // The cost of each operand is weighted by the probability that the
+            // operands before it don't short circuit the test
+            double cost = 0;
+            double reached = 1;
+            for (Node operand : operands) {
+                cost += reached * operand.cost();
+                double selectivity = operand.selectivity();
+                reached *= and ? selectivity : 1 - selectivity;
+            }
+            return cost;
+        }
+
+        @Override
+        double estimate() {
+            double none = 1;
+            for (Node operand : operands) {
+                double selectivity = operand.selectivity();
+                none *= and ? selectivity : 1 - selectivity;
+            }
+            return and ? none : 1 - none;
+        }
+
+        @Override
+        boolean evaluate(Multimap<String, Object> data) {
+            if(++since >= REORDER_INTERVAL) {
+                since = 0;
+                reorder();
+            }
+            for (Node operand : operands) {
+                if(operand.test(data) != and) {
+                    return !and;
+                }
+            }
+            return and;
+        }
+
+        /**
+         * Sort the {@link #operands} by the ratio of their cost to the
+         * probability that they short circuit the test.
+         */
+        private void reorder() {
+            Node[] operands = this.operands.clone();
+            double[] ranks = new double[operands.length];
+            Integer[] indexes = new Integer[operands.length];
+            for (int i = 0; i < operands.length; ++i) {
+                double selectivity = operands[i].selectivity();
+                double shortCircuit = and ? 1 - selectivity : selectivity;
+                ranks[i] = operands[i].cost() / Math.max(shortCircuit, EPSILON);
+                indexes[i] = i;
+            }
+            Arrays.sort(indexes, Comparator.comparingDouble(i -> ranks[i]));
+            Node[] reordered = new Node[operands.length];
+            for (int i = 0; i < indexes.length; ++i) {
+                reordered[i] = operands[indexes[i]];
+            }
+            this.operands = reordered;
+        }
+
+    }
+
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ForwardingMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * A {@link Compiler} that remembers the {@link AbstractSyntaxTree trees} that
+ * are produced by another {@link Compiler} so that repeated requests to
+ * {@link #parse(String, Multimap) parse} the same statement don't redo the
+ * lexing, parsing and tree construction.
+ * <p>
+ * A cached tree is keyed by the CCL statement and the values of each local
+ * variable (e.g. {@code $ssn}) that was resolved from the {@code data} when the
+ * statement was first parsed. So, a statement that does not reference any
+ * variables is only ever parsed once, regardless of the {@code data} that is
+ * provided, while a statement that does reference variables is parsed once
+ * for each distinct set of variable values.
+ * </p>
+ * <p>
+ * A statement with a timestamp that is resolved relative to the current time
+ * (e.g. {@code at 3 seconds ago}) is never cached, because its tree must be
+ * resolved again each time that it is parsed.
+ * </p>
+ * <p>
+ * The cache is bounded either by the number of entries or by a total weight,
+ * where the weight of an entry is the length of its CCL statement. When the
+ * bound is exceeded, the least recently used entries are evicted.
+ * </p>
+ * <p>
+ * NOTE: The cached {@link AbstractSyntaxTree trees} are shared among all
+ * callers, so they must be treated as immutable.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@ThreadSafe
+public final class CachingCompiler extends Compiler {
+
+    /**
+     * The marker in the {@link #variables} cache for a statement that
+     * {@link Compiler#isTimeDependent(String) depends on the time}, so its
+     * tree is never cached.
+     */
+    private static final Set<String> UNCACHEABLE = Collections
+            .unmodifiableSet(Sets.newHashSet());
+
+    /**
+     * The {@link Compiler} that parses statements that are not cached.
+     */
+    private final Compiler compiler;
+
+    /**
+     * The cached {@link AbstractSyntaxTree trees}.
+     */
+    private final Cache<Key, AbstractSyntaxTree> trees;
+
+    /**
+     * A mapping from each CCL statement that has been parsed to the names of
+     * the local variables it references. This is used to determine which
+     * values from the local {@code data} must be included in the {@link Key}
+     * for a statement.
+     */
+    private final Cache<String, Set<String>> variables;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param compiler the {@link Compiler} to which parsing is delegated
+     * @param bound the maximum number of entries, or the maximum total weight
+     *            if {@code weighted} is {@code true}
+     * @param weighted a flag that indicates whether the {@code bound} applies
+     *            to the total weight of the entries instead of the number of
+     *            entries
+     */
+    CachingCompiler(Compiler compiler, long bound, boolean weighted) {
+        super(compiler.valueParser, compiler.operatorParser);
+        this.compiler = compiler;
+        if(weighted) {
+            this.trees = CacheBuilder.newBuilder().maximumWeight(bound)
+                    .weigher((Key key, AbstractSyntaxTree tree) -> key.ccl
+                            .length())
+                    .recordStats().build();
+            this.variables = CacheBuilder.newBuilder().maximumWeight(bound)
+                    .weigher((String ccl, Set<String> vars) -> ccl.length())
+                    .build();
+        }
+        else {
+            this.trees = CacheBuilder.newBuilder().maximumSize(bound)
+                    .recordStats().build();
+            this.variables = CacheBuilder.newBuilder().maximumSize(bound)
+                    .build();
+        }
+    }
+
+    /**
+     * Discard all the cached {@link AbstractSyntaxTree trees}.
+     */
+    public void invalidateAll() {
+        trees.invalidateAll();
+        variables.invalidateAll();
+    }
+
+    @Override
+    public AbstractSyntaxTree parse(String ccl, Multimap<String, Object> data) {
+        Set<String> vars = variables.getIfPresent(ccl);
+        try {
+            if(vars == UNCACHEABLE) {
+                return compiler.parse(ccl, data);
+            }
+            else if(vars != null) {
+                return trees.get(new Key(ccl, vars, data),
+                        () -> compiler.parse(ccl, data));
+            }
+            else {
+                // The first time the statement is seen, keep track of the
+                // variables that are resolved while parsing so that subsequent
+                // lookups can use the values of those variables in the key.
+                RecordingMultimap recorder = new RecordingMultimap(data);
+                AbstractSyntaxTree tree = compiler.parse(ccl, recorder);
+                if(isTimeDependent(ccl)) {
+                    variables.put(ccl, UNCACHEABLE);
+                    return tree;
+                }
+                vars = ImmutableSet.copyOf(recorder.requested);
+                variables.put(ccl, vars);
+                return trees.get(new Key(ccl, vars, data), () -> tree);
+            }
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    AbstractSyntaxTree template(String ccl, Multimap<String, Object> data,
+            Function<String, Object> valueParser) {
+        return compiler.template(ccl, data, valueParser);
+    }
+
+    /**
+     * Return the number of {@link AbstractSyntaxTree trees} that are
+     * currently cached.
+     *
+     * @return the cache size
+     */
+    public long size() {
+        return trees.size();
+    }
+
+    /**
+     * Return a snapshot of the cache's hit, miss and eviction counters.
+     *
+     * @return the {@link CacheStats}
+     */
+    public CacheStats stats() {
+        return trees.stats();
+    }
+
+    /**
+     * The key for a cached {@link AbstractSyntaxTree}.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class Key {
+
+        /**
+         * The CCL statement.
+         */
+        private final String ccl;
+
+        /**
+         * The value of each variable referenced in the {@link #ccl}, which
+         * may include {@code null}.
+         */
+        private final ImmutableMap<String, List<Object>> bindings;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param ccl
+         * @param variables
+         * @param data
+         */
+        Key(String ccl, Set<String> variables, Multimap<String, Object> data) {
+            this.ccl = ccl;
+            if(variables.isEmpty()) {
+                this.bindings = ImmutableMap.of();
+            }
+            else {
+                ImmutableMap.Builder<String, List<Object>> bindings = ImmutableMap
+                        .builder();
+                for (String variable : variables) {
+                    bindings.put(variable, Collections.unmodifiableList(
+                            new ArrayList<>(data.get(variable))));
+                }
+                this.bindings = bindings.build();
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(obj instanceof Key) {
+                return ccl.equals(((Key) obj).ccl)
+                        && bindings.equals(((Key) obj).bindings);
+            }
+            else {
+                return false;
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ccl, bindings);
+        }
+
+    }
+
+    /**
+     * A {@link Multimap} view that keeps track of the keys that are looked up.
+     *
+     * @author Jeff Nelson
+     */
+    static final class RecordingMultimap
+            extends ForwardingMultimap<String, Object> {
+
+        /**
+         * The {@link Multimap} to which calls are forwarded.
+         */
+        private final Multimap<String, Object> delegate;
+
+        /**
+         * The keys that have been {@link #get(String) requested}.
+         */
+        final Set<String> requested = Sets.newLinkedHashSet();
+
+        /**
+         * Construct a new instance.
+         *
+         * @param delegate
+         */
+        RecordingMultimap(Multimap<String, Object> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Collection<Object> get(String key) {
+            requested.add(key);
+            return super.get(key);
+        }
+
+        @Override
+        protected Multimap<String, Object> delegate() {
+            return delegate;
+        }
+
+    }
+
+}
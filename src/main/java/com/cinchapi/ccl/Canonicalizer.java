@@ -0,0 +1,520 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.Function;
+
+import com.cinchapi.ccl.grammar.ConjunctionSymbol;
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.grammar.FunctionKeySymbol;
+import com.cinchapi.ccl.grammar.FunctionValueSymbol;
+import com.cinchapi.ccl.grammar.KeySymbol;
+import com.cinchapi.ccl.grammar.KeyTokenSymbol;
+import com.cinchapi.ccl.grammar.NavigationKeySymbol;
+import com.cinchapi.ccl.grammar.OperatorSymbol;
+import com.cinchapi.ccl.grammar.TimestampSymbol;
+import com.cinchapi.ccl.grammar.ValueSymbol;
+import com.cinchapi.ccl.grammar.ValueTokenSymbol;
+import com.cinchapi.ccl.grammar.VariableSymbol;
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.cinchapi.ccl.syntax.AndTree;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.syntax.ConjunctionTree;
+import com.cinchapi.ccl.syntax.ExpressionTree;
+import com.cinchapi.ccl.syntax.OrTree;
+import com.cinchapi.ccl.syntax.TreeCursor;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.ccl.type.function.ExplicitBinaryFunction;
+import com.cinchapi.ccl.type.function.TemporalFunction;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.UnsignedBytes;
+
+/**
+ * Rewrites a {@link ConditionTree} into a canonical form and computes a
+ * fingerprint of that form, so that all the spellings of a condition that
+ * only differ in the order of the operands of a conjunction, the nesting of
+ * conjunctions of the same kind, duplicate operands, operator aliases or the
+ * numeric type of values have the same canonical tree and the same
+ * fingerprint.
+ * <p>
+ * In the canonical form, every conjunction is a left-deep chain of its
+ * distinct operands, sorted by fingerprint. Each {@link Operator} is replaced
+ * with its {@link OperatorSymbol#canonical(Function) canonical} form and each
+ * integral number is an {@link Integer} if it fits and a {@link Long}
+ * otherwise, while each floating point number is a {@link Double}.
+ * </p>
+ * <p>
+ * The fingerprint is a 128-bit murmur3 hash of the structure, keys,
+ * operators, timestamps and typed values of the condition. It doesn't depend
+ * on the {@link Object#toString() string} form of the tree or on any
+ * {@link Object#hashCode() hash code}, so it is stable across processes and
+ * can be used as a cache key, to deduplicate statements or to label metrics.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+final class Canonicalizer {
+
+    /**
+     * The {@link HashFunction} for fingerprints.
+     */
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    /**
+     * The order of operands in the canonical form.
+     */
+    private static final Comparator<HashCode> ORDER = Comparator.comparing(
+            HashCode::asBytes, UnsignedBytes.lexicographicalComparator());
+
+    // Tags that separate the parts of the fingerprint
+    private static final byte EXPRESSION = 0;
+    private static final byte AND = 1;
+    private static final byte OR = 2;
+    private static final byte KEY = 3;
+    private static final byte NAVIGATION_KEY = 4;
+    private static final byte FUNCTION = 5;
+    private static final byte STRING = 6;
+    private static final byte INTEGRAL = 7;
+    private static final byte DECIMAL = 8;
+    private static final byte BOOLEAN = 9;
+    private static final byte VARIABLE = 10;
+    private static final byte OTHER = 11;
+    private static final byte CONDITION = 12;
+
+    /**
+     * Parses the symbol of an {@link Operator}.
+     */
+    private final Function<String, Operator> operatorParser;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param operatorParser
+     */
+    Canonicalizer(Function<String, Operator> operatorParser) {
+        this.operatorParser = operatorParser;
+    }
+
+    /**
+     * Return the canonical form of the {@code tree}.
+     *
+     * @param tree
+     * @return the canonical {@link ConditionTree}
+     */
+    ConditionTree canonicalize(ConditionTree tree) {
+        return reduce(tree).tree();
+    }
+
+    /**
+     * Return the fingerprint of the {@code tree}, which is the same as that
+     * of its {@link #canonicalize(ConditionTree) canonical form}.
+     *
+     * @param tree
+     * @return the 128-bit fingerprint
+     */
+    HashCode fingerprint(ConditionTree tree) {
+        return reduce(tree).fingerprint();
+    }
+
+    /**
+     * Return the {@link Term} for the {@code tree}.
+     *
+     * @param tree
+     * @return the {@link Term}
+     */
+    private Term reduce(ConditionTree tree) {
+        // The tree is reduced bottom-up with an explicit stack so that
+        // arbitrarily deep conditions can be handled.
+        Deque<Term> stack = new ArrayDeque<>();
+        for (AbstractSyntaxTree node : TreeCursor.postOrder(tree)) {
+            if(node instanceof ConjunctionTree) {
+                Term right = stack.pop();
+                Term left = stack.pop();
+                stack.push(junction((ConjunctionSymbol) node.root(), left,
+                        right));
+            }
+            else {
+                stack.push(leaf((ExpressionSymbol) node.root()));
+            }
+        }
+        return stack.pop();
+    }
+
+    /**
+     * Return the {@link Term} for a conjunction of the {@code left} and
+     * {@code right} operands.
+     *
+     * @param kind
+     * @param left
+     * @param right
+     * @return the {@link Term}
+     */
+    private static Term junction(ConjunctionSymbol kind, Term left,
+            Term right) {
+        NavigableMap<HashCode, Term> operands;
+        Term other;
+        // Reuse the larger of the operand sets of the children so that long
+        // chains aren't copied at every level
+        if(left.kind == kind && (right.kind != kind
+                || left.operands.size() >= right.operands.size())) {
+            operands = left.operands;
+            other = right;
+        }
+        else if(right.kind == kind) {
+            operands = right.operands;
+            other = left;
+        }
+        else {
+            operands = Maps.newTreeMap(ORDER);
+            operands.putIfAbsent(left.fingerprint(), left);
+            other = right;
+        }
+        if(other.kind == kind) {
+            for (Term operand : other.operands.values()) {
+                operands.putIfAbsent(operand.fingerprint(), operand);
+            }
+        }
+        else {
+            operands.putIfAbsent(other.fingerprint(), other);
+        }
+        return operands.size() == 1 ? operands.firstEntry().getValue()
+                : new Term(kind, operands);
+    }
+
+    /**
+     * Return the {@link Term} for an {@code expression}.
+     *
+     * @param expression
+     * @return the {@link Term}
+     */
+    private Term leaf(ExpressionSymbol expression) {
+        OperatorSymbol operator = expression.operator()
+                .canonical(operatorParser);
+        List<ValueTokenSymbol<?>> values = expression.values();
+        ValueTokenSymbol<?>[] canonical = new ValueTokenSymbol<?>[values
+                .size()];
+        Hasher hasher = HASH.newHasher().putByte(EXPRESSION);
+        putTimestamp(hasher, expression.timestamp());
+        putKey(hasher, expression.key());
+        putString(hasher, operator.operator().symbol());
+        hasher.putInt(canonical.length);
+        for (int i = 0; i < canonical.length; ++i) {
+            ValueTokenSymbol<?> symbol = values.get(i);
+            if(symbol instanceof ValueSymbol) {
+                Object value = canonical(symbol.value());
+                canonical[i] = value == symbol.value() ? symbol
+                        : new ValueSymbol(value);
+                putValue(hasher, value);
+            }
+            else if(symbol instanceof VariableSymbol) {
+                canonical[i] = symbol;
+                hasher.putByte(VARIABLE);
+                putString(hasher, ((VariableSymbol) symbol).value());
+            }
+            else if(symbol instanceof FunctionValueSymbol) {
+                canonical[i] = symbol;
+                putFunction(hasher,
+                        ((FunctionValueSymbol) symbol).function());
+            }
+            else {
+                canonical[i] = symbol;
+                putValue(hasher, symbol.value());
+            }
+        }
+        ExpressionTree tree = new ExpressionTree(ExpressionSymbol
+                .create(expression.timestamp(), expression.key(), operator,
+                        canonical));
+        return new Term(tree, hasher.hash());
+    }
+
+    /**
+     * Add the {@code key} to the {@code hasher}.
+     *
+     * @param hasher
+     * @param key
+     */
+    private void putKey(Hasher hasher, KeyTokenSymbol<?> key) {
+        if(key instanceof KeySymbol) {
+            hasher.putByte(KEY);
+            putString(hasher, ((KeySymbol) key).key());
+        }
+        else if(key instanceof NavigationKeySymbol) {
+            hasher.putByte(NAVIGATION_KEY);
+            putString(hasher, ((NavigationKeySymbol) key).key());
+        }
+        else if(key instanceof FunctionKeySymbol) {
+            putFunction(hasher, ((FunctionKeySymbol) key).function());
+        }
+        else {
+            hasher.putByte(OTHER);
+            putString(hasher, key.getClass().getName());
+            putString(hasher, key.toString());
+        }
+    }
+
+    /**
+     * Add the {@code function} to the {@code hasher}.
+     *
+     * @param hasher
+     * @param function
+     */
+    private void putFunction(Hasher hasher,
+            com.cinchapi.ccl.type.Function function) {
+        hasher.putByte(FUNCTION);
+        putString(hasher, function.getClass().getName());
+        putString(hasher, function.operation());
+        putString(hasher, function.key());
+        if(function instanceof TemporalFunction) {
+            TemporalFunction temporal = (TemporalFunction) function;
+            hasher.putLong(temporal.timestamp() == Long.MAX_VALUE
+                    ? Long.MAX_VALUE
+                    : temporal.timestampPrecision()
+                            .toMicros(temporal.timestamp()));
+        }
+        if(function instanceof ExplicitBinaryFunction) {
+            Object source = ((ExplicitBinaryFunction<?>) function).source();
+            if(source instanceof ConditionTree) {
+                hasher.putByte(CONDITION);
+                hasher.putBytes(
+                        fingerprint((ConditionTree) source).asBytes());
+            }
+            else if(source instanceof List) {
+                List<?> list = (List<?>) source;
+                hasher.putInt(list.size());
+                for (Object value : list) {
+                    putValue(hasher, canonical(value));
+                }
+            }
+            else {
+                putValue(hasher, source);
+            }
+        }
+    }
+
+    /**
+     * Return the canonical form of a {@code value}.
+     *
+     * @param value
+     * @return the canonical value
+     */
+    private static Object canonical(Object value) {
+        if(value instanceof Byte || value instanceof Short
+                || value instanceof Long) {
+            long number = ((Number) value).longValue();
+            return number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE
+                    ? Integer.valueOf((int) number)
+                    : value instanceof Long ? value : Long.valueOf(number);
+        }
+        else if(value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        else {
+            return value;
+        }
+    }
+
+    /**
+     * Add the canonical {@code value} to the {@code hasher}.
+     *
+     * @param hasher
+     * @param value
+     */
+    private static void putValue(Hasher hasher, Object value) {
+        if(value instanceof String) {
+            hasher.putByte(STRING);
+            putString(hasher, (String) value);
+        }
+        else if(value instanceof Integer || value instanceof Long) {
+            hasher.putByte(INTEGRAL).putLong(((Number) value).longValue());
+        }
+        else if(value instanceof Double) {
+            hasher.putByte(DECIMAL).putDouble((Double) value);
+        }
+        else if(value instanceof Boolean) {
+            hasher.putByte(BOOLEAN).putBoolean((Boolean) value);
+        }
+        else {
+            hasher.putByte(OTHER);
+            putString(hasher,
+                    value == null ? "null" : value.getClass().getName());
+            putString(hasher, String.valueOf(value));
+        }
+    }
+
+    /**
+     * Add the {@code timestamp}, which may be {@code null}, to the
+     * {@code hasher}.
+     *
+     * @param hasher
+     * @param timestamp
+     */
+    private static void putTimestamp(Hasher hasher,
+            TimestampSymbol timestamp) {
+        if(timestamp == null) {
+            hasher.putBoolean(false);
+        }
+        else {
+            hasher.putBoolean(true).putLong(
+                    timestamp.precision().toMicros(timestamp.timestamp()));
+        }
+    }
+
+    /**
+     * Add the {@code string} and its length to the {@code hasher}.
+     *
+     * @param hasher
+     * @param string
+     */
+    private static void putString(Hasher hasher, String string) {
+        hasher.putInt(string.length()).putString(string,
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A reduced condition.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class Term {
+
+        /**
+         * The kind of conjunction, or {@code null} if this {@link Term} is an
+         * expression.
+         */
+        final ConjunctionSymbol kind;
+
+        /**
+         * The distinct operands of a conjunction, none of which is a
+         * conjunction of the same kind, by fingerprint.
+         */
+        final NavigableMap<HashCode, Term> operands;
+
+        /**
+         * The fingerprint, which is computed the first time that it is
+         * needed.
+         */
+        private HashCode fingerprint;
+
+        /**
+         * The canonical tree, which is built the first time that it is
+         * needed.
+         */
+        private ConditionTree tree;
+
+        /**
+         * Construct a new instance for an expression.
+         *
+         * @param tree
+         * @param fingerprint
+         */
+        Term(ExpressionTree tree, HashCode fingerprint) {
+            this.kind = null;
+            this.operands = null;
+            this.tree = tree;
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * Construct a new instance for a conjunction.
+         *
+         * @param kind
+         * @param operands
+         */
+        Term(ConjunctionSymbol kind, NavigableMap<HashCode, Term> operands) {
+            this.kind = kind;
+            this.operands = operands;
+        }
+
+        /**
+         * Return the fingerprint.
+         * <p>
+         * The fingerprint of a conjunction is only computed once it is an
+         * operand of a different kind of conjunction, or the root, because
+         * the operands of a conjunction are merged into those of its parent
+         * if it is of the same kind. At that point, the fingerprint of each
+         * operand is already known.
+         * </p>
+         *
+         * @return the fingerprint
+         */
+        HashCode fingerprint() {
+            if(fingerprint == null) {
+                Hasher hasher = HASH.newHasher()
+                        .putByte(kind == ConjunctionSymbol.AND ? AND : OR)
+                        .putInt(operands.size());
+                for (HashCode operand : operands.keySet()) {
+                    hasher.putBytes(operand.asBytes());
+                }
+                fingerprint = hasher.hash();
+            }
+            return fingerprint;
+        }
+
+        /**
+         * Return the canonical tree.
+         *
+         * @return the tree
+         */
+        ConditionTree tree() {
+            if(tree == null) {
+                // Build the trees of the nested conjunctions first, deepest
+                // first, so that this doesn't recurse
+                Deque<Term> pending = new ArrayDeque<>();
+                Deque<Term> stack = new ArrayDeque<>();
+                stack.push(this);
+                while (!stack.isEmpty()) {
+                    Term term = stack.pop();
+                    if(term.tree == null) {
+                        pending.push(term);
+                        for (Term operand : term.operands.values()) {
+                            stack.push(operand);
+                        }
+                    }
+                }
+                while (!pending.isEmpty()) {
+                    Term term = pending.pop();
+                    if(term.tree != null) {
+                        continue;
+                    }
+                    ConditionTree tree = null;
+                    for (Map.Entry<HashCode, Term> entry : term.operands
+                            .entrySet()) {
+                        ConditionTree operand = entry.getValue().tree;
+                        tree = tree == null ? operand
+                                : term.kind == ConjunctionSymbol.AND
+                                        ? new AndTree(tree, operand)
+                                        : new OrTree(tree, operand);
+                    }
+                    term.tree = tree;
+                }
+            }
+            return tree;
+        }
+
+    }
+
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.cinchapi.ccl.CachingCompiler.RecordingMultimap;
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+
+/**
+ * A {@link Compiler} that coalesces concurrent requests to
+ * {@link #parse(String, Multimap) parse} the same statement with the same
+ * values for its local variables, so that only the first caller has another
+ * {@link Compiler} parse the statement and the others wait for and share its
+ * result.
+ * <p>
+ * Like a {@link CachingCompiler}, this remembers the local variables (e.g.
+ * {@code $ssn}) that each recently parsed statement resolves from the
+ * {@code data}, so concurrent parses of a statement without variables are
+ * coalesced regardless of the {@code data} and only the values of the
+ * variables are compared otherwise. Before the variables of a statement are
+ * known, callers wait for the first parse and only share its result if they
+ * have the same values for the variables that it resolved.
+ * </p>
+ * <p>
+ * The statements that are being parsed are tracked in a fixed number of
+ * stripes, each of which has its own lock. A lock is only held to register or
+ * remove a statement, never while a statement is parsed, and statements that
+ * hash to different stripes never contend.
+ * </p>
+ * <p>
+ * No {@link AbstractSyntaxTree trees} are remembered once a parse completes,
+ * so this can be combined with a {@link CachingCompiler} either way:
+ * coalescing the misses of a cache (e.g.
+ * {@code Compiler.cache(Compiler.coalesce(compiler), size)}) or coalescing
+ * the lookups of a cache.
+ * </p>
+ * <p>
+ * NOTE: Coalesced callers share the same {@link AbstractSyntaxTree}, so it
+ * must be treated as immutable. If the parse fails, every coalesced caller
+ * gets the same exception.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@ThreadSafe
+public final class CoalescingCompiler extends Compiler {
+
+    /**
+     * The maximum number of statements whose local variables are remembered.
+     */
+    private static final int MAXIMUM_REMEMBERED_STATEMENTS = 4096;
+
+    /**
+     * The {@link Compiler} that parses statements.
+     */
+    private final Compiler compiler;
+
+    /**
+     * The stripes of in-flight parses. Each one is guarded by its own
+     * monitor.
+     */
+    private final Map<Key, CompletableFuture<Flight>>[] stripes;
+
+    /**
+     * A mapping from each recently parsed CCL statement to the names of the
+     * local variables that it references.
+     */
+    private final Cache<String, Set<String>> variables = CacheBuilder
+            .newBuilder().maximumSize(MAXIMUM_REMEMBERED_STATEMENTS).build();
+
+    /**
+     * The number of calls that got the result of a parse by another caller.
+     */
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Construct a new instance.
+     *
+     * @param compiler the {@link Compiler} to which parsing is delegated
+     * @param stripes the minimum number of stripes
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    CoalescingCompiler(Compiler compiler, int stripes) {
+        super(compiler.valueParser, compiler.operatorParser);
+        if(stripes < 1) {
+            throw new IllegalArgumentException(
+                    "The number of stripes must be positive");
+        }
+        this.compiler = compiler;
+        int size = Integer.highestOneBit(stripes);
+        if(size < stripes) {
+            size <<= 1;
+        }
+        this.stripes = new Map[size];
+        for (int i = 0; i < size; ++i) {
+            this.stripes[i] = Maps.newHashMap();
+        }
+    }
+
+    /**
+     * Return the number of calls to {@link #parse(String, Multimap)} that
+     * waited for, or are waiting for, the result of a concurrent call for the
+     * same statement instead of parsing it.
+     *
+     * @return the number of coalesced calls
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    @Override
+    public AbstractSyntaxTree parse(String ccl, Multimap<String, Object> data) {
+        Set<String> vars = variables.getIfPresent(ccl);
+        Key key = new Key(ccl, vars != null ? bind(vars, data)
+                : ImmutableMap.of());
+        Map<Key, CompletableFuture<Flight>> stripe = stripes[spread(
+                key.hashCode()) & (stripes.length - 1)];
+        CompletableFuture<Flight> flight;
+        boolean leader;
+        synchronized (stripe) {
+            flight = stripe.get(key);
+            leader = flight == null;
+            if(leader) {
+                flight = new CompletableFuture<>();
+                stripe.put(key, flight);
+            }
+        }
+        if(leader) {
+            // Record the variables that are resolved while parsing so that
+            // later callers can be keyed by their values.
+            RecordingMultimap recorder = new RecordingMultimap(data);
+            try {
+                AbstractSyntaxTree tree = compiler.parse(ccl, recorder);
+                flight.complete(new Flight(tree, null,
+                        bind(recorder.requested, data)));
+                return tree;
+            }
+            catch (Throwable t) {
+                flight.complete(
+                        new Flight(null, t, bind(recorder.requested, data)));
+                throw t;
+            }
+            finally {
+                variables.put(ccl, ImmutableSet.copyOf(recorder.requested));
+                synchronized (stripe) {
+                    stripe.remove(key);
+                }
+            }
+        }
+        else {
+            coalesced.increment();
+            Flight result = flight.join();
+            if(vars == null && !result.bindings.equals(
+                    bind(result.bindings.keySet(), data))) {
+                // The statement has variables whose values differ from
+                // those of the leader, so the result can't be shared
+                coalesced.decrement();
+                return compiler.parse(ccl, data);
+            }
+            else if(result.error == null) {
+                return result.tree;
+            }
+            else {
+                Throwables.throwIfUnchecked(result.error);
+                throw new IllegalStateException(result.error);
+            }
+        }
+    }
+
+    @Override
+    AbstractSyntaxTree template(String ccl, Multimap<String, Object> data,
+            Function<String, Object> valueParser) {
+        return compiler.template(ccl, data, valueParser);
+    }
+
+    /**
+     * Return the values in the {@code data} for each of the {@code vars}.
+     *
+     * @param vars
+     * @param data
+     * @return the values of the variables
+     */
+    private static ImmutableMap<String, List<Object>> bind(Set<String> vars,
+            Multimap<String, Object> data) {
+        if(vars.isEmpty()) {
+            return ImmutableMap.of();
+        }
+        else {
+            ImmutableMap.Builder<String, List<Object>> bindings = ImmutableMap
+                    .builder();
+            for (String var : vars) {
+                bindings.put(var, Collections
+                        .unmodifiableList(new ArrayList<>(data.get(var))));
+            }
+            return bindings.build();
+        }
+    }
+
+    /**
+     * Spread the bits of the {@code hash} so that the low bits, which select
+     * the stripe, depend on all of them.
+     *
+     * @param hash
+     * @return the spread hash
+     */
+    private static int spread(int hash) {
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        return hash ^ (hash >>> 13);
+    }
+
+    /**
+     * The outcome of a parse that is shared with coalesced callers.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class Flight {
+
+        /**
+         * The parsed tree, if the parse succeeded.
+         */
+        @Nullable
+        private final AbstractSyntaxTree tree;
+
+        /**
+         * The exception that was thrown, if the parse failed.
+         */
+        @Nullable
+        private final Throwable error;
+
+        /**
+         * The values of the variables that were resolved from the leader's
+         * {@code data}.
+         */
+        private final ImmutableMap<String, List<Object>> bindings;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param tree
+         * @param error
+         * @param bindings
+         */
+        Flight(@Nullable AbstractSyntaxTree tree, @Nullable Throwable error,
+                ImmutableMap<String, List<Object>> bindings) {
+            this.tree = tree;
+            this.error = error;
+            this.bindings = bindings;
+        }
+
+    }
+
+    /**
+     * The key for an in-flight parse.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class Key {
+
+        /**
+         * The CCL statement.
+         */
+        private final String ccl;
+
+        /**
+         * The value of each variable that the {@link #ccl} is known to
+         * reference.
+         */
+        private final ImmutableMap<String, List<Object>> bindings;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param ccl
+         * @param bindings
+         */
+        Key(String ccl, ImmutableMap<String, List<Object>> bindings) {
+            this.ccl = ccl;
+            this.bindings = bindings;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(obj instanceof Key) {
+                return ccl.equals(((Key) obj).ccl)
+                        && bindings.equals(((Key) obj).bindings);
+            }
+            else {
+                return false;
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return bindings.isEmpty() ? ccl.hashCode()
+                    : Objects.hash(ccl, bindings);
+        }
+
+    }
+
+}
@@ -15,13 +15,35 @@
  */
 package com.cinchapi.ccl;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Queue;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
+import com.cinchapi.ccl.generated.GrammarConstants;
 import com.cinchapi.ccl.grammar.CommandSymbol;
 import com.cinchapi.ccl.grammar.ConjunctionSymbol;
 import com.cinchapi.ccl.grammar.ExpressionSymbol;
@@ -31,24 +53,33 @@ import com.cinchapi.ccl.grammar.ParenthesisSymbol;
 import com.cinchapi.ccl.grammar.PostfixNotationSymbol;
 import com.cinchapi.ccl.grammar.Symbol;
 import com.cinchapi.ccl.grammar.TimestampSymbol;
+import com.cinchapi.ccl.grammar.ValueSymbol;
 import com.cinchapi.ccl.grammar.ValueTokenSymbol;
+import com.cinchapi.ccl.grammar.VariableSymbol;
 import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.cinchapi.ccl.syntax.AndTree;
 import com.cinchapi.ccl.syntax.CommandTree;
 import com.cinchapi.ccl.syntax.ConditionTree;
 import com.cinchapi.ccl.syntax.ConjunctionTree;
 import com.cinchapi.ccl.syntax.ExpressionTree;
-import com.cinchapi.ccl.syntax.FunctionTree;
 import com.cinchapi.ccl.syntax.OrTree;
-import com.cinchapi.ccl.syntax.OrderTree;
-import com.cinchapi.ccl.syntax.PageTree;
+import com.cinchapi.ccl.syntax.TreeCursor;
 import com.cinchapi.ccl.syntax.Visitor;
 import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.ccl.util.NaturalLanguage;
+import com.cinchapi.common.base.AnyStrings;
 import com.cinchapi.common.base.Verify;
 import com.cinchapi.common.function.TriFunction;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.RangeSet;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * A {@link Compiler} transforms a CCL statement into an
@@ -69,9 +100,140 @@ public abstract class Compiler {
      */
     public static Compiler create(Function<String, Object> valueParser,
             Function<String, Operator> operatorParser) {
-        return new CompilerJavaCC(valueParser, operatorParser);
+        return create(valueParser, operatorParser, Engine.JAVACC);
     }
 
+    /**
+     * Create a {@link Compiler} that uses the specified {@link Engine} to
+     * parse CCL statements into intermediate formats for logical evaluation.
+     *
+     * @param valueParser a {@link Function} that parses values appropriately
+     * @param operatorParser a {@link Function} that parses {@link Operator
+     *            operators} appropriately
+     * @param engine the {@link Engine} that parses statements
+     * @return the {@link Compiler}
+     */
+    public static Compiler create(Function<String, Object> valueParser,
+            Function<String, Operator> operatorParser, Engine engine) {
+        switch (engine) {
+        case RECURSIVE_DESCENT:
+            return new CompilerRecursiveDescent(valueParser, operatorParser);
+        case JAVACC:
+        default:
+            return new CompilerJavaCC(valueParser, operatorParser);
+        }
+    }
+
+    /**
+     * Return a {@link CachingCompiler} that remembers up to
+     * {@code maximumSize} of the {@link AbstractSyntaxTree trees} that are
+     * parsed by the {@code compiler}.
+     *
+     * @param compiler the {@link Compiler} that parses statements that aren't
+     *            cached
+     * @param maximumSize the maximum number of cached trees
+     * @return the {@link CachingCompiler}
+     */
+    public static CachingCompiler cache(Compiler compiler, long maximumSize) {
+        return new CachingCompiler(compiler, maximumSize, false);
+    }
+
+    /**
+     * Return a {@link CachingCompiler} that remembers the
+     * {@link AbstractSyntaxTree trees} that are parsed by the
+     * {@code compiler} as long as the combined length of the cached
+     * statements does not exceed {@code maximumWeight}.
+     *
+     * @param compiler the {@link Compiler} that parses statements that aren't
+     *            cached
+     * @param maximumWeight the maximum number of characters across all the
+     *            cached statements
+     * @return the {@link CachingCompiler}
+     */
+    public static CachingCompiler cacheByWeight(Compiler compiler,
+            long maximumWeight) {
+        return new CachingCompiler(compiler, maximumWeight, true);
+    }
+
+    /**
+     * Return an {@link ExecutorService} for
+     * {@link #parseAsync(String, Executor) asynchronous parsing} with a fixed
+     * number of daemon {@code threads} and a queue that holds at most
+     * {@code capacity} pending tasks.
+     * <p>
+     * When the queue is full, a submitted task runs on the thread that
+     * submits it, so callers that produce statements faster than they can be
+     * parsed are slowed down instead of growing the queue without bound.
+     * </p>
+     *
+     * @param threads the number of worker threads
+     * @param capacity the maximum number of pending tasks
+     * @return the {@link ExecutorService}
+     */
+    public static ExecutorService executor(int threads, int capacity) {
+        return new ThreadPoolExecutor(threads, threads, 0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                new ThreadFactoryBuilder().setDaemon(true)
+                        .setNameFormat("ccl-parser-%d").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Return a {@link CoalescingCompiler} that lets concurrent requests to
+     * parse the same statement share a single parse by the {@code compiler}.
+     *
+     * @param compiler the {@link Compiler} that parses statements
+     * @return the {@link CoalescingCompiler}
+     */
+    public static CoalescingCompiler coalesce(Compiler compiler) {
+        return coalesce(compiler,
+                4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Return a {@link CoalescingCompiler} that lets concurrent requests to
+     * parse the same statement share a single parse by the {@code compiler}
+     * and tracks in-flight parses in at least {@code stripes} independently
+     * locked stripes.
+     *
+     * @param compiler the {@link Compiler} that parses statements
+     * @param stripes the minimum number of stripes, which is rounded up to a
+     *            power of two
+     * @return the {@link CoalescingCompiler}
+     */
+    public static CoalescingCompiler coalesce(Compiler compiler,
+            int stripes) {
+        return new CoalescingCompiler(compiler, stripes);
+    }
+
+    /**
+     * Return a {@link PersistentCompiler} that keeps the
+     * {@link AbstractSyntaxTree trees} that are parsed by the
+     * {@code compiler} in the {@code store}, so that statements that were
+     * parsed before a restart are loaded from the {@code store} instead of
+     * being parsed again.
+     *
+     * @param compiler the {@link Compiler} that parses statements that aren't
+     *            stored
+     * @param store the {@link StatementStore}
+     * @return the {@link PersistentCompiler}
+     */
+    public static PersistentCompiler persist(Compiler compiler,
+            StatementStore store) {
+        return new PersistentCompiler(compiler, store);
+    }
+
+    /**
+     * The kinds of tokens that are joined to form a timestamp.
+     */
+    private static final long TIMESTAMP_WORDS = (1L << GrammarConstants.QUOTED_STRING)
+            | (1L << GrammarConstants.SIGNED_INTEGER)
+            | (1L << GrammarConstants.SIGNED_DECIMAL)
+            | (1L << GrammarConstants.NUMERIC)
+            | (1L << GrammarConstants.ALPHANUMERIC)
+            | (1L << GrammarConstants.NON_ALPHANUMERIC_AND_ALPHANUMERIC);
+
     /**
      * A function that transforms the string representation of an operator into
      * the appropriate {@link Operator} object.
@@ -84,6 +246,12 @@ public abstract class Compiler {
      */
     protected Function<String, Object> valueParser;
 
+    /**
+     * The {@link CompilerListener} that is notified about each statement that
+     * is parsed.
+     */
+    protected volatile CompilerListener listener = CompilerListener.NOOP;
+
     /**
      * Construct a new instance.
      * 
@@ -126,6 +294,180 @@ public abstract class Compiler {
     public abstract AbstractSyntaxTree parse(String ccl,
             Multimap<String, Object> data);
 
+    /**
+     * Asynchronously {@link #parse(String) parse} the {@code ccl} statement
+     * in the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param ccl the CCL statement to parse
+     * @return a {@link CompletableFuture} for the {@link AbstractSyntaxTree}
+     *         that represents the CCL statement
+     */
+    public final CompletableFuture<AbstractSyntaxTree> parseAsync(
+            String ccl) {
+        return parseAsync(ccl, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Asynchronously {@link #parse(String) parse} the {@code ccl} statement
+     * with the {@code executor}.
+     *
+     * @param ccl the CCL statement to parse
+     * @param executor the {@link Executor} that parses the statement (e.g. a
+     *            {@link #executor(int, int) bounded executor} or one that
+     *            starts a virtual thread for each task)
+     * @return a {@link CompletableFuture} for the {@link AbstractSyntaxTree}
+     *         that represents the CCL statement
+     */
+    public final CompletableFuture<AbstractSyntaxTree> parseAsync(String ccl,
+            Executor executor) {
+        return CompletableFuture.supplyAsync(() -> parse(ccl), executor);
+    }
+
+    /**
+     * Asynchronously {@link #parse(String) parse} all the {@code statements}
+     * in the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param statements the CCL statements to parse
+     * @return a {@link CompletableFuture} for the
+     *         {@link AbstractSyntaxTree trees} that represent the
+     *         {@code statements}, in the same order
+     * @see #parseAll(Collection, Executor)
+     */
+    public final CompletableFuture<List<AbstractSyntaxTree>> parseAll(
+            Collection<String> statements) {
+        return parseAll(statements, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Asynchronously {@link #parse(String) parse} all the {@code statements}
+     * with the {@code executor}.
+     * <p>
+     * The {@code statements} are divided into a few batches and each task
+     * parses a whole batch, so a parser that is warmed up on a worker thread
+     * is reused for every statement in the batch and there are only a few
+     * tasks, regardless of how many statements there are. If any statement
+     * can't be parsed, the returned {@link CompletableFuture} completes
+     * exceptionally.
+     * </p>
+     *
+     * @param statements the CCL statements to parse
+     * @param executor the {@link Executor} that parses the statements (e.g. a
+     *            {@link #executor(int, int) bounded executor} or one that
+     *            starts a virtual thread for each task)
+     * @return a {@link CompletableFuture} for the
+     *         {@link AbstractSyntaxTree trees} that represent the
+     *         {@code statements}, in the same order
+     */
+    public final CompletableFuture<List<AbstractSyntaxTree>> parseAll(
+            Collection<String> statements, Executor executor) {
+        List<String> ccls = ImmutableList.copyOf(statements);
+        AbstractSyntaxTree[] trees = new AbstractSyntaxTree[ccls.size()];
+        int batches = Math.min(ccls.size(),
+                4 * Runtime.getRuntime().availableProcessors());
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[batches];
+        for (int i = 0; i < batches; ++i) {
+            int from = (int) ((long) i * ccls.size() / batches);
+            int to = (int) ((long) (i + 1) * ccls.size() / batches);
+            futures[i] = CompletableFuture.runAsync(() -> {
+                for (int j = from; j < to; ++j) {
+                    trees[j] = parse(ccls.get(j));
+                }
+            }, executor);
+        }
+        // The completion of all the batches happens-before the trees are
+        // read
+        return CompletableFuture.allOf(futures)
+                .thenApply(ignored -> Collections
+                        .unmodifiableList(Arrays.asList(trees)));
+    }
+
+    /**
+     * Parse the {@code ccl} statement, which may contain positional
+     * parameters (e.g. {@code name = ? and age > ?}), into a
+     * {@link PreparedStatement} that can be repeatedly
+     * {@link PreparedStatement#bind(Object...) bound} to values without being
+     * parsed again.
+     *
+     * @param ccl the CCL statement to prepare
+     * @return a {@link PreparedStatement} for the CCL statement
+     */
+    public final PreparedStatement prepare(String ccl) {
+        return prepare(ccl, ImmutableMultimap.of());
+    }
+
+    /**
+     * Parse the {@code ccl} statement, which may contain positional
+     * parameters (e.g. {@code name = ? and age > ?}), into a
+     * {@link PreparedStatement} that can be repeatedly
+     * {@link PreparedStatement#bind(Object...) bound} to values without being
+     * parsed again.
+     * <p>
+     * The provided {@code data} will be used to perform local resolution of any
+     * variable values in the CCL statement when it is prepared. Any variable
+     * that has no value in the {@code data} is kept in the tree as a
+     * {@link VariableSymbol} that is resolved when the tree is
+     * {@link #bind(AbstractSyntaxTree, Multimap) bound} or
+     * {@link #evaluate(ConditionTree, Multimap, TriFunction) evaluated}, so
+     * the statement only needs to be parsed once regardless of how many
+     * datasets it is resolved against.
+     * </p>
+     *
+     * @param ccl the CCL statement to prepare
+     * @param data data that can be used to perform local resolution of any
+     *            value variables (e.g. ssn = $ssn) in the CCL statement
+     * @return a {@link PreparedStatement} for the CCL statement
+     */
+    public final PreparedStatement prepare(String ccl,
+            Multimap<String, Object> data) {
+        return new PreparedStatement(this, ccl, data);
+    }
+
+    /**
+     * Parse the {@code ccl} statement into a template
+     * {@link AbstractSyntaxTree}, the same way that
+     * {@link #parse(String, Multimap)} would, except that each value is
+     * transformed by the provided {@code valueParser} and each local variable
+     * that has no value in the {@code data} is kept in the tree as a
+     * {@link VariableSymbol} instead of causing a {@link SyntaxException}.
+     * Variables within a function condition must still be resolved.
+     * <p>
+     * A template is never cached, so the {@code valueParser} is called for
+     * each value in the statement. Compilers that delegate to another one
+     * should forward this method to the delegate.
+     * </p>
+     *
+     * @param ccl the CCL statement to parse
+     * @param data data that can be used to perform local resolution of any
+     *            value variables in the CCL statement
+     * @param valueParser the function that transforms the values in the
+     *            statement
+     * @return the template {@link AbstractSyntaxTree}
+     */
+    AbstractSyntaxTree template(String ccl, Multimap<String, Object> data,
+            Function<String, Object> valueParser) {
+        return new CompilerRecursiveDescent(valueParser, operatorParser)
+                .template(ccl, data, valueParser);
+    }
+
+    /**
+     * Return a copy of the {@code tree} with each {@link VariableSymbol}
+     * resolved from the {@code data}. Any part of the {@code tree} that doesn't
+     * contain a {@link VariableSymbol} is reused.
+     *
+     * @param tree the {@link AbstractSyntaxTree} to bind
+     * @param data the data that is used to resolve local variables
+     * @return an {@link AbstractSyntaxTree} without any {@link VariableSymbol
+     *         VariableSymbols} outside of function conditions
+     * @throws SyntaxException if a variable doesn't have exactly one value in
+     *             the {@code data}
+     */
+    public final AbstractSyntaxTree bind(AbstractSyntaxTree tree,
+            Multimap<String, Object> data) {
+        return replace(tree, symbol -> symbol instanceof VariableSymbol
+                ? resolve((VariableSymbol) symbol, data)
+                : symbol);
+    }
+
     /**
      * Return {@link StatementAnalysis analysis} about the {@link ConditionTree
      * tree}.
@@ -186,6 +528,11 @@ public abstract class Compiler {
                 return operators;
             }
 
+            @Override
+            public Map<String, RangeSet<Double>> ranges() {
+                return Collections.unmodifiableMap(RangeFusion.ranges(tree));
+            }
+
             private List<Symbol> $tokens() {
                 if(tokens == null) {
                     tokens = tokenize(tree);
@@ -196,6 +543,86 @@ public abstract class Compiler {
         };
     }
 
+    /**
+     * Return the canonical form of the {@code tree}, which is the same for
+     * every spelling of the condition that only differs in the order or
+     * nesting of the operands of its conjunctions, duplicate operands,
+     * operator aliases (e.g. {@code eq} instead of {@code =}) or the numeric
+     * type of its values.
+     * <p>
+     * Each conjunction in the canonical form is a left-deep chain of its
+     * distinct operands, sorted by their {@link #fingerprint(ConditionTree)
+     * fingerprint}.
+     * </p>
+     *
+     * @param tree the {@link ConditionTree} to canonicalize
+     * @return the canonical {@link ConditionTree}
+     */
+    public final ConditionTree canonicalize(ConditionTree tree) {
+        return new Canonicalizer(operatorParser).canonicalize(tree);
+    }
+
+    /**
+     * Return a stable, 128-bit fingerprint of the
+     * {@link #canonicalize(ConditionTree) canonical form} of the
+     * {@code tree}.
+     * <p>
+     * The fingerprint is computed from the structure, keys, operators,
+     * timestamps and typed values of the condition instead of its string
+     * form, and is the same in every process, so it is suitable as a cache
+     * key, to deduplicate statements or as a metrics label.
+     * </p>
+     *
+     * @param tree the {@link ConditionTree} to fingerprint
+     * @return the fingerprint
+     */
+    public final HashCode fingerprint(ConditionTree tree) {
+        return new Canonicalizer(operatorParser).fingerprint(tree);
+    }
+
+    /**
+     * Rewrite the {@code tree} into a logically equivalent
+     * {@link ConditionTree} that is cheaper to evaluate.
+     * <p>
+     * Nested conjunctions of the same kind are flattened, duplicate operands
+     * (e.g. {@code a = 1 or a = 1}) are removed and absorbed operands (e.g.
+     * the second operand of {@code a = 1 or (a = 1 and b = 2)}) are dropped.
+     * If the condition reduces to a constant, the returned
+     * {@link Optimization} indicates whether it is
+     * {@link Optimization#isAlwaysTrue() always true} or
+     * {@link Optimization#isAlwaysFalse() always false}.
+     * </p>
+     *
+     * @param tree the {@link ConditionTree} to optimize
+     * @return the {@link Optimization}
+     */
+    public final Optimization optimize(ConditionTree tree) {
+        return optimize(tree, Collections.emptySet());
+    }
+
+    /**
+     * Rewrite the {@code tree} into a logically equivalent
+     * {@link ConditionTree} that is cheaper to evaluate, like
+     * {@link #optimize(ConditionTree)} does, given that each of the
+     * {@code singleValuedKeys} has exactly one value in every record.
+     * <p>
+     * Expressions on a single-valued key can be compared with each other, so
+     * an {@code AND} of expressions on the key that can't be satisfied by the
+     * same value (e.g. {@code a = 1 and a = 2}, or {@code a = 1 and a != 1})
+     * is always false, and an {@code OR} of an expression and its negation
+     * (e.g. {@code a > 1 or a <= 1}) is always true.
+     * </p>
+     *
+     * @param tree the {@link ConditionTree} to optimize
+     * @param singleValuedKeys the keys that have exactly one value in every
+     *            record
+     * @return the {@link Optimization}
+     */
+    public final Optimization optimize(ConditionTree tree,
+            Set<String> singleValuedKeys) {
+        return new Optimizer(singleValuedKeys).optimize(tree);
+    }
+
     /**
      * Return {@code true} if the {@code data} is described by the condition
      * encapsulated in the {@code tree}.
@@ -213,152 +640,883 @@ public abstract class Compiler {
     public final boolean evaluate(ConditionTree tree,
             Multimap<String, Object> data,
             TriFunction<Object, Operator, List<Object>, Boolean> evaluator) {
-        Visitor<Boolean> visitor = new ConditionTreeVisitor<Boolean>() {
+        // Conjunctions are evaluated with an explicit stack of the operands
+        // that remain to be tested, so the depth of the tree doesn't affect
+        // the depth of the call stack
+        Deque<Iterator<ConditionTree>> stack = new ArrayDeque<>();
+        Deque<Boolean> kinds = new ArrayDeque<>();
+        ConditionTree next = tree;
+        boolean result;
+        for (;;) {
+            if(next instanceof ConjunctionTree) {
+                List<ConditionTree> operands = ((ConjunctionTree) next)
+                        .operands();
+                boolean and = next.root() == ConjunctionSymbol.AND;
+                Iterator<ConditionTree> it = and
+                        // Test the leaves, which are cheap, before any
+                        // subtrees
+                        ? Iterators.concat(
+                                Iterators.filter(operands.iterator(),
+                                        ConditionTree::isLeaf),
+                                Iterators.filter(operands.iterator(),
+                                        operand -> !operand.isLeaf()))
+                        : operands.iterator();
+                stack.push(it);
+                kinds.push(and);
+                next = it.next();
+                continue;
+            }
+            result = evaluate((ExpressionTree) next, data, evaluator);
+            next = null;
+            while (next == null && !stack.isEmpty()) {
+                boolean and = kinds.peek();
+                Iterator<ConditionTree> it = stack.peek();
+                if(result != and || !it.hasNext()) {
+                    // The conjunction is decided by the last operand: an AND
+                    // with a false operand or an OR with a true one is
+                    // short-circuited, and otherwise the last operand is the
+                    // same as the result
+                    stack.pop();
+                    kinds.pop();
+                }
+                else {
+                    next = it.next();
+                }
+            }
+            if(next == null) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Return {@code true} if any value of the key in the {@code data}
+     * satisfies the expression in the {@code tree}.
+     *
+     * @param tree
+     * @param data
+     * @param evaluator
+     * @return {@code true} if the expression is satisfied
+     */
+    private boolean evaluate(ExpressionTree tree, Multimap<String, Object> data,
+            TriFunction<Object, Operator, List<Object>, Boolean> evaluator) {
+        ExpressionSymbol expression = ((ExpressionSymbol) tree.root());
+        String key = expression.raw().key();
+        Operator operator = expression.raw().operator();
+        List<Object> values = values(expression, data);
+        for (Object stored : data.get(key)) {
+            if(evaluator.apply(stored, operator, values)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return {@code true} if the {@code data} is described by the condition
+     * that was {@link #assemble(ConditionTree) assembled} into the
+     * {@code program}.
+     * <p>
+     * This is equivalent to
+     * {@link #evaluate(ConditionTree, Multimap, TriFunction) evaluating} the
+     * {@link ConditionTree} that the {@code program} was assembled from, but
+     * the {@code program} is executed without traversing a tree or allocating
+     * any objects, unless it contains {@link VariableSymbol VariableSymbols}.
+     * </p>
+     *
+     * @param program the {@link Program} that represents the condition
+     * @param data the data to test for adherences to the condition
+     * @param evaluator a {@link TriFunction} that takes a consideration value,
+     *            {@link Operator}, and list of reference values as input and
+     *            returns a boolean that indicates whether the consideration
+     *            value satisfies the {@link Operator} in relation to the
+     *            reference values
+     * @return {@code true} if the data is described by the condition
+     */
+    public final boolean evaluate(Program program,
+            Multimap<String, Object> data,
+            TriFunction<Object, Operator, List<Object>, Boolean> evaluator) {
+        return program.execute(index -> {
+            Operator operator = program.operator(index);
+            List<Object> values = program.values(index);
+            if(program.hasVariables(index)) {
+                List<Object> resolved = Lists
+                        .newArrayListWithCapacity(values.size());
+                for (Object value : values) {
+                    resolved.add(value instanceof VariableSymbol
+                            ? resolve((VariableSymbol) value, data).value()
+                            : value);
+                }
+                values = resolved;
+            }
+            for (Object stored : data.get(program.key(index))) {
+                if(evaluator.apply(stored, operator, values)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Evaluate the condition encapsulated in the {@code tree} against a batch
+     * of {@code rows} records that are stored in columnar form and return a
+     * bitset with a bit set for each record that is described by the
+     * condition.
+     * <p>
+     * The {@code columns} function returns the values that are stored for a
+     * key, indexed by row, with a {@code null} element for each record that
+     * doesn't have a value for the key. It may return {@code null} if no
+     * record has a value for the key. Each expression is evaluated in a single
+     * loop over its column, and the bitsets are combined word by word. The
+     * records that have already been ruled in or out by the left operand of a
+     * conjunction aren't evaluated against the right operand. Any
+     * {@link VariableSymbol VariableSymbols} are resolved from the column for
+     * the variable in each row.
+     * </p>
+     *
+     * @param tree the {@link ConditionTree} that represents the condition
+     * @param columns a {@link Function} that returns the column of values for
+     *            a key
+     * @param rows the number of records in the batch
+     * @param evaluator a {@link TriFunction} that takes a consideration value,
+     *            {@link Operator}, and list of reference values as input and
+     *            returns a boolean that indicates whether the consideration
+     *            value satisfies the {@link Operator} in relation to the
+     *            reference values
+     * @return a bitset, in the format of {@link java.util.BitSet#toLongArray()}
+     *         but with {@code (rows + 63) / 64} words, where bit {@code i}
+     *         is set if record {@code i} is described by the condition
+     */
+    public final long[] evaluate(ConditionTree tree,
+            Function<String, Object[]> columns, int rows,
+            TriFunction<Object, Operator, List<Object>, Boolean> evaluator) {
+        Verify.thatArgument(rows >= 0, "The number of rows cannot be negative");
+        Visitor<long[]> visitor = new ConditionTreeVisitor<long[]>() {
 
             @Override
-            public Boolean visit(ConjunctionTree tree, Object... data) {
+            public long[] visit(ConjunctionTree tree, Object... data) {
+                long[] mask = (long[]) data[0];
+                List<ConditionTree> operands = tree.operands();
+                long[] matches = operands.get(0).accept(this, mask);
                 if(tree.root() == ConjunctionSymbol.AND) {
-                    boolean a = false;
-                    AbstractSyntaxTree bTree;
-                    if(!tree.left().isLeaf() && tree.right().isLeaf()) {
-                        a = tree.right().accept(this, data);
-                        bTree = tree.left();
-                    }
-                    else {
-                        a = tree.left().accept(this, data);
-                        bTree = tree.right();
+                    // Each operand is only evaluated for the rows that
+                    // satisfy all the previous ones
+                    for (int i = 1; i < operands.size(); ++i) {
+                        long[] next = operands.get(i).accept(this, matches);
+                        for (int j = 0; j < matches.length; ++j) {
+                            matches[j] &= next[j];
+                        }
                     }
-                    return !a ? false : bTree.accept(this, data) && a;
                 }
                 else {
-                    return tree.left().accept(this, data)
-                            || tree.right().accept(this, data);
+                    // Each operand is only evaluated for the rows that don't
+                    // satisfy any of the previous ones
+                    long[] remaining = new long[mask.length];
+                    for (int i = 1; i < operands.size(); ++i) {
+                        for (int j = 0; j < mask.length; ++j) {
+                            remaining[j] = mask[j] & ~matches[j];
+                        }
+                        long[] next = operands.get(i).accept(this, remaining);
+                        for (int j = 0; j < matches.length; ++j) {
+                            matches[j] |= next[j];
+                        }
+                    }
                 }
+                return matches;
             }
 
-            @SuppressWarnings("unchecked")
             @Override
-            public Boolean visit(ExpressionTree tree, Object... data) {
-                Verify.thatArgument(data.length > 0);
-                Verify.thatArgument(data[0] instanceof Multimap);
-                Multimap<String, Object> dataset = (Multimap<String, Object>) data[0];
+            public long[] visit(ExpressionTree tree, Object... data) {
+                long[] mask = (long[]) data[0];
+                long[] matches = new long[mask.length];
                 ExpressionSymbol expression = ((ExpressionSymbol) tree.root());
-                String key = expression.raw().key();
+                Object[] column = columns.apply(expression.raw().key());
+                if(column == null) {
+                    return matches;
+                }
                 Operator operator = expression.raw().operator();
-                List<Object> values = expression.raw().values();
-                boolean matches = false;
-                for (Object stored : dataset.get(key)) {
-                    if(evaluator.apply(stored, operator, values)) {
-                        matches = true;
-                        break;
-                    }
-                    else {
-                        continue;
+                List<ValueTokenSymbol<?>> symbols = expression.values();
+                boolean variables = symbols.stream()
+                        .anyMatch(symbol -> symbol instanceof VariableSymbol);
+                List<Object> values = variables ? null
+                        : Collections.unmodifiableList(
+                                expression.raw().values());
+                for (int w = 0; w < mask.length; ++w) {
+                    long word = mask[w];
+                    while (word != 0) {
+                        int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                        Object value = column[row];
+                        if(value != null && evaluator.apply(value, operator,
+                                variables ? values(symbols, columns, row)
+                                        : values)) {
+                            matches[w] |= 1L << row;
+                        }
                     }
                 }
                 return matches;
             }
 
         };
-        return tree.accept(visitor, data);
+        long[] mask = new long[(rows + 63) >>> 6];
+        Arrays.fill(mask, -1L);
+        if((rows & 63) != 0) {
+            mask[mask.length - 1] = (1L << rows) - 1;
+        }
+        return tree.accept(visitor, mask);
     }
 
     /**
-     * Traverse the {@code ast} in breadth-first order and break up its nodes
-     * into distinct {@link Symbol symbols} (i.e. separate an
-     * {@link ExpressionSymbol} into its distinct parts}.
-     * 
-     * @param ast
-     * @return the list of {@link Symbol symbols} in the {@code ast}
+     * Compile the {@code tree} into a {@link Predicate} that returns
+     * {@code true} if the data that is passed to it is described by the
+     * condition encapsulated in the {@code tree}.
+     * <p>
+     * The {@code tree} is only traversed once, to resolve the key, operator
+     * and values of each expression, so testing data against the returned
+     * {@link Predicate} doesn't allocate any objects (other than those that are
+     * allocated by the {@code evaluator} and the {@link Multimap} itself) unless
+     * the {@code tree} contains {@link VariableSymbol VariableSymbols}, which
+     * must be resolved from each dataset. The {@link Predicate} is thread-safe
+     * as long as the {@code evaluator} is. It is equivalent to calling
+     * {@link #evaluate(ConditionTree, Multimap, TriFunction)}, which should be
+     * preferred when a condition is only tested once.
+     * </p>
+     *
+     * @param tree the {@link ConditionTree} that represents the condition
+     * @param evaluator a {@link TriFunction} that takes a consideration value,
+     *            {@link Operator}, and list of reference values as input and
+     *            returns a boolean that indicates whether the consideration
+     *            value satisfies the {@link Operator} in relation to the
+     *            reference values
+     * @return a {@link Predicate} that tests data against the condition
      */
-    public final List<Symbol> tokenize(AbstractSyntaxTree ast) {
-        Visitor<List<Symbol>> visitor = new Visitor<List<Symbol>>() {
+    public final Predicate<Multimap<String, Object>> compile(ConditionTree tree,
+            TriFunction<Object, Operator, List<Object>, Boolean> evaluator) {
+        return compile(tree, expression -> {
+            String key = expression.raw().key();
+            Operator operator = expression.raw().operator();
+            if(expression.values().stream()
+                    .anyMatch(value -> value instanceof VariableSymbol)) {
+                return dataset -> matches(dataset.get(key), operator,
+                        values(expression, dataset), evaluator);
+            }
+            else {
+                List<Object> values = Collections
+                        .unmodifiableList(expression.raw().values());
+                return dataset -> matches(dataset.get(key), operator, values,
+                        evaluator);
+            }
+        });
+    }
 
-            @SuppressWarnings("unchecked")
-            @Override
-            public List<Symbol> visit(CommandTree tree, Object... data) {
-                List<Symbol> symbols = (List<Symbol>) data[0];
-                if(tree.root() != CommandSymbol.IMPLICIT) {
-                    symbols.add(tree.root());
-                }
-                for (AbstractSyntaxTree child : tree.children()) {
-                    symbols = child.accept(this, data);
-                }
-                return symbols;
+    /**
+     * Compile the {@code tree} into a {@link Predicate} like
+     * {@link #compile(ConditionTree, TriFunction)} does, but test each value
+     * with the primitive specialization of the {@code evaluator} that matches
+     * the type of the value and the values of the expression.
+     * <p>
+     * The values of each expression are classified when the {@code tree} is
+     * compiled, so a numeric comparison between an integral value and integral
+     * values calls {@link Evaluator#evaluate(long, Operator, long[])}, any
+     * other numeric comparison calls
+     * {@link Evaluator#evaluate(double, Operator, double[])}, and a comparison
+     * between strings calls
+     * {@link Evaluator#evaluate(CharSequence, Operator, CharSequence[])},
+     * without boxing the operands or the result.
+     * </p>
+     *
+     * @param tree the {@link ConditionTree} that represents the condition
+     * @param evaluator the {@link Evaluator} that determines whether a value
+     *            satisfies an {@link Operator} in relation to the reference
+     *            values
+     * @return a {@link Predicate} that tests data against the condition
+     */
+    public final Predicate<Multimap<String, Object>> compile(ConditionTree tree,
+            Evaluator evaluator) {
+        return compile(tree, expression -> {
+            if(expression.values().stream()
+                    .anyMatch(value -> value instanceof VariableSymbol)) {
+                String key = expression.raw().key();
+                Operator operator = expression.raw().operator();
+                return dataset -> matches(dataset.get(key), operator,
+                        values(expression, dataset), evaluator::evaluate);
             }
+            else {
+                return new SpecializedExpression(expression, evaluator);
+            }
+        });
+    }
+
+    /**
+     * Compile the {@code tree} into a {@link Predicate} that combines the
+     * {@link Predicate Predicates} that the {@code leaves} function returns
+     * for each expression.
+     *
+     * @param tree
+     * @param leaves
+     * @return a {@link Predicate} that tests data against the condition
+     */
+    private Predicate<Multimap<String, Object>> compile(ConditionTree tree,
+            Function<ExpressionSymbol, Predicate<Multimap<String, Object>>> leaves) {
+        Visitor<Predicate<Multimap<String, Object>>> visitor = new ConditionTreeVisitor<Predicate<Multimap<String, Object>>>() {
 
-            @SuppressWarnings("unchecked")
             @Override
-            public List<Symbol> visit(ConjunctionTree tree, Object... data) {
-                List<Symbol> symbols = (List<Symbol>) data[0];
-                if(tree.root() == ConjunctionSymbol.OR) {
-                    symbols = tree.left().accept(this, data);
-                    symbols.add(tree.root());
-                    symbols = tree.right().accept(this, data);
+            public Predicate<Multimap<String, Object>> visit(
+                    ConjunctionTree tree, Object... data) {
+                List<ConditionTree> operands = tree.operands();
+                if(tree.root() == ConjunctionSymbol.AND) {
+                    // Mirror #evaluate by testing the leaves before the
+                    // subtrees
+                    List<ConditionTree> ordered = Lists
+                            .newArrayListWithCapacity(operands.size());
+                    operands.stream().filter(ConditionTree::isLeaf)
+                            .forEach(ordered::add);
+                    operands.stream().filter(operand -> !operand.isLeaf())
+                            .forEach(ordered::add);
+                    Predicate<Multimap<String, Object>>[] predicates = predicates(
+                            ordered);
+                    if(predicates.length == 2) {
+                        Predicate<Multimap<String, Object>> a = predicates[0];
+                        Predicate<Multimap<String, Object>> b = predicates[1];
+                        return dataset -> a.test(dataset) && b.test(dataset);
+                    }
+                    else {
+                        return dataset -> {
+                            for (Predicate<Multimap<String, Object>> predicate : predicates) {
+                                if(!predicate.test(dataset)) {
+                                    return false;
+                                }
+                            }
+                            return true;
+                        };
+                    }
                 }
                 else {
-                    for (AbstractSyntaxTree child : tree.children()) {
-                        boolean parenthesis = false;
-                        if(child instanceof OrTree) {
-                            symbols.add(ParenthesisSymbol.LEFT);
-                            parenthesis = true;
-                        }
-                        symbols = child.accept(this, data);
-                        if(parenthesis) {
-                            symbols.add(ParenthesisSymbol.RIGHT);
-                            parenthesis = false;
-                        }
-                        symbols.add(tree.root());
+                    Predicate<Multimap<String, Object>>[] predicates = predicates(
+                            operands);
+                    if(predicates.length == 2) {
+                        Predicate<Multimap<String, Object>> a = predicates[0];
+                        Predicate<Multimap<String, Object>> b = predicates[1];
+                        return dataset -> a.test(dataset) || b.test(dataset);
+                    }
+                    else {
+                        return dataset -> {
+                            for (Predicate<Multimap<String, Object>> predicate : predicates) {
+                                if(predicate.test(dataset)) {
+                                    return true;
+                                }
+                            }
+                            return false;
+                        };
                     }
-                    symbols.remove(symbols.size() - 1); // remove dangling root
-                                                        // symbol
                 }
-                return symbols;
             }
 
-            @SuppressWarnings("unchecked")
+            /**
+             * Return the compiled {@link Predicate} for each of the
+             * {@code operands}.
+             *
+             * @param operands
+             * @return the {@link Predicate Predicates}
+             */
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            private Predicate<Multimap<String, Object>>[] predicates(
+                    List<ConditionTree> operands) {
+                Predicate<Multimap<String, Object>>[] predicates = new Predicate[operands
+                        .size()];
+                for (int i = 0; i < predicates.length; ++i) {
+                    predicates[i] = operands.get(i).accept(this);
+                }
+                return predicates;
+            }
+
             @Override
-            public List<Symbol> visit(ExpressionTree tree, Object... data) {
-                List<Symbol> symbols = (List<Symbol>) data[0];
-                ExpressionSymbol root = (ExpressionSymbol) tree.root();
-                symbols.add(root.key());
-                symbols.add(root.operator());
-                for (ValueTokenSymbol<?> symbol : root.values()) {
-                    symbols.add(symbol);
+            public Predicate<Multimap<String, Object>> visit(
+                    ExpressionTree tree, Object... data) {
+                return leaves.apply((ExpressionSymbol) tree.root());
+            }
+
+        };
+        return tree.accept(visitor);
+    }
+
+    /**
+     * Compile the {@code tree} into a {@link Predicate} like
+     * {@link #compile(ConditionTree, TriFunction)} does, but evaluate the
+     * operands of each {@code AND} and {@code OR} in the order that is
+     * expected to short circuit the most work.
+     * <p>
+     * The order is initially based on the cost and selectivity that the
+     * {@code model} estimates for each expression. As the {@link Predicate}
+     * is tested, it observes how often each operand is satisfied and
+     * periodically reorders the operands based on those observations. Nested
+     * conjunctions of the same kind are flattened so that all of their
+     * operands can be reordered.
+     * </p>
+     *
+     * @param tree the {@link ConditionTree} that represents the condition
+     * @param evaluator a {@link TriFunction} that takes a consideration value,
+     *            {@link Operator}, and list of reference values as input and
+     *            returns a boolean that indicates whether the consideration
+     *            value satisfies the {@link Operator} in relation to the
+     *            reference values
+     * @param model the {@link CostModel} that estimates the cost and
+     *            selectivity of each expression
+     * @return a {@link Predicate} that tests data against the condition
+     */
+    public final Predicate<Multimap<String, Object>> compile(ConditionTree tree,
+            TriFunction<Object, Operator, List<Object>, Boolean> evaluator,
+            CostModel model) {
+        return new AdaptivePredicate(this, tree, evaluator, model);
+    }
+
+    /**
+     * Compile the {@code tree} into a {@link Predicate} like
+     * {@link #compile(ConditionTree, TriFunction)} does, but fuse the numeric
+     * range expressions (e.g. {@code age > 18 and age < 65 and age != 30})
+     * on the same key and timestamp under each {@code AND} or {@code OR} into
+     * a single node that reads the values of the key once.
+     * <p>
+     * Stored values that are numbers are compared against the fused ranges in
+     * their natural order instead of being passed to the {@code evaluator},
+     * so this should only be used with an {@code evaluator} that compares
+     * numbers the same way.
+     * </p>
+     *
+     * @param tree the {@link ConditionTree} that represents the condition
+     * @param evaluator a {@link TriFunction} that takes a consideration value,
+     *            {@link Operator}, and list of reference values as input and
+     *            returns a boolean that indicates whether the consideration
+     *            value satisfies the {@link Operator} in relation to the
+     *            reference values
+     * @return a {@link Predicate} that tests data against the condition
+     * @see StatementAnalysis#ranges()
+     */
+    public final Predicate<Multimap<String, Object>> compileWithRangeFusion(
+            ConditionTree tree,
+            TriFunction<Object, Operator, List<Object>, Boolean> evaluator) {
+        return RangeFusion.compile(this, tree, evaluator);
+    }
+
+    /**
+     * Compile the {@code tree} into a {@link Predicate} like
+     * {@link #compile(ConditionTree, TriFunction)} does, but specialize the
+     * {@link Predicate} into a chain of {@link java.lang.invoke.MethodHandle
+     * MethodHandle} combinators, with each key, operator and list of values
+     * bound as constants, once it has been tested more than
+     * {@code specializationThreshold} times.
+     * <p>
+     * Building the combinators is much more expensive than
+     * {@link #compile(ConditionTree, TriFunction) compiling} the {@code tree}
+     * and, since the combined handle isn't a constant that the JIT compiler
+     * can inline, the specialized {@link Predicate} isn't measurably faster
+     * than the compiled one. So only conditions that are tested a very large
+     * number of times (e.g. long-lived subscriptions) should be specialized.
+     * </p>
+     *
+     * @param tree the {@link ConditionTree} that represents the condition
+     * @param evaluator a {@link TriFunction} that takes a consideration value,
+     *            {@link Operator}, and list of reference values as input and
+     *            returns a boolean that indicates whether the consideration
+     *            value satisfies the {@link Operator} in relation to the
+     *            reference values
+     * @param specializationThreshold the number of tests after which the
+     *            {@link Predicate} is specialized; {@code 0} specializes it
+     *            immediately
+     * @return a {@link Predicate} that tests data against the condition
+     */
+    public final Predicate<Multimap<String, Object>> compile(ConditionTree tree,
+            TriFunction<Object, Operator, List<Object>, Boolean> evaluator,
+            long specializationThreshold) {
+        Verify.thatArgument(specializationThreshold >= 0,
+                "The specialization threshold cannot be negative");
+        if(specializationThreshold == 0) {
+            return new MethodHandlePredicate(this, tree, evaluator);
+        }
+        else {
+            return new SpecializingPredicate(this, tree, evaluator,
+                    specializationThreshold);
+        }
+    }
+
+    /**
+     * Filter the {@code records} against the {@code tree} in parallel on the
+     * {@link ForkJoinPool#commonPool() common pool} and return the ones that
+     * satisfy the condition.
+     * <p>
+     * Each worker thread tests records with a {@link Predicate} that is
+     * {@link #compile(ConditionTree, TriFunction) compiled} once, using its own
+     * evaluator from the {@code evaluators} {@link Supplier}, so an evaluator
+     * that isn't thread-safe can be used without synchronization. A
+     * {@link java.util.stream.Stream Stream} of records can be filtered by
+     * passing its {@link java.util.stream.Stream#spliterator() spliterator}.
+     * </p>
+     *
+     * @param tree the {@link ConditionTree} that represents the condition
+     * @param records the records to filter
+     * @param evaluators a {@link Supplier} of the evaluator that each worker
+     *            thread uses; see {@link #evaluate(ConditionTree, Multimap,
+     *            TriFunction)}
+     * @param ordered a flag that indicates whether the matches must be
+     *            returned in the encounter order of the {@code records}
+     * @return the records that satisfy the condition
+     */
+    public final <T extends Multimap<String, Object>> List<T> filter(
+            ConditionTree tree, Spliterator<T> records,
+            Supplier<TriFunction<Object, Operator, List<Object>, Boolean>> evaluators,
+            boolean ordered) {
+        return filter(tree, records, evaluators, ordered,
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Filter the {@code records} against the {@code tree} in parallel on the
+     * {@code pool} and return the ones that satisfy the condition.
+     *
+     * @param tree the {@link ConditionTree} that represents the condition
+     * @param records the records to filter
+     * @param evaluators a {@link Supplier} of the evaluator that each worker
+     *            thread uses; see {@link #evaluate(ConditionTree, Multimap,
+     *            TriFunction)}
+     * @param ordered a flag that indicates whether the matches must be
+     *            returned in the encounter order of the {@code records}
+     * @param pool the {@link ForkJoinPool} that filters the records
+     * @return the records that satisfy the condition
+     * @see #filter(ConditionTree, Spliterator, Supplier, boolean)
+     */
+    public final <T extends Multimap<String, Object>> List<T> filter(
+            ConditionTree tree, Spliterator<T> records,
+            Supplier<TriFunction<Object, Operator, List<Object>, Boolean>> evaluators,
+            boolean ordered, ForkJoinPool pool) {
+        return filter(tree, records, record -> record, evaluators, ordered,
+                pool);
+    }
+
+    /**
+     * Filter the {@code records}, which map each record id to its data,
+     * against the {@code tree} in parallel on the
+     * {@link ForkJoinPool#commonPool() common pool} and return the ones that
+     * satisfy the condition in the iteration order of the {@code records}.
+     *
+     * @param tree the {@link ConditionTree} that represents the condition
+     * @param records the records to filter
+     * @param evaluators a {@link Supplier} of the evaluator that each worker
+     *            thread uses; see {@link #evaluate(ConditionTree, Multimap,
+     *            TriFunction)}
+     * @return the records that satisfy the condition
+     * @see #filter(ConditionTree, Spliterator, Supplier, boolean)
+     */
+    public final Map<Long, Multimap<String, Object>> filter(ConditionTree tree,
+            Map<Long, Multimap<String, Object>> records,
+            Supplier<TriFunction<Object, Operator, List<Object>, Boolean>> evaluators) {
+        List<Entry<Long, Multimap<String, Object>>> matches = filter(tree,
+                records.entrySet().spliterator(), Entry::getValue, evaluators,
+                true, ForkJoinPool.commonPool());
+        Map<Long, Multimap<String, Object>> filtered = new LinkedHashMap<>(
+                (int) (matches.size() / 0.75f) + 1);
+        for (Entry<Long, Multimap<String, Object>> match : matches) {
+            filtered.put(match.getKey(), match.getValue());
+        }
+        return filtered;
+    }
+
+    /**
+     * Filter the {@code records} against the {@code tree} in parallel on the
+     * {@code pool}.
+     *
+     * @param tree
+     * @param records
+     * @param data a {@link Function} that returns the data to test for a
+     *            record
+     * @param evaluators
+     * @param ordered
+     * @param pool
+     * @return the records that satisfy the condition
+     */
+    private <T> List<T> filter(ConditionTree tree, Spliterator<T> records,
+            Function<T, Multimap<String, Object>> data,
+            Supplier<TriFunction<Object, Operator, List<Object>, Boolean>> evaluators,
+            boolean ordered, ForkJoinPool pool) {
+        ThreadLocal<Predicate<Multimap<String, Object>>> predicates = ThreadLocal
+                .withInitial(() -> compile(tree, evaluators.get()));
+        return pool.invoke(
+                new ParallelFilter<>(predicates, data, records, pool, ordered));
+    }
+
+    /**
+     * Return {@code true} if any of the {@code stored} values satisfy the
+     * {@code operator} in relation to the {@code values}.
+     *
+     * @param stored
+     * @param operator
+     * @param values
+     * @param evaluator
+     * @return {@code true} if any of the {@code stored} values match
+     */
+    static boolean matches(Collection<Object> stored,
+            Operator operator, List<Object> values,
+            TriFunction<Object, Operator, List<Object>, Boolean> evaluator) {
+        if(stored instanceof List && stored instanceof RandomAccess) {
+            // Avoid allocating an Iterator for the common List implementations
+            List<Object> list = (List<Object>) stored;
+            for (int i = 0; i < list.size(); ++i) {
+                if(evaluator.apply(list.get(i), operator, values)) {
+                    return true;
                 }
-                if(root.timestamp() != null
-                        && root.timestamp() != TimestampSymbol.PRESENT) {
-                    symbols.add(root.timestamp());
+            }
+        }
+        else {
+            for (Object value : stored) {
+                if(evaluator.apply(value, operator, values)) {
+                    return true;
                 }
-                return symbols;
             }
+        }
+        return false;
+    }
 
-            @SuppressWarnings("unchecked")
-            @Override
-            public List<Symbol> visit(OrderTree tree, Object... data) {
-                List<Symbol> symbols = (List<Symbol>) data[0];
-                symbols.add(tree.root());
-                return symbols;
+    /**
+     * Return the values of the {@code expression}, with any
+     * {@link VariableSymbol VariableSymbols} resolved from the {@code data}.
+     *
+     * @param expression
+     * @param data
+     * @return the values
+     */
+    private List<Object> values(ExpressionSymbol expression,
+            Multimap<String, Object> data) {
+        List<ValueTokenSymbol<?>> symbols = expression.values();
+        List<Object> values = Lists.newArrayListWithCapacity(symbols.size());
+        for (ValueTokenSymbol<?> symbol : symbols) {
+            values.add(symbol instanceof VariableSymbol
+                    ? resolve((VariableSymbol) symbol, data).value()
+                    : symbol.value());
+        }
+        return values;
+    }
+
+    /**
+     * Return the values of an expression in a columnar batch, with any
+     * {@link VariableSymbol VariableSymbols} resolved from the {@code row} of
+     * the column for the variable.
+     *
+     * @param symbols
+     * @param columns
+     * @param row
+     * @return the values
+     */
+    private List<Object> values(List<ValueTokenSymbol<?>> symbols,
+            Function<String, Object[]> columns, int row) {
+        List<Object> values = Lists.newArrayListWithCapacity(symbols.size());
+        for (ValueTokenSymbol<?> symbol : symbols) {
+            if(symbol instanceof VariableSymbol) {
+                Object[] column = columns.apply(((VariableSymbol) symbol).value());
+                Object value = column != null ? column[row] : null;
+                if(value == null) {
+                    String err = "Unable to resolve variable {} because no values exist locally";
+                    throw new SyntaxException(AnyStrings.format(err, symbol));
+                }
+                values.add(valueParser.apply(value.toString()));
             }
+            else {
+                values.add(symbol.value());
+            }
+        }
+        return values;
+    }
 
-            @SuppressWarnings("unchecked")
-            @Override
-            public List<Symbol> visit(PageTree tree, Object... data) {
-                List<Symbol> symbols = (List<Symbol>) data[0];
-                symbols.add(tree.root());
-                return symbols;
+    /**
+     * Resolve the {@code variable} from the {@code data}.
+     *
+     * @param variable
+     * @param data
+     * @return a {@link ValueSymbol} for the value of the {@code variable}
+     * @throws SyntaxException if the {@code variable} doesn't have exactly one
+     *             value in the {@code data}
+     */
+    private ValueSymbol resolve(VariableSymbol variable,
+            Multimap<String, Object> data) {
+        Collection<Object> values = data.get(variable.value());
+        if(values.size() == 1) {
+            return new ValueSymbol(
+                    valueParser.apply(Iterables.getOnlyElement(values).toString()));
+        }
+        else if(values.isEmpty()) {
+            String err = "Unable to resolve variable {} because no values exist locally";
+            throw new SyntaxException(AnyStrings.format(err, variable));
+        }
+        else {
+            String err = "Unable to resolve variable {} because multiple values exist locally: {}";
+            throw new SyntaxException(AnyStrings.format(err, variable, values));
+        }
+    }
+
+    /**
+     * Return {@code true} if the {@code ccl} statement contains a timestamp
+     * that is resolved relative to the current time (e.g.
+     * {@code at 3 seconds ago}), so its {@link AbstractSyntaxTree} changes
+     * from one parse to the next and must not be reused.
+     * <p>
+     * This is conservative: if the statement can't be tokenized, it is
+     * assumed to depend on the time.
+     * </p>
+     *
+     * @param ccl
+     * @return {@code true} if the statement depends on the current time
+     */
+    static boolean isTimeDependent(String ccl) {
+        Lexer tokens;
+        try {
+            tokens = new Lexer(ccl);
+        }
+        catch (RuntimeException e) {
+            return true;
+        }
+        for (int i = 0; i < tokens.size(); ++i) {
+            if(tokens.kind(i) == GrammarConstants.TIMESTAMP) {
+                StringBuilder phrase = new StringBuilder();
+                while ((TIMESTAMP_WORDS & (1L << tokens.kind(i + 1))) != 0) {
+                    if(phrase.length() > 0) {
+                        phrase.append(' ');
+                    }
+                    phrase.append(tokens.image(++i));
+                }
+                if(phrase.length() == 0
+                        || !NaturalLanguage.isAbsolute(phrase.toString())) {
+                    return true;
+                }
             }
+        }
+        return false;
+    }
 
-            @SuppressWarnings("unchecked")
-            @Override
-            public List<Symbol> visit(FunctionTree tree, Object... data) {
-                List<Symbol> symbols = (List<Symbol>) data[0];
-                symbols.add(tree.root());
-                return symbols;
+    /**
+     * Return a copy of the {@code tree} with each of the values in its
+     * expressions replaced by the result of the {@code replacement} function.
+     * Any part of the {@code tree} for which the {@code replacement} function
+     * returns the same values is reused.
+     *
+     * @param tree
+     * @param replacement
+     * @return the {@link AbstractSyntaxTree} with the replaced values
+     */
+    static AbstractSyntaxTree replace(AbstractSyntaxTree tree,
+            UnaryOperator<ValueTokenSymbol<?>> replacement) {
+        if(tree instanceof ExpressionTree) {
+            ExpressionSymbol expression = (ExpressionSymbol) tree.root();
+            List<ValueTokenSymbol<?>> symbols = expression.values();
+            ValueTokenSymbol<?>[] replaced = null;
+            for (int i = 0; i < symbols.size(); ++i) {
+                ValueTokenSymbol<?> symbol = symbols.get(i);
+                ValueTokenSymbol<?> value = replacement.apply(symbol);
+                if(value != symbol) {
+                    if(replaced == null) {
+                        replaced = symbols.toArray(new ValueTokenSymbol<?>[0]);
+                    }
+                    replaced[i] = value;
+                }
+            }
+            return replaced == null ? tree
+                    : new ExpressionTree(ExpressionSymbol.create(
+                            expression.timestamp(), expression.key(),
+                            expression.operator(), replaced));
+        }
+        else if(tree instanceof ConjunctionTree) {
+            List<ConditionTree> operands = ((ConjunctionTree) tree).operands();
+            ConditionTree[] replaced = null;
+            for (int i = 0; i < operands.size(); ++i) {
+                ConditionTree operand = operands.get(i);
+                ConditionTree value = (ConditionTree) replace(operand,
+                        replacement);
+                if(value != operand) {
+                    if(replaced == null) {
+                        replaced = operands.toArray(new ConditionTree[0]);
+                    }
+                    replaced[i] = value;
+                }
+            }
+            if(replaced == null) {
+                return tree;
+            }
+            else {
+                // Rebuild the operands as a left-deep chain, like the parser
+                ConditionTree chain = replaced[0];
+                for (int i = 1; i < replaced.length; ++i) {
+                    chain = tree.root() == ConjunctionSymbol.AND
+                            ? new AndTree(chain, replaced[i])
+                            : new OrTree(chain, replaced[i]);
+                }
+                return chain;
             }
+        }
+        else if(tree instanceof CommandTree) {
+            CommandTree command = (CommandTree) tree;
+            ConditionTree condition = command.conditionTree();
+            ConditionTree replaced = condition != null
+                    ? (ConditionTree) replace(condition, replacement)
+                    : null;
+            return replaced == condition ? tree
+                    : new CommandTree(replaced, command.pageTree(),
+                            command.orderTree());
+        }
+        else {
+            return tree;
+        }
+    }
 
-        };
-        return ast.accept(visitor, Lists.newArrayList());
+    /**
+     * Traverse the {@code ast} in breadth-first order and break up its nodes
+     * into distinct {@link Symbol symbols} (i.e. separate an
+     * {@link ExpressionSymbol} into its distinct parts}.
+     * 
+     * @param ast
+     * @return the list of {@link Symbol symbols} in the {@code ast}
+     */
+    public final List<Symbol> tokenize(AbstractSyntaxTree ast) {
+        List<Symbol> symbols = Lists.newArrayList();
+        TreeCursor cursor = TreeCursor.of(ast);
+        while (cursor.advance()) {
+            AbstractSyntaxTree tree = cursor.tree();
+            AbstractSyntaxTree parent = cursor.parent();
+            // An OR must be grouped when it is an operand of an AND
+            boolean grouped = tree instanceof OrTree
+                    && parent instanceof ConjunctionTree
+                    && parent.root() == ConjunctionSymbol.AND;
+            if(cursor.entering()) {
+                if(parent instanceof ConjunctionTree && cursor.index() > 0) {
+                    symbols.add(parent.root());
+                }
+                if(grouped) {
+                    symbols.add(ParenthesisSymbol.LEFT);
+                }
+                if(tree instanceof CommandTree) {
+                    if(tree.root() != CommandSymbol.IMPLICIT) {
+                        symbols.add(tree.root());
+                    }
+                }
+                else if(tree instanceof ExpressionTree) {
+                    ExpressionSymbol root = (ExpressionSymbol) tree.root();
+                    symbols.add(root.key());
+                    symbols.add(root.operator());
+                    for (ValueTokenSymbol<?> symbol : root.values()) {
+                        symbols.add(symbol);
+                    }
+                    if(root.timestamp() != null
+                            && root.timestamp() != TimestampSymbol.PRESENT) {
+                        symbols.add(root.timestamp());
+                    }
+                }
+                else if(!(tree instanceof ConjunctionTree)) {
+                    // OrderTree, PageTree or FunctionTree
+                    symbols.add(tree.root());
+                }
+            }
+            else if(grouped) {
+                symbols.add(ParenthesisSymbol.RIGHT);
+            }
+        }
+        return symbols;
     }
 
     /**
@@ -372,31 +1530,121 @@ public abstract class Compiler {
      *         PostfixNotationSymbols}
      */
     public final Queue<PostfixNotationSymbol> arrange(ConditionTree tree) {
-        Visitor<Queue<PostfixNotationSymbol>> visitor = new ConditionTreeVisitor<Queue<PostfixNotationSymbol>>() {
+        Queue<PostfixNotationSymbol> queue = new LinkedList<>();
+        for (AbstractSyntaxTree node : TreeCursor.postOrder(tree)) {
+            queue.add((PostfixNotationSymbol) node.root());
+        }
+        return queue;
+    }
 
-            @SuppressWarnings("unchecked")
-            @Override
-            public Queue<PostfixNotationSymbol> visit(ConjunctionTree tree,
-                    Object... data) {
-                Queue<PostfixNotationSymbol> queue = (Queue<PostfixNotationSymbol>) data[0];
-                for (AbstractSyntaxTree child : tree.children()) {
-                    queue = child.accept(this, data);
-                }
-                queue.add((ConjunctionSymbol) tree.root());
-                return queue;
-            }
+    /**
+     * Assemble the {@code tree} into a {@link Program}, which is a compact
+     * alternative to the postfix notation that is produced by
+     * {@link #arrange(ConditionTree)}.
+     * <p>
+     * A {@link Program} is a flat array of instructions and a constant pool
+     * of the keys, {@link Operator Operators} and values of the condition, so
+     * it is cheap to store and can be
+     * {@link #evaluate(Program, Multimap, TriFunction) evaluated} without
+     * allocating any objects.
+     * </p>
+     *
+     * @param tree the {@link ConditionTree} to assemble
+     * @return the {@link Program}
+     */
+    public final Program assemble(ConditionTree tree) {
+        return Program.assemble(tree);
+    }
 
-            @SuppressWarnings("unchecked")
-            @Override
-            public Queue<PostfixNotationSymbol> visit(ExpressionTree tree,
-                    Object... data) {
-                Queue<PostfixNotationSymbol> queue = (Queue<PostfixNotationSymbol>) data[0];
-                queue.add((ExpressionSymbol) tree.root());
-                return queue;
-            }
+    /**
+     * Return a {@link SyntaxTreeCodec} that encodes values with the provided
+     * {@code codecs}, in addition to the types that are built in, and decodes
+     * everything else with this {@link Compiler Compiler's} parsers.
+     *
+     * @param codecs the {@link ValueCodec ValueCodecs} to use, in the order
+     *            that they should be checked for a value
+     * @return the {@link SyntaxTreeCodec}
+     */
+    public final SyntaxTreeCodec codec(ValueCodec<?>... codecs) {
+        return new SyntaxTreeCodec(operatorParser, valueParser, codecs);
+    }
 
-        };
-        return tree.accept(visitor, new LinkedList<>());
+    /**
+     * Return the binary encoding of the {@code tree}, which can be
+     * {@link #deserialize(ByteBuffer) deserialized} without parsing the
+     * statement again.
+     *
+     * @param tree the {@link AbstractSyntaxTree} to serialize
+     * @return a {@link ByteBuffer} that contains the encoded {@code tree}
+     * @see SyntaxTreeCodec#serialize(AbstractSyntaxTree)
+     */
+    public final ByteBuffer serialize(AbstractSyntaxTree tree) {
+        return codec().serialize(tree);
+    }
+
+    /**
+     * Return the {@link AbstractSyntaxTree} that was
+     * {@link #serialize(AbstractSyntaxTree) serialized} to the
+     * {@code buffer}.
+     *
+     * @param buffer the {@link ByteBuffer} that contains the encoded tree
+     * @return the decoded {@link AbstractSyntaxTree}
+     * @see SyntaxTreeCodec#deserialize(ByteBuffer)
+     */
+    public final AbstractSyntaxTree deserialize(ByteBuffer buffer) {
+        return codec().deserialize(buffer);
+    }
+
+    /**
+     * Return the {@link CompilerListener} that is notified about each
+     * statement that this {@link Compiler} parses.
+     *
+     * @return the {@link CompilerListener}, which is
+     *         {@link CompilerListener#NOOP} unless another one was
+     *         {@link #setListener(CompilerListener) set}
+     */
+    public final CompilerListener listener() {
+        return listener;
+    }
+
+    /**
+     * Notify the {@code listener} about each statement that this
+     * {@link Compiler} parses, along with the time that is spent in each
+     * {@link CompilerListener.Phase phase} of the parse.
+     * <p>
+     * Measurements are only taken while a listener other than
+     * {@link CompilerListener#NOOP} is set. A {@link Compiler} that delegates
+     * to another one doesn't parse, so the listener must be set on the
+     * delegate.
+     * </p>
+     *
+     * @param listener the {@link CompilerListener} or {@code null} to stop
+     *            notifying
+     */
+    public final void setListener(CompilerListener listener) {
+        this.listener = listener == null ? CompilerListener.NOOP : listener;
+    }
+
+    /**
+     * The implementations that can be used to parse CCL statements.
+     *
+     * @author Jeff Nelson
+     */
+    public enum Engine {
+
+        /**
+         * Parse statements with the {@link com.cinchapi.ccl.generated.Grammar
+         * Grammar} that is generated by JavaCC.
+         */
+        JAVACC,
+
+        /**
+         * Parse statements with a hand-written lexer and recursive descent
+         * parser that accepts the same language as the JavaCC
+         * {@link com.cinchapi.ccl.generated.Grammar Grammar} but builds each
+         * {@link AbstractSyntaxTree} directly.
+         */
+        RECURSIVE_DESCENT
     }
 
 }
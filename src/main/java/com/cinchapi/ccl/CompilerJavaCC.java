@@ -15,11 +15,14 @@
  */
 package com.cinchapi.ccl;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.function.Function;
 
+import javax.annotation.Nullable;
+
+import com.cinchapi.ccl.CompilerListener.Phase;
+import com.cinchapi.ccl.CompilerListener.Statistics;
 import com.cinchapi.ccl.generated.ASTAnd;
 import com.cinchapi.ccl.generated.ASTExpression;
 import com.cinchapi.ccl.generated.ASTFunction;
@@ -28,8 +31,10 @@ import com.cinchapi.ccl.generated.ASTOrder;
 import com.cinchapi.ccl.generated.ASTPage;
 import com.cinchapi.ccl.generated.ASTStart;
 import com.cinchapi.ccl.generated.Grammar;
+import com.cinchapi.ccl.generated.GrammarConstants;
 import com.cinchapi.ccl.generated.GrammarVisitor;
 import com.cinchapi.ccl.generated.SimpleNode;
+import com.cinchapi.ccl.generated.Token;
 import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
 import com.cinchapi.ccl.syntax.AndTree;
 import com.cinchapi.ccl.syntax.CommandTree;
@@ -39,16 +44,162 @@ import com.cinchapi.ccl.syntax.FunctionTree;
 import com.cinchapi.ccl.syntax.OrTree;
 import com.cinchapi.ccl.syntax.OrderTree;
 import com.cinchapi.ccl.syntax.PageTree;
+import com.cinchapi.ccl.syntax.TreeCursor;
 import com.cinchapi.ccl.type.Operator;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
 
 /**
- * This parser utilizes {@link Grammar} which is grammar generated by JavaCC
+ * This parser utilizes {@link Grammar} which is grammar generated by JavaCC.
+ * <p>
+ * A {@link Grammar} is retained for each thread that uses this
+ * {@link Compiler} and reinitialized for each statement that is parsed.
+ * </p>
  * 
  * @author Jeff Nelson
  */
 class CompilerJavaCC extends Compiler {
 
+    /**
+     * The {@link GrammarVisitor} that converts the nodes generated by the
+     * {@link Grammar} to an {@link AbstractSyntaxTree}. The visitor is
+     * stateless, so it is shared by all parses.
+     */
+    private static final GrammarVisitor VISITOR = new GrammarVisitor() {
+        @Override
+        public Object visit(SimpleNode node, Object data) {
+            System.out.println(
+                    node + ": acceptor not unimplemented in subclass?");
+            data = node.childrenAccept(this, data);
+            return data;
+        }
+
+        @Override
+        public Object visit(ASTStart node, Object data) {
+            ConditionTree conditionTree = null;
+            PageTree pageTree = null;
+            OrderTree orderTree = null;
+            FunctionTree functionTree = null;
+
+            for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+                Object child = node.jjtGetChild(i).jjtAccept(this,
+                        data);
+                if(child instanceof PageTree) {
+                    pageTree = (PageTree) child;
+                }
+                else if(child instanceof OrderTree) {
+                    orderTree = (OrderTree) child;
+                }
+                else if(child instanceof FunctionTree) {
+                    functionTree = (FunctionTree) child;
+                }
+                else {
+                    conditionTree = (ConditionTree) child;
+                }
+            }
+            if(conditionTree != null && pageTree == null
+                    && orderTree == null && functionTree == null) {
+                return conditionTree;
+            }
+            else if(pageTree != null && conditionTree == null
+                    && orderTree == null && functionTree == null) {
+                return pageTree;
+            }
+            else if(orderTree != null && conditionTree == null
+                    && pageTree == null && functionTree == null) {
+                return orderTree;
+            }
+            else if(functionTree != null && conditionTree == null
+                    && pageTree == null && orderTree == null) {
+                return functionTree;
+            }
+            else {
+                // If the statement has multiple elements, it is
+                // implicitly a command.
+                return new CommandTree(conditionTree, pageTree,
+                        orderTree);
+            }
+
+        }
+
+        @Override
+        public Object visit(ASTOr node, Object data) {
+            return conjunction(node, data);
+        }
+
+        @Override
+        public Object visit(ASTAnd node, Object data) {
+            return conjunction(node, data);
+        }
+
+        /**
+         * Return the {@link ConditionTree} for the {@code node}, which is an
+         * {@link ASTAnd} or an {@link ASTOr}.
+         * <p>
+         * The grammar parses a chain of the same conjunction into a left-deep
+         * tree, so the chain is walked iteratively instead of recursing into
+         * each left child. This keeps the depth of the call stack independent
+         * of the length of the chain.
+         * </p>
+         *
+         * @param node
+         * @param data
+         * @return the {@link ConditionTree}
+         */
+        private ConditionTree conjunction(SimpleNode node, Object data) {
+            Class<?> kind = node.getClass();
+            Deque<SimpleNode> rights = new ArrayDeque<>();
+            SimpleNode leftmost = node;
+            while (leftmost.getClass() == kind) {
+                rights.push((SimpleNode) leftmost.jjtGetChild(1));
+                leftmost = (SimpleNode) leftmost.jjtGetChild(0);
+            }
+            ConditionTree tree = (ConditionTree) leftmost.jjtAccept(this,
+                    data);
+            while (!rights.isEmpty()) {
+                ConditionTree right = (ConditionTree) rights.pop()
+                        .jjtAccept(this, data);
+                tree = kind == ASTAnd.class ? new AndTree(tree, right)
+                        : new OrTree(tree, right);
+            }
+            return tree;
+        }
+
+        @Override
+        public Object visit(ASTExpression node, Object data) {
+            return new ExpressionTree(node);
+        }
+
+        @Override
+        public Object visit(ASTOrder node, Object data) {
+            return new OrderTree(node.order());
+        }
+
+        @Override
+        public Object visit(ASTPage node, Object data) {
+            return new PageTree(node.page());
+        }
+
+        @Override
+        public Object visit(ASTFunction node, Object data) {
+            return new FunctionTree(node.function());
+        }
+    };
+
+    /**
+     * Each thread's idle {@link Grammar}, which is
+     * {@link Grammar#ReInit(CharSequence, Multimap, Function) reinitialized} for
+     * parse so that the lexer buffers, token manager and lookahead tables
+     * aren't reallocated every time a statement is parsed.
+     */
+    private final ThreadLocal<Grammar> grammars;
+
+    /**
+     * Each thread's idle {@link InstrumentedGrammar}, which is used instead of
+     * the ones in {@link #grammars} while a {@link CompilerListener} is set.
+     */
+    private final ThreadLocal<InstrumentedGrammar> instrumented;
+
     /**
      * Construct a new instance.
      * 
@@ -58,119 +209,177 @@ class CompilerJavaCC extends Compiler {
     public CompilerJavaCC(Function<String, Object> valueParser,
             Function<String, Operator> operatorParser) {
         super(valueParser, operatorParser);
+        this.grammars = new ThreadLocal<>();
+        this.instrumented = new ThreadLocal<>();
     }
 
     @Override
     public AbstractSyntaxTree parse(String ccl, Multimap<String, Object> data) {
-        try {
-            InputStream stream = new ByteArrayInputStream(
-                    ccl.getBytes(StandardCharsets.UTF_8.name()));
-
-            GrammarVisitor visitor = new GrammarVisitor() {
-                @Override
-                public Object visit(SimpleNode node, Object data) {
-                    System.out.println(
-                            node + ": acceptor not unimplemented in subclass?");
-                    data = node.childrenAccept(this, data);
-                    return data;
-                }
-
-                @Override
-                public Object visit(ASTStart node, Object data) {
-                    ConditionTree conditionTree = null;
-                    PageTree pageTree = null;
-                    OrderTree orderTree = null;
-                    FunctionTree functionTree = null;
-
-                    for (int i = 0; i < node.jjtGetNumChildren(); i++) {
-                        Object child = node.jjtGetChild(i).jjtAccept(this,
-                                data);
-                        if(child instanceof PageTree) {
-                            pageTree = (PageTree) child;
-                        }
-                        else if(child instanceof OrderTree) {
-                            orderTree = (OrderTree) child;
-                        }
-                        else if(child instanceof FunctionTree) {
-                            functionTree = (FunctionTree) child;
-                        }
-                        else {
-                            conditionTree = (ConditionTree) child;
-                        }
-                    }
-                    if(conditionTree != null && pageTree == null
-                            && orderTree == null && functionTree == null) {
-                        return conditionTree;
-                    }
-                    else if(pageTree != null && conditionTree == null
-                            && orderTree == null && functionTree == null) {
-                        return pageTree;
-                    }
-                    else if(orderTree != null && conditionTree == null
-                            && pageTree == null && functionTree == null) {
-                        return orderTree;
-                    }
-                    else if(functionTree != null && conditionTree == null
-                            && pageTree == null && orderTree == null) {
-                        return functionTree;
-                    }
-                    else {
-                        // If the statement has multiple elements, it is
-                        // implicitly a command.
-                        return new CommandTree(conditionTree, pageTree,
-                                orderTree);
-                    }
+        return parse(ccl, data, null);
+    }
 
-                }
+    @Override
+    AbstractSyntaxTree template(String ccl, Multimap<String, Object> data,
+            Function<String, Object> valueParser) {
+        return parse(ccl, data, valueParser);
+    }
 
-                @Override
-                public Object visit(ASTOr node, Object data) {
-                    ConditionTree left = (ConditionTree) node.jjtGetChild(0)
-                            .jjtAccept(this, data);
-                    ConditionTree right = (ConditionTree) node.jjtGetChild(1)
-                            .jjtAccept(this, data);
-                    return new OrTree(left, right);
-                }
+    /**
+     * Parse the {@code ccl} statement.
+     *
+     * @param ccl
+     * @param data
+     * @param template the function that transforms values if the statement
+     *            is parsed into a {@link #template(String, Multimap, Function)
+     *            template} or {@code null} to resolve all local variables
+     * @return the {@link AbstractSyntaxTree}
+     */
+    private AbstractSyntaxTree parse(String ccl, Multimap<String, Object> data,
+            @Nullable Function<String, Object> template) {
+        CompilerListener listener = this.listener;
+        if(listener != CompilerListener.NOOP) {
+            return parse(ccl, data, template, listener);
+        }
+        // Take this thread's idle Grammar (if any) so that a reentrant parse
+        // on the same thread (e.g. from a value parser) gets its own instance.
+        Grammar grammar = grammars.get();
+        if(grammar == null) {
+            grammar = new Grammar(valueParser, operatorParser, VISITOR);
+        }
+        else {
+            grammars.set(null);
+        }
+        try {
+            grammar.ReInit(ccl, data, template);
+            ASTStart start = grammar.generateAST();
+            return (AbstractSyntaxTree) start.jjtAccept(VISITOR, null);
+        }
+        catch (Exception exception) {
+            throw new PropagatedSyntaxException(exception, ccl);
+        }
+        finally {
+            grammar.release();
+            grammars.set(grammar);
+        }
+    }
 
-                @Override
-                public Object visit(ASTAnd node, Object data) {
-                    ConditionTree left = (ConditionTree) node.jjtGetChild(0)
-                            .jjtAccept(this, data);
-                    ConditionTree right = (ConditionTree) node.jjtGetChild(1)
-                            .jjtAccept(this, data);
-                    return new AndTree(left, right);
-                }
+    /**
+     * Parse the {@code ccl} statement like
+     * {@link #parse(String, Multimap, Function)} while measuring each
+     * {@link Phase} and notify the {@code listener} about the outcome.
+     *
+     * @param ccl
+     * @param data
+     * @param template
+     * @param listener
+     * @return the {@link AbstractSyntaxTree}
+     */
+    private AbstractSyntaxTree parse(String ccl, Multimap<String, Object> data,
+            @Nullable Function<String, Object> template,
+            CompilerListener listener) {
+        InstrumentedGrammar grammar = instrumented.get();
+        if(grammar == null) {
+            grammar = new InstrumentedGrammar(valueParser, operatorParser);
+        }
+        else {
+            instrumented.set(null);
+        }
+        Statistics statistics = new Statistics();
+        grammar.statistics = statistics;
+        AbstractSyntaxTree tree;
+        Phase phase = Phase.PARSE;
+        Token head = null;
+        long mark = System.nanoTime();
+        try {
+            grammar.ReInit(ccl, data, template);
+            head = grammar.token;
+            ASTStart start = grammar.generateAST();
+            long now = System.nanoTime();
+            statistics.parse(now - mark);
+            statistics.tokens(count(head));
+            phase = Phase.CONVERSION;
+            mark = now;
+            tree = (AbstractSyntaxTree) start.jjtAccept(VISITOR, null);
+            statistics.add(Phase.CONVERSION, System.nanoTime() - mark);
+            statistics.nodes(Iterables.size(TreeCursor.preOrder(tree)));
+        }
+        catch (Exception exception) {
+            statistics.fail(phase, System.nanoTime() - mark);
+            if(phase == Phase.PARSE) {
+                statistics.tokens(count(head));
+            }
+            listener.onFailure(ccl, statistics, exception);
+            throw new PropagatedSyntaxException(exception, ccl);
+        }
+        finally {
+            grammar.statistics = null;
+            grammar.release();
+            instrumented.set(grammar);
+        }
+        listener.onParse(ccl, statistics);
+        return tree;
+    }
 
-                @Override
-                public Object visit(ASTExpression node, Object data) {
-                    return new ExpressionTree(node);
-                }
+    /**
+     * Return the number of tokens that follow the {@code head} of a chain of
+     * {@link Token tokens}, excluding the end of input.
+     *
+     * @param head
+     * @return the number of tokens
+     */
+    private static int count(Token head) {
+        int count = 0;
+        Token token = head == null ? null : head.next;
+        while (token != null && token.kind != GrammarConstants.EOF) {
+            ++count;
+            token = token.next;
+        }
+        return count;
+    }
 
-                @Override
-                public Object visit(ASTOrder node, Object data) {
-                    return new OrderTree(node.order());
-                }
+    /**
+     * A {@link Grammar} that records the time that is spent in the value
+     * parser, operator parser and timestamp callbacks in the
+     * {@link Statistics} of the current parse.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class InstrumentedGrammar extends Grammar {
 
-                @Override
-                public Object visit(ASTPage node, Object data) {
-                    return new PageTree(node.page());
-                }
+        /**
+         * The {@link Statistics} of the current parse.
+         */
+        private Statistics statistics;
 
-                @Override
-                public Object visit(ASTFunction node, Object data) {
-                    return new FunctionTree(node.function());
-                }
-            };
+        /**
+         * Construct a new instance.
+         *
+         * @param valueParser
+         * @param operatorParser
+         */
+        InstrumentedGrammar(Function<String, Object> valueParser,
+                Function<String, Operator> operatorParser) {
+            super(valueParser, operatorParser, VISITOR);
+        }
 
-            Grammar grammar = new Grammar(stream, valueParser, operatorParser,
-                    data, visitor);
-            ASTStart start = grammar.generateAST();
+        @Override
+        public Operator transformOperator(String token) {
+            return statistics.time(Phase.OPERATOR_PARSER,
+                    super::transformOperator, token);
+        }
 
-            return (AbstractSyntaxTree) start.jjtAccept(visitor, null);
+        @Override
+        public Object transformValue(String token) {
+            return statistics.time(Phase.VALUE_PARSER, super::transformValue,
+                    token);
         }
-        catch (Exception exception) {
-            throw new PropagatedSyntaxException(exception, ccl);
+
+        @Override
+        public long transformTimestamp(String timestamp) {
+            return statistics.time(Phase.TIMESTAMP,
+                    super::transformTimestamp, timestamp);
         }
+
     }
 
 }
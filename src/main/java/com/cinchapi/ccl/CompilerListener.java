@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.google.common.collect.Multimap;
+
+/**
+ * A {@link CompilerListener} is notified about each statement that a
+ * {@link Compiler} {@link Compiler#parse(String, Multimap) parses}, along
+ * with {@link Statistics} about where the time was spent.
+ * <p>
+ * A listener is {@link Compiler#setListener(CompilerListener) attached} to the
+ * {@link Compiler} that does the parsing. Compilers that delegate to another
+ * one (e.g. a {@link CachingCompiler}) don't parse, so the listener must be
+ * attached to the delegate.
+ * </p>
+ * <p>
+ * Unless a listener is attached, a {@link Compiler} uses {@link #NOOP} and
+ * parses without taking any measurements. Otherwise, the listener is called
+ * on the thread that parsed the statement, so it should return quickly and
+ * must not throw.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+public interface CompilerListener {
+
+    /**
+     * A {@link CompilerListener} that ignores every notification. A
+     * {@link Compiler} that has this listener doesn't measure anything.
+     */
+    public static final CompilerListener NOOP = new CompilerListener() {};
+
+    /**
+     * Called after the {@code ccl} statement is successfully parsed.
+     *
+     * @param ccl the statement
+     * @param statistics the {@link Statistics} for the parse
+     */
+    public default void onParse(String ccl, Statistics statistics) {}
+
+    /**
+     * Called after the {@code ccl} statement could not be parsed, before the
+     * resulting exception is thrown to the caller.
+     *
+     * @param ccl the statement
+     * @param statistics the {@link Statistics} for the parse, up to the
+     *            failure
+     * @param reason the exception that caused the failure
+     */
+    public default void onFailure(String ccl, Statistics statistics,
+            Throwable reason) {}
+
+    /**
+     * The phases of a parse that are measured.
+     *
+     * @author Jeff Nelson
+     */
+    public enum Phase {
+
+        /**
+         * Splitting the statement into tokens. Only reported by engines that
+         * tokenize the entire statement up front; the JavaCC grammar
+         * tokenizes on demand, so its lexing is part of {@link #PARSE}.
+         */
+        LEX,
+
+        /**
+         * Recognizing the grammar of the statement, excluding the time that
+         * is spent in the {@link #VALUE_PARSER}, {@link #OPERATOR_PARSER} and
+         * {@link #TIMESTAMP} callbacks.
+         */
+        PARSE,
+
+        /**
+         * Converting the nodes that are generated by the JavaCC grammar to an
+         * {@link AbstractSyntaxTree}.
+         */
+        CONVERSION,
+
+        /**
+         * Calls to the {@link Compiler#valueParser}.
+         */
+        VALUE_PARSER,
+
+        /**
+         * Calls to the {@link Compiler#operatorParser}.
+         */
+        OPERATOR_PARSER,
+
+        /**
+         * Resolving natural language timestamps.
+         */
+        TIMESTAMP
+    }
+
+    /**
+     * The measurements that are taken while a single statement is parsed.
+     * <p>
+     * An instance is only modified by the thread that parses the statement
+     * and shouldn't be retained by a {@link CompilerListener} beyond the
+     * notification.
+     * </p>
+     *
+     * @author Jeff Nelson
+     */
+    public static final class Statistics {
+
+        /**
+         * The number of {@link Phase phases}.
+         */
+        private static final int PHASES = Phase.values().length;
+
+        /**
+         * The nanoseconds that are spent in each {@link Phase}, indexed by
+         * ordinal.
+         */
+        private final long[] nanos = new long[PHASES];
+
+        /**
+         * The number of times that each {@link Phase} was entered, indexed by
+         * ordinal.
+         */
+        private final int[] calls = new int[PHASES];
+
+        /**
+         * The number of tokens in the statement, excluding the end of input.
+         */
+        private int tokens = 0;
+
+        /**
+         * The number of nodes in the {@link AbstractSyntaxTree}.
+         */
+        private int nodes = 0;
+
+        /**
+         * The {@link Phase} in which the parse failed, if it did.
+         */
+        @Nullable
+        private Phase failure = null;
+
+        /**
+         * Construct a new instance.
+         */
+        Statistics() {/* no-op */}
+
+        /**
+         * Return the number of times that the {@code phase} was entered
+         * (e.g. the number of calls to the value parser).
+         *
+         * @param phase
+         * @return the number of calls
+         */
+        public int calls(Phase phase) {
+            return calls[phase.ordinal()];
+        }
+
+        /**
+         * Return the {@link Phase} in which the parse failed.
+         *
+         * @return the failed {@link Phase} or {@code null} if the parse
+         *         succeeded
+         */
+        @Nullable
+        public Phase failure() {
+            return failure;
+        }
+
+        /**
+         * Return the number of nanoseconds that were spent in the
+         * {@code phase}.
+         *
+         * @param phase
+         * @return the elapsed nanoseconds
+         */
+        public long nanos(Phase phase) {
+            return nanos[phase.ordinal()];
+        }
+
+        /**
+         * Return the number of nodes in the {@link AbstractSyntaxTree}, or
+         * {@code 0} if the parse failed.
+         *
+         * @return the number of nodes
+         */
+        public int nodes() {
+            return nodes;
+        }
+
+        /**
+         * Return the number of tokens that were read, excluding the end of
+         * input.
+         *
+         * @return the number of tokens
+         */
+        public int tokens() {
+            return tokens;
+        }
+
+        /**
+         * Return the number of nanoseconds that were spent in all of the
+         * {@link Phase phases}.
+         *
+         * @return the total elapsed nanoseconds
+         */
+        public long totalNanos() {
+            long total = 0;
+            for (long elapsed : nanos) {
+                total += elapsed;
+            }
+            return total;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("tokens=").append(tokens).append(", nodes=")
+                    .append(nodes);
+            for (Phase phase : Phase.values()) {
+                if(calls[phase.ordinal()] > 0) {
+                    sb.append(", ").append(phase).append('=')
+                            .append(nanos[phase.ordinal()]).append("ns");
+                }
+            }
+            if(failure != null) {
+                sb.append(", failure=").append(failure);
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Record that {@code elapsed} nanoseconds were spent in the
+         * {@code phase}.
+         *
+         * @param phase
+         * @param elapsed
+         */
+        void add(Phase phase, long elapsed) {
+            nanos[phase.ordinal()] += elapsed;
+            calls[phase.ordinal()] += 1;
+        }
+
+        /**
+         * Record that the parse failed in the {@code phase} after spending
+         * {@code elapsed} nanoseconds in it, unless a callback already failed.
+         *
+         * @param phase
+         * @param elapsed
+         */
+        void fail(Phase phase, long elapsed) {
+            if(phase == Phase.PARSE) {
+                parse(elapsed);
+            }
+            else {
+                add(phase, elapsed);
+            }
+            if(failure == null) {
+                failure = phase;
+            }
+        }
+
+        /**
+         * Record the number of {@code nodes} in the tree.
+         *
+         * @param nodes
+         */
+        void nodes(int nodes) {
+            this.nodes = nodes;
+        }
+
+        /**
+         * Record that {@code elapsed} nanoseconds were spent recognizing the
+         * grammar, including the callbacks that have been timed so far, which
+         * are subtracted.
+         *
+         * @param elapsed
+         */
+        void parse(long elapsed) {
+            add(Phase.PARSE, elapsed - nanos(Phase.VALUE_PARSER)
+                    - nanos(Phase.OPERATOR_PARSER) - nanos(Phase.TIMESTAMP));
+        }
+
+        /**
+         * Apply the {@code function} to the {@code input} and record the time
+         * that it takes in the {@code phase}.
+         *
+         * @param phase
+         * @param function
+         * @param input
+         * @return the result of the {@code function}
+         */
+        <R> R time(Phase phase, Function<String, R> function, String input) {
+            long start = System.nanoTime();
+            try {
+                return function.apply(input);
+            }
+            catch (RuntimeException e) {
+                if(failure == null) {
+                    failure = phase;
+                }
+                throw e;
+            }
+            finally {
+                add(phase, System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Record the number of {@code tokens} in the statement.
+         *
+         * @param tokens
+         */
+        void tokens(int tokens) {
+            this.tokens = tokens;
+        }
+
+    }
+
+}
@@ -0,0 +1,1251 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import com.cinchapi.ccl.CompilerListener.Phase;
+import com.cinchapi.ccl.CompilerListener.Statistics;
+import com.cinchapi.ccl.generated.ASTExpression;
+import com.cinchapi.ccl.generated.Grammar;
+import com.cinchapi.ccl.generated.GrammarConstants;
+import com.cinchapi.ccl.grammar.DirectionSymbol;
+import com.cinchapi.ccl.grammar.FunctionKeySymbol;
+import com.cinchapi.ccl.grammar.FunctionTokenSymbol;
+import com.cinchapi.ccl.grammar.FunctionValueSymbol;
+import com.cinchapi.ccl.grammar.KeySymbol;
+import com.cinchapi.ccl.grammar.KeyTokenSymbol;
+import com.cinchapi.ccl.grammar.NavigationKeySymbol;
+import com.cinchapi.ccl.grammar.OperatorSymbol;
+import com.cinchapi.ccl.grammar.OrderComponentSymbol;
+import com.cinchapi.ccl.grammar.OrderSymbol;
+import com.cinchapi.ccl.grammar.PageSymbol;
+import com.cinchapi.ccl.grammar.TimestampSymbol;
+import com.cinchapi.ccl.grammar.ValueSymbol;
+import com.cinchapi.ccl.grammar.ValueTokenSymbol;
+import com.cinchapi.ccl.grammar.VariableSymbol;
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.cinchapi.ccl.syntax.AndTree;
+import com.cinchapi.ccl.syntax.CommandTree;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.syntax.ExpressionTree;
+import com.cinchapi.ccl.syntax.FunctionTree;
+import com.cinchapi.ccl.syntax.OrTree;
+import com.cinchapi.ccl.syntax.OrderTree;
+import com.cinchapi.ccl.syntax.PageTree;
+import com.cinchapi.ccl.syntax.TreeCursor;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.ccl.type.function.ImplicitKeyRecordFunction;
+import com.cinchapi.ccl.type.function.IndexFunction;
+import com.cinchapi.ccl.type.function.KeyConditionFunction;
+import com.cinchapi.ccl.type.function.KeyRecordsFunction;
+import com.cinchapi.ccl.util.NaturalLanguage;
+import com.cinchapi.common.base.AnyStrings;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+
+/**
+ * A {@link Compiler} that parses statements with a hand-written
+ * {@link Lexer} and recursive descent parser instead of the JavaCC generated
+ * {@link Grammar}.
+ * <p>
+ * The parser accepts exactly the same language as the {@link Grammar} and
+ * makes the same decisions wherever the {@link Grammar} uses syntactic
+ * lookahead, but it builds the {@link ConditionTree}, {@link CommandTree},
+ * {@link PageTree}, {@link OrderTree} or {@link FunctionTree} directly
+ * instead of first building an intermediate tree of generated nodes.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+class CompilerRecursiveDescent extends Compiler {
+
+    /**
+     * Construct a new instance.
+     *
+     * @param valueParser
+     * @param operatorParser
+     */
+    CompilerRecursiveDescent(Function<String, Object> valueParser,
+            Function<String, Operator> operatorParser) {
+        super(valueParser, operatorParser);
+    }
+
+    @Override
+    public AbstractSyntaxTree parse(String ccl, Multimap<String, Object> data) {
+        return parse(ccl, data, valueParser, false);
+    }
+
+    @Override
+    AbstractSyntaxTree template(String ccl, Multimap<String, Object> data,
+            Function<String, Object> valueParser) {
+        return parse(ccl, data, valueParser, true);
+    }
+
+    /**
+     * Parse the {@code ccl} statement.
+     *
+     * @param ccl
+     * @param data
+     * @param valueParser
+     * @param deferVariables a flag that indicates whether local variables
+     *            that can't be resolved from the {@code data} are kept in the
+     *            tree as {@link VariableSymbol VariableSymbols} instead of
+     *            causing a {@link SyntaxException}
+     * @return the {@link AbstractSyntaxTree}
+     */
+    private AbstractSyntaxTree parse(String ccl, Multimap<String, Object> data,
+            Function<String, Object> valueParser, boolean deferVariables) {
+        CompilerListener listener = this.listener;
+        if(listener != CompilerListener.NOOP) {
+            return parse(ccl, data, valueParser, deferVariables, listener);
+        }
+        try {
+            return new Descent(new Lexer(ccl), data, valueParser,
+                    deferVariables, null).statement();
+        }
+        catch (Exception exception) {
+            throw new PropagatedSyntaxException(exception, ccl);
+        }
+    }
+
+    /**
+     * Parse the {@code ccl} statement like
+     * {@link #parse(String, Multimap, Function, boolean)} while measuring each
+     * {@link Phase} and notify the {@code listener} about the outcome.
+     *
+     * @param ccl
+     * @param data
+     * @param valueParser
+     * @param deferVariables
+     * @param listener
+     * @return the {@link AbstractSyntaxTree}
+     */
+    private AbstractSyntaxTree parse(String ccl, Multimap<String, Object> data,
+            Function<String, Object> valueParser, boolean deferVariables,
+            CompilerListener listener) {
+        Statistics statistics = new Statistics();
+        AbstractSyntaxTree tree;
+        Phase phase = Phase.LEX;
+        long mark = System.nanoTime();
+        try {
+            Lexer tokens = new Lexer(ccl);
+            long now = System.nanoTime();
+            statistics.add(Phase.LEX, now - mark);
+            statistics.tokens(tokens.size() - 1);
+            phase = Phase.PARSE;
+            mark = now;
+            tree = new Descent(tokens, data, valueParser, deferVariables,
+                    statistics).statement();
+            statistics.parse(System.nanoTime() - mark);
+            statistics.nodes(Iterables.size(TreeCursor.preOrder(tree)));
+        }
+        catch (Exception exception) {
+            statistics.fail(phase, System.nanoTime() - mark);
+            listener.onFailure(ccl, statistics, exception);
+            throw new PropagatedSyntaxException(exception, ccl);
+        }
+        listener.onParse(ccl, statistics);
+        return tree;
+    }
+
+    /**
+     * The state of a single parse.
+     *
+     * @author Jeff Nelson
+     */
+    private final class Descent implements GrammarConstants {
+
+        /**
+         * The tokens that may be the key of an expression whose operator is a
+         * search operator.
+         */
+        private static final long SEARCH_KEYS = (1L << RESERVED_IDENTIFIER)
+                | (1L << SIGNED_INTEGER) | (1L << SIGNED_DECIMAL)
+                | (1L << NUMERIC) | (1L << ALPHANUMERIC);
+
+        /**
+         * The tokens that may precede the {@link #PIPE} in a key function.
+         */
+        private static final long FUNCTION_KEYS = (1L << SIGNED_INTEGER)
+                | (1L << SIGNED_DECIMAL) | (1L << NUMERIC)
+                | (1L << ALPHANUMERIC) | (1L << PERIOD_SEPARATED_STRING);
+
+        /**
+         * The tokens that may be the key of a value function.
+         */
+        private static final long VALUE_FUNCTION_KEYS = (1L << SIGNED_INTEGER)
+                | (1L << SIGNED_DECIMAL) | (1L << ALPHANUMERIC)
+                | (1L << PERIOD_SEPARATED_STRING);
+
+        /**
+         * The tokens that may be the key of an expression.
+         */
+        private static final long KEYS = SEARCH_KEYS
+                | (1L << PERIOD_SEPARATED_STRING);
+
+        /**
+         * The tokens that are joined to form the value of an expression.
+         */
+        private static final long VALUE_WORDS = (1L << SIGNED_INTEGER)
+                | (1L << SIGNED_DECIMAL) | (1L << NUMERIC)
+                | (1L << ALPHANUMERIC)
+                | (1L << NON_ALPHANUMERIC_AND_ALPHANUMERIC)
+                | (1L << PERIOD_SEPARATED_STRING);
+
+        /**
+         * The tokens that are joined to form the value of a search expression.
+         */
+        private static final long SEARCH_WORDS = VALUE_WORDS
+                & ~(1L << PERIOD_SEPARATED_STRING);
+
+        /**
+         * The tokens that are joined to form a timestamp.
+         */
+        private static final long TIMESTAMP_WORDS = SEARCH_WORDS
+                | (1L << QUOTED_STRING);
+
+        /**
+         * The tokens that may be a record in a value function.
+         */
+        private static final long RECORDS = (1L << SIGNED_INTEGER)
+                | (1L << NUMERIC);
+
+        /**
+         * The search operators.
+         */
+        private static final long SEARCH_OPERATORS = (1L << SEARCH_MATCH)
+                | (1L << SEARCH_EXCLUDE);
+
+        /**
+         * The operators that take a regular expression or pattern.
+         */
+        private static final long REGEX_OPERATORS = (1L << REGEX)
+                | (1L << NOT_REGEX) | (1L << LIKE) | (1L << NOT_LIKE);
+
+        /**
+         * The operators that take a single value.
+         */
+        private static final long UNARY_OPERATORS = (1L << UNARY_OPERATOR)
+                | (1L << OPEN_ANGLE_BRACKET) | (1L << CLOSE_ANGLE_BRACKET);
+
+        /**
+         * The number of tokens that the {@link Grammar} looks ahead when it
+         * decides whether a statement is a condition.
+         */
+        private static final int CONDITION_LOOKAHEAD = 4;
+
+        /**
+         * The tokens.
+         */
+        private final Lexer tokens;
+
+        /**
+         * The data that is used to resolve local variables.
+         */
+        private final Multimap<String, Object> data;
+
+        /**
+         * The index of the next token.
+         */
+        private int pos = 0;
+
+        /**
+         * The number of value functions whose condition is being parsed.
+         * Variables within a function condition are always resolved because
+         * the condition is evaluated by the function instead of the
+         * {@link Compiler}.
+         */
+        private int functions = 0;
+
+        /**
+         * The function that transforms values.
+         */
+        private final Function<String, Object> valueParser;
+
+        /**
+         * A flag that indicates whether local variables that can't be
+         * resolved from the {@link #data} are kept in the tree as
+         * {@link VariableSymbol VariableSymbols}.
+         */
+        private final boolean deferVariables;
+
+        /**
+         * The {@link Statistics} in which the time that is spent in the value
+         * parser, operator parser and timestamp callbacks is recorded, or
+         * {@code null} if the parse isn't measured.
+         */
+        @Nullable
+        private final Statistics statistics;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param tokens
+         * @param data
+         * @param valueParser
+         * @param deferVariables
+         * @param statistics
+         */
+        Descent(Lexer tokens, Multimap<String, Object> data,
+                Function<String, Object> valueParser, boolean deferVariables,
+                @Nullable Statistics statistics) {
+            this.tokens = tokens;
+            this.data = data;
+            this.valueParser = valueParser;
+            this.deferVariables = deferVariables;
+            this.statistics = statistics;
+        }
+
+        /**
+         * Parse the entire statement.
+         *
+         * @return the {@link AbstractSyntaxTree}
+         */
+        AbstractSyntaxTree statement() {
+            if(isCondition()) {
+                if(kind() == WHERE) {
+                    ++pos;
+                }
+                ConditionTree condition = disjunction();
+                OrderTree order = kind() == ORDER ? order() : null;
+                PageTree page = kind() == PAGE || kind() == SIZE ? page()
+                        : null;
+                consume(EOF);
+                return order == null && page == null ? condition
+                        : new CommandTree(condition, page, order);
+            }
+            else {
+                AbstractSyntaxTree tree;
+                switch (kind()) {
+                case PAGE:
+                case SIZE:
+                    tree = page();
+                    break;
+                case ORDER:
+                    tree = order();
+                    break;
+                case NUMERIC:
+                case SIGNED_INTEGER:
+                case SIGNED_DECIMAL:
+                case ALPHANUMERIC:
+                case PERIOD_SEPARATED_STRING:
+                    tree = new FunctionTree(function());
+                    break;
+                default:
+                    throw unexpected();
+                }
+                consume(EOF);
+                return tree;
+            }
+        }
+
+        /**
+         * Parse one or more conjunctions that are separated by
+         * {@link #DISJUNCTION disjunctions}.
+         *
+         * @return the {@link ConditionTree}
+         */
+        private ConditionTree disjunction() {
+            ConditionTree tree = conjunction();
+            while (kind() == DISJUNCTION) {
+                ++pos;
+                tree = new OrTree(tree, conjunction());
+            }
+            return tree;
+        }
+
+        /**
+         * Parse one or more unary expressions that are separated by
+         * {@link #CONJUNCTION conjunctions}.
+         *
+         * @return the {@link ConditionTree}
+         */
+        private ConditionTree conjunction() {
+            ConditionTree tree = unary();
+            while (kind() == CONJUNCTION) {
+                ++pos;
+                tree = new AndTree(tree, unary());
+            }
+            return tree;
+        }
+
+        /**
+         * Parse a parenthesized disjunction or a relational expression.
+         *
+         * @return the {@link ConditionTree}
+         */
+        private ConditionTree unary() {
+            if(kind() == OPEN_PARENTHESES) {
+                ++pos;
+                ConditionTree tree = disjunction();
+                consume(CLOSE_PARENTHESES);
+                return tree;
+            }
+            else if(is(KEYS, kind())) {
+                return relational();
+            }
+            else {
+                throw unexpected();
+            }
+        }
+
+        /**
+         * Parse a relational expression.
+         *
+         * @return the {@link ExpressionTree}
+         */
+        private ExpressionTree relational() {
+            ASTExpression expression = new ASTExpression(0);
+            if(is(SEARCH_KEYS, kind()) && is(SEARCH_OPERATORS, kind(1))) {
+                expression.key(new KeySymbol(tokens.image(pos++)));
+                expression.operator(operator());
+                expression.addValue(searchValue());
+            }
+            else {
+                expression.key(key());
+                int kind = kind();
+                if(kind == LINKS_TO) {
+                    expression.operator(operator());
+                    expression.addValue(new ValueSymbol(
+                            transformValue(consume(NUMERIC))));
+                }
+                else if(is(REGEX_OPERATORS, kind)) {
+                    expression.operator(operator());
+                    expression.addValue(regexValue());
+                }
+                else if(is(UNARY_OPERATORS, kind)) {
+                    expression.operator(operator());
+                    expression.addValue(unaryValue());
+                }
+                else if(kind == BINARY_OPERATOR) {
+                    expression.operator(operator());
+                    expression.addValue(binaryValue());
+                    expression.addValue(binaryValue());
+                }
+                else {
+                    throw unexpected();
+                }
+                if(kind() == TIMESTAMP) {
+                    expression.timestamp(timestamp());
+                }
+            }
+            return new ExpressionTree(expression);
+        }
+
+        /**
+         * Parse the key of a relational expression or order clause.
+         *
+         * @return the {@link KeyTokenSymbol}
+         */
+        private KeyTokenSymbol<?> key() {
+            if(isKeyFunction()) {
+                return keyFunction();
+            }
+            else if(kind() == PERIOD_SEPARATED_STRING) {
+                return new NavigationKeySymbol(tokens.image(pos++));
+            }
+            else if(is(SEARCH_KEYS, kind())) {
+                return new KeySymbol(tokens.image(pos++));
+            }
+            else {
+                throw unexpected();
+            }
+        }
+
+        /**
+         * Parse the current token as an operator.
+         *
+         * @return the {@link OperatorSymbol}
+         */
+        private OperatorSymbol operator() {
+            return new OperatorSymbol(transformOperator(tokens.image(pos++)));
+        }
+
+        /**
+         * Parse the value of an expression that has a unary operator.
+         *
+         * @return the {@link ValueTokenSymbol}
+         */
+        private ValueTokenSymbol<?> unaryValue() {
+            return words(VALUE_WORDS);
+        }
+
+        /**
+         * Parse the value of an expression that has a search operator.
+         *
+         * @return the {@link ValueTokenSymbol}
+         */
+        private ValueTokenSymbol<?> searchValue() {
+            return words(SEARCH_WORDS);
+        }
+
+        /**
+         * Parse a value function, a quoted string or a run of {@code words}
+         * that are joined by spaces.
+         *
+         * @param words
+         * @return the {@link ValueTokenSymbol}
+         */
+        private ValueTokenSymbol<?> words(long words) {
+            if(isValueFunction()) {
+                return valueFunction();
+            }
+            else if(is(words, kind())) {
+                StringBuilder value = new StringBuilder(tokens.image(pos++));
+                while (is(words, kind())) {
+                    value.append(' ').append(tokens.image(pos++));
+                }
+                return value(value.toString());
+            }
+            else if(kind() == QUOTED_STRING) {
+                return quoted();
+            }
+            else {
+                throw unexpected();
+            }
+        }
+
+        /**
+         * Parse one of the values of an expression that has a binary
+         * operator.
+         *
+         * @return the {@link ValueTokenSymbol}
+         */
+        private ValueTokenSymbol<?> binaryValue() {
+            if(isValueFunction()) {
+                return valueFunction();
+            }
+            else if(is(VALUE_WORDS, kind())) {
+                return value(tokens.image(pos++));
+            }
+            else if(kind() == QUOTED_STRING) {
+                return quoted();
+            }
+            else {
+                throw unexpected();
+            }
+        }
+
+        /**
+         * Parse the value of an expression that has a regex based operator.
+         *
+         * @return the {@link ValueTokenSymbol}
+         */
+        private ValueTokenSymbol<?> regexValue() {
+            boolean parenthesized = kind() == OPEN_PARENTHESES;
+            if(parenthesized) {
+                ++pos;
+            }
+            else if(kind() == QUOTED_STRING) {
+                return quoted();
+            }
+            if(!is(VALUE_WORDS, kind())) {
+                throw unexpected();
+            }
+            String value = "";
+            do {
+                String word = tokens.image(pos++);
+                if(value.equals("") | value.endsWith("(") | word.equals(")")
+                        | value.endsWith("=") | word.equals("=")
+                        | value.endsWith("_") | word.equals("_")) {
+                    value += word;
+                }
+                else {
+                    value += " " + word;
+                }
+            }
+            while (is(VALUE_WORDS, kind()));
+            if(parenthesized) {
+                consume(CLOSE_PARENTHESES);
+                value = "(" + value + ")";
+            }
+            return new ValueSymbol(transformValue(value));
+        }
+
+        /**
+         * Parse a {@link #QUOTED_STRING} value.
+         *
+         * @return the {@link ValueSymbol}
+         */
+        private ValueSymbol quoted() {
+            return new ValueSymbol(
+                    transformValue(tokens.image(pos++).replace("\\\"", "\"")));
+        }
+
+        /**
+         * Return the {@link ValueTokenSymbol} for an unquoted {@code value},
+         * which may be a local variable.
+         *
+         * @param value
+         * @return the {@link ValueTokenSymbol}
+         */
+        private ValueTokenSymbol<?> value(String value) {
+            if(deferVariables && functions == 0 && value.charAt(0) == '$'
+                    && data.get(value.substring(1)).isEmpty()) {
+                return new VariableSymbol(value.substring(1));
+            }
+            else {
+                return new ValueSymbol(transformValue(resolve(value)));
+            }
+        }
+
+        /**
+         * Resolve {@code value} if it is a local variable, or unescape it if
+         * it isn't.
+         *
+         * @param value
+         * @return the resolved value
+         */
+        private String resolve(String value) {
+            if(value.charAt(0) == '$') {
+                String var = value.substring(1);
+                try {
+                    return Iterables.getOnlyElement(data.get(var)).toString();
+                }
+                catch (IllegalArgumentException e) {
+                    String err = "Unable to resolve variable {} because multiple values exist locally: {}";
+                    throw new SyntaxException(
+                            AnyStrings.format(err, value, data.get(var)));
+                }
+                catch (NoSuchElementException e) {
+                    String err = "Unable to resolve variable {} because no values exist locally";
+                    throw new SyntaxException(AnyStrings.format(err, value));
+                }
+            }
+            else if(value.length() > 2 && value.charAt(0) == '\\'
+                    && value.charAt(1) == '$') {
+                return value.substring(1);
+            }
+            else {
+                return value.replace("\\@", "@");
+            }
+        }
+
+        /**
+         * Parse a {@link #TIMESTAMP} clause.
+         *
+         * @return the {@link TimestampSymbol}
+         */
+        private TimestampSymbol timestamp() {
+            consume(TIMESTAMP);
+            if(!is(TIMESTAMP_WORDS, kind())) {
+                throw unexpected();
+            }
+            StringBuilder timestamp = new StringBuilder(tokens.image(pos++));
+            while (is(TIMESTAMP_WORDS, kind())) {
+                timestamp.append(' ').append(tokens.image(pos++));
+            }
+            return new TimestampSymbol(
+                    transformTimestamp(timestamp.toString()));
+        }
+
+        /**
+         * Apply the {@link #operatorParser} to the {@code token}.
+         *
+         * @param token
+         * @return the {@link Operator}
+         */
+        private Operator transformOperator(String token) {
+            return statistics == null ? operatorParser.apply(token)
+                    : statistics.time(Phase.OPERATOR_PARSER, operatorParser,
+                            token);
+        }
+
+        /**
+         * Resolve the natural language {@code timestamp} to microseconds.
+         *
+         * @param timestamp
+         * @return the timestamp in microseconds
+         */
+        private long transformTimestamp(String timestamp) {
+            return statistics == null ? NaturalLanguage.parseMicros(timestamp)
+                    : statistics.time(Phase.TIMESTAMP,
+                            NaturalLanguage::parseMicros, timestamp);
+        }
+
+        /**
+         * Apply the {@link #valueParser} to the {@code token}.
+         *
+         * @param token
+         * @return the value
+         */
+        private Object transformValue(String token) {
+            return statistics == null ? valueParser.apply(token)
+                    : statistics.time(Phase.VALUE_PARSER, valueParser, token);
+        }
+
+        /**
+         * Parse a {@link #PAGE} and/or {@link #SIZE} clause.
+         *
+         * @return the {@link PageTree}
+         */
+        private PageTree page() {
+            String number = null;
+            String size = null;
+            if(kind() == PAGE) {
+                number = number(PAGE);
+                if(kind() == SIZE) {
+                    size = number(SIZE);
+                }
+            }
+            else {
+                size = number(SIZE);
+                if(kind() == PAGE) {
+                    number = number(PAGE);
+                }
+            }
+            return new PageTree(new PageSymbol(
+                    number != null ? Integer.parseInt(number) : null,
+                    size != null ? Integer.parseInt(size) : null));
+        }
+
+        /**
+         * Parse the {@link #NUMERIC} argument of the {@code keyword}.
+         *
+         * @param keyword
+         * @return the number
+         */
+        private String number(int keyword) {
+            consume(keyword);
+            return consume(NUMERIC);
+        }
+
+        /**
+         * Parse an {@link #ORDER} clause.
+         *
+         * @return the {@link OrderTree}
+         */
+        private OrderTree order() {
+            consume(ORDER);
+            OrderSymbol order = new OrderSymbol();
+            order.add(orderComponent());
+            while (kind() == COMMA) {
+                ++pos;
+                order.add(orderComponent());
+            }
+            return new OrderTree(order);
+        }
+
+        /**
+         * Parse a single component of an {@link #ORDER} clause.
+         *
+         * @return the {@link OrderComponentSymbol}
+         */
+        private OrderComponentSymbol orderComponent() {
+            KeyTokenSymbol<?> key;
+            DirectionSymbol direction = DirectionSymbol.ASCENDING;
+            int kind = kind();
+            if(kind == OPEN_ANGLE_BRACKET || kind == CLOSE_ANGLE_BRACKET) {
+                ++pos;
+                direction = kind == OPEN_ANGLE_BRACKET
+                        ? DirectionSymbol.ASCENDING
+                        : DirectionSymbol.DESCENDING;
+                key = key();
+            }
+            else if(is(KEYS, kind)) {
+                key = key();
+                if(kind() == ASC || kind() == DESC) {
+                    direction = kind() == ASC ? DirectionSymbol.ASCENDING
+                            : DirectionSymbol.DESCENDING;
+                    ++pos;
+                }
+            }
+            else {
+                throw unexpected();
+            }
+            if(kind() == TIMESTAMP) {
+                return new OrderComponentSymbol(key, timestamp(), direction);
+            }
+            else {
+                return new OrderComponentSymbol(key, direction);
+            }
+        }
+
+        /**
+         * Parse a standalone function.
+         *
+         * @return the {@link FunctionTokenSymbol}
+         */
+        private FunctionTokenSymbol function() {
+            return isKeyFunction() ? keyFunction() : valueFunction();
+        }
+
+        /**
+         * Parse a key function (e.g. {@code age | avg}).
+         *
+         * @return the {@link FunctionKeySymbol}
+         */
+        private FunctionKeySymbol keyFunction() {
+            String key = tokens.image(pos);
+            pos += 2;
+            String function = consume(ALPHANUMERIC);
+            return new FunctionKeySymbol(
+                    new ImplicitKeyRecordFunction(function, key));
+        }
+
+        /**
+         * Parse a value function (e.g. {@code avg(age)}).
+         *
+         * @return the {@link FunctionValueSymbol}
+         */
+        private FunctionValueSymbol valueFunction() {
+            String function = consume(ALPHANUMERIC);
+            consume(OPEN_PARENTHESES);
+            int k0 = kind();
+            int k1 = kind(1);
+            int k2 = kind(2);
+            if(!is(VALUE_FUNCTION_KEYS, k0)) {
+                throw unexpected();
+            }
+            String key = tokens.image(pos++);
+            if(k1 == CLOSE_PARENTHESES
+                    || (k1 == COMMA && k2 == TIMESTAMP)) {
+                if(kind() == CLOSE_PARENTHESES) {
+                    ++pos;
+                    return new FunctionValueSymbol(
+                            new IndexFunction(function, key));
+                }
+                else {
+                    ++pos;
+                    TimestampSymbol timestamp = timestamp();
+                    consume(CLOSE_PARENTHESES);
+                    return new FunctionValueSymbol(new IndexFunction(function,
+                            key, timestamp.timestamp()));
+                }
+            }
+            consume(COMMA);
+            if(is(RECORDS, k2)) {
+                List<String> records = records();
+                consume(CLOSE_PARENTHESES);
+                return new FunctionValueSymbol(
+                        new KeyRecordsFunction(function, key, records));
+            }
+            else if(k2 == OPEN_BRACKET) {
+                ++pos;
+                List<String> records = records();
+                consume(CLOSE_BRACKET);
+                consume(COMMA);
+                TimestampSymbol timestamp = timestamp();
+                consume(CLOSE_PARENTHESES);
+                return new FunctionValueSymbol(new KeyRecordsFunction(function,
+                        key, records, timestamp.timestamp()));
+            }
+            else {
+                ++functions;
+                ConditionTree condition = disjunction();
+                --functions;
+                if(kind() == COMMA) {
+                    ++pos;
+                    TimestampSymbol timestamp = timestamp();
+                    consume(CLOSE_PARENTHESES);
+                    return new FunctionValueSymbol(new KeyConditionFunction(
+                            function, key, condition, timestamp.timestamp()));
+                }
+                else {
+                    consume(CLOSE_PARENTHESES);
+                    return new FunctionValueSymbol(
+                            new KeyConditionFunction(function, key, condition));
+                }
+            }
+        }
+
+        /**
+         * Parse a comma separated list of records.
+         *
+         * @return the records
+         */
+        private List<String> records() {
+            List<String> records = Lists.newArrayList();
+            records.add(consume(RECORDS));
+            while (kind() == COMMA) {
+                ++pos;
+                records.add(consume(RECORDS));
+            }
+            return records;
+        }
+
+        /**
+         * Return {@code true} if the statement is a condition. This makes the
+         * same decision as the {@link #CONDITION_LOOKAHEAD} token syntactic
+         * lookahead in the {@link Grammar}, which matches the start of the
+         * statement against a condition and succeeds if the match either
+         * completes or reaches the last token of the lookahead.
+         *
+         * @return {@code true} if the statement should be parsed as a
+         *         condition
+         */
+        private boolean isCondition() {
+            try {
+                return new Scan().statement();
+            }
+            catch (LookaheadSuccess success) {
+                return true;
+            }
+        }
+
+        /**
+         * Return {@code true} if the next tokens are the start of a key
+         * function.
+         *
+         * @return {@code true} if a key function follows
+         */
+        private boolean isKeyFunction() {
+            return is(FUNCTION_KEYS, kind()) && kind(1) == PIPE;
+        }
+
+        /**
+         * Return {@code true} if the next tokens are the start of a value
+         * function.
+         *
+         * @return {@code true} if a value function follows
+         */
+        private boolean isValueFunction() {
+            return kind() == ALPHANUMERIC && kind(1) == OPEN_PARENTHESES;
+        }
+
+        /**
+         * Consume the next token, which must be of the {@code expected} kind.
+         *
+         * @param expected
+         * @return the image of the token
+         */
+        private String consume(int expected) {
+            if(kind() == expected) {
+                return tokens.image(pos++);
+            }
+            else {
+                throw unexpected();
+            }
+        }
+
+        /**
+         * Consume the next token, which must be one of the {@code expected}
+         * kinds.
+         *
+         * @param expected
+         * @return the image of the token
+         */
+        private String consume(long expected) {
+            if(is(expected, kind())) {
+                return tokens.image(pos++);
+            }
+            else {
+                throw unexpected();
+            }
+        }
+
+        /**
+         * Return the kind of the next token.
+         *
+         * @return the token kind
+         */
+        private int kind() {
+            return tokens.kind(pos);
+        }
+
+        /**
+         * Return the kind of the token that is {@code offset} tokens after
+         * the next one.
+         *
+         * @param offset
+         * @return the token kind
+         */
+        private int kind(int offset) {
+            return tokens.kind(pos + offset);
+        }
+
+        /**
+         * Return a {@link SyntaxException} that describes the next token,
+         * which can't be parsed.
+         *
+         * @return the {@link SyntaxException}
+         */
+        private SyntaxException unexpected() {
+            if(kind() == EOF) {
+                return new SyntaxException(
+                        "Encountered the end of the statement");
+            }
+            else {
+                return new SyntaxException(AnyStrings.format(
+                        "Encountered {} \"{}\" at column {}",
+                        tokenImage[kind()], tokens.image(pos),
+                        tokens.begin(pos) + 1));
+            }
+        }
+
+        /**
+         * A port of the syntactic lookahead that the {@link Grammar} uses to
+         * decide whether a statement is a condition. Like the generated
+         * lookahead, it only covers as much of each production as is needed
+         * to match {@link #CONDITION_LOOKAHEAD} tokens, tries alternatives in
+         * order and doesn't backtrack into a loop once it has stopped.
+         *
+         * @author Jeff Nelson
+         */
+        private final class Scan {
+
+            /**
+             * The index of the next token to scan.
+             */
+            private int at = 0;
+
+            /**
+             * Scan a condition statement.
+             *
+             * @return {@code true} if the tokens match
+             */
+            boolean statement() {
+                int mark = at;
+                if(!token(WHERE)) {
+                    at = mark;
+                }
+                if(!disjunction()) {
+                    return false;
+                }
+                token(ORDER);
+                if(!token(PAGE)) {
+                    token(SIZE);
+                }
+                return token(EOF);
+            }
+
+            /**
+             * Scan a disjunction.
+             *
+             * @return {@code true} if the tokens match
+             */
+            private boolean disjunction() {
+                if(!conjunction()) {
+                    return false;
+                }
+                while (token(DISJUNCTION)) {
+                    continue;
+                }
+                return true;
+            }
+
+            /**
+             * Scan a conjunction.
+             *
+             * @return {@code true} if the tokens match
+             */
+            private boolean conjunction() {
+                if(!unary()) {
+                    return false;
+                }
+                while (token(CONJUNCTION)) {
+                    continue;
+                }
+                return true;
+            }
+
+            /**
+             * Scan a unary expression.
+             *
+             * @return {@code true} if the tokens match
+             */
+            private boolean unary() {
+                int mark = at;
+                if(token(OPEN_PARENTHESES) && disjunction()) {
+                    return true;
+                }
+                at = mark;
+                return relational();
+            }
+
+            /**
+             * Scan a relational expression.
+             *
+             * @return {@code true} if the tokens match
+             */
+            private boolean relational() {
+                int mark = at;
+                if(token(SEARCH_KEYS) && token(SEARCH_OPERATORS)
+                        && (valueFunction() || words(SEARCH_WORDS)
+                                || token(QUOTED_STRING))) {
+                    return true;
+                }
+                at = mark;
+                if(!key()) {
+                    return false;
+                }
+                mark = at;
+                if((token(LINKS_TO) && token(NUMERIC))
+                        || reset(mark) && token(REGEX_OPERATORS)
+                                && regexValue()
+                        || reset(mark) && token(UNARY_OPERATORS)
+                                && (valueFunction() || words(VALUE_WORDS)
+                                        || token(QUOTED_STRING))) {
+                    token(TIMESTAMP);
+                    return true;
+                }
+                reset(mark);
+                return token(BINARY_OPERATOR) && binaryValue()
+                        && binaryValue();
+            }
+
+            /**
+             * Scan a key.
+             *
+             * @return {@code true} if the tokens match
+             */
+            private boolean key() {
+                int mark = at;
+                if(token(FUNCTION_KEYS) && token(PIPE) && token(ALPHANUMERIC)) {
+                    return true;
+                }
+                at = mark;
+                return token(SEARCH_KEYS) || token(PERIOD_SEPARATED_STRING);
+            }
+
+            /**
+             * Scan the value of a regex based expression.
+             *
+             * @return {@code true} if the tokens match
+             */
+            private boolean regexValue() {
+                int mark = at;
+                if(token(OPEN_PARENTHESES) && words(VALUE_WORDS)) {
+                    return true;
+                }
+                at = mark;
+                return words(VALUE_WORDS) || token(QUOTED_STRING);
+            }
+
+            /**
+             * Scan one of the values of a binary expression.
+             *
+             * @return {@code true} if the tokens match
+             */
+            private boolean binaryValue() {
+                return valueFunction() || token(VALUE_WORDS)
+                        || token(QUOTED_STRING);
+            }
+
+            /**
+             * Scan the start of a value function.
+             *
+             * @return {@code true} if the tokens match
+             */
+            private boolean valueFunction() {
+                int mark = at;
+                if(token(ALPHANUMERIC) && token(OPEN_PARENTHESES)) {
+                    return true;
+                }
+                at = mark;
+                return false;
+            }
+
+            /**
+             * Scan one or more of the {@code words}.
+             *
+             * @param words
+             * @return {@code true} if the tokens match
+             */
+            private boolean words(long words) {
+                if(!token(words)) {
+                    return false;
+                }
+                while (token(words)) {
+                    continue;
+                }
+                return true;
+            }
+
+            /**
+             * Scan a single token of the {@code expected} kind.
+             *
+             * @param expected
+             * @return {@code true} if the token matches
+             */
+            private boolean token(int expected) {
+                return token(1L << expected);
+            }
+
+            /**
+             * Scan a single token that is one of the {@code expected} kinds.
+             * The lookahead succeeds as soon as the last token it may examine
+             * is matched.
+             *
+             * @param expected
+             * @return {@code true} if the token matches
+             */
+            private boolean token(long expected) {
+                if(is(expected, tokens.kind(pos + at))) {
+                    if(++at == CONDITION_LOOKAHEAD) {
+                        throw LookaheadSuccess.INSTANCE;
+                    }
+                    return true;
+                }
+                else {
+                    return false;
+                }
+            }
+
+            /**
+             * Move back to the token at {@code mark}.
+             *
+             * @param mark
+             * @return {@code true}
+             */
+            private boolean reset(int mark) {
+                at = mark;
+                return true;
+            }
+
+        }
+
+    }
+
+    /**
+     * Return {@code true} if {@code kind} is in the set of {@code kinds}.
+     *
+     * @param kinds
+     * @param kind
+     * @return {@code true} if {@code kind} is one of the {@code kinds}
+     */
+    private static boolean is(long kinds, int kind) {
+        return (kinds & (1L << kind)) != 0;
+    }
+
+    /**
+     * Thrown when a syntactic lookahead succeeds before the production it is
+     * scanning is complete. It doesn't capture a stack trace.
+     *
+     * @author Jeff Nelson
+     */
+    @SuppressWarnings("serial")
+    private static final class LookaheadSuccess extends RuntimeException {
+
+        /**
+         * The singleton instance.
+         */
+        static final LookaheadSuccess INSTANCE = new LookaheadSuccess();
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+    }
+
+}
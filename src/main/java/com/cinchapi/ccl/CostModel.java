@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.grammar.FunctionKeySymbol;
+import com.cinchapi.ccl.grammar.FunctionValueSymbol;
+import com.cinchapi.ccl.grammar.KeyTokenSymbol;
+import com.cinchapi.ccl.grammar.NavigationKeySymbol;
+import com.cinchapi.ccl.grammar.ValueTokenSymbol;
+import com.cinchapi.ccl.type.Operator;
+
+/**
+ * A {@link CostModel} estimates how expensive it is to evaluate an
+ * {@link ExpressionSymbol} against a record and how likely the expression is
+ * to be satisfied, so that the operands of a conjunction can be evaluated in
+ * the order that lets short circuiting skip the most work.
+ * <p>
+ * Each method has a default implementation, so a custom {@link CostModel} only
+ * needs to override the estimates that it wants to change (e.g. to reflect the
+ * cost of the evaluator's regular expression support). The estimates are
+ * relative to an equality check on a plain key, which costs {@code 1}.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+public interface CostModel {
+
+    /**
+     * The {@link CostModel} that uses all the default estimates.
+     */
+    public static final CostModel DEFAULT = new CostModel() {};
+
+    /**
+     * Return the relative cost of evaluating a stored value against the
+     * {@code operator}.
+     *
+     * @param operator
+     * @return the cost of the {@code operator}
+     */
+    public default double cost(Operator operator) {
+        switch (operator.symbol().toLowerCase()) {
+        case "regex":
+        case "nregex":
+        case "like":
+        case "nlike":
+        case "not_like":
+            return 10;
+        case "contains":
+        case "not_contains":
+        case "ncontains":
+        case "search":
+        case "search_match":
+        case "search_exclude":
+        case "~":
+        case "~!":
+            return 8;
+        case "><":
+        case "bw":
+            return 2;
+        default:
+            return 1;
+        }
+    }
+
+    /**
+     * Return the factor by which reading the values for the {@code key}
+     * multiplies the cost of an expression.
+     *
+     * @param key
+     * @return the cost factor of the {@code key}
+     */
+    public default double cost(KeyTokenSymbol<?> key) {
+        if(key instanceof NavigationKeySymbol) {
+            return 5 * ((NavigationKeySymbol) key).components().length;
+        }
+        else if(key instanceof FunctionKeySymbol) {
+            return 20;
+        }
+        else {
+            return 1;
+        }
+    }
+
+    /**
+     * Return the cost of resolving the {@code value}, which is added to the
+     * cost of an expression.
+     *
+     * @param value
+     * @return the cost of the {@code value}
+     */
+    public default double cost(ValueTokenSymbol<?> value) {
+        return value instanceof FunctionValueSymbol ? 50 : 0;
+    }
+
+    /**
+     * Return the relative cost of evaluating the {@code expression} against a
+     * record.
+     *
+     * @param expression
+     * @return the cost of the {@code expression}
+     */
+    public default double cost(ExpressionSymbol expression) {
+        KeyTokenSymbol<?> key = expression.key();
+        double cost = cost(expression.operator().operator()) * cost(key);
+        for (ValueTokenSymbol<?> value : expression.values()) {
+            cost += cost(value);
+        }
+        return cost;
+    }
+
+    /**
+     * Return the estimated probability, between {@code 0} and {@code 1}, that
+     * a record satisfies the {@code expression} before any records have been
+     * observed.
+     *
+     * @param expression
+     * @return the estimated selectivity of the {@code expression}
+     */
+    public default double selectivity(ExpressionSymbol expression) {
+        switch (expression.operator().operator().symbol().toLowerCase()) {
+        case "=":
+        case "->":
+            return 0.1;
+        case "!=":
+        case "nregex":
+        case "nlike":
+        case "not_like":
+        case "not_contains":
+        case "ncontains":
+        case "search_exclude":
+        case "~!":
+            return 0.9;
+        default:
+            return 0.5;
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.cinchapi.ccl.type.Operator;
+
+/**
+ * An {@link Evaluator} determines whether a stored value satisfies an
+ * {@link Operator} in relation to the reference values of an expression.
+ * <p>
+ * Unlike the {@link com.cinchapi.common.function.TriFunction TriFunction}
+ * that is accepted by
+ * {@link Compiler#evaluate(com.cinchapi.ccl.syntax.ConditionTree, com.google.common.collect.Multimap, com.cinchapi.common.function.TriFunction)
+ * Compiler#evaluate}, an {@link Evaluator} has specializations for integral,
+ * floating point and string operands that return a primitive
+ * {@code boolean}, so numeric comparisons don't box the operands or the
+ * result. A {@link java.util.function.Predicate Predicate} that is
+ * {@link Compiler#compile(com.cinchapi.ccl.syntax.ConditionTree, Evaluator)
+ * compiled} with an {@link Evaluator} decides which method to call based on
+ * the types of the stored value and the reference values.
+ * </p>
+ * <p>
+ * {@code Byte}, {@code Short}, {@code Integer} and {@code Long} values are
+ * integral, and {@code Float} and {@code Double} values are floating point.
+ * Any other combination of types is passed to
+ * {@link #evaluate(Object, Operator, List)}.
+ * </p>
+ * <p>
+ * The value of a {@code REGEX}, {@code NOT_REGEX}, {@code LIKE} or
+ * {@code NOT_LIKE} expression is compiled into a {@link Pattern} once, the
+ * first time that it is needed, and passed to
+ * {@link #evaluate(CharSequence, Operator, Pattern)}.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+public interface Evaluator {
+
+    /**
+     * Return {@code true} if the {@code value} satisfies the {@code operator}
+     * in relation to the {@code values}.
+     *
+     * @param value the stored value
+     * @param operator the {@link Operator}
+     * @param values the reference values
+     * @return {@code true} if the {@code value} satisfies the condition
+     */
+    public boolean evaluate(Object value, Operator operator,
+            List<Object> values);
+
+    /**
+     * Return {@code true} if the integral {@code value} satisfies the
+     * {@code operator} in relation to the integral {@code values}.
+     *
+     * @param value the stored value
+     * @param operator the {@link Operator}
+     * @param values the reference values, which must not be modified
+     * @return {@code true} if the {@code value} satisfies the condition
+     */
+    public boolean evaluate(long value, Operator operator, long[] values);
+
+    /**
+     * Return {@code true} if the numeric {@code value} satisfies the
+     * {@code operator} in relation to the numeric {@code values}, at least one
+     * of which is floating point.
+     *
+     * @param value the stored value
+     * @param operator the {@link Operator}
+     * @param values the reference values, which must not be modified
+     * @return {@code true} if the {@code value} satisfies the condition
+     */
+    public boolean evaluate(double value, Operator operator, double[] values);
+
+    /**
+     * Return {@code true} if the string {@code value} satisfies the
+     * {@code operator} in relation to the string {@code values}.
+     *
+     * @param value the stored value
+     * @param operator the {@link Operator}
+     * @param values the reference values, which must not be modified
+     * @return {@code true} if the {@code value} satisfies the condition
+     */
+    public boolean evaluate(CharSequence value, Operator operator,
+            CharSequence[] values);
+
+    /**
+     * Return {@code true} if the {@code value} satisfies the regex based
+     * {@code operator} in relation to the {@code pattern}.
+     * <p>
+     * The {@code pattern} is the same for {@code REGEX} and
+     * {@code NOT_REGEX} (or {@code LIKE} and {@code NOT_LIKE}), so the
+     * {@link Evaluator} must negate the outcome for the latter. A stored value
+     * that isn't a string is passed in its string form.
+     * </p>
+     *
+     * @param value the stored value
+     * @param operator the {@link Operator}
+     * @param pattern the {@link Pattern} for the reference value; see
+     *            {@link Patterns#of(Operator, Object)}
+     * @return {@code true} if the {@code value} satisfies the condition
+     */
+    public boolean evaluate(CharSequence value, Operator operator,
+            Pattern pattern);
+
+}
@@ -0,0 +1,582 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.Arrays;
+
+import com.cinchapi.ccl.generated.GrammarConstants;
+import com.cinchapi.ccl.generated.GrammarTokenManager;
+import com.cinchapi.common.base.AnyStrings;
+
+/**
+ * A {@link Lexer} splits a CCL statement into the same tokens that are
+ * produced by the {@link GrammarTokenManager}.
+ * <p>
+ * The entire statement is tokenized up front. Each token is described by its
+ * {@link GrammarConstants kind} and the offsets of its first and last
+ * characters, so no {@link String strings} are created unless the
+ * {@link #image(int) image} of a token is requested. Like the
+ * {@link GrammarTokenManager}, the lexer always chooses the longest possible
+ * token and, if more than one kind of token has that length, the kind that is
+ * declared first in the grammar.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+final class Lexer implements GrammarConstants {
+
+    /**
+     * The literal tokens, indexed by the lower case version of their first
+     * character.
+     */
+    private static final Literal[][] LITERALS = new Literal[128][];
+    static {
+        Literal[] literals = { new Literal("(", OPEN_PARENTHESES),
+                new Literal(")", CLOSE_PARENTHESES),
+                new Literal("[", OPEN_BRACKET),
+                new Literal("]", CLOSE_BRACKET), new Literal("at", TIMESTAMP),
+                new Literal("on", TIMESTAMP), new Literal("during", TIMESTAMP),
+                new Literal("in", TIMESTAMP), new Literal("where", WHERE),
+                new Literal("$id$", RESERVED_IDENTIFIER),
+                new Literal("and", CONJUNCTION),
+                new Literal("&&", CONJUNCTION), new Literal("&", CONJUNCTION),
+                new Literal("or", DISJUNCTION), new Literal("||", DISJUNCTION),
+                new Literal("=", UNARY_OPERATOR),
+                new Literal("==", UNARY_OPERATOR),
+                new Literal("eq", UNARY_OPERATOR),
+                new Literal("equals", UNARY_OPERATOR),
+                new Literal("!=", UNARY_OPERATOR),
+                new Literal("ne", UNARY_OPERATOR),
+                new Literal("not_equals", UNARY_OPERATOR),
+                new Literal("gt", UNARY_OPERATOR),
+                new Literal("greater_than", UNARY_OPERATOR),
+                new Literal(">=", UNARY_OPERATOR),
+                new Literal("gte", UNARY_OPERATOR),
+                new Literal("greater_than_or_equals", UNARY_OPERATOR),
+                new Literal("lt", UNARY_OPERATOR),
+                new Literal("less_than", UNARY_OPERATOR),
+                new Literal("<=", UNARY_OPERATOR),
+                new Literal("lte", UNARY_OPERATOR),
+                new Literal("less_than_or_equals", UNARY_OPERATOR),
+                new Literal("><", BINARY_OPERATOR),
+                new Literal("bw", BINARY_OPERATOR),
+                new Literal("between", BINARY_OPERATOR),
+                new Literal("<", OPEN_ANGLE_BRACKET),
+                new Literal(">", CLOSE_ANGLE_BRACKET),
+                new Literal("->", LINKS_TO), new Literal("lnks2", LINKS_TO),
+                new Literal("lnk2", LINKS_TO),
+                new Literal("links_to", LINKS_TO), new Literal("regex", REGEX),
+                new Literal("nregex", NOT_REGEX),
+                new Literal("not_regex", NOT_REGEX),
+                new Literal("like", LIKE), new Literal("nlike", NOT_LIKE),
+                new Literal("not_like", NOT_LIKE), new Literal("page", PAGE),
+                new Literal("size", SIZE), new Literal("order by", ORDER),
+                new Literal("asc", ASC), new Literal("desc", DESC),
+                new Literal("search_match", SEARCH_MATCH),
+                new Literal("contains", SEARCH_MATCH),
+                new Literal("~", SEARCH_MATCH),
+                new Literal("search_exclude", SEARCH_EXCLUDE),
+                new Literal("not_contains", SEARCH_EXCLUDE),
+                new Literal("!~", SEARCH_EXCLUDE), new Literal("|", PIPE),
+                new Literal(",", COMMA), new Literal("\n", 50) };
+        for (Literal literal : literals) {
+            char c = literal.text.charAt(0);
+            Literal[] bucket = LITERALS[c];
+            if(bucket == null) {
+                bucket = new Literal[] { literal };
+            }
+            else {
+                bucket = Arrays.copyOf(bucket, bucket.length + 1);
+                bucket[bucket.length - 1] = literal;
+            }
+            LITERALS[c] = bucket;
+        }
+    }
+
+    /**
+     * The statement that was tokenized.
+     */
+    private final String ccl;
+
+    /**
+     * The kind of each token.
+     */
+    private int[] kinds;
+
+    /**
+     * The offset of the first character of each token.
+     */
+    private int[] begins;
+
+    /**
+     * The offset after the last character of each token.
+     */
+    private int[] ends;
+
+    /**
+     * The number of tokens, including the trailing {@link #EOF}.
+     */
+    private int count;
+
+    /**
+     * Construct a new instance and tokenize {@code ccl}.
+     *
+     * @param ccl
+     * @throws SyntaxException if {@code ccl} contains a character that can't
+     *             begin a token
+     */
+    Lexer(String ccl) {
+        this.ccl = ccl;
+        int capacity = Math.max(8, ccl.length() / 3);
+        this.kinds = new int[capacity];
+        this.begins = new int[capacity];
+        this.ends = new int[capacity];
+        this.count = 0;
+        tokenize();
+    }
+
+    /**
+     * Return the offset of the first character of the token at
+     * {@code index}.
+     *
+     * @param index
+     * @return the begin offset
+     */
+    int begin(int index) {
+        return begins[Math.min(index, count - 1)];
+    }
+
+    /**
+     * Return the text of the token at {@code index}.
+     *
+     * @param index
+     * @return the token image
+     */
+    String image(int index) {
+        index = Math.min(index, count - 1);
+        return ccl.substring(begins[index], ends[index]);
+    }
+
+    /**
+     * Return the {@link GrammarConstants kind} of the token at {@code index}.
+     * Every index after the last token is reported as {@link #EOF}.
+     *
+     * @param index
+     * @return the token kind
+     */
+    int kind(int index) {
+        return index < count ? kinds[index] : EOF;
+    }
+
+    /**
+     * Return the number of tokens, including the trailing {@link #EOF}.
+     *
+     * @return the number of tokens
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Record a token.
+     *
+     * @param kind
+     * @param begin
+     * @param end
+     */
+    private void add(int kind, int begin, int end) {
+        if(count == kinds.length) {
+            int capacity = count * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            begins = Arrays.copyOf(begins, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        kinds[count] = kind;
+        begins[count] = begin;
+        ends[count] = end;
+        ++count;
+    }
+
+    /**
+     * Split the {@link #ccl} into tokens.
+     */
+    private void tokenize() {
+        String s = ccl;
+        int length = s.length();
+        int pos = 0;
+        while (true) {
+            while (pos < length
+                    && (s.charAt(pos) == ' ' || s.charAt(pos) == '\t')) {
+                ++pos;
+            }
+            if(pos == length) {
+                add(EOF, pos, pos);
+                return;
+            }
+            int best = 0;
+            int kind = -1;
+            char c = s.charAt(pos);
+            Literal[] literals = c < 128 ? LITERALS[lower(c)] : null;
+            if(literals != null) {
+                for (Literal literal : literals) {
+                    int len = literal.match(s, pos);
+                    if(len > best) {
+                        best = len;
+                        kind = literal.kind;
+                    }
+                }
+            }
+            int len;
+            if((len = quoted(s, pos)) > best) {
+                best = len;
+                kind = QUOTED_STRING;
+            }
+            if((len = digits(s, pos)) > best) {
+                best = len;
+                kind = NUMERIC;
+            }
+            if((len = signedInteger(s, pos)) > best) {
+                best = len;
+                kind = SIGNED_INTEGER;
+            }
+            if((len = signedDecimal(s, pos)) > best) {
+                best = len;
+                kind = SIGNED_DECIMAL;
+            }
+            if((len = alphanumeric(s, pos)) > best) {
+                best = len;
+                kind = ALPHANUMERIC;
+            }
+            if((len = periodSeparated(s, pos)) > best) {
+                best = len;
+                kind = PERIOD_SEPARATED_STRING;
+            }
+            if((len = word(s, pos)) > best) {
+                best = len;
+                kind = NON_ALPHANUMERIC_AND_ALPHANUMERIC;
+            }
+            if(best == 0) {
+                throw new SyntaxException(AnyStrings.format(
+                        "Lexical error at column {}: unexpected character {}",
+                        pos + 1, (int) c));
+            }
+            add(kind, pos, pos + best);
+            pos += best;
+        }
+    }
+
+    /**
+     * Return the length of the {@link #QUOTED_STRING} at {@code pos}, or 0 if
+     * there isn't one.
+     *
+     * @param s
+     * @param pos
+     * @return the token length
+     */
+    private static int quoted(String s, int pos) {
+        char close;
+        switch (s.charAt(pos)) {
+        case '"':
+            close = '"';
+            break;
+        case '\u201C':
+            close = '\u201D';
+            break;
+        case '\'':
+            close = '\'';
+            break;
+        case '\u2018':
+            close = '\u2019';
+            break;
+        case '`':
+            close = '`';
+            break;
+        default:
+            return 0;
+        }
+        int length = s.length();
+        int i = pos + 1;
+        while (i < length) {
+            char c = s.charAt(i);
+            if(c == '\\') {
+                if(i + 1 == length) {
+                    return 0;
+                }
+                i += 2;
+            }
+            else if(c == close) {
+                return i == pos + 1 ? 0 : i + 1 - pos;
+            }
+            else {
+                ++i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Return the length of the {@link #NUMERIC} token at {@code pos}.
+     *
+     * @param s
+     * @param pos
+     * @return the token length
+     */
+    private static int digits(String s, int pos) {
+        int i = pos;
+        while (i < s.length() && isDigit(s.charAt(i))) {
+            ++i;
+        }
+        return i - pos;
+    }
+
+    /**
+     * Return the length of the {@link #SIGNED_INTEGER} token at {@code pos}.
+     *
+     * @param s
+     * @param pos
+     * @return the token length
+     */
+    private static int signedInteger(String s, int pos) {
+        int sign = isSign(s.charAt(pos)) ? 1 : 0;
+        int digits = pos + sign < s.length() ? digits(s, pos + sign) : 0;
+        return digits > 0 ? sign + digits : 0;
+    }
+
+    /**
+     * Return the length of the {@link #SIGNED_DECIMAL} token at {@code pos}.
+     *
+     * @param s
+     * @param pos
+     * @return the token length
+     */
+    private static int signedDecimal(String s, int pos) {
+        int integer = signedInteger(s, pos);
+        int i = pos + integer;
+        if(integer > 0 && i + 1 < s.length() && s.charAt(i) == '.') {
+            int fraction = digits(s, i + 1);
+            return fraction > 0 ? integer + 1 + fraction : 0;
+        }
+        else {
+            return 0;
+        }
+    }
+
+    /**
+     * Return the length of the {@link #ALPHANUMERIC} token at {@code pos}.
+     *
+     * @param s
+     * @param pos
+     * @return the token length
+     */
+    private static int alphanumeric(String s, int pos) {
+        int i = pos;
+        while (i < s.length() && isAlphanumeric(s.charAt(i))) {
+            ++i;
+        }
+        return i - pos;
+    }
+
+    /**
+     * Return the length of the {@link #PERIOD_SEPARATED_STRING} token at
+     * {@code pos}.
+     * <p>
+     * Each element of the string is either an {@link #ALPHANUMERIC} run or a
+     * {@link #SIGNED_DECIMAL}. Since an unsigned decimal is also two
+     * {@link #ALPHANUMERIC} elements that are separated by a period, the
+     * token is recognized by a small state machine that only has to track
+     * whether the current element started with a sign.
+     * </p>
+     *
+     * @param s
+     * @param pos
+     * @return the token length
+     */
+    private static int periodSeparated(String s, int pos) {
+        final int element = 0, alphanumeric = 1, sign = 2, integer = 3,
+                period = 4, fraction = 5;
+        int state = element;
+        int longest = 0;
+        for (int i = pos; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            switch (state) {
+            case element:
+                state = isAlphanumeric(c) ? alphanumeric
+                        : isSign(c) ? sign : -1;
+                break;
+            case alphanumeric:
+            case fraction:
+                state = c == '.' ? element
+                        : state == alphanumeric && isAlphanumeric(c)
+                                ? alphanumeric
+                                : state == fraction && isDigit(c) ? fraction
+                                        : -1;
+                break;
+            case sign:
+                state = isDigit(c) ? integer : -1;
+                break;
+            case integer:
+                state = isDigit(c) ? integer : c == '.' ? period : -1;
+                break;
+            case period:
+                state = isDigit(c) ? fraction : -1;
+                break;
+            default:
+                break;
+            }
+            if(state == -1) {
+                break;
+            }
+            else if(state == alphanumeric || state == fraction) {
+                longest = i + 1 - pos;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Return the length of the {@link #NON_ALPHANUMERIC_AND_ALPHANUMERIC}
+     * token at {@code pos}.
+     *
+     * @param s
+     * @param pos
+     * @return the token length
+     */
+    private static int word(String s, int pos) {
+        int i = pos;
+        loop: while (i < s.length()) {
+            switch (s.charAt(i)) {
+            case ',':
+            case '\n':
+            case '\t':
+            case '\r':
+            case ' ':
+            case '(':
+            case ')':
+            case '[':
+            case ']':
+            case '=':
+                break loop;
+            default:
+                ++i;
+            }
+        }
+        return i - pos;
+    }
+
+    /**
+     * Return {@code true} if {@code c} is a letter, digit or underscore.
+     *
+     * @param c
+     * @return {@code true} if {@code c} can be part of an
+     *         {@link #ALPHANUMERIC} token
+     */
+    private static boolean isAlphanumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c)
+                || c == '_';
+    }
+
+    /**
+     * Return {@code true} if {@code c} is a digit.
+     *
+     * @param c
+     * @return {@code true} if {@code c} is a digit
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Return {@code true} if {@code c} is a sign.
+     *
+     * @param c
+     * @return {@code true} if {@code c} is a sign
+     */
+    private static boolean isSign(char c) {
+        return c == '-' || c == '+';
+    }
+
+    /**
+     * Return the lower case version of the ASCII character {@code c}.
+     *
+     * @param c
+     * @return the lower case character
+     */
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * A literal token.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class Literal {
+
+        /**
+         * The lower case text of the token.
+         */
+        private final String text;
+
+        /**
+         * The {@link GrammarConstants kind} of the token.
+         */
+        private final int kind;
+
+        /**
+         * A flag that indicates whether the token is matched regardless of
+         * case.
+         */
+        private final boolean ignoreCase;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param text
+         * @param kind
+         */
+        Literal(String text, int kind) {
+            this.text = text;
+            this.kind = kind;
+            this.ignoreCase = kind >= TIMESTAMP && kind <= SEARCH_EXCLUDE;
+        }
+
+        /**
+         * Return the length of this literal if it occurs in {@code s} at
+         * {@code pos}, or 0 if it doesn't.
+         *
+         * @param s
+         * @param pos
+         * @return the length of the match
+         */
+        int match(String s, int pos) {
+            int length = text.length();
+            if(pos + length > s.length()) {
+                return 0;
+            }
+            for (int i = 0; i < length; ++i) {
+                char expected = text.charAt(i);
+                char actual = s.charAt(pos + i);
+                if(actual != expected && (!ignoreCase
+                        || actual != Character.toUpperCase(expected))) {
+                    return 0;
+                }
+            }
+            return length;
+        }
+
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.cinchapi.ccl.grammar.ConjunctionSymbol;
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.grammar.VariableSymbol;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.syntax.ConjunctionTree;
+import com.cinchapi.ccl.syntax.ExpressionTree;
+import com.cinchapi.ccl.syntax.Visitor;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.common.function.TriFunction;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+
+/**
+ * A {@link Predicate} that tests data against a {@link ConditionTree} that has
+ * been specialized into a single {@link MethodHandle}.
+ * <p>
+ * Each expression is bound to a handle with its key, operator and values
+ * inserted as constants and the handles are combined with
+ * {@link MethodHandles#guardWithTest(MethodHandle, MethodHandle, MethodHandle)}
+ * so that conjunctions short circuit.
+ * </p>
+ * <p>
+ * The combined handle is held in an instance field, so it isn't a constant
+ * to the JIT compiler and isn't inlined into callers of
+ * {@link #test(Multimap)}. As a result, it measures about the same as the
+ * {@link Predicate} from {@link Compiler#compile(ConditionTree, TriFunction)}
+ * in {@code ConditionEvaluationBenchmark}. Inlining the handle would require
+ * binding it to a {@code ConstantCallSite} in a class that is generated for
+ * each condition, which isn't possible without a bytecode library.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@ThreadSafe
+final class MethodHandlePredicate implements Predicate<Multimap<String, Object>> {
+
+    /**
+     * A handle to {@link #matches(TriFunction, String, Operator, List, Multimap)}.
+     */
+    private static final MethodHandle MATCHES;
+
+    /**
+     * A handle to {@link Predicate#test(Object)}.
+     */
+    private static final MethodHandle TEST;
+
+    /**
+     * A handle that always returns {@code true}.
+     */
+    private static final MethodHandle TRUE = MethodHandles.dropArguments(
+            MethodHandles.constant(boolean.class, true), 0, Multimap.class);
+
+    /**
+     * A handle that always returns {@code false}.
+     */
+    private static final MethodHandle FALSE = MethodHandles.dropArguments(
+            MethodHandles.constant(boolean.class, false), 0, Multimap.class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MATCHES = lookup.findStatic(MethodHandlePredicate.class, "matches",
+                    MethodType.methodType(boolean.class, TriFunction.class,
+                            String.class, Operator.class, List.class,
+                            Multimap.class));
+            TEST = lookup
+                    .findVirtual(Predicate.class, "test", MethodType
+                            .methodType(boolean.class, Object.class))
+                    .asType(MethodType.methodType(boolean.class,
+                            Predicate.class, Multimap.class));
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Return {@code true} if any of the values that are stored for
+     * {@code key} in the {@code data} satisfy the {@code operator} in relation
+     * to the {@code values}.
+     *
+     * @param evaluator
+     * @param key
+     * @param operator
+     * @param values
+     * @param data
+     * @return {@code true} if the {@code data} matches
+     */
+    private static boolean matches(
+            TriFunction<Object, Operator, List<Object>, Boolean> evaluator,
+            String key, Operator operator, List<Object> values,
+            Multimap<String, Object> data) {
+        return Compiler.matches(data.get(key), operator, values, evaluator);
+    }
+
+    /**
+     * The handle, which takes a {@link Multimap} of data and returns a
+     * {@code boolean}.
+     */
+    private final MethodHandle handle;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param compiler the {@link Compiler} that is used for expressions with
+     *            {@link VariableSymbol VariableSymbols}
+     * @param tree the {@link ConditionTree} to specialize
+     * @param evaluator the evaluator for each expression
+     */
+    MethodHandlePredicate(Compiler compiler, ConditionTree tree,
+            TriFunction<Object, Operator, List<Object>, Boolean> evaluator) {
+        Visitor<MethodHandle> visitor = new ConditionTreeVisitor<MethodHandle>() {
+
+            @Override
+            public MethodHandle visit(ConjunctionTree tree, Object... data) {
+                boolean and = tree.root() == ConjunctionSymbol.AND;
+                List<MethodHandle> handles = Lists.newArrayList();
+                if(and) {
+                    // Mirror Compiler#evaluate by testing the leaves before
+                    // the subtrees
+                    for (ConditionTree operand : tree.operands()) {
+                        if(operand.isLeaf()) {
+                            handles.add(operand.accept(this));
+                        }
+                    }
+                    for (ConditionTree operand : tree.operands()) {
+                        if(!operand.isLeaf()) {
+                            handles.add(operand.accept(this));
+                        }
+                    }
+                }
+                else {
+                    for (ConditionTree operand : tree.operands()) {
+                        handles.add(operand.accept(this));
+                    }
+                }
+                return combine(handles, 0, handles.size(), and);
+            }
+
+            /**
+             * Combine the {@code handles} between {@code from} (inclusive)
+             * and {@code to} (exclusive) into a balanced chain of guards so
+             * that the depth of the combined handle is logarithmic in the
+             * number of operands.
+             *
+             * @param handles
+             * @param from
+             * @param to
+             * @param and
+             * @return the combined {@link MethodHandle}
+             */
+            private MethodHandle combine(List<MethodHandle> handles, int from,
+                    int to, boolean and) {
+                if(to - from == 1) {
+                    return handles.get(from);
+                }
+                else {
+                    int mid = (from + to) >>> 1;
+                    MethodHandle a = combine(handles, from, mid, and);
+                    MethodHandle b = combine(handles, mid, to, and);
+                    return and ? MethodHandles.guardWithTest(a, b, FALSE)
+                            : MethodHandles.guardWithTest(a, TRUE, b);
+                }
+            }
+
+            @Override
+            public MethodHandle visit(ExpressionTree tree, Object... data) {
+                ExpressionSymbol expression = ((ExpressionSymbol) tree.root());
+                if(expression.values().stream()
+                        .anyMatch(value -> value instanceof VariableSymbol)) {
+                    // The values aren't constant, so there's nothing to gain
+                    // from specializing the expression
+                    return TEST.bindTo(compiler.compile(tree, evaluator));
+                }
+                else {
+                    List<Object> values = Collections
+                            .unmodifiableList(expression.raw().values());
+                    return MethodHandles.insertArguments(MATCHES, 0,
+                            evaluator, expression.raw().key(),
+                            expression.raw().operator(), values);
+                }
+            }
+
+        };
+        this.handle = tree.accept(visitor);
+    }
+
+    @Override
+    public boolean test(Multimap<String, Object> data) {
+        try {
+            return (boolean) handle.invokeExact(data);
+        }
+        catch (Throwable t) {
+            Throwables.throwIfUnchecked(t);
+            throw new IllegalStateException(t);
+        }
+    }
+
+}
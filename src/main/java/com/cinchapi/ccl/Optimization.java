@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.cinchapi.ccl.syntax.ConditionTree;
+
+/**
+ * The result of {@link Compiler#optimize(ConditionTree) optimizing} a
+ * {@link ConditionTree}.
+ * <p>
+ * An {@link Optimization} either contains a {@link ConditionTree} that is
+ * logically equivalent to the original one, or indicates that the original
+ * condition is {@link #isAlwaysTrue() always true} or {@link #isAlwaysFalse()
+ * always false}, which can't be represented by a {@link ConditionTree}.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@Immutable
+public final class Optimization {
+
+    /**
+     * The {@link Optimization} for a condition that is always satisfied.
+     */
+    static final Optimization TRUE = new Optimization(null, true);
+
+    /**
+     * The {@link Optimization} for a condition that is never satisfied.
+     */
+    static final Optimization FALSE = new Optimization(null, false);
+
+    /**
+     * The optimized tree, if the condition isn't constant.
+     */
+    @Nullable
+    private final ConditionTree tree;
+
+    /**
+     * The value of the condition if it is constant.
+     */
+    private final boolean value;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param tree
+     * @param value
+     */
+    Optimization(@Nullable ConditionTree tree, boolean value) {
+        this.tree = tree;
+        this.value = value;
+    }
+
+    /**
+     * Return {@code true} if the condition is satisfied by all data.
+     *
+     * @return {@code true} if the condition is a tautology
+     */
+    public boolean isAlwaysTrue() {
+        return tree == null && value;
+    }
+
+    /**
+     * Return {@code true} if the condition isn't satisfied by any data.
+     *
+     * @return {@code true} if the condition is a contradiction
+     */
+    public boolean isAlwaysFalse() {
+        return tree == null && !value;
+    }
+
+    /**
+     * Return the optimized {@link ConditionTree}.
+     *
+     * @return the optimized tree
+     * @throws IllegalStateException if the condition is
+     *             {@link #isAlwaysTrue() always true} or
+     *             {@link #isAlwaysFalse() always false}
+     */
+    public ConditionTree tree() {
+        if(tree != null) {
+            return tree;
+        }
+        else {
+            throw new IllegalStateException(
+                    "The condition is always " + value);
+        }
+    }
+
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.cinchapi.ccl.grammar.ConjunctionSymbol;
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.syntax.AndTree;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.syntax.ConjunctionTree;
+import com.cinchapi.ccl.syntax.ExpressionTree;
+import com.cinchapi.ccl.syntax.OrTree;
+import com.cinchapi.ccl.type.Operator;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
+
+/**
+ * Rewrites a {@link ConditionTree} into a logically equivalent one that is
+ * cheaper to evaluate.
+ * <p>
+ * The rewrites that are always applied are:
+ * <ul>
+ * <li>flattening of nested conjunctions of the same kind (e.g.
+ * {@code a and (b and c)}) so that the rewrites below see all the operands at
+ * once,</li>
+ * <li>elimination of duplicate operands (e.g. {@code a = 1 or a = 1}),</li>
+ * <li>absorption (e.g. {@code a = 1 or (a = 1 and b = 2)} becomes
+ * {@code a = 1}), and</li>
+ * <li>folding of operands that are always true or always false.</li>
+ * </ul>
+ * Since an expression is satisfied if <em>any</em> value of its key satisfies
+ * it, expressions on the same key can only be compared with each other if the
+ * key is known to have exactly one value in every record. For those
+ * single-valued keys, an {@code AND} of expressions whose numeric ranges don't
+ * intersect, or of an expression and its negation (e.g. {@code a = 1} and
+ * {@code a != 1}), is always false and an {@code OR} of an expression and its
+ * negation is always true.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+final class Optimizer {
+
+    /**
+     * A mapping from each operator symbol to the symbol of its negation.
+     */
+    private static final Map<String, String> NEGATIONS;
+    static {
+        Map<String, String> negations = Maps.newHashMap();
+        String[][] pairs = { { "=", "!=" }, { ">", "<=" }, { "<", ">=" },
+                { "regex", "nregex" }, { "like", "nlike" },
+                { "contains", "not_contains" } };
+        for (String[] pair : pairs) {
+            negations.put(pair[0], pair[1]);
+            negations.put(pair[1], pair[0]);
+        }
+        NEGATIONS = ImmutableMap.copyOf(negations);
+    }
+
+    /**
+     * The keys that have exactly one value in every record.
+     */
+    private final Set<String> singleValued;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param singleValued
+     */
+    Optimizer(Set<String> singleValued) {
+        this.singleValued = ImmutableSet.copyOf(singleValued);
+    }
+
+    /**
+     * Return the {@link Optimization} of the {@code tree}.
+     *
+     * @param tree
+     * @return the {@link Optimization}
+     */
+    Optimization optimize(ConditionTree tree) {
+        return normalize(tree).optimization();
+    }
+
+    /**
+     * Return the {@link Term} for the {@code tree} after applying all the
+     * rewrites.
+     *
+     * @param tree
+     * @return the {@link Term}
+     */
+    private Term normalize(ConditionTree tree) {
+        if(tree instanceof ExpressionTree) {
+            return new Leaf((ExpressionTree) tree);
+        }
+        boolean and = tree.root() == ConjunctionSymbol.AND;
+        List<ConditionTree> children = ((ConjunctionTree) tree).operands();
+        Map<String, Condition> operands = Maps.newLinkedHashMap();
+        for (ConditionTree child : children) {
+            Term term = normalize(child);
+            List<? extends Term> terms = term instanceof Junction
+                    && ((Junction) term).and == and ? ((Junction) term).operands
+                            : Collections.singletonList(term);
+            for (Term operand : terms) {
+                if(operand instanceof Constant) {
+                    if(((Constant) operand).value != and) {
+                        // FALSE in an AND or TRUE in an OR
+                        return new Constant(!and);
+                    }
+                    // Otherwise, the operand is an identity and is dropped
+                }
+                else {
+                    operands.putIfAbsent(operand.key(), (Condition) operand);
+                }
+            }
+        }
+        List<Condition> absorbed = absorb(and,
+                Lists.newArrayList(operands.values()));
+        if(contradicts(and, absorbed)) {
+            return new Constant(!and);
+        }
+        else if(absorbed.isEmpty()) {
+            return new Constant(and);
+        }
+        else if(absorbed.size() == 1) {
+            return absorbed.get(0);
+        }
+        else {
+            return new Junction(and, absorbed);
+        }
+    }
+
+    /**
+     * Return the {@code operands} of a conjunction without the ones that are
+     * absorbed by another operand. An operand of an {@code AND} that is an
+     * {@code OR} is absorbed if another operand implies it (e.g.
+     * {@code a and (a or b)}), and vice versa.
+     *
+     * @param and
+     * @param operands
+     * @return the remaining operands
+     */
+    private static List<Condition> absorb(boolean and,
+            List<Condition> operands) {
+        List<Set<String>> inners = operands.stream().map(operand -> {
+            if(operand instanceof Junction && ((Junction) operand).and != and) {
+                return ((Junction) operand).operands.stream().map(Term::key)
+                        .collect(Collectors.toSet());
+            }
+            else {
+                return Collections.singleton(operand.key());
+            }
+        }).collect(Collectors.toList());
+        List<Condition> remaining = Lists.newArrayList();
+        for (int i = 0; i < operands.size(); ++i) {
+            boolean absorbed = false;
+            for (int j = 0; j < operands.size() && !absorbed; ++j) {
+                // If the sets are equal, only the first operand is kept
+                absorbed = i != j && inners.get(i).containsAll(inners.get(j))
+                        && (inners.get(i).size() > inners.get(j).size()
+                                || j < i);
+            }
+            if(!absorbed) {
+                remaining.add(operands.get(i));
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Return {@code true} if the expressions on a single-valued key among the
+     * {@code operands} of an {@code AND} can never all be satisfied, or if
+     * those of an {@code OR} are always satisfied.
+     *
+     * @param and
+     * @param operands
+     * @return {@code true} if the conjunction is constant
+     */
+    private boolean contradicts(boolean and, List<Condition> operands) {
+        if(singleValued.isEmpty()) {
+            return false;
+        }
+        Map<String, RangeSet<Double>> ranges = Maps.newHashMap();
+        Map<String, ExpressionSymbol> expressions = Maps.newHashMap();
+        for (Condition operand : operands) {
+            if(!(operand instanceof Leaf)) {
+                continue;
+            }
+            ExpressionSymbol expression = ((Leaf) operand).expression();
+            String key = expression.raw().key();
+            if(!singleValued.contains(key)) {
+                continue;
+            }
+            String group = key + "@" + expression.timestamp();
+            Operator operator = expression.raw().operator();
+            String negation = NEGATIONS
+                    .get(operator.symbol().toLowerCase());
+            if(negation != null) {
+                String values = expression.values().toString();
+                String signature = group + " " + operator.symbol().toLowerCase()
+                        + " " + values;
+                String negated = group + " " + negation + " " + values;
+                if(expressions.containsKey(negated)) {
+                    return true;
+                }
+                expressions.put(signature, expression);
+            }
+            if(and) {
+                RangeSet<Double> range = RangeFusion.range(operator,
+                        expression.raw().values());
+                if(range != null) {
+                    RangeSet<Double> intersection = ranges.get(group);
+                    if(intersection == null) {
+                        intersection = TreeRangeSet.create(range);
+                        ranges.put(group, intersection);
+                    }
+                    else {
+                        intersection.removeAll(range.complement());
+                    }
+                    if(intersection.isEmpty()) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A normalized condition.
+     *
+     * @author Jeff Nelson
+     */
+    private static abstract class Term {
+
+        /**
+         * Return a string that is the same for any two {@link Term Terms} that
+         * are logically equivalent because they only differ in the order of
+         * their operands.
+         *
+         * @return the key
+         */
+        abstract String key();
+
+        /**
+         * Return the {@link Optimization} for this {@link Term}.
+         *
+         * @return the {@link Optimization}
+         */
+        abstract Optimization optimization();
+
+    }
+
+    /**
+     * A {@link Term} that is always {@code true} or always {@code false}.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class Constant extends Term {
+
+        /**
+         * The value.
+         */
+        final boolean value;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param value
+         */
+        Constant(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        String key() {
+            return String.valueOf(value);
+        }
+
+        @Override
+        Optimization optimization() {
+            return value ? Optimization.TRUE : Optimization.FALSE;
+        }
+
+    }
+
+    /**
+     * A {@link Term} that isn't {@link Constant}, so it has a
+     * {@link ConditionTree}.
+     *
+     * @author Jeff Nelson
+     */
+    private static abstract class Condition extends Term {
+
+        /**
+         * Return the {@link ConditionTree} for this {@link Condition}.
+         *
+         * @return the {@link ConditionTree}
+         */
+        abstract ConditionTree tree();
+
+        @Override
+        final Optimization optimization() {
+            return new Optimization(tree(), false);
+        }
+
+    }
+
+    /**
+     * A {@link Term} for an expression.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class Leaf extends Condition {
+
+        /**
+         * The tree.
+         */
+        private final ExpressionTree tree;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param tree
+         */
+        Leaf(ExpressionTree tree) {
+            this.tree = tree;
+        }
+
+        /**
+         * Return the expression.
+         *
+         * @return the expression
+         */
+        ExpressionSymbol expression() {
+            return (ExpressionSymbol) tree.root();
+        }
+
+        @Override
+        String key() {
+            return tree.root().toString();
+        }
+
+        @Override
+        ConditionTree tree() {
+            return tree;
+        }
+
+    }
+
+    /**
+     * A {@link Term} for an {@code AND} or {@code OR} of two or more operands,
+     * none of which is a {@link Junction} of the same kind.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class Junction extends Condition {
+
+        /**
+         * A flag that indicates whether this is an {@code AND}.
+         */
+        final boolean and;
+
+        /**
+         * The operands.
+         */
+        final List<Condition> operands;
+
+        /**
+         * The cached {@link #key()}.
+         */
+        private final String key;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param and
+         * @param operands
+         */
+        Junction(boolean and, List<Condition> operands) {
+            this.and = and;
+            this.operands = operands;
+            this.key = operands.stream().map(Term::key).sorted()
+                    .collect(Collectors.joining(and ? " and " : " or ", "(",
+                            ")"));
+        }
+
+        @Override
+        String key() {
+            return key;
+        }
+
+        @Override
+        ConditionTree tree() {
+            ConditionTree tree = operands.get(0).tree();
+            for (int i = 1; i < operands.size(); ++i) {
+                ConditionTree operand = operands.get(i).tree();
+                tree = and ? new AndTree(tree, operand)
+                        : new OrTree(tree, operand);
+            }
+            return tree;
+        }
+
+    }
+
+}
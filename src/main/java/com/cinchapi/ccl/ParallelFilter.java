@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.google.common.collect.Multimap;
+
+/**
+ * A {@link RecursiveTask} that filters the records from a {@link Spliterator}
+ * against a {@link ConditionTree}.
+ * <p>
+ * The {@link Spliterator} is split until each part is small enough to be
+ * filtered by a single worker, and idle workers steal the parts that haven't
+ * been filtered yet. Each worker thread tests records with its own
+ * {@link Predicate}, so the state of an evaluator is never shared among
+ * threads.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+final class ParallelFilter<T> extends RecursiveTask<List<T>> {
+
+    /**
+     * The smallest number of records that a part is split into.
+     */
+    static final long MINIMUM_SPLIT_SIZE = 256;
+
+    /**
+     * The number of parts that each worker is expected to filter, so that
+     * there is work to steal when some parts are slower than others.
+     */
+    private static final int PARTS_PER_WORKER = 4;
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The {@link Predicate} that each worker thread uses to test records.
+     */
+    private final ThreadLocal<Predicate<Multimap<String, Object>>> predicates;
+
+    /**
+     * A {@link Function} that returns the data to test for a record.
+     */
+    private final Function<T, Multimap<String, Object>> data;
+
+    /**
+     * The records that this task filters.
+     */
+    private final Spliterator<T> records;
+
+    /**
+     * The size below which the {@link #records} aren't split any further.
+     */
+    private final long threshold;
+
+    /**
+     * A flag that indicates whether the matches must be returned in the
+     * encounter order of the records.
+     */
+    private final boolean ordered;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param predicates
+     * @param data
+     * @param records
+     * @param pool
+     * @param ordered
+     */
+    ParallelFilter(ThreadLocal<Predicate<Multimap<String, Object>>> predicates,
+            Function<T, Multimap<String, Object>> data, Spliterator<T> records,
+            ForkJoinPool pool, boolean ordered) {
+        this.predicates = predicates;
+        this.data = data;
+        this.records = records;
+        this.threshold = Math.max(MINIMUM_SPLIT_SIZE, records.estimateSize()
+                / (pool.getParallelism() * PARTS_PER_WORKER));
+        this.ordered = ordered;
+    }
+
+    /**
+     * Construct a new instance that filters a part of the records that the
+     * {@code parent} filters.
+     *
+     * @param parent
+     * @param records
+     */
+    private ParallelFilter(ParallelFilter<T> parent, Spliterator<T> records) {
+        this.predicates = parent.predicates;
+        this.data = parent.data;
+        this.records = records;
+        this.threshold = parent.threshold;
+        this.ordered = parent.ordered;
+    }
+
+    @Override
+    protected List<T> compute() {
+        Spliterator<T> prefix;
+        if(records.estimateSize() > threshold
+                && (prefix = records.trySplit()) != null) {
+            ParallelFilter<T> suffix = new ParallelFilter<>(this, records);
+            suffix.fork();
+            List<T> head = new ParallelFilter<>(this, prefix).compute();
+            List<T> tail = suffix.join();
+            if(ordered || head.size() >= tail.size()) {
+                head.addAll(tail);
+                return head;
+            }
+            else {
+                // The order doesn't matter, so copy the smaller list
+                tail.addAll(head);
+                return tail;
+            }
+        }
+        else {
+            Predicate<Multimap<String, Object>> predicate = predicates.get();
+            List<T> matches = new ArrayList<>();
+            records.forEachRemaining(record -> {
+                if(predicate.test(data.apply(record))) {
+                    matches.add(record);
+                }
+            });
+            return matches;
+        }
+    }
+
+}
@@ -31,6 +31,7 @@ import com.cinchapi.ccl.syntax.ConditionTree;
 import com.cinchapi.ccl.type.Operator;
 import com.cinchapi.common.base.Verify;
 import com.cinchapi.common.function.TriFunction;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Multimap;
 
 /**
@@ -46,6 +47,12 @@ import com.google.common.collect.Multimap;
 @Deprecated
 public abstract class Parser {
 
+    /**
+     * The maximum number of trees that are cached, per distinct set of
+     * variable values, for a statement that can't be {@link #deferred}.
+     */
+    private static final int RESOLVED_CACHE_SIZE = 100;
+
     /**
      * Return a new {@link Parser} for the {@code ccl} statement that uses the
      * {@code valueTransformFunction} and {@code operatorTransformFunction}.
@@ -143,6 +150,24 @@ public abstract class Parser {
      */
     private final boolean supportsLocalEvaluation;
 
+    /**
+     * The tree that is lazily parsed, with its local variables left
+     * unresolved, the first time this {@link Parser} is used to
+     * {@link #evaluate(Multimap) evaluate} data.
+     */
+    @Nullable
+    private volatile AbstractSyntaxTree deferred = null;
+
+    /**
+     * The {@link CachingCompiler} that parses the statement, with its local
+     * variables resolved from the evaluated data, if the statement has a
+     * variable that can't be {@link #deferred}. The trees are cached by the
+     * values of the variables, so data with the same values for those
+     * variables doesn't cause the statement to be parsed again.
+     */
+    @Nullable
+    private volatile CachingCompiler resolved = null;
+
     protected final Compiler compiler;
 
     protected final String ccl;
@@ -215,10 +240,23 @@ public abstract class Parser {
     /**
      * Return {@code true} if the {@code data} is described by the criteria
      * which has been parsed by this {@link Parser}.
+     * <p>
+     * Each local variable is resolved from the {@code data} when the
+     * expression that contains it is evaluated, so a variable that can't be
+     * resolved only causes a {@link SyntaxException} if evaluation reaches
+     * its expression. For example, {@code a = 1 or b = $missing} is
+     * {@code true} for any {@code data} where {@code a} is {@code 1}, even if
+     * there is no value for {@code missing}. Previously, every variable was
+     * resolved before evaluation, so a missing variable always caused a
+     * {@link SyntaxException}.
+     * </p>
      * 
      * @param data the data to test for adherences to the criteria
      * @return {@code true} if the data is described by the criteria that has
      *         been parsed
+     * @throws SyntaxException if evaluation reaches an expression with a
+     *             variable that has no value, or multiple values, in the
+     *             {@code data}
      * @deprecated Use
      *             {@link com.cinchapi.ccl.syntax.ConditionTree#evaluate(Multimap, TriFunction)}
      *             instead
@@ -227,7 +265,32 @@ public abstract class Parser {
     public boolean evaluate(Multimap<String, Object> data) {
         Verify.that(supportsLocalEvaluation,
                 "This Parser does not support local evaluation");
-        AbstractSyntaxTree ast = compiler.parse(ccl, data);
+        AbstractSyntaxTree ast = deferred;
+        if(ast == null) {
+            CachingCompiler resolved = this.resolved;
+            if(resolved != null) {
+                ast = resolved.parse(ccl, data);
+            }
+            else {
+                try {
+                    ast = compiler.template(ccl, ImmutableMultimap.of(),
+                            compiler.valueParser);
+                    if(!Compiler.isTimeDependent(ccl)) {
+                        // A relative timestamp must be resolved each time the
+                        // statement is evaluated, so that tree isn't kept
+                        deferred = ast;
+                    }
+                }
+                catch (SyntaxException e) {
+                    // A variable within a function condition can't be
+                    // deferred, so it must be resolved from the data when the
+                    // statement is parsed.
+                    resolved = Compiler.cache(compiler, RESOLVED_CACHE_SIZE);
+                    this.resolved = resolved;
+                    ast = resolved.parse(ccl, data);
+                }
+            }
+        }
         if(ast instanceof ConditionTree) {
             return compiler.evaluate((ConditionTree) ast, data, evaluator);
         }
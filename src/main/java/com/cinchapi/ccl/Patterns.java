@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.cinchapi.ccl.type.Operator;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Utilities for the {@link Pattern Patterns} that are used to evaluate
+ * {@code REGEX}, {@code NOT_REGEX}, {@code LIKE} and {@code NOT_LIKE}
+ * expressions.
+ * <p>
+ * Compiling a {@link Pattern} is far more expensive than matching it, so the
+ * {@link Pattern Patterns} are cached and shared among all callers. An
+ * evaluator that receives the raw value of a regex based expression should
+ * use {@link #regex(String)} or {@link #like(String)} instead of calling
+ * {@link Pattern#compile(String)} for each value that it tests.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@ThreadSafe
+public final class Patterns {
+
+    /**
+     * The maximum number of {@link Pattern Patterns} of each kind that are
+     * cached.
+     */
+    private static final int MAXIMUM_CACHE_SIZE = 4096;
+
+    /**
+     * The cached {@link Pattern Patterns} for regular expressions.
+     */
+    private static final LoadingCache<String, Pattern> REGEX = CacheBuilder
+            .newBuilder().maximumSize(MAXIMUM_CACHE_SIZE)
+            .build(CacheLoader.from(Pattern::compile));
+
+    /**
+     * The cached {@link Pattern Patterns} for {@code LIKE} expressions.
+     */
+    private static final LoadingCache<String, Pattern> LIKE = CacheBuilder
+            .newBuilder().maximumSize(MAXIMUM_CACHE_SIZE)
+            .build(CacheLoader.from(like -> Pattern.compile(toRegex(like))));
+
+    /**
+     * Return the {@link Pattern} for the {@code regex}.
+     *
+     * @param regex a regular expression
+     * @return the compiled {@link Pattern}
+     * @throws java.util.regex.PatternSyntaxException if the {@code regex} is
+     *             invalid
+     */
+    public static Pattern regex(String regex) {
+        return get(REGEX, regex);
+    }
+
+    /**
+     * Return the {@link Pattern} for the {@code LIKE} expression
+     * {@code like}, which is a regular expression where {@code %} matches any
+     * sequence of characters (e.g. {@code (?i:%jeff%)}).
+     *
+     * @param like the value of a {@code LIKE} expression
+     * @return the compiled {@link Pattern}
+     * @throws java.util.regex.PatternSyntaxException if the {@code like}
+     *             expression is an invalid regular expression
+     */
+    public static Pattern like(String like) {
+        return get(LIKE, like);
+    }
+
+    /**
+     * Return the {@link Pattern} for the {@code value} of an expression with
+     * the {@code operator}, or {@code null} if the {@code operator} isn't
+     * regex based.
+     *
+     * @param operator the {@link Operator} of the expression
+     * @param value the value of the expression
+     * @return the compiled {@link Pattern} or {@code null}
+     */
+    @Nullable
+    public static Pattern of(Operator operator, Object value) {
+        if(isRegex(operator)) {
+            return regex(value.toString());
+        }
+        else if(isLike(operator)) {
+            return like(value.toString());
+        }
+        else {
+            return null;
+        }
+    }
+
+    /**
+     * Return {@code true} if the {@code operator} is {@code REGEX} or
+     * {@code NOT_REGEX}.
+     *
+     * @param operator
+     * @return {@code true} if the {@code operator} matches regular
+     *         expressions
+     */
+    static boolean isRegex(Operator operator) {
+        switch (operator.symbol().toLowerCase()) {
+        case "regex":
+        case "nregex":
+        case "not_regex":
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Return {@code true} if the {@code operator} is {@code LIKE} or
+     * {@code NOT_LIKE}.
+     *
+     * @param operator
+     * @return {@code true} if the {@code operator} matches {@code LIKE}
+     *         expressions
+     */
+    static boolean isLike(Operator operator) {
+        switch (operator.symbol().toLowerCase()) {
+        case "like":
+        case "nlike":
+        case "not_like":
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Return the regular expression that is equivalent to the {@code LIKE}
+     * expression {@code like}.
+     *
+     * @param like
+     * @return the regular expression
+     */
+    static String toRegex(String like) {
+        return like.replace("%", ".*");
+    }
+
+    /**
+     * Return the cached {@link Pattern} for the {@code key}, unwrapping any
+     * exception that is thrown while compiling it.
+     *
+     * @param cache
+     * @param key
+     * @return the {@link Pattern}
+     */
+    private static Pattern get(LoadingCache<String, Pattern> cache,
+            String key) {
+        try {
+            return cache.getUnchecked(key);
+        }
+        catch (UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Patterns() {/* noop */}
+
+}
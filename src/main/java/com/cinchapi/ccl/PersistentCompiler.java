@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.cinchapi.ccl.CachingCompiler.RecordingMultimap;
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.google.common.collect.Multimap;
+
+/**
+ * A {@link Compiler} that keeps the {@link AbstractSyntaxTree trees} that are
+ * produced by another {@link Compiler} in a {@link StatementStore}, so that a
+ * statement that was parsed before, even by another process, is decoded from
+ * the store instead of being parsed again.
+ * <p>
+ * Only the trees of statements that don't reference any local variables
+ * (e.g. {@code $ssn}) or contain a relative timestamp (e.g.
+ * {@code at 3 seconds ago}) are stored, because the tree of such a statement
+ * doesn't depend on the {@code data} that is provided or the time at which
+ * it is parsed. The stored trees are decoded
+ * every time that they are requested, so a {@link PersistentCompiler} can be
+ * wrapped in a {@link CachingCompiler} to also keep the decoded trees in
+ * memory.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@ThreadSafe
+public final class PersistentCompiler extends Compiler {
+
+    /**
+     * The {@link Compiler} that parses statements that are not stored.
+     */
+    private final Compiler compiler;
+
+    /**
+     * The {@link StatementStore}.
+     */
+    private final StatementStore store;
+
+    /**
+     * The {@link SyntaxTreeCodec} that encodes and decodes the stored trees.
+     */
+    private final SyntaxTreeCodec codec;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param compiler the {@link Compiler} to which parsing is delegated
+     * @param store the {@link StatementStore}
+     */
+    PersistentCompiler(Compiler compiler, StatementStore store) {
+        super(compiler.valueParser, compiler.operatorParser);
+        this.compiler = compiler;
+        this.store = store;
+        this.codec = compiler.codec();
+    }
+
+    @Override
+    public AbstractSyntaxTree parse(String ccl, Multimap<String, Object> data) {
+        ByteBuffer bytes = store.get(ccl);
+        if(bytes != null) {
+            try {
+                return codec.deserialize(bytes);
+            }
+            catch (RuntimeException e) {
+                // The entry is corrupt, so parse the statement again
+            }
+        }
+        RecordingMultimap recorder = new RecordingMultimap(data);
+        AbstractSyntaxTree tree = compiler.parse(ccl, recorder);
+        if(recorder.requested.isEmpty() && !isTimeDependent(ccl)) {
+            try {
+                store.put(ccl, codec.serialize(tree));
+            }
+            catch (IllegalArgumentException e) {
+                // The tree contains a node that can't be encoded, so it isn't
+                // stored
+            }
+        }
+        return tree;
+    }
+
+    @Override
+    AbstractSyntaxTree template(String ccl, Multimap<String, Object> data,
+            Function<String, Object> valueParser) {
+        return compiler.template(ccl, data, valueParser);
+    }
+
+    /**
+     * Return the {@link StatementStore} that is used by this
+     * {@link Compiler}.
+     *
+     * @return the {@link StatementStore}
+     */
+    public StatementStore store() {
+        return store;
+    }
+
+}
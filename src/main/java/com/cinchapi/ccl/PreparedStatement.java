@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.function.Function;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.grammar.ValueSymbol;
+import com.cinchapi.ccl.grammar.ValueTokenSymbol;
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.cinchapi.ccl.syntax.ConjunctionTree;
+import com.cinchapi.ccl.syntax.ExpressionTree;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Multimap;
+
+/**
+ * A {@link PreparedStatement} is a CCL statement that is parsed once into a
+ * template {@link AbstractSyntaxTree} whose values may be positional
+ * parameters, written as a {@code ?} (e.g. {@code name = ? and age > ?}).
+ * <p>
+ * Each time the statement is {@link #bind(Object...) bound} to a set of
+ * values, a new {@link AbstractSyntaxTree} is produced from the template
+ * without lexing or parsing the statement again. The bound values are used as
+ * is, so they aren't passed through the {@link Compiler Compiler's} value
+ * parser. The parts of the template that don't contain a parameter are shared
+ * among all the trees that are produced, so those trees must be treated as
+ * immutable.
+ * </p>
+ * <p>
+ * A parameter can be used anywhere that a single value is expected in an
+ * expression. A {@code ?} within a quoted string, or alongside other words in
+ * an unquoted value, is not a parameter.
+ * </p>
+ * <p>
+ * Local variables (e.g. {@code $ssn}) that can't be resolved when the
+ * statement is prepared are kept in the template as
+ * {@link com.cinchapi.ccl.grammar.VariableSymbol VariableSymbols}, so they can
+ * be resolved against a different dataset each time the statement is
+ * {@link #bind(Multimap, Object...) bound}.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@Immutable
+public final class PreparedStatement {
+
+    /**
+     * The text of a parameter.
+     */
+    private static final String PARAMETER = "?";
+
+    /**
+     * The template.
+     */
+    private final AbstractSyntaxTree template;
+
+    /**
+     * The number of parameters in the {@link #template}.
+     */
+    private final int parameters;
+
+    /**
+     * The CCL statement.
+     */
+    private final String ccl;
+
+    /**
+     * The {@link Compiler} that prepared this statement.
+     */
+    private final Compiler compiler;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param compiler the {@link Compiler} that is preparing the statement
+     * @param ccl the CCL statement
+     * @param data the data that is used to resolve local variables
+     */
+    PreparedStatement(Compiler compiler, String ccl,
+            Multimap<String, Object> data) {
+        Function<String, Object> valueParser = compiler.valueParser;
+        int[] count = { 0 };
+        this.compiler = compiler;
+        this.ccl = ccl;
+        this.template = compiler.template(ccl, data, value -> {
+            if(value.equals(PARAMETER)) {
+                return new Parameter(count[0]++);
+            }
+            else {
+                return valueParser.apply(value);
+            }
+        });
+        this.parameters = count[0];
+        if(count(template) != parameters) {
+            throw new PropagatedSyntaxException(new SyntaxException(
+                    "A parameter can only be used as the value of an expression"),
+                    ccl);
+        }
+    }
+
+    /**
+     * Return an {@link AbstractSyntaxTree} for this statement with each of
+     * the parameters replaced by the corresponding value.
+     *
+     * @param values the value for each parameter, in the order that the
+     *            parameters appear in the statement
+     * @return the {@link AbstractSyntaxTree}
+     * @throws IllegalArgumentException if the number of {@code values} doesn't
+     *             match the number of {@link #parameters()}
+     */
+    public AbstractSyntaxTree bind(Object... values) {
+        Preconditions.checkArgument(values.length == parameters,
+                "'%s' has %s parameters, but %s values were provided", ccl,
+                parameters, values.length);
+        for (Object value : values) {
+            Preconditions.checkArgument(value != null,
+                    "Cannot bind a null value");
+        }
+        return parameters > 0
+                ? Compiler.replace(template,
+                        symbol -> symbol.value() instanceof Parameter
+                                ? new ValueSymbol(values[((Parameter) symbol
+                                        .value()).index])
+                                : symbol)
+                : template;
+    }
+
+    /**
+     * Return an {@link AbstractSyntaxTree} for this statement with each of
+     * the parameters replaced by the corresponding value and each local
+     * variable that wasn't resolved when the statement was prepared resolved
+     * from the {@code data}.
+     *
+     * @param data the data that is used to resolve local variables
+     * @param values the value for each parameter, in the order that the
+     *            parameters appear in the statement
+     * @return the {@link AbstractSyntaxTree}
+     * @throws IllegalArgumentException if the number of {@code values} doesn't
+     *             match the number of {@link #parameters()}
+     * @throws SyntaxException if a variable doesn't have exactly one value in
+     *             the {@code data}
+     */
+    public AbstractSyntaxTree bind(Multimap<String, Object> data,
+            Object... values) {
+        return compiler.bind(bind(values), data);
+    }
+
+    /**
+     * Return the number of parameters in this statement.
+     *
+     * @return the number of parameters
+     */
+    public int parameters() {
+        return parameters;
+    }
+
+    @Override
+    public String toString() {
+        return ccl;
+    }
+
+    /**
+     * Return the number of parameters that are the value of an expression in
+     * {@code tree}.
+     *
+     * @param tree
+     * @return the number of parameters
+     */
+    private static int count(AbstractSyntaxTree tree) {
+        if(tree instanceof ExpressionTree) {
+            int count = 0;
+            for (ValueTokenSymbol<?> symbol : ((ExpressionSymbol) tree.root())
+                    .values()) {
+                if(symbol.value() instanceof Parameter) {
+                    ++count;
+                }
+            }
+            return count;
+        }
+        else {
+            int count = 0;
+            for (AbstractSyntaxTree child : tree instanceof ConjunctionTree
+                    ? ((ConjunctionTree) tree).operands()
+                    : tree.children()) {
+                count += child != null ? count(child) : 0;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * The placeholder for a parameter in the template.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class Parameter {
+
+        /**
+         * The position of the parameter in the statement.
+         */
+        private final int index;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param index
+         */
+        Parameter(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String toString() {
+            return PARAMETER;
+        }
+
+    }
+
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.cinchapi.ccl.grammar.ConjunctionSymbol;
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.grammar.TimestampSymbol;
+import com.cinchapi.ccl.grammar.ValueTokenSymbol;
+import com.cinchapi.ccl.grammar.VariableSymbol;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.syntax.ConjunctionTree;
+import com.cinchapi.ccl.type.Operator;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+
+/**
+ * A flat, compiled form of a {@link ConditionTree} that is executed by a
+ * simple interpreter instead of by traversing the tree.
+ * <p>
+ * A {@link Program} is an {@code int[]} of instructions and a constant pool
+ * of the distinct keys and {@link Operator Operators} in the condition and
+ * the values and timestamp of each expression. There are three instructions:
+ * <ul>
+ * <li>{@code TEST e}, which sets the result to whether the expression at
+ * index {@code e} is satisfied,</li>
+ * <li>{@code JUMP_IF_FALSE t}, which continues at {@code t} if the result is
+ * {@code false}, and</li>
+ * <li>{@code JUMP_IF_TRUE t}, which continues at {@code t} if the result is
+ * {@code true}.</li>
+ * </ul>
+ * An {@code AND} is compiled into a test of each operand followed by a
+ * {@code JUMP_IF_FALSE} to the end of the conjunction, and an {@code OR} into
+ * a test of each operand followed by a {@code JUMP_IF_TRUE}, so conjunctions
+ * are short-circuited by jumps and the result of an operand never has to be
+ * kept while another one is tested. So, the interpreter only needs a single
+ * {@code boolean} register and {@link #execute(Test) executing} a
+ * {@link Program} doesn't allocate any objects.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@Immutable
+public final class Program {
+
+    /**
+     * The opcode that tests an expression.
+     */
+    static final int TEST = 0;
+
+    /**
+     * The opcode that jumps if the result is {@code false}.
+     */
+    static final int JUMP_IF_FALSE = 1;
+
+    /**
+     * The opcode that jumps if the result is {@code true}.
+     */
+    static final int JUMP_IF_TRUE = 2;
+
+    /**
+     * Return the {@link Program} for the {@code tree}.
+     *
+     * @param tree
+     * @return the {@link Program}
+     */
+    static Program assemble(ConditionTree tree) {
+        List<Integer> code = Lists.newArrayList();
+        List<String> keys = Lists.newArrayList();
+        List<Operator> operators = Lists.newArrayList();
+        Map<String, Integer> keyIndexes = Maps.newHashMap();
+        Map<Operator, Integer> operatorIndexes = Maps.newHashMap();
+        List<Integer> expressionKeys = Lists.newArrayList();
+        List<Integer> expressionOperators = Lists.newArrayList();
+        List<List<Object>> values = Lists.newArrayList();
+        List<Boolean> variables = Lists.newArrayList();
+        List<Long> timestamps = Lists.newArrayList();
+
+        // Each frame is a conjunction whose remaining operands must be
+        // emitted and the positions of its jumps, whose target is the end of
+        // the conjunction
+        Deque<Iterator<ConditionTree>> operands = new ArrayDeque<>();
+        Deque<ConjunctionSymbol> kinds = new ArrayDeque<>();
+        Deque<List<Integer>> jumps = new ArrayDeque<>();
+        ConditionTree next = tree;
+        while (next != null) {
+            if(next instanceof ConjunctionTree) {
+                Iterator<ConditionTree> it = ((ConjunctionTree) next)
+                        .operands().iterator();
+                operands.push(it);
+                kinds.push((ConjunctionSymbol) next.root());
+                jumps.push(Lists.newArrayList());
+                next = it.next();
+                continue;
+            }
+            ExpressionSymbol expression = (ExpressionSymbol) next.root();
+            String key = expression.raw().key();
+            Operator operator = expression.raw().operator();
+            code.add(TEST);
+            code.add(values.size());
+            expressionKeys.add(keyIndexes.computeIfAbsent(key, $ -> {
+                keys.add(key);
+                return keys.size() - 1;
+            }));
+            expressionOperators
+                    .add(operatorIndexes.computeIfAbsent(operator, $ -> {
+                        operators.add(operator);
+                        return operators.size() - 1;
+                    }));
+            boolean variable = false;
+            List<Object> vals = Lists
+                    .newArrayListWithCapacity(expression.values().size());
+            for (ValueTokenSymbol<?> symbol : expression.values()) {
+                if(symbol instanceof VariableSymbol) {
+                    // Variables are resolved from the data when the program
+                    // is executed
+                    vals.add(symbol);
+                    variable = true;
+                }
+                else {
+                    vals.add(symbol.value());
+                }
+            }
+            values.add(Collections.unmodifiableList(vals));
+            variables.add(variable);
+            TimestampSymbol timestamp = expression.timestamp();
+            timestamps.add(timestamp != null ? timestamp.timestamp()
+                    : TimestampSymbol.PRESENT.timestamp());
+            next = null;
+            while (next == null && !operands.isEmpty()) {
+                Iterator<ConditionTree> it = operands.peek();
+                if(it.hasNext()) {
+                    jumps.peek().add(code.size());
+                    code.add(kinds.peek() == ConjunctionSymbol.AND
+                            ? JUMP_IF_FALSE
+                            : JUMP_IF_TRUE);
+                    code.add(-1);
+                    next = it.next();
+                }
+                else {
+                    for (int jump : jumps.pop()) {
+                        code.set(jump + 1, code.size());
+                    }
+                    operands.pop();
+                    kinds.pop();
+                }
+            }
+        }
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        List<Object>[] pool = values.toArray(new List[0]);
+        boolean[] resolvable = new boolean[variables.size()];
+        for (int i = 0; i < resolvable.length; ++i) {
+            resolvable[i] = variables.get(i);
+        }
+        return new Program(Ints.toArray(code), keys.toArray(new String[0]),
+                operators.toArray(new Operator[0]),
+                Ints.toArray(expressionKeys),
+                Ints.toArray(expressionOperators), pool, resolvable,
+                Longs.toArray(timestamps));
+    }
+
+    /**
+     * The instructions.
+     */
+    private final int[] code;
+
+    /**
+     * The distinct keys.
+     */
+    private final String[] keys;
+
+    /**
+     * The distinct {@link Operator Operators}.
+     */
+    private final Operator[] operators;
+
+    /**
+     * The index of the key of each expression in {@link #keys}.
+     */
+    private final int[] expressionKeys;
+
+    /**
+     * The index of the {@link Operator} of each expression in
+     * {@link #operators}.
+     */
+    private final int[] expressionOperators;
+
+    /**
+     * The values of each expression.
+     */
+    private final List<Object>[] values;
+
+    /**
+     * A flag for each expression that indicates whether any of its values is
+     * a {@link VariableSymbol}.
+     */
+    private final boolean[] variables;
+
+    /**
+     * The timestamp of each expression.
+     */
+    private final long[] timestamps;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param code
+     * @param keys
+     * @param operators
+     * @param expressionKeys
+     * @param expressionOperators
+     * @param values
+     * @param variables
+     * @param timestamps
+     */
+    Program(int[] code, String[] keys, Operator[] operators,
+            int[] expressionKeys, int[] expressionOperators,
+            List<Object>[] values, boolean[] variables, long[] timestamps) {
+        this.code = code;
+        this.keys = keys;
+        this.operators = operators;
+        this.expressionKeys = expressionKeys;
+        this.expressionOperators = expressionOperators;
+        this.values = values;
+        this.variables = variables;
+        this.timestamps = timestamps;
+    }
+
+    /**
+     * Execute this {@link Program} and return the result.
+     *
+     * @param test a {@link Test} that returns whether the expression at an
+     *            index is satisfied
+     * @return the result of the condition
+     */
+    public boolean execute(Test test) {
+        boolean result = false;
+        int pc = 0;
+        while (pc < code.length) {
+            switch (code[pc]) {
+            case TEST:
+                result = test.test(code[pc + 1]);
+                pc += 2;
+                break;
+            case JUMP_IF_FALSE:
+                pc = result ? pc + 2 : code[pc + 1];
+                break;
+            case JUMP_IF_TRUE:
+                pc = result ? code[pc + 1] : pc + 2;
+                break;
+            default:
+                throw new IllegalStateException(
+                        "Invalid opcode " + code[pc] + " at " + pc);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return the number of expressions in this {@link Program}.
+     *
+     * @return the number of expressions
+     */
+    public int expressions() {
+        return values.length;
+    }
+
+    /**
+     * Return the key of the expression at {@code index}.
+     *
+     * @param index
+     * @return the key
+     */
+    public String key(int index) {
+        return keys[expressionKeys[index]];
+    }
+
+    /**
+     * Return the {@link Operator} of the expression at {@code index}.
+     *
+     * @param index
+     * @return the {@link Operator}
+     */
+    public Operator operator(int index) {
+        return operators[expressionOperators[index]];
+    }
+
+    /**
+     * Return the values of the expression at {@code index}. Any value that
+     * must be resolved from the data is a {@link VariableSymbol}.
+     *
+     * @param index
+     * @return the values
+     */
+    public List<Object> values(int index) {
+        return values[index];
+    }
+
+    /**
+     * Return the timestamp at which the expression at {@code index} is
+     * evaluated.
+     *
+     * @param index
+     * @return the timestamp, which is the same as
+     *         {@link TimestampSymbol#PRESENT} if the expression doesn't have
+     *         one
+     */
+    public long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * Return {@code true} if any of the {@link #values(int) values} of the
+     * expression at {@code index} is a {@link VariableSymbol}.
+     *
+     * @param index
+     * @return {@code true} if the expression has variables
+     */
+    public boolean hasVariables(int index) {
+        return variables[index];
+    }
+
+    /**
+     * Return the number of {@code int}s in the instructions of this
+     * {@link Program}.
+     *
+     * @return the length of the code
+     */
+    public int length() {
+        return code.length;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(obj instanceof Program) {
+            Program other = (Program) obj;
+            return Arrays.equals(code, other.code)
+                    && Arrays.equals(keys, other.keys)
+                    && Arrays.equals(operators, other.operators)
+                    && Arrays.equals(expressionKeys, other.expressionKeys)
+                    && Arrays.equals(expressionOperators,
+                            other.expressionOperators)
+                    && Arrays.equals(values, other.values)
+                    && Arrays.equals(timestamps, other.timestamps);
+        }
+        else {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(code) * 31 + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int pc = 0; pc < code.length; pc += 2) {
+            sb.append(pc).append(": ");
+            switch (code[pc]) {
+            case TEST:
+                int e = code[pc + 1];
+                sb.append("TEST ").append(key(e)).append(' ')
+                        .append(operator(e).symbol()).append(' ')
+                        .append(values(e));
+                if(timestamps[e] != TimestampSymbol.PRESENT.timestamp()) {
+                    sb.append(" at ").append(timestamps[e]);
+                }
+                break;
+            case JUMP_IF_FALSE:
+                sb.append("JUMP_IF_FALSE ").append(code[pc + 1]);
+                break;
+            case JUMP_IF_TRUE:
+                sb.append("JUMP_IF_TRUE ").append(code[pc + 1]);
+                break;
+            default:
+                sb.append("?");
+            }
+            sb.append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns whether an expression of a {@link Program} is satisfied.
+     *
+     * @author Jeff Nelson
+     */
+    @FunctionalInterface
+    public interface Test {
+
+        /**
+         * Return {@code true} if the expression at {@code index} is
+         * satisfied.
+         *
+         * @param index the index of the expression, which can be passed to
+         *            {@link Program#key(int)}, {@link Program#operator(int)},
+         *            {@link Program#values(int)} and
+         *            {@link Program#timestamp(int)}
+         * @return {@code true} if the expression is satisfied
+         */
+        public boolean test(int index);
+
+    }
+
+}
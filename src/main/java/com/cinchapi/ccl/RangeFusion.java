@@ -0,0 +1,570 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.cinchapi.ccl.grammar.ConjunctionSymbol;
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.grammar.TimestampSymbol;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.syntax.ConjunctionTree;
+import com.cinchapi.ccl.syntax.ExpressionTree;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.common.function.TriFunction;
+import com.google.common.collect.BoundType;
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.Sets;
+import com.google.common.collect.TreeRangeSet;
+
+/**
+ * Compiles a {@link ConditionTree} into a {@link Predicate} where the numeric
+ * range expressions on the same key and timestamp under the same {@code AND}
+ * or {@code OR} are fused, so that the values of the key are only read once.
+ * <p>
+ * An expression can be fused if its operator is {@code =}, {@code !=},
+ * {@code >}, {@code >=}, {@code <}, {@code <=} or {@code BETWEEN} and all of
+ * its values are numbers. Each such expression is converted into a
+ * {@link RangeSet}, with {@code BETWEEN} being inclusive of its lower bound
+ * and exclusive of its upper bound. Stored values that are numbers are
+ * compared against the {@link RangeSet RangeSets} in their natural order,
+ * while any other stored values are passed to the evaluator, so fusion is
+ * only correct for evaluators that compare numbers in their natural order.
+ * </p>
+ * <p>
+ * Since an expression is satisfied if <em>any</em> value of its key satisfies
+ * it, an {@code OR} of fused expressions is satisfied if any value falls in
+ * the union of their ranges, but an {@code AND} of fused expressions is only
+ * satisfied if each of their ranges contains a value, which need not be the
+ * same one.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+final class RangeFusion {
+
+    /**
+     * The largest magnitude at which each integral value can be represented
+     * exactly as a {@code double}.
+     */
+    private static final long MAX_EXACT_INTEGRAL = 1L << 53;
+
+    /**
+     * The maximum number of expressions that are fused into a single
+     * {@code AND} node.
+     */
+    private static final int MAX_FUSED_AND = Long.SIZE;
+
+    /**
+     * Return the {@link RangeSet} of numbers that satisfy the
+     * {@code operator} in relation to the {@code values}, or {@code null} if
+     * the expression can't be fused.
+     *
+     * @param operator
+     * @param values
+     * @return the {@link RangeSet} or {@code null}
+     */
+    @Nullable
+    static RangeSet<Double> range(Operator operator, List<Object> values) {
+        for (Object value : values) {
+            if(!isExact(value)) {
+                return null;
+            }
+        }
+        int size = values.size();
+        double a = size > 0 ? ((Number) values.get(0)).doubleValue() : 0;
+        double b = size > 1 ? ((Number) values.get(1)).doubleValue() : 0;
+        switch (operator.symbol().toLowerCase()) {
+        case "=":
+        case "eq":
+            return size == 1 ? ImmutableRangeSet.of(Range.singleton(a)) : null;
+        case "!=":
+        case "ne":
+            return size == 1
+                    ? ImmutableRangeSet.of(Range.singleton(a)).complement()
+                    : null;
+        case ">":
+        case "gt":
+            return size == 1 ? ImmutableRangeSet.of(Range.greaterThan(a))
+                    : null;
+        case ">=":
+        case "gte":
+            return size == 1 ? ImmutableRangeSet.of(Range.atLeast(a)) : null;
+        case "<":
+        case "lt":
+            return size == 1 ? ImmutableRangeSet.of(Range.lessThan(a)) : null;
+        case "<=":
+        case "lte":
+            return size == 1 ? ImmutableRangeSet.of(Range.atMost(a)) : null;
+        case "><":
+        case "bw":
+            if(size != 2) {
+                return null;
+            }
+            else if(a < b) {
+                return ImmutableRangeSet.of(Range.closedOpen(a, b));
+            }
+            else {
+                return ImmutableRangeSet.of();
+            }
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Return {@code true} if the {@code value} is a number that can be
+     * compared exactly as a {@code double}.
+     *
+     * @param value
+     * @return {@code true} if the {@code value} can be fused
+     */
+    static boolean isExact(Object value) {
+        if(SpecializedExpression.isIntegral(value)) {
+            long number = ((Number) value).longValue();
+            return number >= -MAX_EXACT_INTEGRAL
+                    && number <= MAX_EXACT_INTEGRAL;
+        }
+        else if(SpecializedExpression.isFloatingPoint(value)) {
+            return !Double.isNaN(((Number) value).doubleValue());
+        }
+        else {
+            return false;
+        }
+    }
+
+    /**
+     * Return a {@link Predicate} that tests data against the {@code tree}.
+     *
+     * @param compiler
+     * @param tree
+     * @param evaluator
+     * @return the {@link Predicate}
+     */
+    static Predicate<Multimap<String, Object>> compile(Compiler compiler,
+            ConditionTree tree,
+            TriFunction<Object, Operator, List<Object>, Boolean> evaluator) {
+        if(tree instanceof ConjunctionTree) {
+            boolean and = tree.root() == ConjunctionSymbol.AND;
+            List<ExpressionTree> leaves = Lists.newArrayList();
+            List<ConditionTree> others = Lists.newArrayList();
+            for (ConditionTree operand : ((ConjunctionTree) tree).operands()) {
+                if(operand instanceof ExpressionTree) {
+                    leaves.add((ExpressionTree) operand);
+                }
+                else {
+                    others.add(operand);
+                }
+            }
+            List<Predicate<Multimap<String, Object>>> operands = Lists
+                    .newArrayList();
+            Map<String, List<ExpressionTree>> groups = Maps.newLinkedHashMap();
+            for (ExpressionTree leaf : leaves) {
+                ExpressionSymbol expression = (ExpressionSymbol) leaf.root();
+                if(range(expression.raw().operator(),
+                        expression.raw().values()) != null) {
+                    // The timestamp symbol is null for the present state
+                    groups.computeIfAbsent(expression.raw().key() + "@"
+                            + expression.timestamp(),
+                            $ -> Lists.newArrayList()).add(leaf);
+                }
+                else {
+                    operands.add(compiler.compile(leaf, evaluator));
+                }
+            }
+            for (List<ExpressionTree> group : groups.values()) {
+                if(group.size() == 1) {
+                    operands.add(compiler.compile(group.get(0), evaluator));
+                }
+                else if(and) {
+                    for (List<ExpressionTree> partition : Lists
+                            .partition(group, MAX_FUSED_AND)) {
+                        operands.add(new Fused(partition, true, evaluator));
+                    }
+                }
+                else {
+                    operands.add(new Fused(group, false, evaluator));
+                }
+            }
+            for (ConditionTree other : others) {
+                operands.add(compile(compiler, other, evaluator));
+            }
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            Predicate<Multimap<String, Object>>[] array = operands
+                    .toArray(new Predicate[0]);
+            return and ? dataset -> {
+                for (Predicate<Multimap<String, Object>> operand : array) {
+                    if(!operand.test(dataset)) {
+                        return false;
+                    }
+                }
+                return true;
+            } : dataset -> {
+                for (Predicate<Multimap<String, Object>> operand : array) {
+                    if(operand.test(dataset)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+        else {
+            return compiler.compile(tree, evaluator);
+        }
+    }
+
+    /**
+     * Return the {@link RangeSet} for each key in the {@code tree} whose
+     * present values must fall in that {@link RangeSet} for the {@code tree}
+     * to be satisfied, assuming that the key has a single value. The ranges
+     * of the operands of an {@code AND} are intersected and those of an
+     * {@code OR} are united, so a key is only included if every branch of an
+     * {@code OR} constrains it. A key is excluded if any of its expressions
+     * can't be fused. Expressions with a historical timestamp don't
+     * constrain the present values, so they are ignored.
+     *
+     * @param tree
+     * @return the {@link RangeSet} for each key
+     */
+    static Map<String, RangeSet<Double>> ranges(ConditionTree tree) {
+        Set<String> unfusible = Sets.newHashSet();
+        Map<String, RangeSet<Double>> ranges = Maps.newLinkedHashMap();
+        constrain(tree, unfusible).forEach((key, range) -> {
+            if(!unfusible.contains(key)) {
+                ranges.put(key, ImmutableRangeSet.copyOf(range));
+            }
+        });
+        return ranges;
+    }
+
+    /**
+     * Return the mutable {@link RangeSet} for each key that the {@code tree}
+     * constrains and add each key with an expression that can't be fused to
+     * the {@code unfusible} keys.
+     *
+     * @param tree
+     * @param unfusible
+     * @return the {@link RangeSet} for each constrained key
+     */
+    private static Map<String, RangeSet<Double>> constrain(ConditionTree tree,
+            Set<String> unfusible) {
+        Map<String, RangeSet<Double>> ranges = Maps.newLinkedHashMap();
+        if(tree instanceof ExpressionTree) {
+            ExpressionSymbol expression = (ExpressionSymbol) tree.root();
+            TimestampSymbol timestamp = expression.timestamp();
+            if(timestamp == null || timestamp
+                    .timestamp() == TimestampSymbol.PRESENT.timestamp()) {
+                String key = expression.raw().key();
+                RangeSet<Double> range = range(expression.raw().operator(),
+                        expression.raw().values());
+                if(range != null) {
+                    ranges.put(key, TreeRangeSet.create(range));
+                }
+                else {
+                    unfusible.add(key);
+                }
+            }
+        }
+        else {
+            boolean and = tree.root() == ConjunctionSymbol.AND;
+            List<ConditionTree> operands = ((ConjunctionTree) tree).operands();
+            ranges.putAll(constrain(operands.get(0), unfusible));
+            for (int i = 1; i < operands.size(); ++i) {
+                Map<String, RangeSet<Double>> operand = constrain(
+                        operands.get(i), unfusible);
+                if(and) {
+                    operand.forEach((key, range) -> ranges.merge(key, range,
+                            (a, b) -> {
+                                a.removeAll(b.complement());
+                                return a;
+                            }));
+                }
+                else {
+                    ranges.keySet().retainAll(operand.keySet());
+                    ranges.forEach(
+                            (key, range) -> range.addAll(operand.get(key)));
+                }
+            }
+        }
+        return ranges;
+    }
+
+    private RangeFusion() {/* noop */}
+
+    /**
+     * A sorted array of disjoint intervals that can be searched without
+     * allocating any objects.
+     *
+     * @author Jeff Nelson
+     */
+    static final class Intervals {
+
+        /**
+         * The lower bound of each interval.
+         */
+        private final double[] lowers;
+
+        /**
+         * The upper bound of each interval.
+         */
+        private final double[] uppers;
+
+        /**
+         * Whether each lower bound is inclusive.
+         */
+        private final boolean[] lowerClosed;
+
+        /**
+         * Whether each upper bound is inclusive.
+         */
+        private final boolean[] upperClosed;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param range
+         */
+        Intervals(RangeSet<Double> range) {
+            Set<Range<Double>> ranges = range.asRanges();
+            int size = ranges.size();
+            this.lowers = new double[size];
+            this.uppers = new double[size];
+            this.lowerClosed = new boolean[size];
+            this.upperClosed = new boolean[size];
+            int i = 0;
+            for (Range<Double> interval : ranges) {
+                if(interval.hasLowerBound()) {
+                    lowers[i] = interval.lowerEndpoint();
+                    lowerClosed[i] = interval
+                            .lowerBoundType() == BoundType.CLOSED;
+                }
+                else {
+                    lowers[i] = Double.NEGATIVE_INFINITY;
+                    lowerClosed[i] = true;
+                }
+                if(interval.hasUpperBound()) {
+                    uppers[i] = interval.upperEndpoint();
+                    upperClosed[i] = interval
+                            .upperBoundType() == BoundType.CLOSED;
+                }
+                else {
+                    uppers[i] = Double.POSITIVE_INFINITY;
+                    upperClosed[i] = true;
+                }
+                ++i;
+            }
+        }
+
+        /**
+         * Return {@code true} if any interval contains the {@code value}.
+         *
+         * @param value
+         * @return {@code true} if the {@code value} is contained
+         */
+        boolean contains(double value) {
+            // Find the last interval whose lower bound is <= value
+            int low = 0;
+            int high = lowers.length - 1;
+            int found = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if(lowers[mid] <= value) {
+                    found = mid;
+                    low = mid + 1;
+                }
+                else {
+                    high = mid - 1;
+                }
+            }
+            if(found < 0) {
+                return false;
+            }
+            else if(lowers[found] == value && !lowerClosed[found]) {
+                // The intervals are disjoint, so the previous one may still
+                // contain the value through its closed upper bound
+                return found > 0 && uppers[found - 1] == value
+                        && upperClosed[found - 1];
+            }
+            else {
+                return value < uppers[found]
+                        || (value == uppers[found] && upperClosed[found]);
+            }
+        }
+
+    }
+
+    /**
+     * A {@link Predicate} for a group of fused expressions on the same key.
+     *
+     * @author Jeff Nelson
+     */
+    @ThreadSafe
+    private static final class Fused
+            implements Predicate<Multimap<String, Object>> {
+
+        /**
+         * The key of the expressions.
+         */
+        private final String key;
+
+        /**
+         * A flag that indicates whether the expressions are joined by
+         * {@code AND}.
+         */
+        private final boolean and;
+
+        /**
+         * For an {@code AND}, the {@link Intervals} of each expression; for an
+         * {@code OR}, the union of the expressions' ranges.
+         */
+        private final Intervals[] intervals;
+
+        /**
+         * The operator of each expression.
+         */
+        private final Operator[] operators;
+
+        /**
+         * The values of each expression.
+         */
+        private final List<Object>[] values;
+
+        /**
+         * The bit mask that has a bit set for each expression.
+         */
+        private final long all;
+
+        /**
+         * The evaluator for stored values that aren't numbers.
+         */
+        private final TriFunction<Object, Operator, List<Object>, Boolean> evaluator;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param expressions
+         * @param and
+         * @param evaluator
+         */
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Fused(List<ExpressionTree> expressions, boolean and,
+                TriFunction<Object, Operator, List<Object>, Boolean> evaluator) {
+            int size = expressions.size();
+            this.key = ((ExpressionSymbol) expressions.get(0).root()).raw()
+                    .key();
+            this.and = and;
+            this.evaluator = evaluator;
+            this.operators = new Operator[size];
+            this.values = new List[size];
+            RangeSet<Double> union = TreeRangeSet.create();
+            Intervals[] intervals = new Intervals[size];
+            for (int i = 0; i < size; ++i) {
+                ExpressionSymbol expression = (ExpressionSymbol) expressions
+                        .get(i).root();
+                operators[i] = expression.raw().operator();
+                values[i] = Collections
+                        .unmodifiableList(expression.raw().values());
+                RangeSet<Double> range = range(operators[i], values[i]);
+                intervals[i] = new Intervals(range);
+                union.addAll(range);
+            }
+            this.intervals = and ? intervals
+                    : new Intervals[] { new Intervals(union) };
+            this.all = !and || size == Long.SIZE ? -1L : (1L << size) - 1;
+        }
+
+        @Override
+        public boolean test(Multimap<String, Object> data) {
+            Collection<Object> stored = data.get(key);
+            long satisfied = 0;
+            if(stored instanceof List && stored instanceof RandomAccess) {
+                // Avoid allocating an Iterator for the common List
+                // implementations
+                List<Object> list = (List<Object>) stored;
+                for (int i = 0; i < list.size(); ++i) {
+                    satisfied = satisfy(list.get(i), satisfied);
+                    if(satisfied == all) {
+                        return true;
+                    }
+                }
+            }
+            else {
+                for (Object value : stored) {
+                    satisfied = satisfy(value, satisfied);
+                    if(satisfied == all) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Return the bit mask of the expressions that are satisfied after the
+         * {@code value} is tested, given the ones that were already
+         * {@code satisfied}. For an {@code OR}, the mask is {@link #all} as
+         * soon as any expression is satisfied.
+         *
+         * @param value
+         * @param satisfied
+         * @return the new bit mask
+         */
+        private long satisfy(Object value, long satisfied) {
+            if(isExact(value)) {
+                double number = ((Number) value).doubleValue();
+                if(and) {
+                    for (int i = 0; i < intervals.length; ++i) {
+                        long bit = 1L << i;
+                        if((satisfied & bit) == 0
+                                && intervals[i].contains(number)) {
+                            satisfied |= bit;
+                        }
+                    }
+                    return satisfied;
+                }
+                else {
+                    return intervals[0].contains(number) ? all : satisfied;
+                }
+            }
+            else {
+                for (int i = 0; i < operators.length; ++i) {
+                    long bit = and ? 1L << i : all;
+                    if((satisfied & bit) != bit
+                            && evaluator.apply(value, operators[i], values[i])) {
+                        satisfied |= bit;
+                    }
+                }
+                return satisfied;
+            }
+        }
+
+    }
+
+}
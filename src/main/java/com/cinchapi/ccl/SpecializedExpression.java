@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.type.Operator;
+import com.google.common.collect.Multimap;
+
+/**
+ * A {@link Predicate} that tests data against an expression whose values have
+ * been classified so that each stored value can be passed to the primitive
+ * specialization of an {@link Evaluator}.
+ *
+ * @author Jeff Nelson
+ */
+@ThreadSafe
+final class SpecializedExpression
+        implements Predicate<Multimap<String, Object>> {
+
+    /**
+     * Return {@code true} if the {@code value} is a {@code Byte},
+     * {@code Short}, {@code Integer} or {@code Long}.
+     *
+     * @param value
+     * @return {@code true} if the {@code value} is integral
+     */
+    static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer
+                || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * Return {@code true} if the {@code value} is a {@code Float} or
+     * {@code Double}.
+     *
+     * @param value
+     * @return {@code true} if the {@code value} is floating point
+     */
+    static boolean isFloatingPoint(Object value) {
+        return value instanceof Double || value instanceof Float;
+    }
+
+    /**
+     * The key of the expression.
+     */
+    private final String key;
+
+    /**
+     * The operator of the expression.
+     */
+    private final Operator operator;
+
+    /**
+     * The values of the expression.
+     */
+    private final List<Object> values;
+
+    /**
+     * The {@link #values} if they are all integral, otherwise {@code null}.
+     */
+    @Nullable
+    private final long[] longs;
+
+    /**
+     * The {@link #values} if they are all numeric, otherwise {@code null}.
+     */
+    @Nullable
+    private final double[] doubles;
+
+    /**
+     * The {@link #values} if they are all strings, otherwise {@code null}.
+     */
+    @Nullable
+    private final CharSequence[] strings;
+
+    /**
+     * A flag that indicates whether the {@link #operator} is regex based.
+     */
+    private final boolean regex;
+
+    /**
+     * The {@link Pattern} for the value of a regex based expression, which is
+     * compiled the first time that it is needed.
+     */
+    @Nullable
+    private volatile Pattern pattern;
+
+    /**
+     * The {@link Evaluator}.
+     */
+    private final Evaluator evaluator;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param expression
+     * @param evaluator
+     */
+    SpecializedExpression(ExpressionSymbol expression, Evaluator evaluator) {
+        this.key = expression.raw().key();
+        this.operator = expression.raw().operator();
+        this.values = Collections.unmodifiableList(expression.raw().values());
+        this.evaluator = evaluator;
+        this.regex = values.size() == 1 && (Patterns.isRegex(operator)
+                || Patterns.isLike(operator));
+        int size = values.size();
+        long[] longs = new long[size];
+        double[] doubles = new double[size];
+        CharSequence[] strings = new CharSequence[size];
+        boolean integral = true;
+        boolean numeric = true;
+        boolean string = true;
+        for (int i = 0; i < size; ++i) {
+            Object value = values.get(i);
+            if(isIntegral(value)) {
+                longs[i] = ((Number) value).longValue();
+                doubles[i] = longs[i];
+            }
+            else if(isFloatingPoint(value)) {
+                integral = false;
+                doubles[i] = ((Number) value).doubleValue();
+            }
+            else {
+                integral = false;
+                numeric = false;
+            }
+            if(value instanceof CharSequence) {
+                strings[i] = (CharSequence) value;
+            }
+            else {
+                string = false;
+            }
+        }
+        this.longs = integral && size > 0 ? longs : null;
+        this.doubles = numeric && size > 0 ? doubles : null;
+        this.strings = string && size > 0 ? strings : null;
+    }
+
+    @Override
+    public boolean test(Multimap<String, Object> data) {
+        Collection<Object> stored = data.get(key);
+        if(stored instanceof List && stored instanceof RandomAccess) {
+            // Avoid allocating an Iterator for the common List implementations
+            List<Object> list = (List<Object>) stored;
+            for (int i = 0; i < list.size(); ++i) {
+                if(matches(list.get(i))) {
+                    return true;
+                }
+            }
+        }
+        else {
+            for (Object value : stored) {
+                if(matches(value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return {@code true} if the stored {@code value} satisfies the
+     * expression.
+     *
+     * @param value
+     * @return {@code true} if the {@code value} satisfies the expression
+     */
+    private boolean matches(Object value) {
+        if(regex) {
+            Pattern pattern = this.pattern;
+            if(pattern == null) {
+                // A benign race, because the Patterns are cached
+                pattern = Patterns.of(operator, values.get(0));
+                this.pattern = pattern;
+            }
+            return evaluator.evaluate(value instanceof CharSequence
+                    ? (CharSequence) value
+                    : String.valueOf(value), operator, pattern);
+        }
+        else if(longs != null && isIntegral(value)) {
+            return evaluator.evaluate(((Number) value).longValue(), operator,
+                    longs);
+        }
+        else if(doubles != null
+                && (isIntegral(value) || isFloatingPoint(value))) {
+            return evaluator.evaluate(((Number) value).doubleValue(), operator,
+                    doubles);
+        }
+        else if(strings != null && value instanceof CharSequence) {
+            return evaluator.evaluate((CharSequence) value, operator, strings);
+        }
+        else {
+            return evaluator.evaluate(value, operator, values);
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.common.function.TriFunction;
+import com.google.common.collect.Multimap;
+
+/**
+ * A {@link Predicate} that tests data against a {@link ConditionTree} with the
+ * {@link Predicate} from {@link Compiler#compile(ConditionTree, TriFunction)}
+ * until it has been tested a certain number of times, after which it switches
+ * to a {@link MethodHandlePredicate}.
+ * <p>
+ * The number of tests is counted without synchronization, so it is
+ * approximate when the {@link Predicate} is shared among threads, but the
+ * {@link ConditionTree} is only specialized once.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@ThreadSafe
+final class SpecializingPredicate
+        implements Predicate<Multimap<String, Object>> {
+
+    /**
+     * The {@link Compiler} that compiled the {@link #tree}.
+     */
+    private final Compiler compiler;
+
+    /**
+     * The condition.
+     */
+    private final ConditionTree tree;
+
+    /**
+     * The evaluator for each expression.
+     */
+    private final TriFunction<Object, Operator, List<Object>, Boolean> evaluator;
+
+    /**
+     * The number of tests after which the {@link #tree} is specialized.
+     */
+    private final long threshold;
+
+    /**
+     * The {@link Predicate} that currently tests data.
+     */
+    private volatile Predicate<Multimap<String, Object>> delegate;
+
+    /**
+     * A flag that indicates whether the {@link #delegate} is a
+     * {@link MethodHandlePredicate}.
+     */
+    private volatile boolean specialized = false;
+
+    /**
+     * The approximate number of times that this {@link Predicate} has been
+     * tested before it was specialized.
+     */
+    private long tests = 0;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param compiler
+     * @param tree
+     * @param evaluator
+     * @param threshold
+     */
+    SpecializingPredicate(Compiler compiler, ConditionTree tree,
+            TriFunction<Object, Operator, List<Object>, Boolean> evaluator,
+            long threshold) {
+        this.compiler = compiler;
+        this.tree = tree;
+        this.evaluator = evaluator;
+        this.threshold = threshold;
+        this.delegate = compiler.compile(tree, evaluator);
+    }
+
+    /**
+     * Return {@code true} if this {@link Predicate} has been specialized.
+     *
+     * @return {@code true} if the {@link ConditionTree} is tested with a
+     *         {@link MethodHandlePredicate}
+     */
+    boolean isSpecialized() {
+        return specialized;
+    }
+
+    @Override
+    public boolean test(Multimap<String, Object> data) {
+        if(!specialized && ++tests > threshold) {
+            specialize();
+        }
+        return delegate.test(data);
+    }
+
+    /**
+     * Replace the {@link #delegate} with a {@link MethodHandlePredicate}.
+     */
+    private synchronized void specialize() {
+        if(!specialized) {
+            delegate = new MethodHandlePredicate(compiler, tree, evaluator);
+            specialized = true;
+        }
+    }
+
+}
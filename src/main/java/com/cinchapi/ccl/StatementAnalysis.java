@@ -15,9 +15,11 @@
  */
 package com.cinchapi.ccl;
 
+import java.util.Map;
 import java.util.Set;
 
 import com.cinchapi.ccl.type.Operator;
+import com.google.common.collect.RangeSet;
 
 /**
  * The {@link StatementAnalysis} provides metatadata about the nature of a CCL
@@ -52,4 +54,27 @@ public interface StatementAnalysis {
      */
     public Set<Operator> operators();
 
+    /**
+     * Return, for each key whose expressions in the CCL statement are all
+     * numeric range comparisons (e.g. {@code =}, {@code !=}, {@code >},
+     * {@code <} or {@code BETWEEN} with numeric values), the set of values
+     * that the key must have for the statement to be satisfied, assuming that
+     * the key has a single value.
+     * <p>
+     * The ranges of the operands of an {@code AND} are intersected and those
+     * of an {@code OR} are united, so {@code age > 18 and age < 65} produces
+     * {@code (18..65)} and a key that isn't constrained by every branch of an
+     * {@code OR} isn't included. Expressions with a historical timestamp don't
+     * constrain the present values of a key, so they are ignored.
+     * </p>
+     * <p>
+     * A server can use the returned {@link RangeSet} to find the records that
+     * may satisfy the statement with a single index range scan on a key that
+     * has one value in each record.
+     * </p>
+     * 
+     * @return the fused range of values for each key
+     */
+    public Map<String, RangeSet<Double>> ranges();
+
 }
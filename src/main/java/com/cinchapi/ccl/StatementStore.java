@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.cinchapi.ccl.generated.Grammar;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * A file that stores the {@link SyntaxTreeCodec encoded}
+ * {@link com.cinchapi.ccl.syntax.AbstractSyntaxTree trees} of CCL statements
+ * so that they survive a restart.
+ * <p>
+ * The file is memory-mapped and entries are appended to it. When a store is
+ * opened, only the positions of the existing entries are read, and each entry
+ * is indexed by a 128-bit fingerprint of its statement. A {@link #get(String)
+ * lookup} returns a read-only view of the mapped bytes, so an entry is only
+ * copied out of the file when it is decoded.
+ * </p>
+ * <p>
+ * The file starts with a header that records the version of the file format,
+ * the version of the {@link SyntaxTreeCodec} encoding and a signature of the
+ * {@link com.cinchapi.ccl.generated.Grammar Grammar}. If any of those don't
+ * match the running code, the existing entries are stale, so they are
+ * discarded when the store is opened.
+ * </p>
+ * <p>
+ * The header doesn't record the value and operator parsers of the
+ * {@link Compiler} that filled the store, and values that don't have a
+ * native encoding are stored as text that is passed to the value parser
+ * when they are decoded. So, a store is tied to those parsers and must not
+ * be shared by compilers that parse values or operators differently.
+ * </p>
+ * <p>
+ * A store takes an exclusive lock on its file while it is open, so the file
+ * can only be used by one process at a time.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@ThreadSafe
+public final class StatementStore implements Closeable {
+
+    /**
+     * Open the {@link StatementStore} in the {@code file}, which is created if
+     * it doesn't exist.
+     *
+     * @param file the path to the file
+     * @return the {@link StatementStore}
+     * @throws UncheckedIOException if the file can't be opened
+     * @throws IllegalStateException if the file is locked by another store
+     */
+    public static StatementStore open(Path file) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            }
+            catch (OverlappingFileLockException e) {
+                // The file is locked by another store in this process
+                lock = null;
+            }
+            if(lock == null) {
+                throw new IllegalStateException(
+                        "The statement store at " + file + " is in use");
+            }
+            return new StatementStore(channel, lock);
+        }
+        catch (IOException | RuntimeException e) {
+            if(channel != null) {
+                try {
+                    channel.close();
+                }
+                catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            if(e instanceof IOException) {
+                throw new UncheckedIOException((IOException) e);
+            }
+            else {
+                throw (RuntimeException) e;
+            }
+        }
+    }
+
+    /**
+     * The version of the file format.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * The signature of the {@link com.cinchapi.ccl.generated.Grammar Grammar}
+     * that parsed the stored statements, which is a hash of the grammar file
+     * that the build packages with the generated parser. If the grammar file
+     * isn't packaged, the bytecode of the generated parser is hashed instead.
+     */
+    static final long GRAMMAR_SIGNATURE;
+    static {
+        InputStream grammar = Grammar.class.getResourceAsStream("grammar.jjt");
+        if(grammar == null) {
+            grammar = Grammar.class.getResourceAsStream("Grammar.class");
+        }
+        try (InputStream input = grammar) {
+            GRAMMAR_SIGNATURE = Hashing.murmur3_128()
+                    .hashBytes(ByteStreams.toByteArray(input)).asLong();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The bytes that start the file.
+     */
+    private static final byte[] MAGIC = { 'C', 'C', 'L', 'S' };
+
+    /**
+     * The size of the header, which is the {@link #MAGIC}, the
+     * {@link #FORMAT_VERSION}, the {@link SyntaxTreeCodec#VERSION}, the
+     * {@link #GRAMMAR_SIGNATURE} and the position of the end of the last
+     * entry.
+     */
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * The position of the end of the last entry in the header.
+     */
+    private static final int END_POSITION = 20;
+
+    /**
+     * The minimum size of the mapped region.
+     */
+    private static final int MINIMUM_CAPACITY = 64 * 1024;
+
+    /**
+     * The {@link HashFunction} for the fingerprint of a statement.
+     */
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    /**
+     * The size of the fingerprint of a statement.
+     */
+    private static final int FINGERPRINT_SIZE = 16;
+
+    /**
+     * The file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The exclusive lock on the file, which is held until the store is
+     * {@link #close() closed}.
+     */
+    private final FileLock lock;
+
+    /**
+     * The position in the {@link #buffer} of each entry, by the fingerprint
+     * of its statement.
+     */
+    private final Map<HashCode, Integer> index = Maps.newConcurrentMap();
+
+    /**
+     * The mapped region of the file, which is replaced with a larger one when
+     * it is full.
+     */
+    private volatile MappedByteBuffer buffer;
+
+    /**
+     * The position after the last entry.
+     */
+    private int end;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param channel
+     * @param lock
+     * @throws IOException
+     */
+    private StatementStore(FileChannel channel, FileLock lock)
+            throws IOException {
+        this.channel = channel;
+        this.lock = lock;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(MINIMUM_CAPACITY, channel.size()));
+        if(!load()) {
+            reset();
+        }
+    }
+
+    /**
+     * Return the number of stored statements.
+     *
+     * @return the size
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Return {@code true} if there is an entry for the {@code ccl}
+     * statement.
+     *
+     * @param ccl the CCL statement
+     * @return {@code true} if the statement is stored
+     */
+    public boolean contains(String ccl) {
+        return get(ccl) != null;
+    }
+
+    /**
+     * Return a read-only view of the bytes that are stored for the
+     * {@code ccl} statement, or {@code null} if there aren't any.
+     * <p>
+     * The returned {@link ByteBuffer} is backed by the mapped file, so it is
+     * only valid while this store is open.
+     * </p>
+     *
+     * @param ccl the CCL statement
+     * @return the stored bytes or {@code null}
+     */
+    @Nullable
+    public ByteBuffer get(String ccl) {
+        byte[] statement = ccl.getBytes(StandardCharsets.UTF_8);
+        Integer position = index.get(HASH.hashBytes(statement));
+        if(position == null) {
+            return null;
+        }
+        // The buffer is read after the index so that it includes the entry
+        ByteBuffer entry = buffer.asReadOnlyBuffer();
+        entry.position(position + FINGERPRINT_SIZE);
+        int length = entry.getInt();
+        byte[] stored = new byte[length];
+        entry.get(stored);
+        if(!Arrays.equals(statement, stored)) {
+            // A fingerprint collision
+            return null;
+        }
+        length = entry.getInt();
+        entry.limit(entry.position() + length);
+        return entry.slice();
+    }
+
+    /**
+     * Store the {@code bytes} for the {@code ccl} statement, unless there
+     * already is an entry for it.
+     *
+     * @param ccl the CCL statement
+     * @param bytes the bytes to store, from the current position to the
+     *            limit
+     * @return {@code true} if the entry was added
+     */
+    public synchronized boolean put(String ccl, ByteBuffer bytes) {
+        byte[] statement = ccl.getBytes(StandardCharsets.UTF_8);
+        HashCode fingerprint = HASH.hashBytes(statement);
+        if(index.containsKey(fingerprint)) {
+            return false;
+        }
+        ensureOpen();
+        int size = FINGERPRINT_SIZE + 4 + statement.length + 4
+                + bytes.remaining();
+        MappedByteBuffer buffer = this.buffer;
+        if((long) end + size > buffer.capacity()) {
+            long capacity = Math.max(2L * buffer.capacity(), (long) end + size);
+            if(capacity > Integer.MAX_VALUE) {
+                throw new IllegalStateException("The statement store is full");
+            }
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        capacity);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.buffer = buffer;
+        }
+        int position = end;
+        ByteBuffer output = buffer.duplicate();
+        output.position(position);
+        output.put(fingerprint.asBytes());
+        output.putInt(statement.length);
+        output.put(statement);
+        output.putInt(bytes.remaining());
+        output.put(bytes.duplicate());
+        end = output.position();
+        // The end is only moved after the entry is complete, so a partially
+        // written entry is ignored when the file is loaded
+        buffer.putLong(END_POSITION, end);
+        index.put(fingerprint, position);
+        return true;
+    }
+
+    /**
+     * Write any changes to the storage device.
+     */
+    public synchronized void sync() {
+        ensureOpen();
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        if(channel.isOpen()) {
+            buffer.force();
+            try {
+                lock.release();
+                channel.close();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Throw an {@link IllegalStateException} if this store is closed.
+     */
+    private void ensureOpen() {
+        if(!channel.isOpen()) {
+            throw new IllegalStateException("The statement store is closed");
+        }
+    }
+
+    /**
+     * Index the entries in the file.
+     *
+     * @return {@code false} if the file doesn't have a valid header for the
+     *         current versions
+     */
+    private boolean load() {
+        ByteBuffer input = buffer.duplicate();
+        byte[] magic = new byte[MAGIC.length];
+        input.get(magic);
+        if(!Arrays.equals(MAGIC, magic) || input.getInt() != FORMAT_VERSION
+                || input.getInt() != SyntaxTreeCodec.VERSION
+                || input.getLong() != GRAMMAR_SIGNATURE) {
+            return false;
+        }
+        long limit = input.getLong();
+        if(limit < HEADER_SIZE || limit > input.capacity()) {
+            return false;
+        }
+        input.position(HEADER_SIZE);
+        input.limit((int) limit);
+        byte[] fingerprint = new byte[FINGERPRINT_SIZE];
+        while (input.remaining() >= FINGERPRINT_SIZE + 4) {
+            int position = input.position();
+            input.get(fingerprint);
+            int length = input.getInt();
+            if(length < 0 || length > input.remaining() - 4) {
+                break;
+            }
+            input.position(input.position() + length);
+            length = input.getInt();
+            if(length < 0 || length > input.remaining()) {
+                break;
+            }
+            input.position(input.position() + length);
+            index.put(HashCode.fromBytes(fingerprint.clone()), position);
+        }
+        end = input.position();
+        return true;
+    }
+
+    /**
+     * Discard all the entries and write the header.
+     */
+    private void reset() {
+        index.clear();
+        ByteBuffer output = buffer.duplicate();
+        output.put(MAGIC);
+        output.putInt(FORMAT_VERSION);
+        output.putInt(SyntaxTreeCodec.VERSION);
+        output.putLong(GRAMMAR_SIGNATURE);
+        output.putLong(HEADER_SIZE);
+        end = HEADER_SIZE;
+    }
+
+}
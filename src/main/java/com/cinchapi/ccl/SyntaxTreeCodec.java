@@ -0,0 +1,1010 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.cinchapi.ccl.grammar.ConjunctionSymbol;
+import com.cinchapi.ccl.grammar.DirectionSymbol;
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.grammar.FunctionKeySymbol;
+import com.cinchapi.ccl.grammar.FunctionTokenSymbol;
+import com.cinchapi.ccl.grammar.FunctionValueSymbol;
+import com.cinchapi.ccl.grammar.KeySymbol;
+import com.cinchapi.ccl.grammar.KeyTokenSymbol;
+import com.cinchapi.ccl.grammar.NavigationKeySymbol;
+import com.cinchapi.ccl.grammar.OperatorSymbol;
+import com.cinchapi.ccl.grammar.OrderComponentSymbol;
+import com.cinchapi.ccl.grammar.OrderSymbol;
+import com.cinchapi.ccl.grammar.PageSymbol;
+import com.cinchapi.ccl.grammar.TimestampSymbol;
+import com.cinchapi.ccl.grammar.ValueSymbol;
+import com.cinchapi.ccl.grammar.ValueTokenSymbol;
+import com.cinchapi.ccl.grammar.VariableSymbol;
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.cinchapi.ccl.syntax.AndTree;
+import com.cinchapi.ccl.syntax.CommandTree;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.syntax.ConjunctionTree;
+import com.cinchapi.ccl.syntax.ExpressionTree;
+import com.cinchapi.ccl.syntax.FunctionTree;
+import com.cinchapi.ccl.syntax.OrTree;
+import com.cinchapi.ccl.syntax.OrderTree;
+import com.cinchapi.ccl.syntax.PageTree;
+import com.cinchapi.ccl.syntax.TreeCursor;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.ccl.type.function.ImplicitKeyRecordFunction;
+import com.cinchapi.ccl.type.function.IndexFunction;
+import com.cinchapi.ccl.type.function.KeyConditionFunction;
+import com.cinchapi.ccl.type.function.KeyRecordsFunction;
+import com.cinchapi.ccl.type.function.TemporalFunction;
+import com.cinchapi.common.base.AnyStrings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Converts an {@link AbstractSyntaxTree} to and from a compact, versioned
+ * binary encoding so that a parsed statement can be stored or sent to another
+ * process and restored without being parsed again.
+ * <p>
+ * The encoding starts with the bytes {@code CCL} and a version number,
+ * followed by the nodes of the tree in pre-order. Each distinct string is
+ * only written once and later occurrences refer back to it, and numbers are
+ * written as variable-length integers. {@link String Strings}, numbers and
+ * {@link Boolean Booleans} keep their type. Any other value is written in its
+ * CCL text form and read with the value parser of the {@link Compiler}, just
+ * like it would be if the statement were parsed, unless a {@link ValueCodec}
+ * for its type is provided. Deserializing a tree doesn't involve the
+ * {@link com.cinchapi.ccl.generated.Grammar Grammar} or any other parser.
+ * </p>
+ * <p>
+ * Both directions walk the tree with an explicit stack, so trees of any depth
+ * can be encoded.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@Immutable
+public final class SyntaxTreeCodec {
+
+    /**
+     * The current version of the encoding.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The bytes that start every encoded tree.
+     */
+    private static final byte[] MAGIC = { 'C', 'C', 'L' };
+
+    // Node tags
+    private static final int COMMAND = 0;
+    private static final int AND = 1;
+    private static final int OR = 2;
+    private static final int EXPRESSION = 3;
+    private static final int ORDER = 4;
+    private static final int PAGE = 5;
+    private static final int FUNCTION = 6;
+
+    // Key tags
+    private static final int KEY = 0;
+    private static final int NAVIGATION_KEY = 1;
+    private static final int FUNCTION_KEY = 2;
+
+    // Value tags
+    private static final int STRING = 0;
+    private static final int INTEGER = 1;
+    private static final int LONG = 2;
+    private static final int FLOAT = 3;
+    private static final int DOUBLE = 4;
+    private static final int TRUE = 5;
+    private static final int FALSE = 6;
+    private static final int PARSED = 7;
+    private static final int CUSTOM = 8;
+    private static final int VARIABLE = 9;
+    private static final int FUNCTION_VALUE = 10;
+
+    // Function tags
+    private static final int IMPLICIT_KEY_RECORD_FUNCTION = 0;
+    private static final int INDEX_FUNCTION = 1;
+    private static final int KEY_RECORDS_FUNCTION = 2;
+    private static final int KEY_CONDITION_FUNCTION = 3;
+    private static final int KEY_CCL_FUNCTION = 4;
+
+    /**
+     * The deprecated {@code KeyCclFunction} class, which is still encoded
+     * with its own tag so that it is decoded as the same type.
+     */
+    @SuppressWarnings("deprecation")
+    private static final Class<?> KEY_CCL_FUNCTION_CLASS = com.cinchapi.ccl.type.function.KeyCclFunction.class;
+
+    /**
+     * The {@link TimeUnit TimeUnits} by ordinal.
+     */
+    private static final TimeUnit[] UNITS = TimeUnit.values();
+
+    /**
+     * The {@link DirectionSymbol DirectionSymbols} by ordinal.
+     */
+    private static final DirectionSymbol[] DIRECTIONS = DirectionSymbol
+            .values();
+
+    /**
+     * Parses the symbol of an {@link Operator}.
+     */
+    private final Function<String, Operator> operatorParser;
+
+    /**
+     * Parses a value that is written in its CCL text form.
+     */
+    private final Function<String, Object> valueParser;
+
+    /**
+     * The {@link ValueCodec ValueCodecs} in the order that they are checked
+     * for a value.
+     */
+    private final List<ValueCodec<?>> codecs;
+
+    /**
+     * The {@link ValueCodec ValueCodecs} by {@link ValueCodec#id() id}.
+     */
+    private final Map<Integer, ValueCodec<?>> codecsById;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param operatorParser
+     * @param valueParser
+     * @param codecs
+     */
+    SyntaxTreeCodec(Function<String, Operator> operatorParser,
+            Function<String, Object> valueParser, ValueCodec<?>... codecs) {
+        this.operatorParser = operatorParser;
+        this.valueParser = valueParser;
+        this.codecs = ImmutableList.copyOf(codecs);
+        this.codecsById = Maps.newHashMap();
+        for (ValueCodec<?> codec : codecs) {
+            if(codec.id() < 0) {
+                throw new IllegalArgumentException(AnyStrings
+                        .format("The id of {} is negative", codec));
+            }
+            else if(codecsById.put(codec.id(), codec) != null) {
+                throw new IllegalArgumentException(AnyStrings.format(
+                        "There are multiple codecs with id {}", codec.id()));
+            }
+        }
+    }
+
+    /**
+     * Return the encoding of the {@code tree}.
+     *
+     * @param tree
+     * @return a {@link ByteBuffer} that contains the encoded {@code tree}
+     * @throws IllegalArgumentException if the {@code tree} contains a node,
+     *             symbol or function that can't be encoded
+     */
+    public ByteBuffer serialize(AbstractSyntaxTree tree) {
+        Writer writer = new Writer();
+        writer.out.write(MAGIC);
+        writer.writeVarint(VERSION);
+        writer.writeTree(tree);
+        return ByteBuffer.wrap(writer.out.toByteArray());
+    }
+
+    /**
+     * Return the tree that is encoded in the {@code buffer}, starting at its
+     * current position. When this method returns, the position of the
+     * {@code buffer} is after the end of the encoded tree.
+     *
+     * @param buffer
+     * @return the decoded {@link AbstractSyntaxTree}
+     * @throws IllegalArgumentException if the {@code buffer} doesn't contain
+     *             a valid encoding
+     */
+    public AbstractSyntaxTree deserialize(ByteBuffer buffer) {
+        Reader reader = new Reader(buffer);
+        try {
+            for (byte b : MAGIC) {
+                if(reader.in.readByte() != b) {
+                    throw new IllegalArgumentException(
+                            "The buffer doesn't contain an encoded tree");
+                }
+            }
+            int version = reader.readVarint();
+            if(version > VERSION) {
+                throw new IllegalArgumentException(AnyStrings.format(
+                        "Unsupported encoding version {}", version));
+            }
+            return reader.readTree();
+        }
+        catch (IllegalArgumentException e) {
+            throw e;
+        }
+        catch (IOException | RuntimeException e) {
+            // A corrupt buffer may also cause a parser or custom codec to fail
+            throw new IllegalArgumentException(
+                    "The buffer contains a truncated or corrupt tree", e);
+        }
+    }
+
+    /**
+     * Return the {@code tree} as an instance of the {@code type}.
+     *
+     * @param tree
+     * @param type
+     * @return the {@code tree}
+     * @throws IllegalArgumentException if the {@code tree} isn't an instance
+     *             of the {@code type}, which means that the encoding is
+     *             corrupt
+     */
+    private static <T extends AbstractSyntaxTree> T cast(
+            AbstractSyntaxTree tree, Class<T> type) {
+        if(type.isInstance(tree)) {
+            return type.cast(tree);
+        }
+        else {
+            throw new IllegalArgumentException(AnyStrings.format(
+                    "Expected a {} but found a {}", type.getSimpleName(),
+                    tree.getClass().getSimpleName()));
+        }
+    }
+
+    /**
+     * Writes the encoding.
+     *
+     * @author Jeff Nelson
+     */
+    private final class Writer {
+
+        /**
+         * The output.
+         */
+        final ByteArrayDataOutput out = ByteStreams.newDataOutput();
+
+        /**
+         * The index of each string that has been written.
+         */
+        private final Map<String, Integer> strings = Maps.newHashMap();
+
+        /**
+         * Write the {@code tree}.
+         *
+         * @param tree
+         */
+        void writeTree(AbstractSyntaxTree tree) {
+            for (AbstractSyntaxTree node : TreeCursor.preOrder(tree)) {
+                if(node instanceof ConjunctionTree) {
+                    writeVarint(node.root() == ConjunctionSymbol.AND ? AND
+                            : OR);
+                }
+                else if(node instanceof ExpressionTree) {
+                    writeVarint(EXPRESSION);
+                    writeExpression((ExpressionSymbol) node.root());
+                }
+                else if(node instanceof CommandTree) {
+                    CommandTree command = (CommandTree) node;
+                    writeVarint(COMMAND);
+                    writeVarint((command.conditionTree() != null ? 1 : 0)
+                            | (command.pageTree() != null ? 2 : 0)
+                            | (command.orderTree() != null ? 4 : 0));
+                }
+                else if(node instanceof OrderTree) {
+                    List<OrderComponentSymbol> components = ((OrderSymbol) node
+                            .root()).components();
+                    writeVarint(ORDER);
+                    writeVarint(components.size());
+                    for (OrderComponentSymbol component : components) {
+                        writeKey(component.key());
+                        writeTimestamp(component.timestamp());
+                        writeVarint(component.direction() == null ? 0
+                                : component.direction().ordinal() + 1);
+                    }
+                }
+                else if(node instanceof PageTree) {
+                    PageSymbol page = (PageSymbol) node.root();
+                    writeVarint(PAGE);
+                    writeVarint(page.number());
+                    writeVarint(page.size());
+                }
+                else if(node instanceof FunctionTree) {
+                    FunctionTokenSymbol symbol = (FunctionTokenSymbol) node
+                            .root();
+                    writeVarint(FUNCTION);
+                    writeVarint(symbol instanceof FunctionKeySymbol ? 0 : 1);
+                    writeFunction(symbol.function());
+                }
+                else {
+                    throw new IllegalArgumentException(
+                            "Cannot encode " + node.getClass());
+                }
+            }
+        }
+
+        /**
+         * Write the {@code expression}.
+         *
+         * @param expression
+         */
+        void writeExpression(ExpressionSymbol expression) {
+            writeTimestamp(expression.timestamp());
+            writeKey(expression.key());
+            writeString(expression.operator().operator().symbol());
+            List<ValueTokenSymbol<?>> values = expression.values();
+            writeVarint(values.size());
+            for (ValueTokenSymbol<?> value : values) {
+                writeValue(value);
+            }
+        }
+
+        /**
+         * Write the {@code key}.
+         *
+         * @param key
+         */
+        void writeKey(KeyTokenSymbol<?> key) {
+            if(key instanceof KeySymbol) {
+                writeVarint(KEY);
+                writeString(((KeySymbol) key).key());
+            }
+            else if(key instanceof NavigationKeySymbol) {
+                writeVarint(NAVIGATION_KEY);
+                writeString(((NavigationKeySymbol) key).key());
+            }
+            else if(key instanceof FunctionKeySymbol) {
+                writeVarint(FUNCTION_KEY);
+                writeFunction(((FunctionKeySymbol) key).function());
+            }
+            else {
+                throw new IllegalArgumentException(
+                        "Cannot encode " + key.getClass());
+            }
+        }
+
+        /**
+         * Write the {@code symbol}.
+         *
+         * @param symbol
+         */
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        void writeValue(ValueTokenSymbol<?> symbol) {
+            if(symbol instanceof VariableSymbol) {
+                writeVarint(VARIABLE);
+                writeString(((VariableSymbol) symbol).value());
+                return;
+            }
+            else if(symbol instanceof FunctionValueSymbol) {
+                writeVarint(FUNCTION_VALUE);
+                writeFunction(((FunctionValueSymbol) symbol).function());
+                return;
+            }
+            Object value = symbol.value();
+            for (ValueCodec codec : codecs) {
+                if(codec.type().isInstance(value)) {
+                    writeVarint(CUSTOM);
+                    writeVarint(codec.id());
+                    try {
+                        codec.write(value, out);
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return;
+                }
+            }
+            if(value instanceof String) {
+                writeVarint(STRING);
+                writeString((String) value);
+            }
+            else if(value instanceof Integer) {
+                writeVarint(INTEGER);
+                writeSignedVarint((Integer) value);
+            }
+            else if(value instanceof Long) {
+                writeVarint(LONG);
+                writeSignedVarint((Long) value);
+            }
+            else if(value instanceof Float) {
+                writeVarint(FLOAT);
+                out.writeFloat((Float) value);
+            }
+            else if(value instanceof Double) {
+                writeVarint(DOUBLE);
+                out.writeDouble((Double) value);
+            }
+            else if(value instanceof Boolean) {
+                writeVarint((Boolean) value ? TRUE : FALSE);
+            }
+            else {
+                writeVarint(PARSED);
+                writeString(symbol.toString());
+            }
+        }
+
+        /**
+         * Write the {@code function}.
+         *
+         * @param function
+         */
+        void writeFunction(com.cinchapi.ccl.type.Function function) {
+            Class<?> type = function.getClass();
+            if(type == ImplicitKeyRecordFunction.class) {
+                writeVarint(IMPLICIT_KEY_RECORD_FUNCTION);
+                writeString(function.operation());
+                writeString(function.key());
+            }
+            else if(type == IndexFunction.class) {
+                writeVarint(INDEX_FUNCTION);
+                writeString(function.operation());
+                writeString(function.key());
+                writeTemporal((TemporalFunction) function);
+            }
+            else if(type == KeyRecordsFunction.class) {
+                List<Long> records = ((KeyRecordsFunction) function).source();
+                writeVarint(KEY_RECORDS_FUNCTION);
+                writeString(function.operation());
+                writeString(function.key());
+                writeVarint(records.size());
+                for (long record : records) {
+                    writeSignedVarint(record);
+                }
+                writeTemporal((TemporalFunction) function);
+            }
+            else if(type == KeyConditionFunction.class
+                    || type == KEY_CCL_FUNCTION_CLASS) {
+                writeVarint(type == KeyConditionFunction.class
+                        ? KEY_CONDITION_FUNCTION
+                        : KEY_CCL_FUNCTION);
+                writeString(function.operation());
+                writeString(function.key());
+                writeTree(((KeyConditionFunction) function).source());
+                writeTemporal((TemporalFunction) function);
+            }
+            else {
+                throw new IllegalArgumentException("Cannot encode " + type);
+            }
+        }
+
+        /**
+         * Write the timestamp of the {@code function}.
+         *
+         * @param function
+         */
+        void writeTemporal(TemporalFunction function) {
+            writeSignedVarint(function.timestamp());
+            writeVarint(function.timestampPrecision().ordinal());
+        }
+
+        /**
+         * Write the {@code timestamp}, which may be {@code null}.
+         *
+         * @param timestamp
+         */
+        void writeTimestamp(@Nullable TimestampSymbol timestamp) {
+            if(timestamp == null) {
+                writeVarint(0);
+            }
+            else {
+                writeVarint(timestamp.precision().ordinal() + 1);
+                writeSignedVarint(timestamp.timestamp());
+            }
+        }
+
+        /**
+         * Write the {@code string}, or a reference to it if it has already
+         * been written.
+         *
+         * @param string
+         */
+        void writeString(String string) {
+            Integer index = strings.get(string);
+            if(index != null) {
+                writeVarint(index + 1);
+            }
+            else {
+                strings.put(string, strings.size());
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                writeVarint(0);
+                writeVarint(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        /**
+         * Write the {@code value} as a zig-zag encoded variable-length
+         * integer.
+         *
+         * @param value
+         */
+        void writeSignedVarint(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        /**
+         * Write the unsigned {@code value} as a variable-length integer with
+         * seven bits per byte.
+         *
+         * @param value
+         */
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+    }
+
+    /**
+     * Reads the encoding.
+     *
+     * @author Jeff Nelson
+     */
+    private final class Reader {
+
+        /**
+         * The input.
+         */
+        final DataInputStream in;
+
+        /**
+         * The buffer from which the {@link #in input} is read.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * The strings that have been read, by index.
+         */
+        private final List<String> strings = Lists.newArrayList();
+
+        /**
+         * Construct a new instance.
+         *
+         * @param buffer
+         */
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.in = new DataInputStream(new InputStream() {
+
+                @Override
+                public int read() {
+                    return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) {
+                    if(length == 0) {
+                        return 0;
+                    }
+                    else if(!buffer.hasRemaining()) {
+                        return -1;
+                    }
+                    else {
+                        length = Math.min(length, buffer.remaining());
+                        buffer.get(bytes, offset, length);
+                        return length;
+                    }
+                }
+
+            });
+        }
+
+        /**
+         * Read a tree.
+         *
+         * @return the tree
+         * @throws IOException
+         */
+        AbstractSyntaxTree readTree() throws IOException {
+            // Each frame is a node whose children are being read
+            Deque<Frame> stack = new ArrayDeque<>();
+            for (;;) {
+                int tag = readVarint();
+                AbstractSyntaxTree node;
+                switch (tag) {
+                case AND:
+                case OR:
+                    stack.push(new Frame(tag, 0, 2));
+                    continue;
+                case COMMAND:
+                    int flags = readVarint();
+                    if(flags > 7) {
+                        throw new IllegalArgumentException(
+                                "Invalid command flags " + flags);
+                    }
+                    int count = Integer.bitCount(flags);
+                    if(count > 0) {
+                        stack.push(new Frame(tag, flags, count));
+                        continue;
+                    }
+                    node = new CommandTree(null, null, null);
+                    break;
+                case EXPRESSION:
+                    node = new ExpressionTree(readExpression());
+                    break;
+                case ORDER:
+                    OrderSymbol order = new OrderSymbol();
+                    for (int i = readLength(); i > 0; --i) {
+                        KeyTokenSymbol<?> key = readKey();
+                        TimestampSymbol timestamp = readTimestamp();
+                        int direction = readIndex(DIRECTIONS.length + 1);
+                        order.add(new OrderComponentSymbol(key, timestamp,
+                                direction == 0 ? null
+                                        : DIRECTIONS[direction - 1]));
+                    }
+                    node = new OrderTree(order);
+                    break;
+                case PAGE:
+                    int number = readVarint();
+                    int size = readVarint();
+                    node = new PageTree(new PageSymbol(number, size));
+                    break;
+                case FUNCTION:
+                    boolean key = readVarint() == 0;
+                    com.cinchapi.ccl.type.Function function = readFunction();
+                    node = new FunctionTree(key ? new FunctionKeySymbol(function)
+                            : new FunctionValueSymbol(function));
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                            "Invalid node tag " + tag);
+                }
+                for (;;) {
+                    Frame parent = stack.peek();
+                    if(parent == null) {
+                        return node;
+                    }
+                    parent.children.add(node);
+                    if(parent.children.size() < parent.expected) {
+                        break;
+                    }
+                    stack.pop();
+                    node = parent.build();
+                }
+            }
+        }
+
+        /**
+         * Read an expression.
+         *
+         * @return the expression
+         * @throws IOException
+         */
+        ExpressionSymbol readExpression() throws IOException {
+            TimestampSymbol timestamp = readTimestamp();
+            KeyTokenSymbol<?> key = readKey();
+            OperatorSymbol operator = new OperatorSymbol(
+                    operatorParser.apply(readString()));
+            ValueTokenSymbol<?>[] values = new ValueTokenSymbol<?>[readLength()];
+            for (int i = 0; i < values.length; ++i) {
+                values[i] = readValue();
+            }
+            return ExpressionSymbol.create(timestamp, key, operator, values);
+        }
+
+        /**
+         * Read a key.
+         *
+         * @return the key
+         * @throws IOException
+         */
+        KeyTokenSymbol<?> readKey() throws IOException {
+            int tag = readVarint();
+            switch (tag) {
+            case KEY:
+                return new KeySymbol(readString());
+            case NAVIGATION_KEY:
+                return new NavigationKeySymbol(readString());
+            case FUNCTION_KEY:
+                return new FunctionKeySymbol(readFunction());
+            default:
+                throw new IllegalArgumentException("Invalid key tag " + tag);
+            }
+        }
+
+        /**
+         * Read a value.
+         *
+         * @return the value
+         * @throws IOException
+         */
+        ValueTokenSymbol<?> readValue() throws IOException {
+            int tag = readVarint();
+            switch (tag) {
+            case STRING:
+                return new ValueSymbol(readString());
+            case INTEGER:
+                return new ValueSymbol((int) readSignedVarint());
+            case LONG:
+                return new ValueSymbol(readSignedVarint());
+            case FLOAT:
+                return new ValueSymbol(in.readFloat());
+            case DOUBLE:
+                return new ValueSymbol(in.readDouble());
+            case TRUE:
+                return new ValueSymbol(true);
+            case FALSE:
+                return new ValueSymbol(false);
+            case PARSED:
+                return new ValueSymbol(valueParser.apply(readString()));
+            case CUSTOM:
+                int id = readVarint();
+                ValueCodec<?> codec = codecsById.get(id);
+                if(codec == null) {
+                    throw new IllegalArgumentException(
+                            "There is no codec with id " + id);
+                }
+                return new ValueSymbol(codec.read(in));
+            case VARIABLE:
+                return new VariableSymbol(readString());
+            case FUNCTION_VALUE:
+                return new FunctionValueSymbol(readFunction());
+            default:
+                throw new IllegalArgumentException(
+                        "Invalid value tag " + tag);
+            }
+        }
+
+        /**
+         * Read a function.
+         *
+         * @return the function
+         * @throws IOException
+         */
+        com.cinchapi.ccl.type.Function readFunction() throws IOException {
+            int tag = readVarint();
+            String operation = readString();
+            String key = readString();
+            TemporalFunction function;
+            switch (tag) {
+            case IMPLICIT_KEY_RECORD_FUNCTION:
+                return new ImplicitKeyRecordFunction(operation, key);
+            case INDEX_FUNCTION:
+                function = new IndexFunction(operation, key,
+                        readSignedVarint());
+                break;
+            case KEY_RECORDS_FUNCTION:
+                Long[] records = new Long[readLength()];
+                for (int i = 0; i < records.length; ++i) {
+                    records[i] = readSignedVarint();
+                }
+                function = new KeyRecordsFunction(readSignedVarint(),
+                        operation, key, records);
+                break;
+            case KEY_CCL_FUNCTION: {
+                @SuppressWarnings("deprecation")
+                TemporalFunction legacy = new com.cinchapi.ccl.type.function.KeyCclFunction(
+                        operation, key, readTree());
+                function = legacy;
+                readSignedVarint(); // the timestamp is always absent
+                break;
+            }
+            case KEY_CONDITION_FUNCTION:
+                function = new KeyConditionFunction(operation, key,
+                        cast(readTree(), ConditionTree.class),
+                        readSignedVarint());
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "Invalid function tag " + tag);
+            }
+            return function
+                    .setTimestampPrecision(UNITS[readIndex(UNITS.length)]);
+        }
+
+        /**
+         * Read a timestamp, which may be {@code null}.
+         *
+         * @return the timestamp
+         * @throws IOException
+         */
+        @Nullable
+        TimestampSymbol readTimestamp() throws IOException {
+            int precision = readIndex(UNITS.length + 1);
+            return precision == 0 ? null
+                    : new TimestampSymbol(readSignedVarint(),
+                            UNITS[precision - 1]);
+        }
+
+        /**
+         * Read a string, or a reference to a string that was already read.
+         *
+         * @return the string
+         * @throws IOException
+         */
+        String readString() throws IOException {
+            int index = readIndex(strings.size() + 1);
+            if(index > 0) {
+                return strings.get(index - 1);
+            }
+            else {
+                byte[] bytes = new byte[readLength()];
+                in.readFully(bytes);
+                String string = new String(bytes, StandardCharsets.UTF_8);
+                strings.add(string);
+                return string;
+            }
+        }
+
+        /**
+         * Read an index that must be less than {@code size}.
+         *
+         * @param size
+         * @return the index
+         * @throws IOException
+         */
+        int readIndex(int size) throws IOException {
+            int index = readVarint();
+            if(index >= size) {
+                throw new IllegalArgumentException(
+                        "Invalid index " + index + " of " + size);
+            }
+            return index;
+        }
+
+        /**
+         * Read the length of a sequence of bytes or elements. Each byte or
+         * element takes at least one byte, so the length can't exceed the
+         * number of bytes that remain in the buffer.
+         *
+         * @return the length
+         * @throws IOException
+         */
+        int readLength() throws IOException {
+            int length = readVarint();
+            if(length > buffer.remaining()) {
+                throw new IllegalArgumentException("Invalid length " + length
+                        + " with " + buffer.remaining() + " bytes remaining");
+            }
+            return length;
+        }
+
+        /**
+         * Read a zig-zag encoded variable-length integer.
+         *
+         * @return the value
+         * @throws IOException
+         */
+        long readSignedVarint() throws IOException {
+            long value = readVarlong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        /**
+         * Read an unsigned variable-length integer that fits in an
+         * {@code int}.
+         *
+         * @return the value
+         * @throws IOException
+         */
+        int readVarint() throws IOException {
+            long value = readVarlong();
+            if(value < 0 || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        "Invalid integer " + value);
+            }
+            return (int) value;
+        }
+
+        /**
+         * Read an unsigned variable-length integer.
+         *
+         * @return the value
+         * @throws IOException
+         */
+        long readVarlong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in.readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed integer");
+        }
+
+    }
+
+    /**
+     * A node whose children are being read.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class Frame {
+
+        /**
+         * The node tag.
+         */
+        final int tag;
+
+        /**
+         * The flags that indicate which children a {@link CommandTree} has.
+         */
+        final int flags;
+
+        /**
+         * The number of children.
+         */
+        final int expected;
+
+        /**
+         * The children that have been read.
+         */
+        final List<AbstractSyntaxTree> children = Lists.newArrayListWithCapacity(3);
+
+        /**
+         * Construct a new instance.
+         *
+         * @param tag
+         * @param flags
+         * @param expected
+         */
+        Frame(int tag, int flags, int expected) {
+            this.tag = tag;
+            this.flags = flags;
+            this.expected = expected;
+        }
+
+        /**
+         * Return the node.
+         *
+         * @return the node
+         */
+        AbstractSyntaxTree build() {
+            if(tag == AND) {
+                return new AndTree(cast(children.get(0), ConditionTree.class),
+                        cast(children.get(1), ConditionTree.class));
+            }
+            else if(tag == OR) {
+                return new OrTree(cast(children.get(0), ConditionTree.class),
+                        cast(children.get(1), ConditionTree.class));
+            }
+            else {
+                int i = 0;
+                ConditionTree condition = (flags & 1) != 0
+                        ? cast(children.get(i++), ConditionTree.class)
+                        : null;
+                PageTree page = (flags & 2) != 0
+                        ? cast(children.get(i++), PageTree.class)
+                        : null;
+                OrderTree order = (flags & 4) != 0
+                        ? cast(children.get(i++), OrderTree.class)
+                        : null;
+                return new CommandTree(condition, page, order);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads the values of a specific type in the binary encoding that
+ * is produced by a {@link SyntaxTreeCodec}.
+ * <p>
+ * A {@link ValueCodec} is identified in the encoding by its {@link #id()}, so
+ * the {@link SyntaxTreeCodec SyntaxTreeCodecs} that write and read a tree must
+ * be configured with {@link ValueCodec ValueCodecs} that have the same ids.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+public interface ValueCodec<T> {
+
+    /**
+     * Return the non-negative number that identifies this {@link ValueCodec}
+     * in the encoding.
+     *
+     * @return the id
+     */
+    public int id();
+
+    /**
+     * Return the type of the values that are handled by this
+     * {@link ValueCodec}. A value is handled if it is an instance of the type.
+     *
+     * @return the type
+     */
+    public Class<T> type();
+
+    /**
+     * Write the {@code value} to the {@code output}.
+     *
+     * @param value
+     * @param output
+     * @throws IOException
+     */
+    public void write(T value, DataOutput output) throws IOException;
+
+    /**
+     * Read a value that was {@link #write(Object, DataOutput) written} from
+     * the {@code input}.
+     *
+     * @param input
+     * @return the value
+     * @throws IOException
+     */
+    public T read(DataInput input) throws IOException;
+
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl.generated;
+
+import java.io.IOException;
+
+/**
+ * A {@link CharStream} that reads directly from a {@link CharSequence} by
+ * index.
+ * <p>
+ * Unlike {@link SimpleCharStream}, the input isn't copied into an intermediate
+ * buffer or decoded from bytes, and the line and column of a character are
+ * only computed when the {@link GrammarTokenManager} asks for them. Lines and
+ * columns are counted the same way as they are by {@link SimpleCharStream}.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+public class CharSequenceCharStream implements CharStream {
+
+    /**
+     * The exception that signals the end of the input to the
+     * {@link GrammarTokenManager}. It is shared because the end of the input
+     * is reached at least once per parse.
+     */
+    private static final IOException END_OF_INPUT = new EndOfInputException();
+
+    /**
+     * The characters to read.
+     */
+    private CharSequence input;
+
+    /**
+     * The index of the last character that was read.
+     */
+    private int pos;
+
+    /**
+     * The index of the first character in the current token.
+     */
+    private int tokenBegin;
+
+    /**
+     * The index of the character whose position is stored in {@link #line}
+     * and {@link #column}.
+     */
+    private int located;
+
+    /**
+     * The line of the character at index {@link #located}.
+     */
+    private int line;
+
+    /**
+     * The column of the character at index {@link #located}.
+     */
+    private int column;
+
+    /**
+     * Whether the character at index {@link #located} is a carriage return.
+     */
+    private boolean prevCharIsCR;
+
+    /**
+     * Whether the character at index {@link #located} is a line feed.
+     */
+    private boolean prevCharIsLF;
+
+    /**
+     * The number of columns in a tab stop.
+     */
+    private int tabSize = 1;
+
+    /**
+     * Whether line and column numbers are tracked.
+     */
+    private boolean trackLineColumn = true;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param input
+     */
+    public CharSequenceCharStream(CharSequence input) {
+        ReInit(input);
+    }
+
+    /**
+     * Reinitialise this stream to read from {@code input}.
+     *
+     * @param input
+     */
+    public void ReInit(CharSequence input) {
+        this.input = input;
+        this.pos = -1;
+        this.tokenBegin = 0;
+        this.located = -1;
+        this.line = 1;
+        this.column = 0;
+        this.prevCharIsCR = false;
+        this.prevCharIsLF = false;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        if(pos + 1 >= input.length()) {
+            if(tokenBegin == -1) {
+                tokenBegin = pos;
+            }
+            throw END_OF_INPUT;
+        }
+        else {
+            return input.charAt(++pos);
+        }
+    }
+
+    @Override
+    @Deprecated
+    public int getColumn() {
+        return getEndColumn();
+    }
+
+    @Override
+    @Deprecated
+    public int getLine() {
+        return getEndLine();
+    }
+
+    @Override
+    public int getEndColumn() {
+        locate(pos);
+        return column;
+    }
+
+    @Override
+    public int getEndLine() {
+        locate(pos);
+        return line;
+    }
+
+    @Override
+    public int getBeginColumn() {
+        locate(tokenBegin);
+        return column;
+    }
+
+    @Override
+    public int getBeginLine() {
+        locate(tokenBegin);
+        return line;
+    }
+
+    @Override
+    public void backup(int amount) {
+        pos -= amount;
+    }
+
+    @Override
+    public char BeginToken() throws IOException {
+        tokenBegin = -1;
+        char c = readChar();
+        tokenBegin = pos;
+        return c;
+    }
+
+    @Override
+    public String GetImage() {
+        return input.subSequence(tokenBegin, pos + 1).toString();
+    }
+
+    @Override
+    public char[] GetSuffix(int len) {
+        char[] suffix = new char[len];
+        for (int i = 0, j = pos - len + 1; i < len; ++i, ++j) {
+            suffix[i] = input.charAt(j);
+        }
+        return suffix;
+    }
+
+    @Override
+    public void Done() {
+        input = null;
+    }
+
+    @Override
+    public void setTabSize(int i) {
+        tabSize = i;
+    }
+
+    @Override
+    public int getTabSize() {
+        return tabSize;
+    }
+
+    @Override
+    public boolean getTrackLineColumn() {
+        return trackLineColumn;
+    }
+
+    @Override
+    public void setTrackLineColumn(boolean trackLineColumn) {
+        this.trackLineColumn = trackLineColumn;
+    }
+
+    /**
+     * Compute the {@link #line} and {@link #column} of the character at
+     * {@code index}. Tokens are requested in order, so this usually picks up
+     * from the last character that was located.
+     *
+     * @param index
+     */
+    private void locate(int index) {
+        if(!trackLineColumn || index == located) {
+            return;
+        }
+        else if(index < located) {
+            located = -1;
+            line = 1;
+            column = 0;
+            prevCharIsCR = false;
+            prevCharIsLF = false;
+        }
+        while (located < index) {
+            char c = input.charAt(++located);
+            column++;
+            if(prevCharIsLF) {
+                prevCharIsLF = false;
+                line += (column = 1);
+            }
+            else if(prevCharIsCR) {
+                prevCharIsCR = false;
+                if(c == '\n') {
+                    prevCharIsLF = true;
+                }
+                else {
+                    line += (column = 1);
+                }
+            }
+            switch (c) {
+            case '\r':
+                prevCharIsCR = true;
+                break;
+            case '\n':
+                prevCharIsLF = true;
+                break;
+            case '\t':
+                column--;
+                column += (tabSize - (column % tabSize));
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * The {@link IOException} that signals the end of the input. It doesn't
+     * capture a stack trace.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class EndOfInputException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Construct a new instance.
+         */
+        EndOfInputException() {
+            super("End of input");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+    }
+
+}
@@ -7,6 +7,7 @@ import com.cinchapi.ccl.grammar.DirectionSymbol;
 import com.cinchapi.ccl.grammar.FunctionTokenSymbol;
 import com.cinchapi.ccl.grammar.KeySymbol;
 import com.cinchapi.ccl.grammar.ValueTokenSymbol;
+import com.cinchapi.ccl.grammar.VariableSymbol;
 import com.cinchapi.ccl.type.function.KeyConditionFunction;
 import com.cinchapi.ccl.type.function.KeyRecordsFunction;
 import com.cinchapi.ccl.grammar.FunctionKeySymbol;
@@ -29,7 +30,12 @@ import com.cinchapi.common.base.AnyStrings;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.io.CharStreams;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.function.Function;
@@ -44,15 +50,26 @@ public class Grammar/*@bgen(jjtree)*/implements GrammarTreeConstants, GrammarCon
     private Function<String, Operator> operatorTransformFunction;
     private GrammarVisitor visitor;
 
+    /**
+     * The function that transforms values while a template is parsed, or
+     * {@code null} if local variables must be resolved.
+     */
+    private Function<String, Object> templateValueTransformFunction;
+
+    /**
+     * The number of function conditions that are being parsed. Variables
+     * within a function condition are always resolved.
+     */
+    private int functions;
+
+    private CharSequenceCharStream input;
+
     public Grammar(java.io.InputStream stream,
                 Function<String, Object> valueTransformFunction,
                 Function<String, Operator> operatorTransformFunction,
                 GrammarVisitor visitor) {
-        this(stream, null);
-        this.data = null;
-        this.valueTransformFunction = valueTransformFunction;
-        this.operatorTransformFunction = operatorTransformFunction;
-        this.visitor = visitor;
+        this(stream, valueTransformFunction, operatorTransformFunction, null,
+                visitor);
     }
 
     public Grammar(java.io.InputStream stream,
@@ -60,19 +77,140 @@ public class Grammar/*@bgen(jjtree)*/implements GrammarTreeConstants, GrammarCon
                 Function<String, Operator> operatorTransformFunction,
                 Multimap<String, Object> data,
                 GrammarVisitor visitor) {
-        this(stream, null);
+        this(read(stream), valueTransformFunction, operatorTransformFunction,
+                data, visitor);
+    }
+
+    public Grammar(CharSequence ccl,
+                Function<String, Object> valueTransformFunction,
+                Function<String, Operator> operatorTransformFunction,
+                Multimap<String, Object> data,
+                GrammarVisitor visitor) {
+        this(new CharSequenceCharStream(ccl), valueTransformFunction,
+                operatorTransformFunction, data, visitor);
+    }
+
+    public Grammar(Function<String, Object> valueTransformFunction,
+                Function<String, Operator> operatorTransformFunction,
+                GrammarVisitor visitor) {
+        this("", valueTransformFunction, operatorTransformFunction, null,
+                visitor);
+    }
+
+    private Grammar(CharSequenceCharStream input,
+                Function<String, Object> valueTransformFunction,
+                Function<String, Operator> operatorTransformFunction,
+                Multimap<String, Object> data,
+                GrammarVisitor visitor) {
+        this(input);
+        this.input = input;
         this.data = data;
         this.valueTransformFunction = valueTransformFunction;
         this.operatorTransformFunction = operatorTransformFunction;
         this.visitor = visitor;
     }
 
+    /**
+     * Reinitialise this instance so that it can be reused to parse
+     * {@code ccl}, resolving local variables from {@code data}. The lexer
+     * state and lookahead tables are recycled instead of being allocated
+     * anew.
+     */
+    public void ReInit(CharSequence ccl, Multimap<String, Object> data) {
+        ReInit(ccl, data, null);
+    }
+
+    /**
+     * Reinitialise this instance so that it can be reused to parse
+     * {@code ccl} into a template. Values are transformed by
+     * {@code valueTransformFunction} and each local variable that has no
+     * value in {@code data}, outside of a function condition, is kept as a
+     * {@link VariableSymbol} instead of being resolved.
+     */
+    public void ReInit(CharSequence ccl, Multimap<String, Object> data,
+            Function<String, Object> valueTransformFunction) {
+        input.ReInit(ccl);
+        ReInit(input);
+        this.data = data;
+        this.templateValueTransformFunction = valueTransformFunction;
+        this.functions = 0;
+    }
+
+    /**
+     * Drop all references to the last statement that was parsed so that this
+     * instance doesn't retain its text, tokens, nodes or {@code data} while
+     * it is idle.
+     */
+    public void release() {
+        input.ReInit("");
+        this.data = null;
+        this.templateValueTransformFunction = null;
+        this.token = null;
+        this.jj_nt = null;
+        this.jj_scanpos = null;
+        this.jj_lastpos = null;
+        jjtree.reset();
+    }
+
+    /**
+     * Return the {@link ValueTokenSymbol} for an unquoted {@code value},
+     * resolving it from the {@code data} if it is a local variable.
+     */
+    private ValueTokenSymbol resolveValue(String value) {
+        if(value.charAt(0) == '$') {
+            String var = value.substring(1);
+            Collection<Object> values = data.get(var);
+            if(values.isEmpty() && templateValueTransformFunction != null
+                    && functions == 0) {
+                return new VariableSymbol(var);
+            }
+            try {
+                value = Iterables.getOnlyElement(values).toString();
+            }
+            catch (IllegalArgumentException e) {
+                String err = "Unable to resolve variable {} because multiple values exist locally: {}";
+                throw new SyntaxException(AnyStrings.format(err, value, values));
+            }
+            catch (NoSuchElementException e) {
+                String err = "Unable to resolve variable {} because no values exist locally";
+                throw new SyntaxException(AnyStrings.format(err, value));
+            }
+        }
+        else if(value.length() > 2 && value.charAt(0) == '\\'
+                && value.charAt(1) == '$') {
+            value = value.substring(1);
+        }
+        else {
+            value = value.replace("\\@", "@");
+        }
+        return new ValueSymbol(transformValue(value));
+    }
+
+    /**
+     * Read all of the UTF-8 encoded characters from {@code stream}.
+     */
+    private static String read(java.io.InputStream stream) {
+        try {
+            return CharStreams.toString(
+                    new InputStreamReader(stream, StandardCharsets.UTF_8));
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public Operator transformOperator(String token) {
         return operatorTransformFunction.apply(token);
     }
 
     public Object transformValue(String token) {
-        return valueTransformFunction.apply(token);
+        return templateValueTransformFunction != null
+                ? templateValueTransformFunction.apply(token)
+                : valueTransformFunction.apply(token);
+    }
+
+    public long transformTimestamp(String timestamp) {
+        return NaturalLanguage.parseMicros(timestamp);
     }
 
   final public ASTStart StartCommandLine() throws ParseException {/*@bgen(jjtree) Start */
@@ -658,28 +796,7 @@ value += (value.equals("")) ? word.image : " " + word.image;
             break label_3;
           }
         }
-if(value.charAt(0) == '$') {
-        String var = value.substring(1);
-        try {
-            value = Iterables.getOnlyElement(data.get(var)).toString();
-        }
-        catch (IllegalArgumentException e) {
-            String err = "Unable to resolve variable {} because multiple values exist locally: {}";
-            {if (true) throw new SyntaxException(AnyStrings.format(err, value, data.get(var)));}
-        }
-        catch (NoSuchElementException e) {
-            String err = "Unable to resolve variable {} because no values exist locally";
-            {if (true) throw new SyntaxException(AnyStrings.format(err, value));}
-        }
-    }
-    else if(value.length() > 2 && value.charAt(0) == '\\'
-            && value.charAt(1) == '$') {
-        value = value.substring(1);
-    }
-    else {
-        value = value.replace("\\@", "@");
-    }
-    {if ("" != null) return new ValueSymbol(transformValue(value));}
+{if ("" != null) return resolveValue(value);}
         break;
         }
       case QUOTED_STRING:{
@@ -896,28 +1013,7 @@ value += (value.equals("")) ? word.image : " " + word.image;
             break label_6;
           }
         }
-if(value.charAt(0) == '$') {
-        String var = value.substring(1);
-        try {
-            value = Iterables.getOnlyElement(data.get(var)).toString();
-        }
-        catch (IllegalArgumentException e) {
-            String err = "Unable to resolve variable {} because multiple values exist locally: {}";
-            {if (true) throw new SyntaxException(AnyStrings.format(err, value, data.get(var)));}
-        }
-        catch (NoSuchElementException e) {
-            String err = "Unable to resolve variable {} because no values exist locally";
-            {if (true) throw new SyntaxException(AnyStrings.format(err, value));}
-        }
-    }
-    else if(value.length() > 2 && value.charAt(0) == '\\'
-            && value.charAt(1) == '$') {
-        value = value.substring(1);
-    }
-    else {
-        value = value.replace("\\@", "@");
-    }
-    {if ("" != null) return new ValueSymbol(transformValue(value));}
+{if ("" != null) return resolveValue(value);}
         break;
         }
       case QUOTED_STRING:{
@@ -982,28 +1078,7 @@ if(value.charAt(0) == '$') {
           throw new ParseException();
         }
 value = word.image;
-    if(value.charAt(0) == '$') {
-        String var = value.substring(1);
-        try {
-            value = Iterables.getOnlyElement(data.get(var)).toString();
-        }
-        catch (IllegalArgumentException e) {
-            String err = "Unable to resolve variable {} because multiple values exist locally: {}";
-            {if (true) throw new SyntaxException(AnyStrings.format(err, value, data.get(var)));}
-        }
-        catch (NoSuchElementException e) {
-            String err = "Unable to resolve variable {} because no values exist locally";
-            {if (true) throw new SyntaxException(AnyStrings.format(err, value));}
-        }
-    }
-    else if(value.length() > 2 && value.charAt(0) == '\\'
-            && value.charAt(1) == '$') {
-        value = value.substring(1);
-    }
-    else {
-        value = value.replace("\\@", "@");
-    }
-    {if ("" != null) return new ValueSymbol(transformValue(value));}
+    {if ("" != null) return resolveValue(value);}
         break;
         }
       case QUOTED_STRING:{
@@ -1143,7 +1218,7 @@ timestamp += (timestamp.equals("")) ? word.image : " " + word.image;
         break label_7;
       }
     }
-{if ("" != null) return new TimestampSymbol(NaturalLanguage.parseMicros(timestamp));}
+{if ("" != null) return new TimestampSymbol(transformTimestamp(timestamp));}
     throw new Error("Missing return statement in function");
 }
 
@@ -1661,7 +1736,9 @@ records.add(word.image);
           throw new ParseException();
         }
         jj_consume_token(COMMA);
+++functions;
         ccl = generateSubAST();
+--functions;
         switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
         case CLOSE_PARENTHESES:{
           jj_consume_token(CLOSE_PARENTHESES);
@@ -1813,11 +1890,11 @@ ConditionTree tree = (ConditionTree) ccl.jjtAccept(visitor, null);
     finally { jj_save(14, xla); }
   }
 
-  private boolean jj_3_12()
+  private boolean jj_3R_16()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_scan_token(36)) {
+    if (jj_scan_token(9)) {
     jj_scanpos = xsp;
     if (jj_scan_token(41)) {
     jj_scanpos = xsp;
@@ -1825,10 +1902,7 @@ ConditionTree tree = (ConditionTree) ccl.jjtAccept(visitor, null);
     jj_scanpos = xsp;
     if (jj_scan_token(39)) {
     jj_scanpos = xsp;
-    if (jj_scan_token(43)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(45)) return true;
-    }
+    if (jj_scan_token(43)) return true;
     }
     }
     }
@@ -1836,221 +1910,213 @@ ConditionTree tree = (ConditionTree) ccl.jjtAccept(visitor, null);
     return false;
   }
 
-  private boolean jj_3R_31()
+  private boolean jj_3_13()
  {
-    if (jj_3R_35()) return true;
+    if (jj_3R_18()) return true;
     return false;
   }
 
-  private boolean jj_3R_50()
+  private boolean jj_3R_44()
  {
-    if (jj_scan_token(NUMERIC)) return true;
+    if (jj_3R_58()) return true;
+    if (jj_3R_59()) return true;
+    if (jj_3R_59()) return true;
     return false;
   }
 
-  private boolean jj_3R_27()
+  private boolean jj_3R_65()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_31()) {
+    if (jj_scan_token(41)) {
     jj_scanpos = xsp;
-    if (jj_3R_32()) return true;
+    if (jj_scan_token(42)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(39)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(43)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(45)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(44)) return true;
+    }
+    }
+    }
+    }
     }
     return false;
   }
 
-  private boolean jj_3R_64()
- {
-    if (jj_scan_token(QUOTED_STRING)) return true;
-    return false;
-  }
-
-  private boolean jj_3R_28()
+  private boolean jj_3R_43()
  {
-    if (jj_scan_token(TIMESTAMP)) return true;
+    if (jj_3R_55()) return true;
+    if (jj_3R_56()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_57()) jj_scanpos = xsp;
     return false;
   }
 
-  private boolean jj_3R_17()
+  private boolean jj_3R_42()
  {
+    if (jj_3R_52()) return true;
+    if (jj_3R_53()) return true;
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_scan_token(33)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(34)) return true;
-    }
+    if (jj_3R_54()) jj_scanpos = xsp;
     return false;
   }
 
-  private boolean jj_3R_23()
+  private boolean jj_3R_41()
  {
-    if (jj_scan_token(OPEN_BRACKET)) return true;
+    if (jj_3R_49()) return true;
+    if (jj_3R_50()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_51()) jj_scanpos = xsp;
     return false;
   }
 
-  private boolean jj_3R_58()
+  private boolean jj_3_11()
  {
-    if (jj_scan_token(BINARY_OPERATOR)) return true;
+    if (jj_3R_19()) return true;
     return false;
   }
 
-  private boolean jj_3R_22()
+  private boolean jj_3R_59()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_scan_token(41)) {
+    if (jj_3_11()) {
     jj_scanpos = xsp;
-    if (jj_scan_token(39)) return true;
+    if (jj_3R_65()) {
+    jj_scanpos = xsp;
+    if (jj_3R_66()) return true;
+    }
     }
     return false;
   }
 
-  private boolean jj_3_5()
+  private boolean jj_3R_38()
  {
+    if (jj_3R_40()) return true;
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_scan_token(41)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(42)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(39)) {
+    if (jj_3R_41()) {
     jj_scanpos = xsp;
-    if (jj_scan_token(43)) {
+    if (jj_3R_42()) {
     jj_scanpos = xsp;
-    if (jj_scan_token(45)) {
+    if (jj_3R_43()) {
     jj_scanpos = xsp;
-    if (jj_scan_token(44)) return true;
-    }
-    }
+    if (jj_3R_44()) return true;
     }
     }
     }
     return false;
   }
 
-  private boolean jj_3R_63()
+  private boolean jj_3R_15()
  {
-    Token xsp;
-    if (jj_3_5()) return true;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3_5()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_3R_27()) return true;
     return false;
   }
 
-  private boolean jj_3R_55()
+  private boolean jj_3_3()
  {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_scan_token(12)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(14)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(15)) return true;
-    }
-    }
+    if (jj_3R_16()) return true;
+    if (jj_3R_17()) return true;
+    if (jj_3R_39()) return true;
     return false;
   }
 
-  private boolean jj_3R_21()
+  private boolean jj_3R_30()
  {
-    if (jj_scan_token(COMMA)) return true;
-    if (jj_3R_28()) return true;
+    if (jj_scan_token(CONJUNCTION)) return true;
     return false;
   }
 
-  private boolean jj_3_15()
+  private boolean jj_3R_25()
+ {
+    if (jj_scan_token(DISJUNCTION)) return true;
+    return false;
+  }
+
+  private boolean jj_3R_37()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_scan_token(41)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(42)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(43)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(44)) return true;
-    }
-    }
-    }
-    if (jj_scan_token(COMMA)) return true;
-    xsp = jj_scanpos;
-    if (jj_3R_22()) {
+    if (jj_3_3()) {
     jj_scanpos = xsp;
-    if (jj_3R_23()) return true;
+    if (jj_3R_38()) return true;
     }
     return false;
   }
 
-  private boolean jj_3R_20()
+  private boolean jj_3R_46()
  {
-    if (jj_scan_token(CLOSE_PARENTHESES)) return true;
+    if (jj_scan_token(QUOTED_STRING)) return true;
     return false;
   }
 
-  private boolean jj_3_6()
+  private boolean jj_3R_14()
  {
-    if (jj_3R_19()) return true;
+    if (jj_3R_26()) return true;
     return false;
   }
 
-  private boolean jj_3R_54()
+  private boolean jj_3R_13()
  {
-    if (jj_3R_28()) return true;
+    if (jj_3R_27()) return true;
     return false;
   }
 
-  private boolean jj_3R_56()
+  private boolean jj_3R_29()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3_6()) {
-    jj_scanpos = xsp;
-    if (jj_3R_63()) {
+    if (jj_3R_33()) {
     jj_scanpos = xsp;
-    if (jj_3R_64()) return true;
-    }
+    if (jj_3R_34()) return true;
     }
     return false;
   }
 
-  private boolean jj_3R_51()
+  private boolean jj_3R_33()
  {
-    if (jj_3R_28()) return true;
+    if (jj_scan_token(OPEN_PARENTHESES)) return true;
+    if (jj_3R_11()) return true;
     return false;
   }
 
-  private boolean jj_3R_57()
+  private boolean jj_3R_24()
  {
-    if (jj_3R_28()) return true;
+    if (jj_3R_29()) return true;
+    Token xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_30()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  private boolean jj_3R_52()
+  private boolean jj_3R_12()
  {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_scan_token(23)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(24)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(25)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(26)) return true;
-    }
-    }
-    }
+    if (jj_3R_26()) return true;
     return false;
   }
 
-  private boolean jj_3R_34()
+  private boolean jj_3R_11()
  {
-    if (jj_3R_37()) return true;
+    if (jj_3R_24()) return true;
+    Token xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3R_25()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  private boolean jj_3_14()
+  private boolean jj_3_9()
  {
     Token xsp;
     xsp = jj_scanpos;
@@ -2058,86 +2124,76 @@ ConditionTree tree = (ConditionTree) ccl.jjtAccept(visitor, null);
     jj_scanpos = xsp;
     if (jj_scan_token(42)) {
     jj_scanpos = xsp;
+    if (jj_scan_token(39)) {
+    jj_scanpos = xsp;
     if (jj_scan_token(43)) {
     jj_scanpos = xsp;
-    if (jj_scan_token(44)) return true;
+    if (jj_scan_token(45)) return true;
     }
     }
     }
-    xsp = jj_scanpos;
-    if (jj_3R_20()) {
-    jj_scanpos = xsp;
-    if (jj_3R_21()) return true;
     }
     return false;
   }
 
-  private boolean jj_3R_49()
- {
-    if (jj_scan_token(LINKS_TO)) return true;
-    return false;
-  }
-
-  private boolean jj_3R_19()
+  private boolean jj_3R_45()
  {
-    if (jj_scan_token(ALPHANUMERIC)) return true;
-    if (jj_scan_token(OPEN_PARENTHESES)) return true;
+    Token xsp;
+    if (jj_3_9()) return true;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3_9()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  private boolean jj_3R_48()
+  private boolean jj_3_10()
  {
-    if (jj_scan_token(PERIOD_SEPARATED_STRING)) return true;
+    if (jj_3R_19()) return true;
     return false;
   }
 
-  private boolean jj_3R_47()
+  private boolean jj_3R_39()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_scan_token(9)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(41)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(42)) {
+    if (jj_3_10()) {
     jj_scanpos = xsp;
-    if (jj_scan_token(39)) {
+    if (jj_3R_45()) {
     jj_scanpos = xsp;
-    if (jj_scan_token(43)) return true;
-    }
-    }
+    if (jj_3R_46()) return true;
     }
     }
     return false;
   }
 
-  private boolean jj_3R_66()
+  private boolean jj_3_2()
  {
-    if (jj_scan_token(QUOTED_STRING)) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_scan_token(8)) jj_scanpos = xsp;
+    if (jj_3R_11()) return true;
+    xsp = jj_scanpos;
+    if (jj_3R_14()) jj_scanpos = xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_15()) jj_scanpos = xsp;
+    if (jj_scan_token(0)) return true;
     return false;
   }
 
-  private boolean jj_3_4()
+  private boolean jj_3R_62()
  {
-    if (jj_3R_18()) return true;
+    if (jj_scan_token(QUOTED_STRING)) return true;
     return false;
   }
 
-  private boolean jj_3R_40()
+  private boolean jj_3R_26()
  {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3_4()) {
-    jj_scanpos = xsp;
-    if (jj_3R_47()) {
-    jj_scanpos = xsp;
-    if (jj_3R_48()) return true;
-    }
-    }
+    if (jj_scan_token(ORDER)) return true;
     return false;
   }
 
-  private boolean jj_3R_18()
+  private boolean jj_3_7()
  {
     Token xsp;
     xsp = jj_scanpos;
@@ -2149,29 +2205,16 @@ ConditionTree tree = (ConditionTree) ccl.jjtAccept(visitor, null);
     jj_scanpos = xsp;
     if (jj_scan_token(43)) {
     jj_scanpos = xsp;
-    if (jj_scan_token(44)) return true;
-    }
-    }
-    }
-    }
-    if (jj_scan_token(PIPE)) return true;
-    if (jj_scan_token(ALPHANUMERIC)) return true;
-    return false;
-  }
-
-  private boolean jj_3R_16()
- {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_scan_token(9)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(41)) {
+    if (jj_scan_token(45)) {
     jj_scanpos = xsp;
-    if (jj_scan_token(42)) {
+    if (jj_scan_token(44)) {
     jj_scanpos = xsp;
-    if (jj_scan_token(39)) {
+    if (jj_scan_token(51)) {
     jj_scanpos = xsp;
-    if (jj_scan_token(43)) return true;
+    if (jj_scan_token(52)) return true;
+    }
+    }
+    }
     }
     }
     }
@@ -2179,21 +2222,21 @@ ConditionTree tree = (ConditionTree) ccl.jjtAccept(visitor, null);
     return false;
   }
 
-  private boolean jj_3_13()
- {
-    if (jj_3R_18()) return true;
-    return false;
-  }
-
-  private boolean jj_3R_44()
+  private boolean jj_3_1()
  {
-    if (jj_3R_58()) return true;
-    if (jj_3R_59()) return true;
-    if (jj_3R_59()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_scan_token(8)) jj_scanpos = xsp;
+    if (jj_3R_11()) return true;
+    xsp = jj_scanpos;
+    if (jj_3R_12()) jj_scanpos = xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_13()) jj_scanpos = xsp;
+    if (jj_scan_token(50)) return true;
     return false;
   }
 
-  private boolean jj_3R_65()
+  private boolean jj_3_8()
  {
     Token xsp;
     xsp = jj_scanpos;
@@ -2207,7 +2250,13 @@ ConditionTree tree = (ConditionTree) ccl.jjtAccept(visitor, null);
     jj_scanpos = xsp;
     if (jj_scan_token(45)) {
     jj_scanpos = xsp;
-    if (jj_scan_token(44)) return true;
+    if (jj_scan_token(44)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(51)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(52)) return true;
+    }
+    }
     }
     }
     }
@@ -2216,176 +2265,209 @@ ConditionTree tree = (ConditionTree) ccl.jjtAccept(visitor, null);
     return false;
   }
 
-  private boolean jj_3R_43()
+  private boolean jj_3R_61()
  {
-    if (jj_3R_55()) return true;
-    if (jj_3R_56()) return true;
     Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_57()) jj_scanpos = xsp;
+    if (jj_3_8()) return true;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3_8()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  private boolean jj_3R_42()
+  private boolean jj_3R_36()
  {
-    if (jj_3R_52()) return true;
-    if (jj_3R_53()) return true;
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_54()) jj_scanpos = xsp;
+    if (jj_scan_token(SIZE)) return true;
     return false;
   }
 
-  private boolean jj_3R_41()
+  private boolean jj_3R_60()
  {
-    if (jj_3R_49()) return true;
-    if (jj_3R_50()) return true;
+    if (jj_scan_token(OPEN_PARENTHESES)) return true;
     Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_51()) jj_scanpos = xsp;
-    return false;
-  }
-
-  private boolean jj_3_11()
- {
-    if (jj_3R_19()) return true;
+    if (jj_3_7()) return true;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3_7()) { jj_scanpos = xsp; break; }
+    }
     return false;
   }
 
-  private boolean jj_3R_59()
+  private boolean jj_3R_53()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3_11()) {
+    if (jj_3R_60()) {
     jj_scanpos = xsp;
-    if (jj_3R_65()) {
+    if (jj_3R_61()) {
     jj_scanpos = xsp;
-    if (jj_3R_66()) return true;
+    if (jj_3R_62()) return true;
     }
     }
     return false;
   }
 
-  private boolean jj_3R_38()
+  private boolean jj_3R_35()
+ {
+    if (jj_scan_token(PAGE)) return true;
+    return false;
+  }
+
+  private boolean jj_3R_32()
+ {
+    if (jj_3R_36()) return true;
+    return false;
+  }
+
+  private boolean jj_3_12()
  {
-    if (jj_3R_40()) return true;
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_41()) {
+    if (jj_scan_token(36)) {
     jj_scanpos = xsp;
-    if (jj_3R_42()) {
+    if (jj_scan_token(41)) {
     jj_scanpos = xsp;
-    if (jj_3R_43()) {
+    if (jj_scan_token(42)) {
     jj_scanpos = xsp;
-    if (jj_3R_44()) return true;
+    if (jj_scan_token(39)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(43)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(45)) return true;
+    }
+    }
     }
     }
     }
     return false;
   }
 
-  private boolean jj_3R_15()
+  private boolean jj_3R_31()
  {
-    if (jj_3R_27()) return true;
+    if (jj_3R_35()) return true;
     return false;
   }
 
-  private boolean jj_3_3()
+  private boolean jj_3R_50()
  {
-    if (jj_3R_16()) return true;
-    if (jj_3R_17()) return true;
-    if (jj_3R_39()) return true;
+    if (jj_scan_token(NUMERIC)) return true;
     return false;
   }
 
-  private boolean jj_3R_30()
+  private boolean jj_3R_27()
  {
-    if (jj_scan_token(CONJUNCTION)) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_31()) {
+    jj_scanpos = xsp;
+    if (jj_3R_32()) return true;
+    }
     return false;
   }
 
-  private boolean jj_3R_25()
+  private boolean jj_3R_64()
  {
-    if (jj_scan_token(DISJUNCTION)) return true;
+    if (jj_scan_token(QUOTED_STRING)) return true;
     return false;
   }
 
-  private boolean jj_3R_37()
+  private boolean jj_3R_28()
+ {
+    if (jj_scan_token(TIMESTAMP)) return true;
+    return false;
+  }
+
+  private boolean jj_3R_17()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3_3()) {
+    if (jj_scan_token(33)) {
     jj_scanpos = xsp;
-    if (jj_3R_38()) return true;
+    if (jj_scan_token(34)) return true;
     }
     return false;
   }
 
-  private boolean jj_3R_46()
+  private boolean jj_3R_23()
  {
-    if (jj_scan_token(QUOTED_STRING)) return true;
+    if (jj_scan_token(OPEN_BRACKET)) return true;
     return false;
   }
 
-  private boolean jj_3R_14()
+  private boolean jj_3R_58()
  {
-    if (jj_3R_26()) return true;
+    if (jj_scan_token(BINARY_OPERATOR)) return true;
     return false;
   }
 
-  private boolean jj_3R_13()
+  private boolean jj_3R_22()
  {
-    if (jj_3R_27()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_scan_token(41)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(39)) return true;
+    }
     return false;
   }
 
-  private boolean jj_3R_29()
+  private boolean jj_3_5()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_33()) {
+    if (jj_scan_token(41)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(42)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(39)) {
     jj_scanpos = xsp;
-    if (jj_3R_34()) return true;
+    if (jj_scan_token(43)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(45)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(44)) return true;
+    }
+    }
+    }
+    }
     }
     return false;
   }
 
-  private boolean jj_3R_33()
- {
-    if (jj_scan_token(OPEN_PARENTHESES)) return true;
-    if (jj_3R_11()) return true;
-    return false;
-  }
-
-  private boolean jj_3R_24()
+  private boolean jj_3R_63()
  {
-    if (jj_3R_29()) return true;
     Token xsp;
+    if (jj_3_5()) return true;
     while (true) {
       xsp = jj_scanpos;
-      if (jj_3R_30()) { jj_scanpos = xsp; break; }
+      if (jj_3_5()) { jj_scanpos = xsp; break; }
     }
     return false;
   }
 
-  private boolean jj_3R_12()
+  private boolean jj_3R_55()
  {
-    if (jj_3R_26()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_scan_token(12)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(14)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(15)) return true;
+    }
+    }
     return false;
   }
 
-  private boolean jj_3R_11()
+  private boolean jj_3R_21()
  {
-    if (jj_3R_24()) return true;
-    Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3R_25()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_scan_token(COMMA)) return true;
+    if (jj_3R_28()) return true;
     return false;
   }
 
-  private boolean jj_3_9()
+  private boolean jj_3_15()
  {
     Token xsp;
     xsp = jj_scanpos;
@@ -2393,76 +2475,89 @@ ConditionTree tree = (ConditionTree) ccl.jjtAccept(visitor, null);
     jj_scanpos = xsp;
     if (jj_scan_token(42)) {
     jj_scanpos = xsp;
-    if (jj_scan_token(39)) {
-    jj_scanpos = xsp;
     if (jj_scan_token(43)) {
     jj_scanpos = xsp;
-    if (jj_scan_token(45)) return true;
+    if (jj_scan_token(44)) return true;
     }
     }
     }
+    if (jj_scan_token(COMMA)) return true;
+    xsp = jj_scanpos;
+    if (jj_3R_22()) {
+    jj_scanpos = xsp;
+    if (jj_3R_23()) return true;
     }
     return false;
   }
 
-  private boolean jj_3R_45()
+  private boolean jj_3R_20()
  {
-    Token xsp;
-    if (jj_3_9()) return true;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3_9()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_scan_token(CLOSE_PARENTHESES)) return true;
     return false;
   }
 
-  private boolean jj_3_10()
+  private boolean jj_3_6()
  {
     if (jj_3R_19()) return true;
     return false;
   }
 
-  private boolean jj_3R_39()
+  private boolean jj_3R_54()
+ {
+    if (jj_3R_28()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_56()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3_10()) {
+    if (jj_3_6()) {
     jj_scanpos = xsp;
-    if (jj_3R_45()) {
+    if (jj_3R_63()) {
     jj_scanpos = xsp;
-    if (jj_3R_46()) return true;
+    if (jj_3R_64()) return true;
     }
     }
     return false;
   }
 
-  private boolean jj_3_2()
+  private boolean jj_3R_51()
  {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_scan_token(8)) jj_scanpos = xsp;
-    if (jj_3R_11()) return true;
-    xsp = jj_scanpos;
-    if (jj_3R_14()) jj_scanpos = xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_15()) jj_scanpos = xsp;
-    if (jj_scan_token(0)) return true;
+    if (jj_3R_28()) return true;
     return false;
   }
 
-  private boolean jj_3R_62()
+  private boolean jj_3R_57()
  {
-    if (jj_scan_token(QUOTED_STRING)) return true;
+    if (jj_3R_28()) return true;
     return false;
   }
 
-  private boolean jj_3R_26()
+  private boolean jj_3R_52()
  {
-    if (jj_scan_token(ORDER)) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_scan_token(23)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(24)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(25)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(26)) return true;
+    }
+    }
+    }
     return false;
   }
 
-  private boolean jj_3_7()
+  private boolean jj_3R_34()
+ {
+    if (jj_3R_37()) return true;
+    return false;
+  }
+
+  private boolean jj_3_14()
  {
     Token xsp;
     xsp = jj_scanpos;
@@ -2470,63 +2565,52 @@ ConditionTree tree = (ConditionTree) ccl.jjtAccept(visitor, null);
     jj_scanpos = xsp;
     if (jj_scan_token(42)) {
     jj_scanpos = xsp;
-    if (jj_scan_token(39)) {
-    jj_scanpos = xsp;
     if (jj_scan_token(43)) {
     jj_scanpos = xsp;
-    if (jj_scan_token(45)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(44)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(51)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(52)) return true;
-    }
-    }
-    }
+    if (jj_scan_token(44)) return true;
     }
     }
     }
+    xsp = jj_scanpos;
+    if (jj_3R_20()) {
+    jj_scanpos = xsp;
+    if (jj_3R_21()) return true;
     }
     return false;
   }
 
-  private boolean jj_3_1()
+  private boolean jj_3R_49()
  {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_scan_token(8)) jj_scanpos = xsp;
-    if (jj_3R_11()) return true;
-    xsp = jj_scanpos;
-    if (jj_3R_12()) jj_scanpos = xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_13()) jj_scanpos = xsp;
-    if (jj_scan_token(50)) return true;
+    if (jj_scan_token(LINKS_TO)) return true;
     return false;
   }
 
-  private boolean jj_3_8()
+  private boolean jj_3R_19()
+ {
+    if (jj_scan_token(ALPHANUMERIC)) return true;
+    if (jj_scan_token(OPEN_PARENTHESES)) return true;
+    return false;
+  }
+
+  private boolean jj_3R_48()
+ {
+    if (jj_scan_token(PERIOD_SEPARATED_STRING)) return true;
+    return false;
+  }
+
+  private boolean jj_3R_47()
  {
     Token xsp;
     xsp = jj_scanpos;
+    if (jj_scan_token(9)) {
+    jj_scanpos = xsp;
     if (jj_scan_token(41)) {
     jj_scanpos = xsp;
     if (jj_scan_token(42)) {
     jj_scanpos = xsp;
     if (jj_scan_token(39)) {
     jj_scanpos = xsp;
-    if (jj_scan_token(43)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(45)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(44)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(51)) {
-    jj_scanpos = xsp;
-    if (jj_scan_token(52)) return true;
-    }
-    }
-    }
+    if (jj_scan_token(43)) return true;
     }
     }
     }
@@ -2534,64 +2618,56 @@ ConditionTree tree = (ConditionTree) ccl.jjtAccept(visitor, null);
     return false;
   }
 
-  private boolean jj_3R_61()
+  private boolean jj_3R_66()
  {
-    Token xsp;
-    if (jj_3_8()) return true;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3_8()) { jj_scanpos = xsp; break; }
-    }
+    if (jj_scan_token(QUOTED_STRING)) return true;
     return false;
   }
 
-  private boolean jj_3R_36()
+  private boolean jj_3_4()
  {
-    if (jj_scan_token(SIZE)) return true;
+    if (jj_3R_18()) return true;
     return false;
   }
 
-  private boolean jj_3R_60()
+  private boolean jj_3R_40()
  {
-    if (jj_scan_token(OPEN_PARENTHESES)) return true;
     Token xsp;
-    if (jj_3_7()) return true;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3_7()) { jj_scanpos = xsp; break; }
+    xsp = jj_scanpos;
+    if (jj_3_4()) {
+    jj_scanpos = xsp;
+    if (jj_3R_47()) {
+    jj_scanpos = xsp;
+    if (jj_3R_48()) return true;
+    }
     }
     return false;
   }
 
-  private boolean jj_3R_53()
+  private boolean jj_3R_18()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3R_60()) {
+    if (jj_scan_token(41)) {
     jj_scanpos = xsp;
-    if (jj_3R_61()) {
+    if (jj_scan_token(42)) {
     jj_scanpos = xsp;
-    if (jj_3R_62()) return true;
+    if (jj_scan_token(39)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(43)) {
+    jj_scanpos = xsp;
+    if (jj_scan_token(44)) return true;
     }
     }
-    return false;
-  }
-
-  private boolean jj_3R_35()
- {
-    if (jj_scan_token(PAGE)) return true;
-    return false;
-  }
-
-  private boolean jj_3R_32()
- {
-    if (jj_3R_36()) return true;
+    }
+    }
+    if (jj_scan_token(PIPE)) return true;
+    if (jj_scan_token(ALPHANUMERIC)) return true;
     return false;
   }
 
   /** Generated Token Manager. */
   public GrammarTokenManager token_source;
-  SimpleCharStream jj_input_stream;
   /** Current token. */
   public Token token;
   /** Next token. */
@@ -2617,41 +2693,9 @@ ConditionTree tree = (ConditionTree) ccl.jjtAccept(visitor, null);
   private boolean jj_rescan = false;
   private int jj_gc = 0;
 
-  /** Constructor with InputStream. */
-  public Grammar(java.io.InputStream stream) {
-	  this(stream, null);
-  }
-  /** Constructor with InputStream and supplied encoding */
-  public Grammar(java.io.InputStream stream, String encoding) {
-	 try { jj_input_stream = new SimpleCharStream(stream, encoding, 1, 1); } catch(java.io.UnsupportedEncodingException e) { throw new RuntimeException(e); }
-	 token_source = new GrammarTokenManager(jj_input_stream);
-	 token = new Token();
-	 jj_ntk = -1;
-	 jj_gen = 0;
-	 for (int i = 0; i < 57; i++) jj_la1[i] = -1;
-	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
-  }
-
-  /** Reinitialise. */
-  public void ReInit(java.io.InputStream stream) {
-	  ReInit(stream, null);
-  }
-  /** Reinitialise. */
-  public void ReInit(java.io.InputStream stream, String encoding) {
-	 try { jj_input_stream.ReInit(stream, encoding, 1, 1); } catch(java.io.UnsupportedEncodingException e) { throw new RuntimeException(e); }
-	 token_source.ReInit(jj_input_stream);
-	 token = new Token();
-	 jj_ntk = -1;
-	 jjtree.reset();
-	 jj_gen = 0;
-	 for (int i = 0; i < 57; i++) jj_la1[i] = -1;
-	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
-  }
-
-  /** Constructor. */
-  public Grammar(java.io.Reader stream) {
-	 jj_input_stream = new SimpleCharStream(stream, 1, 1);
-	 token_source = new GrammarTokenManager(jj_input_stream);
+  /** Constructor with user supplied CharStream. */
+  public Grammar(CharStream stream) {
+	 token_source = new GrammarTokenManager(stream);
 	 token = new Token();
 	 jj_ntk = -1;
 	 jj_gen = 0;
@@ -2660,17 +2704,8 @@ ConditionTree tree = (ConditionTree) ccl.jjtAccept(visitor, null);
   }
 
   /** Reinitialise. */
-  public void ReInit(java.io.Reader stream) {
-	if (jj_input_stream == null) {
-	   jj_input_stream = new SimpleCharStream(stream, 1, 1);
-	} else {
-	   jj_input_stream.ReInit(stream, 1, 1);
-	}
-	if (token_source == null) {
- token_source = new GrammarTokenManager(jj_input_stream);
-	}
-
-	 token_source.ReInit(jj_input_stream);
+  public void ReInit(CharStream stream) {
+	 token_source.ReInit(stream);
 	 token = new Token();
 	 jj_ntk = -1;
 	 jjtree.reset();
@@ -28,6 +28,10 @@ import com.cinchapi.common.base.AnyStrings;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.io.CharStreams;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.function.Function;
@@ -2057,23 +2061,21 @@ private void jjCheckNAddStates(int start, int end)
 }
 
     /** Constructor. */
-    public GrammarTokenManager(SimpleCharStream stream){
+    public GrammarTokenManager(CharStream stream){
 
-      if (SimpleCharStream.staticFlag)
-            throw new Error("ERROR: Cannot use a static CharStream class with a non-static lexical analyzer.");
 
     input_stream = stream;
   }
 
   /** Constructor. */
-  public GrammarTokenManager (SimpleCharStream stream, int lexState){
+  public GrammarTokenManager (CharStream stream, int lexState){
     ReInit(stream);
     SwitchTo(lexState);
   }
 
   /** Reinitialise parser. */
   
-  public void ReInit(SimpleCharStream stream)
+  public void ReInit(CharStream stream)
   {
 
 
@@ -2094,7 +2096,7 @@ private void jjCheckNAddStates(int start, int end)
   }
 
   /** Reinitialise parser. */
-  public void ReInit(SimpleCharStream stream, int lexState)
+  public void ReInit(CharStream stream, int lexState)
   
   {
     ReInit(stream);
@@ -2134,7 +2136,7 @@ static final long[] jjtoSpecial = {
 static final long[] jjtoMore = {
    0x0L, 
 };
-    protected SimpleCharStream  input_stream;
+    protected CharStream  input_stream;
 
     private final int[] jjrounds = new int[260];
     private final int[] jjstateSet = new int[2 * 260];
@@ -15,6 +15,8 @@
  */
 package com.cinchapi.ccl.grammar;
 
+import java.util.function.Function;
+
 import com.cinchapi.ccl.type.Operator;
 
 /**
@@ -53,6 +55,24 @@ public class OperatorSymbol implements PostfixNotationSymbol {
         return operator.hashCode();
     }
 
+    /**
+     * Return an {@link OperatorSymbol} for the canonical form of this
+     * {@link Symbol Symbol's} operator, which is the {@link Operator} that the
+     * {@code parser} returns for the operator's {@link Operator#symbol()
+     * symbol}. So, an operator that was created from an alias (e.g.
+     * {@code eq} or {@code ==}) is replaced with the one for the primary
+     * spelling (e.g. {@code =}).
+     * 
+     * @param parser the {@link Function} that parses operators
+     * @return the canonical {@link OperatorSymbol}, which is this one if the
+     *         operator is already canonical
+     */
+    public OperatorSymbol canonical(Function<String, Operator> parser) {
+        Operator canonical = parser.apply(operator.symbol());
+        return canonical == null || canonical.equals(operator) ? this
+                : new OperatorSymbol(canonical);
+    }
+
     /**
      * Return the operator represented by this {@link Symbol}.
      * 
@@ -97,6 +97,16 @@ public class TimestampSymbol implements Symbol {
         return timestamp;
     }
 
+    /**
+     * Return the {@link TimeUnit} in which the {@link #timestamp()} is
+     * expressed.
+     * 
+     * @return the precision
+     */
+    public TimeUnit precision() {
+        return precision;
+    }
+
     @Override
     public String toString() {
         return AnyStrings.format("at {}", timestamp);
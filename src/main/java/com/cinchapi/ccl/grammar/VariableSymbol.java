@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl.grammar;
+
+/**
+ * A {@link ValueTokenSymbol} that represents a local variable (e.g.
+ * {@code $ssn}) that hasn't been resolved yet.
+ * <p>
+ * The {@link #value()} is the name of the variable, without the leading
+ * {@code $}. The variable is resolved against local data when the tree that
+ * contains it is evaluated or bound.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+public class VariableSymbol extends ValueTokenSymbol<String> {
+
+    /**
+     * Construct a new instance.
+     *
+     * @param variable the name of the variable, without the leading {@code $}
+     */
+    public VariableSymbol(String variable) {
+        super(variable);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof VariableSymbol && super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "$" + value;
+    }
+
+}
@@ -15,27 +15,125 @@
  */
 package com.cinchapi.ccl.syntax;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.Objects;
 
 /**
  * Provides default implementations for some base methods of an
  * {@link AbstractSyntaxTree}.
+ * <p>
+ * {@link #equals(Object)} and {@link #hashCode()} walk the tree with an
+ * explicit stack so that they can handle trees of any depth. The operands of a
+ * {@link ConjunctionTree} are compared using the
+ * {@link ConjunctionTree#operands() flattened view}, because conjunctions are
+ * associative.
+ * </p>
  *
  * @author Jeff Nelson
  */
 abstract class BaseAbstractSyntaxTree implements AbstractSyntaxTree {
 
+    /**
+     * Return the subtrees of the {@code tree} that determine its equality.
+     *
+     * @param tree
+     * @return the components of the {@code tree}
+     */
+    private static Collection<? extends AbstractSyntaxTree> components(
+            AbstractSyntaxTree tree) {
+        return tree instanceof ConjunctionTree
+                ? ((ConjunctionTree) tree).operands()
+                : tree.children();
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(root(), children());
+        // Each frame holds a node, the components that haven't been hashed
+        // and the running hash of the components that have, which is
+        // combined the same way as Objects#hash(root(), components)
+        Deque<Object[]> stack = new ArrayDeque<>();
+        stack.push(new Object[] { this, components(this).iterator(), 1 });
+        for (;;) {
+            Object[] frame = stack.peek();
+            @SuppressWarnings("unchecked")
+            Iterator<AbstractSyntaxTree> it = (Iterator<AbstractSyntaxTree>) frame[1];
+            if(it.hasNext()) {
+                AbstractSyntaxTree child = it.next();
+                if(child instanceof BaseAbstractSyntaxTree) {
+                    stack.push(new Object[] { child,
+                            components(child).iterator(), 1 });
+                }
+                else {
+                    frame[2] = 31 * (int) frame[2] + Objects.hashCode(child);
+                }
+            }
+            else {
+                stack.pop();
+                int hash = 31 * (31
+                        + Objects.hashCode(((AbstractSyntaxTree) frame[0])
+                                .root()))
+                        + (int) frame[2];
+                if(stack.isEmpty()) {
+                    return hash;
+                }
+                else {
+                    Object[] parent = stack.peek();
+                    parent[2] = 31 * (int) parent[2] + hash;
+                }
+            }
+        }
     }
 
     @Override
     public boolean equals(Object obj) {
         if(obj instanceof AbstractSyntaxTree) {
-            AbstractSyntaxTree other = (AbstractSyntaxTree) obj;
-            return Objects.equals(root(), other.root())
-                    && Objects.equals(children(), other.children());
+            Deque<AbstractSyntaxTree> pending = new ArrayDeque<>();
+            pending.push(this);
+            pending.push((AbstractSyntaxTree) obj);
+            while (!pending.isEmpty()) {
+                AbstractSyntaxTree b = pending.pop();
+                AbstractSyntaxTree a = pending.pop();
+                if(a == b) {
+                    continue;
+                }
+                else if(!(a instanceof BaseAbstractSyntaxTree)) {
+                    if(!a.equals(b)) {
+                        return false;
+                    }
+                }
+                else if(a instanceof ConjunctionTree != b instanceof ConjunctionTree
+                        || !Objects.equals(a.root(), b.root())) {
+                    return false;
+                }
+                else {
+                    Collection<? extends AbstractSyntaxTree> ac = components(
+                            a);
+                    Collection<? extends AbstractSyntaxTree> bc = components(
+                            b);
+                    if(ac.size() != bc.size()) {
+                        return false;
+                    }
+                    Iterator<? extends AbstractSyntaxTree> ait = ac.iterator();
+                    Iterator<? extends AbstractSyntaxTree> bit = bc.iterator();
+                    while (ait.hasNext()) {
+                        AbstractSyntaxTree achild = ait.next();
+                        AbstractSyntaxTree bchild = bit.next();
+                        if(achild == null || bchild == null) {
+                            if(achild != bchild) {
+                                return false;
+                            }
+                        }
+                        else {
+                            pending.push(achild);
+                            pending.push(bchild);
+                        }
+                    }
+                }
+            }
+            return true;
         }
         else {
             return false;
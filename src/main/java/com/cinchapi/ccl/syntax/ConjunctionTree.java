@@ -19,10 +19,20 @@ import com.cinchapi.ccl.grammar.ConjunctionSymbol;
 import com.cinchapi.ccl.grammar.Symbol;
 import com.google.common.collect.Lists;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
 
 /**
  * An abstraction for a conjunction node in an {@link AbstractSyntaxTree}
+ * <p>
+ * Conjunctions are associative, so two {@link ConjunctionTree
+ * ConjunctionTrees} are equal if they have the same conjunction and the same
+ * {@link #operands()}, regardless of how those operands are nested.
+ * </p>
  */
 public class ConjunctionTree extends BaseAbstractSyntaxTree implements
         ConditionTree {
@@ -31,6 +41,11 @@ public class ConjunctionTree extends BaseAbstractSyntaxTree implements
     private final ConditionTree left;
     private final ConditionTree right;
 
+    /**
+     * The cached {@link #operands()}.
+     */
+    private volatile List<ConditionTree> operands = null;
+
     /**
      * Construct a new instance.
      *
@@ -68,6 +83,51 @@ public class ConjunctionTree extends BaseAbstractSyntaxTree implements
         return right;
     }
 
+    /**
+     * Return the operands of this {@link ConjunctionTree} from "left" to
+     * "right", including the operands of any nested {@link ConjunctionTree}
+     * with the same {@link #root() conjunction} instead of the nested tree
+     * itself.
+     * <p>
+     * For example, the operands of {@code (a and b) and (c or d)} are
+     * {@code a}, {@code b} and {@code c or d}. Long chains of the same
+     * conjunction are parsed into deep trees, so this flattened view is
+     * computed without recursion and should be preferred over descending
+     * through the {@link #left()} and {@link #right()} children.
+     * </p>
+     *
+     * @return the flattened operands
+     */
+    public List<ConditionTree> operands() {
+        List<ConditionTree> operands = this.operands;
+        if(operands == null) {
+            operands = new ArrayList<>();
+            Deque<ConditionTree> stack = new ArrayDeque<>();
+            stack.push(right);
+            stack.push(left);
+            while (!stack.isEmpty()) {
+                ConditionTree tree = stack.pop();
+                if(tree instanceof ConjunctionTree
+                        && tree.root() == conjunction) {
+                    ConjunctionTree nested = (ConjunctionTree) tree;
+                    if(nested.operands != null) {
+                        operands.addAll(nested.operands);
+                    }
+                    else {
+                        stack.push(nested.right);
+                        stack.push(nested.left);
+                    }
+                }
+                else {
+                    operands.add(tree);
+                }
+            }
+            operands = Collections.unmodifiableList(operands);
+            this.operands = operands;
+        }
+        return operands;
+    }
+
     @Override
     public Symbol root() {
         return conjunction;
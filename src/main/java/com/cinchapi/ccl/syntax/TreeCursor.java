@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl.syntax;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.google.common.collect.AbstractIterator;
+
+/**
+ * A depth-first cursor over the nodes of an {@link AbstractSyntaxTree} that
+ * keeps the path from the root to the current node in an explicit stack
+ * instead of on the call stack.
+ * <p>
+ * Each call to {@link #advance()} moves the cursor to the next event of the
+ * traversal. A node is visited twice: once when the cursor
+ * {@link #entering() enters} it, before any of its children, and once when
+ * the cursor exits it, after all of its children. So, the entering events are
+ * a pre-order traversal and the exiting events are a post-order traversal.
+ * The depth of the tree only bounds the size of the cursor's heap-allocated
+ * stack, so trees that are too deep to {@link AbstractSyntaxTree#accept(Visitor, Object...)
+ * visit} recursively can be processed safely.
+ * </p>
+ *
+ * <pre>
+ * TreeCursor cursor = TreeCursor.of(tree);
+ * while (cursor.advance()) {
+ *     if(cursor.entering()) {
+ *         // pre-order processing of cursor.tree()
+ *     }
+ *     else {
+ *         // post-order processing of cursor.tree()
+ *     }
+ * }
+ * </pre>
+ *
+ * @author Jeff Nelson
+ */
+@NotThreadSafe
+public final class TreeCursor {
+
+    /**
+     * Return a {@link TreeCursor} that traverses the {@code tree}.
+     *
+     * @param tree
+     * @return the {@link TreeCursor}
+     */
+    public static TreeCursor of(AbstractSyntaxTree tree) {
+        return new TreeCursor(tree);
+    }
+
+    /**
+     * Return an {@link Iterable} over the nodes of the {@code tree} in
+     * pre-order (e.g. each node comes before its children).
+     *
+     * @param tree
+     * @return the nodes in pre-order
+     */
+    public static Iterable<AbstractSyntaxTree> preOrder(
+            AbstractSyntaxTree tree) {
+        return () -> iterator(tree, true);
+    }
+
+    /**
+     * Return an {@link Iterable} over the nodes of the {@code tree} in
+     * post-order (e.g. each node comes after its children).
+     *
+     * @param tree
+     * @return the nodes in post-order
+     */
+    public static Iterable<AbstractSyntaxTree> postOrder(
+            AbstractSyntaxTree tree) {
+        return () -> iterator(tree, false);
+    }
+
+    /**
+     * Return an {@link Iterator} over the nodes of the {@code tree} that are
+     * {@link #entering() entered} or exited.
+     *
+     * @param tree
+     * @param entering
+     * @return the {@link Iterator}
+     */
+    private static Iterator<AbstractSyntaxTree> iterator(
+            AbstractSyntaxTree tree, boolean entering) {
+        TreeCursor cursor = new TreeCursor(tree);
+        return new AbstractIterator<AbstractSyntaxTree>() {
+
+            @Override
+            protected AbstractSyntaxTree computeNext() {
+                while (cursor.advance()) {
+                    if(cursor.entering() == entering) {
+                        return cursor.tree();
+                    }
+                }
+                return endOfData();
+            }
+
+        };
+    }
+
+    /**
+     * The tree that is traversed.
+     */
+    private final AbstractSyntaxTree root;
+
+    /**
+     * The path from the {@link #root} to the current node, with the current
+     * node on top.
+     */
+    private final Deque<Frame> stack = new ArrayDeque<>();
+
+    /**
+     * A flag that indicates whether the current event is the entrance into
+     * the current node.
+     */
+    private boolean entering = false;
+
+    /**
+     * A flag that indicates whether the traversal has started.
+     */
+    private boolean started = false;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param root
+     */
+    private TreeCursor(AbstractSyntaxTree root) {
+        this.root = root;
+    }
+
+    /**
+     * Move to the next event of the traversal.
+     *
+     * @return {@code true} if there was another event, or {@code false} if
+     *         the traversal is complete
+     */
+    public boolean advance() {
+        if(!started) {
+            started = true;
+            stack.push(new Frame(root, null, 0));
+            entering = true;
+            return true;
+        }
+        else if(stack.isEmpty()) {
+            return false;
+        }
+        else {
+            if(!entering) {
+                stack.pop();
+                if(stack.isEmpty()) {
+                    return false;
+                }
+            }
+            Frame top = stack.peek();
+            AbstractSyntaxTree child = top.next();
+            if(child != null) {
+                stack.push(new Frame(child, top.tree, top.position++));
+                entering = true;
+            }
+            else {
+                entering = false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Return {@code true} if the cursor is entering the {@link #tree()}, in
+     * which case none of its children have been traversed, or {@code false}
+     * if it is exiting the {@link #tree()}, in which case all of its children
+     * have been traversed.
+     *
+     * @return {@code true} if the current event is an entrance
+     */
+    public boolean entering() {
+        return entering;
+    }
+
+    /**
+     * Return the node at the current position of the cursor.
+     *
+     * @return the current node
+     */
+    public AbstractSyntaxTree tree() {
+        return current().tree;
+    }
+
+    /**
+     * Return the parent of the {@link #tree()}, or {@code null} if it is the
+     * root.
+     *
+     * @return the parent
+     */
+    @Nullable
+    public AbstractSyntaxTree parent() {
+        return current().parent;
+    }
+
+    /**
+     * Return the position of the {@link #tree()} among the
+     * {@link AbstractSyntaxTree#children() children} of its {@link #parent()}.
+     *
+     * @return the index of the current node
+     */
+    public int index() {
+        return current().index;
+    }
+
+    /**
+     * Return the number of ancestors of the {@link #tree()}.
+     *
+     * @return the depth of the current node
+     */
+    public int depth() {
+        return stack.size() - 1;
+    }
+
+    /**
+     * Don't traverse the children of the {@link #tree()}, so that the next
+     * event exits it. This can only be called when {@link #entering()}.
+     */
+    public void skip() {
+        if(entering) {
+            current().children = Collections.emptyIterator();
+        }
+        else {
+            throw new IllegalStateException(
+                    "Can only skip a node when entering it");
+        }
+    }
+
+    /**
+     * Return the {@link Frame} for the current node.
+     *
+     * @return the current {@link Frame}
+     */
+    private Frame current() {
+        Frame frame = stack.peek();
+        if(frame != null) {
+            return frame;
+        }
+        else {
+            throw new NoSuchElementException();
+        }
+    }
+
+    /**
+     * The state of a node on the path to the current node.
+     *
+     * @author Jeff Nelson
+     */
+    private static final class Frame {
+
+        /**
+         * The node.
+         */
+        final AbstractSyntaxTree tree;
+
+        /**
+         * The parent of the {@link #tree}.
+         */
+        @Nullable
+        final AbstractSyntaxTree parent;
+
+        /**
+         * The position of the {@link #tree} among the children of the
+         * {@link #parent}.
+         */
+        final int index;
+
+        /**
+         * The children of the {@link #tree} that haven't been traversed.
+         */
+        Iterator<AbstractSyntaxTree> children;
+
+        /**
+         * The position of the next child.
+         */
+        int position = 0;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param tree
+         * @param parent
+         * @param index
+         */
+        Frame(AbstractSyntaxTree tree, @Nullable AbstractSyntaxTree parent,
+                int index) {
+            this.tree = tree;
+            this.parent = parent;
+            this.index = index;
+            this.children = tree.children().iterator();
+        }
+
+        /**
+         * Return the next child that hasn't been traversed, or {@code null}
+         * if there are none.
+         *
+         * @return the next child
+         */
+        @Nullable
+        AbstractSyntaxTree next() {
+            while (children.hasNext()) {
+                AbstractSyntaxTree child = children.next();
+                if(child != null) {
+                    return child;
+                }
+                else {
+                    ++position;
+                }
+            }
+            return null;
+        }
+
+    }
+
+}
@@ -64,6 +64,16 @@ public abstract class TemporalFunction extends Function {
         return timestamp;
     }
 
+    /**
+     * Return the {@link TimeUnit} in which the {@link #timestamp()} is
+     * expressed.
+     *
+     * @return the timestamp precision
+     */
+    public TimeUnit timestampPrecision() {
+        return timestampPrecision;
+    }
+
     @Override
     public boolean equals(Object obj) {
         boolean equals = super.equals(obj);
@@ -68,6 +68,32 @@ public final class NaturalLanguage {
     );
     // @formatter:on
 
+    /**
+     * Return {@code true} if {@code str} describes a fixed point in time
+     * (e.g. a number of microseconds or a formatted date) that
+     * {@link #parseMicros(String)} resolves the same way regardless of when
+     * it is called. Any other description (e.g. {@code 3 seconds ago}) is
+     * resolved relative to the current time.
+     * 
+     * @param str
+     * @return {@code true} if {@code str} is an absolute timestamp
+     */
+    public static boolean isAbsolute(String str) {
+        if(Longs.tryParse(str) != null) {
+            return true;
+        }
+        else {
+            for (DateTimeFormatter formatter : DATETIME_FORMATTERS) {
+                try {
+                    formatter.parseMillis(str);
+                    return true;
+                }
+                catch (IllegalArgumentException e) {/* no-op */}
+            }
+            return false;
+        }
+    }
+
     /**
      * Parse the number of microseconds from the UNIX epoch that are described
      * by {@code str}.
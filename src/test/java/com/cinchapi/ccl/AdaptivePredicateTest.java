@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
+
+/**
+ * Unit tests for {@link AdaptivePredicate}.
+ *
+ * @author Jeff Nelson
+ */
+public class AdaptivePredicateTest {
+
+    /**
+     * The {@link Compiler} to use in the tests.
+     */
+    private final Compiler compiler = Compiler.create(Convert::stringToJava,
+            Convert::stringToOperator);
+
+    @Test
+    public void testSameResultsAsEvaluate() {
+        List<Multimap<String, Object>> datasets = ImmutableList.of(
+                ImmutableMultimap.of("a", 1, "b", 2, "c", 3),
+                ImmutableMultimap.of("a", 2, "b", 2, "c", 3),
+                ImmutableMultimap.of("a", 1, "c", 4, "a", 3),
+                ImmutableMultimap.of("b", 2), ImmutableMultimap.of());
+        for (String ccl : ImmutableList.of("a = 1 and b = 2",
+                "a regex 1 or b = 2 or c = 3",
+                "(a = 1 or b != 2) and (c = 3 or a regex 3)",
+                "a = 1 and b = 2 and c = 3 or a = 3 and c != 3", "c = 4")) {
+            ConditionTree tree = (ConditionTree) compiler.parse(ccl);
+            LocalEvaluation.assertSameResults(compiler, tree,
+                    new AdaptivePredicate(compiler, tree,
+                            LocalEvaluation.EVALUATOR, CostModel.DEFAULT),
+                    Iterables.limit(Iterables.cycle(datasets),
+                            AdaptivePredicate.REORDER_INTERVAL * 3));
+        }
+    }
+
+    @Test
+    public void testCheapOperandsAreTestedFirst() {
+        AdaptivePredicate predicate = new AdaptivePredicate(compiler,
+                (ConditionTree) compiler
+                        .parse("name regex jeff and age = 30 or a.b.c = 1"),
+                LocalEvaluation.EVALUATOR, CostModel.DEFAULT);
+        Assert.assertEquals(ImmutableList.of("age = 30", "name regex jeff",
+                "a.b.c = 1"), order(predicate));
+    }
+
+    @Test
+    public void testNestedConjunctionsAreFlattened() {
+        AdaptivePredicate predicate = new AdaptivePredicate(compiler,
+                (ConditionTree) compiler
+                        .parse("(a regex 1 and b regex 2) and c = 3"),
+                LocalEvaluation.EVALUATOR, CostModel.DEFAULT);
+        Assert.assertEquals(
+                ImmutableList.of("c = 3", "a regex 1", "b regex 2"),
+                order(predicate));
+    }
+
+    @Test
+    public void testReorderBasedOnObservedSelectivity() {
+        AdaptivePredicate predicate = new AdaptivePredicate(compiler,
+                (ConditionTree) compiler.parse("a = 1 and b = 1"), LocalEvaluation.EVALUATOR,
+                CostModel.DEFAULT);
+        Assert.assertEquals(ImmutableList.of("a = 1", "b = 1"),
+                order(predicate));
+        Multimap<String, Object> dataset = ImmutableMultimap.of("a", 1, "b",
+                2);
+        for (int i = 0; i < AdaptivePredicate.REORDER_INTERVAL; ++i) {
+            Assert.assertFalse(predicate.test(dataset));
+        }
+        Assert.assertEquals(ImmutableList.of("b = 1", "a = 1"),
+                order(predicate));
+    }
+
+    @Test
+    public void testEachThreadKeepsItsOwnStatistics()
+            throws InterruptedException {
+        AdaptivePredicate predicate = new AdaptivePredicate(compiler,
+                (ConditionTree) compiler.parse("a = 1 and b = 1"), LocalEvaluation.EVALUATOR,
+                CostModel.DEFAULT);
+        Multimap<String, Object> dataset = ImmutableMultimap.of("a", 1, "b",
+                2);
+        List<String> other = new ArrayList<>();
+        Thread thread = new Thread(() -> {
+            for (int i = 0; i < AdaptivePredicate.REORDER_INTERVAL; ++i) {
+                predicate.test(dataset);
+            }
+            other.addAll(order(predicate));
+        });
+        thread.start();
+        thread.join();
+        Assert.assertEquals(ImmutableList.of("b = 1", "a = 1"), other);
+        Assert.assertEquals(ImmutableList.of("a = 1", "b = 1"),
+                order(predicate));
+    }
+
+    @Test
+    public void testCustomCostModel() {
+        CostModel model = new CostModel() {
+
+            @Override
+            public double cost(Operator operator) {
+                return operator.symbol().equals("=") ? 100 : 1;
+            }
+
+        };
+        AdaptivePredicate predicate = (AdaptivePredicate) compiler.compile(
+                (ConditionTree) compiler.parse("a = 1 and b regex 2"),
+                LocalEvaluation.EVALUATOR, model);
+        Assert.assertEquals(ImmutableList.of("b regex 2", "a = 1"),
+                order(predicate));
+    }
+
+    /**
+     * Return the expressions in the order that the {@code predicate} tests
+     * them.
+     *
+     * @param predicate
+     * @return the expressions
+     */
+    private static List<String> order(AdaptivePredicate predicate) {
+        return predicate.order().stream().map(ExpressionSymbol::toString)
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Unit tests for {@link CachingCompiler}.
+ *
+ * @author Jeff Nelson
+ */
+public class CachingCompilerTest {
+
+    @Test
+    public void testRepeatedParseIsCached() {
+        CachingCompiler compiler = Compiler.cache(createCompiler(), 100);
+        String ccl = "name = jeff and age > 30";
+        AbstractSyntaxTree a = compiler.parse(ccl);
+        AbstractSyntaxTree b = compiler.parse(ccl);
+        Assert.assertSame(a, b);
+        Assert.assertEquals(1, compiler.stats().missCount());
+        Assert.assertEquals(1, compiler.stats().hitCount());
+    }
+
+    @Test
+    public void testCachedTreeMatchesUncachedTree() {
+        Compiler uncached = createCompiler();
+        CachingCompiler compiler = Compiler.cache(createCompiler(), 100);
+        String ccl = "(a = 1 or b bw 2 3) and c regex foo page 2 size 3";
+        compiler.parse(ccl);
+        Assert.assertEquals(uncached.parse(ccl), compiler.parse(ccl));
+    }
+
+    @Test
+    public void testStatementWithoutVariablesIgnoresData() {
+        CachingCompiler compiler = Compiler.cache(createCompiler(), 100);
+        String ccl = "name = jeff";
+        compiler.parse(ccl, ImmutableMultimap.of("name", "ashleah"));
+        compiler.parse(ccl, ImmutableMultimap.of("name", "jeff"));
+        compiler.parse(ccl);
+        Assert.assertEquals(1, compiler.size());
+        Assert.assertEquals(2, compiler.stats().hitCount());
+    }
+
+    @Test
+    public void testStatementWithVariablesIsKeyedByVariableValues() {
+        Compiler uncached = createCompiler();
+        CachingCompiler compiler = Compiler.cache(createCompiler(), 100);
+        String ccl = "age > $age";
+        Multimap<String, Object> a = ImmutableMultimap.of("age", 30, "name",
+                "jeff");
+        Multimap<String, Object> b = ImmutableMultimap.of("age", 30, "name",
+                "ashleah");
+        Multimap<String, Object> c = ImmutableMultimap.of("age", 40, "name",
+                "jeff");
+        Assert.assertEquals(uncached.parse(ccl, a), compiler.parse(ccl, a));
+        Assert.assertEquals(uncached.parse(ccl, b), compiler.parse(ccl, b));
+        Assert.assertEquals(uncached.parse(ccl, c), compiler.parse(ccl, c));
+        Assert.assertNotEquals(compiler.parse(ccl, a), compiler.parse(ccl, c));
+        Assert.assertEquals(2, compiler.size());
+    }
+
+    @Test
+    public void testEvictionWhenMaximumSizeExceeded() {
+        CachingCompiler compiler = Compiler.cache(createCompiler(), 2);
+        compiler.parse("a = 1");
+        compiler.parse("b = 1");
+        compiler.parse("c = 1");
+        Assert.assertEquals(2, compiler.size());
+        Assert.assertEquals(1, compiler.stats().evictionCount());
+    }
+
+    @Test
+    public void testEvictionWhenMaximumWeightExceeded() {
+        CachingCompiler compiler = Compiler.cacheByWeight(createCompiler(),
+                10);
+        compiler.parse("a = 1");
+        compiler.parse("b = 1");
+        compiler.parse("c = 1");
+        Assert.assertTrue(compiler.size() < 3);
+        Assert.assertTrue(compiler.stats().evictionCount() > 0);
+    }
+
+    @Test(expected = SyntaxException.class)
+    public void testSyntaxErrorIsPropagated() {
+        CachingCompiler compiler = Compiler.cache(createCompiler(), 100);
+        compiler.parse("name = ");
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        CachingCompiler compiler = Compiler.cache(createCompiler(), 100);
+        compiler.parse("a = 1");
+        compiler.invalidateAll();
+        Assert.assertEquals(0, compiler.size());
+    }
+
+    @Test
+    public void testRelativeTimestampIsNotCached() throws InterruptedException {
+        CachingCompiler compiler = Compiler.cache(createCompiler(), 100);
+        String ccl = "name = jeff at 3 seconds ago";
+        long a = timestamp(compiler.parse(ccl));
+        Thread.sleep(1500);
+        long b = timestamp(compiler.parse(ccl));
+        Assert.assertTrue(b - a >= TimeUnit.SECONDS.toMicros(1));
+        Assert.assertEquals(0, compiler.size());
+    }
+
+    @Test
+    public void testAbsoluteTimestampIsCached() {
+        CachingCompiler compiler = Compiler.cache(createCompiler(), 100);
+        String ccl = "name = jeff at 1602080000000000";
+        Assert.assertSame(compiler.parse(ccl), compiler.parse(ccl));
+        Assert.assertEquals(1602080000000000L, timestamp(compiler.parse(ccl)));
+    }
+
+    @Test
+    public void testNullVariableValue() {
+        Compiler uncached = createCompiler();
+        CachingCompiler compiler = Compiler.cache(createCompiler(), 100);
+        String ccl = "a = $b";
+        Multimap<String, Object> data = ArrayListMultimap.create();
+        data.put("b", 1);
+        compiler.parse(ccl, data);
+        data.put("c", null);
+        Assert.assertEquals(uncached.parse(ccl, data),
+                compiler.parse(ccl, data));
+        data.removeAll("b");
+        data.put("b", null);
+        try {
+            compiler.parse(ccl, data);
+            Assert.fail();
+        }
+        catch (SyntaxException e) {
+            // The null value is rejected by the parser, like it is without
+            // the cache
+        }
+        Assert.assertEquals(1, compiler.size());
+    }
+
+    /**
+     * Return the timestamp of the expression in the {@code tree}.
+     *
+     * @param tree
+     * @return the timestamp
+     */
+    private static long timestamp(AbstractSyntaxTree tree) {
+        return ((ExpressionSymbol) tree.root()).timestamp().timestamp();
+    }
+
+    /**
+     * Return a {@link Compiler} to which the {@link CachingCompiler} under
+     * test delegates.
+     *
+     * @return the {@link Compiler}
+     */
+    private Compiler createCompiler() {
+        return Compiler.create(Convert::stringToJava,
+                Convert::stringToOperator);
+    }
+
+}
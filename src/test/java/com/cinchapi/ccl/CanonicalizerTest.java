@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.grammar.KeySymbol;
+import com.cinchapi.ccl.grammar.OperatorSymbol;
+import com.cinchapi.ccl.grammar.ValueSymbol;
+import com.cinchapi.ccl.syntax.AndTree;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.syntax.ConjunctionTree;
+import com.cinchapi.ccl.syntax.ExpressionTree;
+import com.cinchapi.ccl.syntax.OrTree;
+import com.cinchapi.concourse.thrift.Operator;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+
+/**
+ * Unit tests for {@link Canonicalizer}.
+ *
+ * @author Jeff Nelson
+ */
+public class CanonicalizerTest {
+
+    /**
+     * The {@link Compiler} to use in the tests.
+     */
+    private final Compiler compiler = Compiler.create(Convert::stringToJava,
+            Convert::stringToOperator);
+
+    @Test
+    public void testEquivalentSpellings() {
+        List<String> statements = ImmutableList.of("a = 1 AND b = 2",
+                "b == 2 && a eq 1", "(a = 1) and b = 2",
+                "a = 1 and (b = 2 and a = 1)", "((b = 2)) & (a = 1)");
+        ConditionTree expected = canonicalize(statements.get(0));
+        HashCode fingerprint = fingerprint(statements.get(0));
+        for (String ccl : statements) {
+            Assert.assertEquals(ccl, expected, canonicalize(ccl));
+            Assert.assertEquals(ccl, fingerprint, fingerprint(ccl));
+        }
+        Assert.assertEquals(128, fingerprint.bits());
+    }
+
+    @Test
+    public void testNestedConjunctions() {
+        Assert.assertEquals(
+                fingerprint("(c = 3 or a = 1) and (b = 2 and (d = 4 or e = 5))"),
+                fingerprint("((e = 5 or d = 4) and b = 2) and (a = 1 or c = 3)"));
+        Assert.assertEquals(fingerprint("a = 1 or (b = 2 or c = 3)"),
+                fingerprint("(c = 3 or a = 1) or b = 2"));
+    }
+
+    @Test
+    public void testDistinctConditions() {
+        List<String> statements = ImmutableList.of("a = 1", "a = 2",
+                "b = 1", "a != 1", "a = 1 at 100", "a = 1 at 200",
+                "a = 1.5", "a = true", "a = 1 and b = 2", "a = 1 or b = 2",
+                "a = 1 and (b = 2 or c = 3)", "(a = 1 and b = 2) or c = 3",
+                "a bw 1 2", "a bw 2 1", "a = b.c", "a.b = 1",
+                "age > avg(age)", "age > avg(age, age > 10)",
+                "age > avg(age, age > 20)", "a = $b");
+        Set<HashCode> fingerprints = Sets.newHashSet();
+        for (String ccl : statements) {
+            fingerprints.add(compiler.fingerprint(
+                    (ConditionTree) compiler.prepare(ccl).bind()));
+        }
+        Assert.assertEquals(statements.size(), fingerprints.size());
+    }
+
+    @Test
+    public void testDuplicateOperandsAreRemoved() {
+        ConditionTree tree = canonicalize("a = 1 and b = 2 and a = 1");
+        Assert.assertEquals(canonicalize("b = 2 and a = 1"), tree);
+        Assert.assertEquals(2, ((ConjunctionTree) tree).operands().size());
+        Assert.assertEquals(canonicalize("a = 1"),
+                canonicalize("a = 1 or a = 1"));
+        Assert.assertEquals(fingerprint("a = 1 or b = 2"),
+                fingerprint("(a = 1 or b = 2) and (b = 2 or a = 1)"));
+    }
+
+    @Test
+    public void testNumericValues() {
+        ConditionTree integer = expression(1);
+        ConditionTree lng = expression(1L);
+        Assert.assertEquals(compiler.canonicalize(integer),
+                compiler.canonicalize(lng));
+        Assert.assertEquals(compiler.fingerprint(integer),
+                compiler.fingerprint(lng));
+        Assert.assertEquals(compiler.fingerprint(expression(1.5f)),
+                compiler.fingerprint(expression(1.5)));
+        Assert.assertNotEquals(compiler.fingerprint(integer),
+                compiler.fingerprint(expression("1")));
+        Assert.assertNotEquals(compiler.fingerprint(integer),
+                compiler.fingerprint(expression(1.0)));
+    }
+
+    @Test
+    public void testCanonicalFormIsFixedPoint() {
+        List<String> statements = ImmutableList.of(
+                "c = 3 or (b = 2 and a = 1)",
+                "(a > 1 or b < 2) and (c = 1 or (a = 2 and b != 3))",
+                "d = 1 and c = 2 and b = 3 and a = 4");
+        for (String ccl : statements) {
+            ConditionTree canonical = canonicalize(ccl);
+            Assert.assertEquals(canonical, compiler.canonicalize(canonical));
+            Assert.assertEquals(fingerprint(ccl),
+                    compiler.fingerprint(canonical));
+        }
+    }
+
+    @Test
+    public void testDeeplyNestedConditions() {
+        int depth = 100000;
+        ConditionTree x = (ConditionTree) compiler.parse("x = 0");
+        ConditionTree y = (ConditionTree) compiler.parse("x = 0");
+        for (int i = 0; i < depth; ++i) {
+            ConditionTree leaf = (ConditionTree) compiler
+                    .parse("k" + i + " = " + i);
+            x = i % 2 == 0 ? new AndTree(leaf, x) : new OrTree(leaf, x);
+            y = i % 2 == 0 ? new AndTree(y, leaf) : new OrTree(y, leaf);
+        }
+        Assert.assertEquals(compiler.fingerprint(x), compiler.fingerprint(y));
+        Assert.assertEquals(compiler.canonicalize(x),
+                compiler.canonicalize(y));
+    }
+
+    /**
+     * Return the canonical form of the {@code ccl} condition.
+     *
+     * @param ccl
+     * @return the canonical {@link ConditionTree}
+     */
+    private ConditionTree canonicalize(String ccl) {
+        return compiler.canonicalize((ConditionTree) compiler.parse(ccl));
+    }
+
+    /**
+     * Return the fingerprint of the {@code ccl} condition.
+     *
+     * @param ccl
+     * @return the fingerprint
+     */
+    private HashCode fingerprint(String ccl) {
+        return compiler.fingerprint((ConditionTree) compiler.parse(ccl));
+    }
+
+    /**
+     * Return an {@link ExpressionTree} for {@code a = value}.
+     *
+     * @param value
+     * @return the {@link ExpressionTree}
+     */
+    private static ExpressionTree expression(Object value) {
+        return new ExpressionTree(ExpressionSymbol.create(new KeySymbol("a"),
+                new OperatorSymbol(Operator.EQUALS), new ValueSymbol(value)));
+    }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+
+/**
+ * Unit tests for {@link CoalescingCompiler}.
+ *
+ * @author Jeff Nelson
+ */
+public class CoalescingCompilerTest {
+
+    /**
+     * The {@link Compiler} to which parsing is delegated.
+     */
+    private final Compiler compiler = Compiler.create(Convert::stringToJava,
+            Convert::stringToOperator);
+
+    /**
+     * The number of parses by the {@link #blocking} compiler.
+     */
+    private final AtomicInteger parses = new AtomicInteger();
+
+    /**
+     * Released to let the {@link #blocking} compiler finish parsing.
+     */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    /**
+     * A {@link Compiler} that waits for the {@link #release} before parsing.
+     */
+    private final Compiler blocking = new Compiler(Convert::stringToJava,
+            Convert::stringToOperator) {
+
+        @Override
+        public AbstractSyntaxTree parse(String ccl,
+                Multimap<String, Object> data) {
+            parses.incrementAndGet();
+            try {
+                release.await();
+            }
+            catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return compiler.parse(ccl, data);
+        }
+
+    };
+
+    /**
+     * The threads that call the {@link CoalescingCompiler}.
+     */
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentParsesAreCoalesced() throws Exception {
+        CoalescingCompiler coalescing = Compiler.coalesce(blocking);
+        String ccl = "a = 1 and b = 2";
+        List<Future<AbstractSyntaxTree>> futures = Lists.newArrayList();
+        for (int i = 0; i < 16; ++i) {
+            futures.add(executor.submit(() -> coalescing.parse(ccl)));
+        }
+        awaitCoalesced(coalescing, 15);
+        release.countDown();
+        AbstractSyntaxTree tree = futures.get(0).get();
+        for (Future<AbstractSyntaxTree> future : futures) {
+            Assert.assertSame(tree, future.get());
+        }
+        Assert.assertEquals(compiler.parse(ccl), tree);
+        Assert.assertEquals(1, parses.get());
+    }
+
+    @Test
+    public void testDataIsIgnoredWithoutVariables() throws Exception {
+        CoalescingCompiler coalescing = Compiler.coalesce(blocking);
+        String ccl = "a = 1 and b = 2";
+        List<Future<AbstractSyntaxTree>> futures = Lists.newArrayList();
+        for (int i = 0; i < 16; ++i) {
+            Multimap<String, Object> data = ImmutableMultimap.of("id", i);
+            futures.add(executor.submit(() -> coalescing.parse(ccl, data)));
+        }
+        awaitCoalesced(coalescing, 15);
+        release.countDown();
+        AbstractSyntaxTree tree = futures.get(0).get();
+        for (Future<AbstractSyntaxTree> future : futures) {
+            Assert.assertSame(tree, future.get());
+        }
+        Assert.assertEquals(1, parses.get());
+    }
+
+    @Test
+    public void testOnlySameVariableValuesAreCoalesced() throws Exception {
+        CoalescingCompiler coalescing = Compiler.coalesce(blocking, 1);
+        String ccl = "a = $c";
+        Future<AbstractSyntaxTree> leader = executor.submit(() -> coalescing
+                .parse(ccl, ImmutableMultimap.of("c", 1, "d", 1)));
+        while (parses.get() < 1) {
+            Thread.sleep(1);
+        }
+        Future<AbstractSyntaxTree> same = executor.submit(() -> coalescing
+                .parse(ccl, ImmutableMultimap.of("c", 1, "d", 2)));
+        Future<AbstractSyntaxTree> different = executor.submit(
+                () -> coalescing.parse(ccl, ImmutableMultimap.of("c", 2)));
+        awaitCoalesced(coalescing, 2);
+        release.countDown();
+        Assert.assertSame(leader.get(), same.get());
+        Assert.assertEquals(compiler.parse("a = 1"), leader.get());
+        Assert.assertEquals(compiler.parse("a = 2"), different.get());
+        Assert.assertEquals(2, parses.get());
+        Assert.assertEquals(1, coalescing.coalesced());
+    }
+
+    @Test
+    public void testDistinctStatementsAreNotCoalesced() throws Exception {
+        CoalescingCompiler coalescing = Compiler.coalesce(blocking, 1);
+        Future<AbstractSyntaxTree> a = executor
+                .submit(() -> coalescing.parse("a = 1"));
+        Future<AbstractSyntaxTree> b = executor
+                .submit(() -> coalescing.parse("b = 1"));
+        Future<AbstractSyntaxTree> c = executor
+                .submit(() -> coalescing.parse("a = $c",
+                        ImmutableMultimap.of("c", 1)));
+        while (parses.get() < 3) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        Assert.assertEquals(compiler.parse("a = 1"), a.get());
+        Assert.assertEquals(compiler.parse("b = 1"), b.get());
+        Assert.assertEquals(compiler.parse("a = 1"), c.get());
+        Assert.assertEquals(0, coalescing.coalesced());
+    }
+
+    @Test
+    public void testFailuresAreShared() throws Exception {
+        CoalescingCompiler coalescing = Compiler.coalesce(blocking);
+        List<Future<AbstractSyntaxTree>> futures = Lists.newArrayList();
+        for (int i = 0; i < 4; ++i) {
+            futures.add(executor.submit(() -> coalescing.parse("a = $b")));
+        }
+        awaitCoalesced(coalescing, 3);
+        release.countDown();
+        for (Future<AbstractSyntaxTree> future : futures) {
+            try {
+                future.get();
+                Assert.fail();
+            }
+            catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof RuntimeException);
+            }
+        }
+        Assert.assertEquals(1, parses.get());
+    }
+
+    @Test
+    public void testCompletedParsesAreNotRemembered() {
+        release.countDown();
+        CoalescingCompiler coalescing = Compiler.coalesce(blocking);
+        coalescing.parse("a = 1");
+        coalescing.parse("a = 1");
+        Assert.assertEquals(2, parses.get());
+        Assert.assertEquals(0, coalescing.coalesced());
+    }
+
+    /**
+     * Wait until the {@code compiler} has coalesced {@code count} calls.
+     *
+     * @param compiler
+     * @param count
+     * @throws InterruptedException
+     */
+    private static void awaitCoalesced(CoalescingCompiler compiler, int count)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (compiler.coalesced() < count) {
+            Assert.assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+}
@@ -15,11 +15,17 @@
  */
 package com.cinchapi.ccl;
 
+import java.lang.management.ManagementFactory;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
 import com.cinchapi.ccl.grammar.ExpressionSymbol;
@@ -32,7 +38,13 @@ import com.cinchapi.common.base.Array;
 import com.cinchapi.common.function.TriFunction;
 import com.cinchapi.concourse.thrift.TObject;
 import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 
 /**
@@ -111,6 +123,116 @@ public class CompilerJavaCCTest extends AbstractCompilerTest {
         Assert.assertFalse(compiler.evaluate(tree, d, evaluator));
     }
     
+    @Test
+    public void testCompileMatchesEvaluate() {
+        Compiler compiler = createCompiler(Convert::stringToJava,
+                Convert::stringToOperator);
+        List<Multimap<String, Object>> datasets = ImmutableList.of(
+                ImmutableMultimap.of("a", 5, "b", 12, "c", 4, "a", -1),
+                ImmutableMultimap.of("a", 1, "b", 12, "c", 4, "a", -1),
+                ImmutableMultimap.of("a", 2, "c", 4, "a", -1),
+                ImmutableMultimap.of("a", 1, "c", 4, "a", -1),
+                ImmutableMultimap.of("b", 2, "c", 3), ImmutableMultimap.of());
+        for (String ccl : ImmutableList.of("a > 1 AND b bw 10 15",
+                "a > 1 OR b bw 10 15", "(a > 1 or b = 2) and c = 4",
+                "c = 3 and (a = 1 or b > 1)", "a = 1")) {
+            ConditionTree tree = (ConditionTree) compiler.parse(ccl);
+            LocalEvaluation.assertSameResults(compiler, tree,
+                    compiler.compile(tree, LocalEvaluation.EVALUATOR),
+                    datasets);
+        }
+    }
+
+    @Test
+    public void testBatchEvaluateMatchesEvaluate() {
+        Compiler compiler = createCompiler(Convert::stringToJava,
+                Convert::stringToOperator);
+        int rows = 130;
+        Random random = new Random(1);
+        Map<String, Object[]> columns = Maps.newHashMap();
+        for (String key : ImmutableList.of("a", "b", "c")) {
+            Object[] column = new Object[rows];
+            for (int row = 0; row < rows; ++row) {
+                int value = random.nextInt(6);
+                column[row] = value == 5 ? null : value;
+            }
+            columns.put(key, column);
+        }
+        for (String ccl : ImmutableList.of("a > 1 AND b bw 1 3",
+                "a > 1 OR b bw 1 3", "(a > 1 or b = 2) and c = 4",
+                "c = 3 and (a = 1 or b > 1)", "a = 1", "d = 1 or a = 2")) {
+            ConditionTree tree = (ConditionTree) compiler.parse(ccl);
+            long[] matches = compiler.evaluate(tree, columns::get, rows,
+                    LocalEvaluation.EVALUATOR);
+            Assert.assertEquals(3, matches.length);
+            for (int row = 0; row < rows; ++row) {
+                Multimap<String, Object> record = HashMultimap.create();
+                for (Entry<String, Object[]> column : columns.entrySet()) {
+                    if(column.getValue()[row] != null) {
+                        record.put(column.getKey(), column.getValue()[row]);
+                    }
+                }
+                Assert.assertEquals(ccl + " " + record,
+                        compiler.evaluate(tree, record,
+                                LocalEvaluation.EVALUATOR),
+                        (matches[row >>> 6] & (1L << row)) != 0);
+            }
+            Assert.assertEquals(0, matches[2] >>> (rows & 63));
+        }
+    }
+
+    @Test
+    public void testBatchEvaluateSkipsRowsThatAreRuledOut() {
+        Compiler compiler = createCompiler(Convert::stringToJava,
+                Convert::stringToOperator);
+        Map<String, Object[]> columns = ImmutableMap.of("a",
+                new Object[] { 1, 2, 1, 2 }, "b", new Object[] { 1, 1, 1, 1 });
+        List<Object> evaluated = Lists.newArrayList();
+        TriFunction<Object, Operator, List<Object>, Boolean> evaluator = (value,
+                operator, values) -> {
+            evaluated.add(value);
+            return LocalEvaluation.EVALUATOR.apply(value, operator, values);
+        };
+        long[] matches = compiler.evaluate(
+                (ConditionTree) compiler.parse("a = 2 and b = 1"),
+                columns::get, 4, evaluator);
+        Assert.assertArrayEquals(new long[] { 0b1010 }, matches);
+        Assert.assertEquals(6, evaluated.size());
+    }
+
+    @Test
+    public void testCompiledPredicateDoesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory
+                .getThreadMXBean();
+        Assume.assumeTrue(
+                bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean)
+                        .isThreadAllocatedMemorySupported());
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(mx.isThreadAllocatedMemoryEnabled());
+        Compiler compiler = createCompiler(Convert::stringToJava,
+                Convert::stringToOperator);
+        Predicate<Multimap<String, Object>> predicate = compiler.compile(
+                (ConditionTree) compiler
+                        .parse("(a > 1 or b > 1) and c > 1 and d > 1"),
+                (value, operator, values) -> (int) value > (int) values
+                        .get(0));
+        Multimap<String, Object> dataset = ImmutableListMultimap.of("a", 0,
+                "b", 2, "c", 2, "d", 0, "d", 2);
+        boolean matches = false;
+        for (int i = 0; i < 10000; ++i) { // warm up
+            matches |= predicate.test(dataset);
+        }
+        int rounds = 100000;
+        long thread = Thread.currentThread().getId();
+        long before = mx.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < rounds; ++i) {
+            matches &= predicate.test(dataset);
+        }
+        long allocated = mx.getThreadAllocatedBytes(thread) - before;
+        Assert.assertTrue(matches);
+        Assert.assertTrue(allocated + " bytes allocated", allocated < rounds);
+    }
+
     @Test
     public void testRegressionV3_1_1A1() {
         String ccl = "(_ = com.cinchapi.runway.RunwayTest$Adult) AND (email LIKE %email.com%)";
@@ -135,6 +257,61 @@ public class CompilerJavaCCTest extends AbstractCompilerTest {
         Assert.assertTrue(true); // lack of Exception means the test passes
     }
 
+    @Test
+    public void testParseAllocationIsNotDominatedByParserScaffolding() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory
+                .getThreadMXBean();
+        Assume.assumeTrue(
+                bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean)
+                        .isThreadAllocatedMemorySupported());
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(mx.isThreadAllocatedMemoryEnabled());
+        String ccl = "name = jeff and age > 30";
+        Compiler compiler = createCompiler(value -> value,
+                Convert::stringToOperator);
+        for (int i = 0; i < 1000; ++i) { // warm up
+            compiler.parse(ccl);
+        }
+        int rounds = 1000;
+        long thread = Thread.currentThread().getId();
+        long before = mx.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < rounds; ++i) {
+            compiler.parse(ccl);
+        }
+        long perParse = (mx.getThreadAllocatedBytes(thread) - before) / rounds;
+        // Constructing a fresh Grammar allocates more than this bound, so it
+        // only holds if the Grammar is reused.
+        Assert.assertTrue(perParse + " bytes allocated per parse",
+                perParse < 6144);
+    }
+
+    @Test
+    public void testParseAfterSyntaxError() {
+        Compiler compiler = createCompiler();
+        try {
+            compiler.parse("name = ");
+            Assert.fail();
+        }
+        catch (SyntaxException e) {
+            // expected
+        }
+        Assert.assertEquals(createCompiler().parse("name = jeff"),
+                compiler.parse("name = jeff"));
+    }
+
+    @Test
+    public void testReentrantParse() {
+        Compiler[] compiler = new Compiler[1];
+        compiler[0] = createCompiler(value -> {
+            if(value.equals("nested")) {
+                compiler[0].parse("b = 2 or c = 3");
+            }
+            return Convert.stringToJava(value);
+        }, Convert::stringToOperator);
+        Assert.assertEquals(createCompiler().parse("a = nested and d = 4"),
+                compiler[0].parse("a = nested and d = 4"));
+    }
+
     @Override
     protected Compiler createCompiler(
             Function<String, Object> valueTransformFunction,
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.grammar.KeySymbol;
+import com.cinchapi.ccl.grammar.OperatorSymbol;
+import com.cinchapi.ccl.grammar.ValueSymbol;
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * {@link CompilerTest} that uses the {@link CompilerRecursiveDescent}, along
+ * with a differential test against the {@link CompilerJavaCC}.
+ *
+ * @author Jeff Nelson
+ */
+public class CompilerRecursiveDescentTest extends AbstractCompilerTest {
+
+    /**
+     * The statements from the other compiler and parser tests. Statements
+     * with timestamps are left out because natural language timestamps are
+     * resolved against the clock, so they differ each time they're parsed.
+     */
+    private static final String[] STATEMENTS = {
+            "$id$ != 40",
+            "( _ = com.cinchapi.runway.RunwayTest$Adult ) AND ( a regex b )",
+            "( _ = com.cinchapi.runway.RunwayTest$Adult ) AND ( email LIKE %email.com% )",
+            "(_ = com.cinchapi.runway.RunwayTest$Adult) AND (email LIKE %email.com%)",
+            "(a = 1 or b = 2) AND (c = 3 or d = 4)",
+            "(a = 1 or b = 2) or (c = 3 or d = 4)",
+            "(a = 1 or b bw 2 3) and c regex foo page 2 size 3",
+            "(a = 1 || b = 2) & (c = 3 || d = 4)",
+            "(a = 1 || b = 2) && (c = 3 || d = 4)",
+            "(a = 1 || b = 2) || (c = 3 || d = 4)",
+            "(a = b) and (name like (?i:%jeff%))",
+            "(a = b) or c = d and (email like email.com)",
+            "17",
+            "= 1",
+            "Accounting And Business/management",
+            "ORDER BY name ASC, age desc",
+            "ORDER BY name ASC, age, email desc",
+            "ORDER BY name DESC",
+            "ORDER BY name",
+            "ORDER BY name, age",
+            "a -> 1",
+            "a 1",
+            "a = '1' and b = 2 or c = 3",
+            "a = 1 ",
+            "a = 1 2",
+            "a = 1 and (b = 2 or c = 3)",
+            "a = 1 and b = 2 and c = 3",
+            "a = 1 and b = 2 or c = 3",
+            "a = 1 and b = 2",
+            "a = 1 and",
+            "a = 1 at",
+            "a = 1 or (b = 2 and c = 3)",
+            "a = 1 or b = 2 and c = 3",
+            "a = 1 or b = 2 or c = 3",
+            "a = 1 or b = 2",
+            "a = 1 page 1 size 3",
+            "a = 1",
+            "a = a.b.c",
+            "a = nested and d = 4",
+            "a =",
+            "a > 1 AND b bw 10 15",
+            "a > 1 OR b bw 10 15",
+            "a >< 1 2 3",
+            "a >< 1 2",
+            "a >< 1 3",
+            "a >< 1",
+            "a LINKS_TO 1",
+            "a LINKS_TO b",
+            "a.b = 3",
+            "a.b.c.d = 3",
+            "age > $age",
+            "age > avg(age)",
+            "age > avg(age, 1)",
+            "age > avg(age, 1, 2)",
+            "age > avg(age, age < 30)",
+            "age bw avg(age) 1000",
+            "age bw avg(age, age > 10) 1000",
+            "age | avg > avg(age, age < 30)",
+            "age | avg",
+            "and a = 1",
+            "avg(age)",
+            "avg(age, 1)",
+            "avg(age, 1,2,3,5,11)",
+            "avg(age, age > 3)",
+            "b = 1",
+            "b = 2 or c = 3",
+            "bar",
+            "c = 1",
+            "email like %gmail%",
+            "friends | avg > 3",
+            "location = 'Atlanta (HQ)'",
+            "location = \"Atlanta (HQ)\"",
+            "major contains 'business administration'",
+            "major not_contains 'business administration'",
+            "major search_match 'business administration'",
+            "major ~ 'business administration'",
+            "mother = a.b.c",
+            "mother.children = 3",
+            "mother.mother.siblings = 3",
+            "name !~ jeff",
+            "name -> 30",
+            "name = ",
+            "name = $name",
+            "name = @name",
+            "name = \"Javier Lores\"",
+            "name = \"Javier \\\"Lores\"",
+            "name = \"Javier \\\"\\@Lores\"",
+            "name = \"name\"",
+            "name = \"wood\\\"ford\"",
+            "name = \\$name",
+            "name = \\@name",
+            "name = jeff AND company = Cinchapi and age > 20 or name != bob",
+            "name = jeff OR name = bob AND age > 100",
+            "name = jeff and age = 100 and company = cinchapi or company = blavity",
+            "name = jeff and age > 30",
+            "name = jeff at \"",
+            "name = jeff nelson and favorite_player != Lebron James",
+            "name = jeff nelson",
+            "name = jeff",
+            "name = ‘name’",
+            "name = “Javier Lores”",
+            "name LINKS_TO 30",
+            "name like (?i:%jeff%)",
+            "name nregex (?i:%jeff%)",
+            "name search_exclude jeff",
+            "name ~ jeff and company.name = cinchapi or age | avg > 30",
+            "name=jeff",
+            "org.internx.model.data.user.Student",
+            "school like %North Carolina%",
+            "where age bw $age $retireAge",
+            "where age bw $age 100",
+            "where age bw 5 $age",
+            "where foo = bar",
+            "where foo bw bar baz" };
+
+    @Override
+    @Test
+    public void testParseCclNoSpaces() {
+        String ccl = "name=jeff";
+        Compiler compiler = createCompiler();
+        Assert.assertEquals(
+                ExpressionSymbol.create(new KeySymbol("name"),
+                        new OperatorSymbol(
+                                com.cinchapi.concourse.thrift.Operator.EQUALS),
+                        new ValueSymbol("jeff")),
+                compiler.arrange((ConditionTree) compiler.parse(ccl)).peek());
+    }
+
+    @Test
+    public void testSameTreesAsJavaCC() {
+        Compiler expected = Compiler.create(Convert::stringToJava,
+                Convert::stringToOperator, Compiler.Engine.JAVACC);
+        Compiler actual = createCompiler();
+        Multimap<String, Object> data = ImmutableMultimap.of("age", 30,
+                "retireAge", 65, "name", "jeff");
+        for (String ccl : STATEMENTS) {
+            AbstractSyntaxTree e;
+            try {
+                e = expected.parse(ccl, data);
+            }
+            catch (SyntaxException | Error exception) {
+                e = null;
+            }
+            AbstractSyntaxTree a;
+            try {
+                a = actual.parse(ccl, data);
+            }
+            catch (SyntaxException exception) {
+                a = null;
+            }
+            if(e == null) {
+                Assert.assertNull(ccl, a);
+            }
+            else {
+                Assert.assertNotNull(ccl, a);
+                Assert.assertEquals(ccl, e.getClass(), a.getClass());
+                Assert.assertEquals(ccl, expected.tokenize(e).toString(),
+                        actual.tokenize(a).toString());
+            }
+        }
+    }
+
+    @Test
+    public void testEngineSelection() {
+        Compiler compiler = Compiler.create(Convert::stringToJava,
+                Convert::stringToOperator, Compiler.Engine.RECURSIVE_DESCENT);
+        Assert.assertTrue(compiler instanceof CompilerRecursiveDescent);
+        compiler = Compiler.create(Convert::stringToJava,
+                Convert::stringToOperator);
+        Assert.assertTrue(compiler instanceof CompilerJavaCC);
+    }
+
+    @Test(expected = SyntaxException.class)
+    public void testLexicalErrorIsSyntaxException() {
+        createCompiler().parse("a = 1\r");
+    }
+
+    @Test
+    public void testParseIsReentrant() {
+        Compiler[] compiler = new Compiler[1];
+        compiler[0] = createCompiler(value -> {
+            if(value.equals("nested")) {
+                compiler[0].parse("b = 2 or c = 3");
+            }
+            return Convert.stringToJava(value);
+        }, Convert::stringToOperator);
+        Assert.assertEquals(createCompiler().parse("a = nested and d = 4"),
+                compiler[0].parse("a = nested and d = 4"));
+    }
+
+    @Override
+    protected Compiler createCompiler(
+            Function<String, Object> valueTransformFunction,
+            Function<String, Operator> operatorTransformFunction) {
+        return Compiler.create(valueTransformFunction,
+                operatorTransformFunction, Compiler.Engine.RECURSIVE_DESCENT);
+    }
+
+}
@@ -19,11 +19,18 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
+import com.cinchapi.ccl.syntax.AndTree;
 import com.cinchapi.ccl.syntax.ConjunctionTree;
 import com.cinchapi.ccl.syntax.ExpressionTree;
 import com.cinchapi.ccl.syntax.FunctionTree;
+import com.cinchapi.ccl.syntax.OrTree;
 import com.cinchapi.ccl.syntax.OrderTree;
 import com.cinchapi.ccl.syntax.PageTree;
 import com.cinchapi.ccl.syntax.CommandTree;
@@ -46,6 +53,7 @@ import com.cinchapi.ccl.grammar.TimestampSymbol;
 import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
 import com.cinchapi.ccl.syntax.Visitor;
 import com.cinchapi.ccl.util.NaturalLanguage;
+import com.cinchapi.common.function.TriFunction;
 import com.cinchapi.common.reflect.Reflection;
 import com.cinchapi.concourse.Tag;
 import com.cinchapi.concourse.Timestamp;
@@ -54,6 +62,7 @@ import com.cinchapi.concourse.thrift.Operator;
 import com.cinchapi.concourse.time.Time;
 import com.cinchapi.concourse.util.Random;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedHashMultimap;
@@ -1314,6 +1323,237 @@ public abstract class CompilerTest {
         Assert.assertEquals(ImmutableSet.of("name", "company.name", "age | avg"), keys);
     }
 
+    @Test
+    public void testConjunctionEqualityIgnoresNesting() {
+        Compiler compiler = createCompiler();
+        AbstractSyntaxTree a = compiler.parse("a = 1 and (b = 2 and c = 3)");
+        AbstractSyntaxTree b = compiler.parse("(a = 1 and b = 2) and c = 3");
+        Assert.assertEquals(a, b);
+        Assert.assertEquals(a.hashCode(), b.hashCode());
+        Assert.assertNotEquals(a,
+                compiler.parse("a = 1 and (b = 2 or c = 3)"));
+        Assert.assertEquals(
+                ImmutableList.of(compiler.parse("a = 1"),
+                        compiler.parse("b = 2 or c = 3")),
+                ((ConjunctionTree) compiler
+                        .parse("a = 1 and (b = 2 or c = 3)")).operands());
+    }
+
+    @Test
+    public void testLongConjunctionChains() {
+        Compiler compiler = createCompiler();
+        TriFunction<Object, com.cinchapi.ccl.type.Operator, List<Object>, Boolean> evaluator = (
+                value, operator, values) -> {
+            boolean equal = value.equals(values.get(0));
+            return operator.symbol().equals("=") ? equal : !equal;
+        };
+        int size = 100000;
+        for (String conjunction : ImmutableList.of("and", "or")) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < size; ++i) {
+                if(i > 0) {
+                    sb.append(' ').append(conjunction).append(' ');
+                }
+                sb.append(conjunction.equals("and") ? "a != " : "a = ")
+                        .append(i);
+            }
+            String ccl = sb.toString();
+            ConditionTree tree = (ConditionTree) compiler.parse(ccl);
+            Assert.assertEquals(size,
+                    ((ConjunctionTree) tree).operands().size());
+            Assert.assertEquals(tree, compiler.parse(ccl));
+            Assert.assertEquals(tree.hashCode(),
+                    compiler.parse(ccl).hashCode());
+            Multimap<String, Object> outside = ImmutableMultimap.of("a",
+                    size);
+            Multimap<String, Object> inside = ImmutableMultimap.of("a",
+                    size - 1);
+            boolean and = conjunction.equals("and");
+            Assert.assertEquals(and,
+                    compiler.evaluate(tree, outside, evaluator));
+            Assert.assertEquals(!and,
+                    compiler.evaluate(tree, inside, evaluator));
+            Predicate<Multimap<String, Object>> predicate = compiler
+                    .compile(tree, evaluator);
+            Assert.assertEquals(and, predicate.test(outside));
+            Assert.assertEquals(!and, predicate.test(inside));
+            Assert.assertEquals(4 * size - 1, compiler.tokenize(tree).size());
+            Assert.assertEquals(2 * size - 1, compiler.arrange(tree).size());
+        }
+    }
+
+    @Test
+    public void testDeeplyNestedConjunctions() {
+        Compiler compiler = createCompiler();
+        TriFunction<Object, com.cinchapi.ccl.type.Operator, List<Object>, Boolean> evaluator = (
+                value, operator, values) -> {
+            boolean equal = value.equals(values.get(0));
+            return operator.symbol().equals("=") ? equal : !equal;
+        };
+        // Build a != 0 and (a = 1 or (a != 2 and (a = 3 or ...))), which
+        // alternates conjunctions so none of them can be flattened
+        int depth = 100000;
+        ConditionTree tree = (ConditionTree) compiler
+                .parse("a = " + (depth - 1));
+        for (int i = depth - 2; i >= 0; --i) {
+            ConditionTree leaf = (ConditionTree) compiler
+                    .parse(i % 2 == 0 ? "a != " + i : "a = " + i);
+            tree = i % 2 == 0 ? new AndTree(leaf, tree)
+                    : new OrTree(leaf, tree);
+        }
+        Assert.assertFalse(compiler.evaluate(tree,
+                ImmutableMultimap.of("a", -1), evaluator));
+        Assert.assertTrue(compiler.evaluate(tree,
+                ImmutableMultimap.of("a", depth - 1), evaluator));
+        Assert.assertEquals(2 * depth - 1, compiler.arrange(tree).size());
+        List<Symbol> symbols = compiler.tokenize(tree);
+        Assert.assertEquals(ParenthesisSymbol.LEFT, symbols.get(4));
+        Assert.assertEquals(ParenthesisSymbol.RIGHT,
+                symbols.get(symbols.size() - 1));
+        Assert.assertEquals(tree.hashCode(), tree.hashCode());
+        Assert.assertNotEquals(tree, tree.children().iterator().next());
+    }
+
+    @Test
+    public void testParseAsync() throws Exception {
+        Compiler compiler = createCompiler();
+        String ccl = "a = 1 and (b = 2 or c = 3)";
+        Assert.assertEquals(compiler.parse(ccl),
+                compiler.parseAsync(ccl).get(10, TimeUnit.SECONDS));
+        CompletableFuture<AbstractSyntaxTree> failed = compiler
+                .parseAsync("a = = 1");
+        try {
+            failed.get(10, TimeUnit.SECONDS);
+            Assert.fail();
+        }
+        catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RuntimeException);
+        }
+    }
+
+    @Test
+    public void testParseAll() throws Exception {
+        Compiler compiler = createCompiler();
+        List<String> statements = Lists.newArrayList();
+        for (int i = 0; i < 1000; ++i) {
+            statements.add("a = " + i + " and (b > " + i + " or c < 3)");
+        }
+        ExecutorService executor = Compiler.executor(2, 1);
+        try {
+            List<AbstractSyntaxTree> trees = compiler
+                    .parseAll(statements, executor).get(30, TimeUnit.SECONDS);
+            Assert.assertEquals(statements.size(), trees.size());
+            for (int i = 0; i < statements.size(); ++i) {
+                Assert.assertEquals(compiler.parse(statements.get(i)),
+                        trees.get(i));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(ImmutableList.of(), compiler
+                .parseAll(ImmutableList.of()).get(10, TimeUnit.SECONDS));
+        statements.set(500, "a = = 1");
+        Assert.assertTrue(compiler.parseAll(statements).handle(
+                (trees, error) -> error != null).get(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testExecutorRunsTasksOnCallerWhenFull() throws Exception {
+        ExecutorService executor = Compiler.executor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            executor.execute(() -> {});
+            Thread[] runner = new Thread[1];
+            executor.execute(() -> runner[0] = Thread.currentThread());
+            Assert.assertSame(Thread.currentThread(), runner[0]);
+        }
+        finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testListenerIsNotifiedAboutEachParse() {
+        Compiler compiler = createCompiler();
+        List<CompilerListener.Statistics> parses = Lists.newArrayList();
+        compiler.setListener(new CompilerListener() {
+
+            @Override
+            public void onParse(String ccl, Statistics statistics) {
+                parses.add(statistics);
+            }
+
+        });
+        String ccl = "name = jeff and age > 3";
+        Assert.assertEquals(compiler.parse(ccl), createCompiler().parse(ccl));
+        Assert.assertEquals(1, parses.size());
+        CompilerListener.Statistics statistics = parses.get(0);
+        Assert.assertEquals(7, statistics.tokens());
+        Assert.assertEquals(3, statistics.nodes());
+        Assert.assertEquals(2,
+                statistics.calls(CompilerListener.Phase.VALUE_PARSER));
+        Assert.assertEquals(2,
+                statistics.calls(CompilerListener.Phase.OPERATOR_PARSER));
+        Assert.assertEquals(0,
+                statistics.calls(CompilerListener.Phase.TIMESTAMP));
+        Assert.assertNull(statistics.failure());
+        Assert.assertTrue(statistics.nanos(CompilerListener.Phase.PARSE) > 0);
+        compiler.parse("name = jeff at \"now\"");
+        Assert.assertEquals(1,
+                parses.get(1).calls(CompilerListener.Phase.TIMESTAMP));
+    }
+
+    @Test
+    public void testListenerIsNotifiedAboutFailures() {
+        Compiler compiler = createCompiler();
+        List<CompilerListener.Statistics> failures = Lists.newArrayList();
+        compiler.setListener(new CompilerListener() {
+
+            @Override
+            public void onFailure(String ccl, Statistics statistics,
+                    Throwable reason) {
+                failures.add(statistics);
+            }
+
+            @Override
+            public void onParse(String ccl, Statistics statistics) {
+                Assert.fail();
+            }
+
+        });
+        try {
+            compiler.parse("name = jeff and");
+            Assert.fail();
+        }
+        catch (RuntimeException e) {
+            Assert.assertEquals(1, failures.size());
+            Assert.assertEquals(CompilerListener.Phase.PARSE,
+                    failures.get(0).failure());
+            Assert.assertEquals(0, failures.get(0).nodes());
+        }
+    }
+
+    @Test
+    public void testListenerDefaultsToNoop() {
+        Compiler compiler = createCompiler();
+        Assert.assertSame(CompilerListener.NOOP, compiler.listener());
+        CompilerListener listener = new CompilerListener() {};
+        compiler.setListener(listener);
+        Assert.assertSame(listener, compiler.listener());
+        compiler.setListener(null);
+        Assert.assertSame(CompilerListener.NOOP, compiler.listener());
+    }
+
     protected abstract Compiler createCompiler();
 
     private void doTestAbstractSyntaxTreeGeneration(String ccl) {
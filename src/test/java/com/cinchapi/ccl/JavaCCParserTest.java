@@ -15,6 +15,7 @@
  */
 package com.cinchapi.ccl;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -122,4 +123,72 @@ public class JavaCCParserTest extends AbstractParserTest {
         Assert.assertFalse(parser.evaluate(d));
     }
 
+    @Test
+    public void testLocalEvaluationCachesTreeWithFunctionConditionVariable() {
+        AtomicInteger parsed = new AtomicInteger();
+        Parser parser = Parser.create("a = 1 and b > avg(b, c = $c)",
+                value -> {
+                    parsed.incrementAndGet();
+                    return Convert.stringToJava(value);
+                }, Convert::stringToOperator,
+                (value, operator, values) -> true);
+        Multimap<String, Object> data = ImmutableMultimap.of("a", 1, "b", 2,
+                "c", 3);
+        Assert.assertTrue(parser.evaluate(data));
+        int count = parsed.get();
+        Assert.assertTrue(parser.evaluate(data));
+        Assert.assertTrue(parser.evaluate(
+                ImmutableMultimap.of("a", 2, "b", 4, "c", 3)));
+        Assert.assertEquals(count, parsed.get());
+        Assert.assertTrue(parser.evaluate(
+                ImmutableMultimap.of("a", 1, "b", 2, "c", 4)));
+        Assert.assertTrue(parsed.get() > count);
+    }
+
+    @Test
+    public void testLocalEvaluationDoesNotKeepRelativeTimestamp() {
+        AtomicInteger parsed = new AtomicInteger();
+        Parser parser = Parser.create("a = 1 at 3 seconds ago", value -> {
+            parsed.incrementAndGet();
+            return Convert.stringToJava(value);
+        }, Convert::stringToOperator, (value, operator, values) -> value
+                .equals(values.get(0)));
+        Assert.assertTrue(parser.evaluate(ImmutableMultimap.of("a", 1)));
+        int count = parsed.get();
+        Assert.assertTrue(parser.evaluate(ImmutableMultimap.of("a", 1)));
+        Assert.assertTrue(parsed.get() > count);
+    }
+
+    @Test
+    public void testLocalEvaluationKeepsDeferredTree() {
+        AtomicInteger parsed = new AtomicInteger();
+        Parser parser = Parser.create("b = $a and c = 1", value -> {
+            parsed.incrementAndGet();
+            return Convert.stringToJava(value);
+        }, Convert::stringToOperator, (value, operator, values) -> value
+                .equals(values.get(0)));
+        Assert.assertTrue(parser.evaluate(
+                ImmutableMultimap.of("a", 1, "b", 1, "c", 1)));
+        int count = parsed.get();
+        Assert.assertFalse(parser.evaluate(
+                ImmutableMultimap.of("a", 1, "b", 2, "c", 1)));
+        // Only the value of the variable is parsed
+        Assert.assertEquals(count + 1, parsed.get());
+    }
+
+    @Test
+    public void testLocalEvaluationOnlyResolvesVariablesThatAreReached() {
+        Parser parser = Parser.create("a = 1 or b = $missing",
+                Convert::stringToJava, Convert::stringToOperator,
+                (value, operator, values) -> value.equals(values.get(0)));
+        Assert.assertTrue(parser.evaluate(ImmutableMultimap.of("a", 1)));
+        try {
+            parser.evaluate(ImmutableMultimap.of("a", 2, "b", 1));
+            Assert.fail();
+        }
+        catch (SyntaxException e) {
+            Assert.assertTrue(e.getMessage().contains("$missing"));
+        }
+    }
+
 }
\ No newline at end of file
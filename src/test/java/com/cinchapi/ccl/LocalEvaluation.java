@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.junit.Assert;
+
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.common.function.TriFunction;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+
+/**
+ * Utilities for tests that evaluate statements against local data.
+ *
+ * @author Jeff Nelson
+ */
+final class LocalEvaluation {
+
+    /**
+     * An evaluator that compares numbers by value and compares anything else
+     * by its string form, which only supports equality and {@code regex}.
+     */
+    static final TriFunction<Object, Operator, List<Object>, Boolean> EVALUATOR = (
+            value, operator, values) -> {
+        if(operator.symbol().equals("regex")) {
+            return value.toString().matches(values.get(0).toString());
+        }
+        else if(!(value instanceof Number)
+                || !(values.get(0) instanceof Number)) {
+            boolean equal = value.toString().equals(values.get(0).toString());
+            switch (operator.symbol()) {
+            case "=":
+                return equal;
+            case "!=":
+                return !equal;
+            default:
+                return false;
+            }
+        }
+        double actual = ((Number) value).doubleValue();
+        double expected = ((Number) values.get(0)).doubleValue();
+        switch (operator.symbol()) {
+        case "=":
+            return actual == expected;
+        case "!=":
+            return actual != expected;
+        case ">":
+            return actual > expected;
+        case ">=":
+            return actual >= expected;
+        case "<":
+            return actual < expected;
+        case "<=":
+            return actual <= expected;
+        case "><":
+            return actual >= expected
+                    && actual < ((Number) values.get(1)).doubleValue();
+        default:
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    /**
+     * Assert that the {@code predicate} returns the same result as
+     * {@link Compiler#evaluate(ConditionTree, Multimap, TriFunction)
+     * evaluating} the {@code tree} with the {@link #EVALUATOR} for each of the
+     * {@code datasets}.
+     *
+     * @param compiler
+     * @param tree
+     * @param predicate
+     * @param datasets
+     */
+    static void assertSameResults(Compiler compiler, ConditionTree tree,
+            Predicate<Multimap<String, Object>> predicate,
+            Iterable<Multimap<String, Object>> datasets) {
+        for (Multimap<String, Object> dataset : datasets) {
+            Assert.assertEquals(compiler.tokenize(tree) + " " + dataset,
+                    compiler.evaluate(tree, dataset, EVALUATOR),
+                    predicate.test(dataset));
+        }
+    }
+
+    /**
+     * Return {@code count} pseudo random datasets where each of the
+     * {@code keys} has between one and {@code maxValues} integers that are
+     * less than {@code bound}.
+     *
+     * @param seed
+     * @param count
+     * @param maxValues
+     * @param bound
+     * @param keys
+     * @return the datasets
+     */
+    static List<Multimap<String, Object>> datasets(long seed, int count,
+            int maxValues, int bound, String... keys) {
+        Random random = new Random(seed);
+        List<Multimap<String, Object>> datasets = Lists
+                .newArrayListWithCapacity(count);
+        for (int i = 0; i < count; ++i) {
+            ImmutableListMultimap.Builder<String, Object> builder = ImmutableListMultimap
+                    .builder();
+            for (String key : keys) {
+                for (int j = random.nextInt(maxValues); j >= 0; --j) {
+                    builder.put(key, random.nextInt(bound));
+                }
+            }
+            datasets.add(builder.build());
+        }
+        return datasets;
+    }
+
+    private LocalEvaluation() {/* noop */}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Unit tests for {@link MethodHandlePredicate} and
+ * {@link SpecializingPredicate}.
+ *
+ * @author Jeff Nelson
+ */
+public class MethodHandlePredicateTest {
+
+    /**
+     * The {@link Compiler} to use in the tests.
+     */
+    private final Compiler compiler = Compiler.create(Convert::stringToJava,
+            Convert::stringToOperator);
+
+    @Test
+    public void testSameResultsAsEvaluate() {
+        List<Multimap<String, Object>> datasets = ImmutableList.of(
+                ImmutableMultimap.of("a", 5, "b", 12, "c", 4, "a", -1),
+                ImmutableMultimap.of("a", 1, "b", 12, "c", 4, "a", -1),
+                ImmutableMultimap.of("a", 2, "c", 4, "a", -1),
+                ImmutableMultimap.of("a", 1, "c", 4, "a", -1),
+                ImmutableMultimap.of("b", 2, "c", 3), ImmutableMultimap.of());
+        for (String ccl : ImmutableList.of("a > 1 AND b bw 10 15",
+                "a > 1 OR b bw 10 15", "(a > 1 or b = 2) and c = 4",
+                "c = 3 and (a = 1 or b > 1)", "a = 1",
+                "a < 0 or b > 1 or c = 3 and a > 4")) {
+            ConditionTree tree = (ConditionTree) compiler.parse(ccl);
+            LocalEvaluation.assertSameResults(compiler, tree,
+                    new MethodHandlePredicate(compiler, tree,
+                            LocalEvaluation.EVALUATOR),
+                    datasets);
+        }
+    }
+
+    @Test
+    public void testVariablesAreResolvedFromData() {
+        ConditionTree tree = (ConditionTree) compiler
+                .prepare("age > $min and b = 1").bind();
+        Predicate<Multimap<String, Object>> predicate = compiler.compile(tree,
+                LocalEvaluation.EVALUATOR, 0);
+        Assert.assertTrue(predicate.test(
+                ImmutableMultimap.of("age", 40, "min", 30, "b", 1)));
+        Assert.assertFalse(predicate.test(
+                ImmutableMultimap.of("age", 20, "min", 30, "b", 1)));
+    }
+
+    @Test
+    public void testSpecializedAfterThreshold() {
+        ConditionTree tree = (ConditionTree) compiler.parse("a = 1 or b = 2");
+        Predicate<Multimap<String, Object>> predicate = compiler.compile(tree,
+                LocalEvaluation.EVALUATOR, 3);
+        Assert.assertTrue(predicate instanceof SpecializingPredicate);
+        Multimap<String, Object> dataset = ImmutableMultimap.of("b", 2);
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertTrue(predicate.test(dataset));
+            Assert.assertFalse(
+                    ((SpecializingPredicate) predicate).isSpecialized());
+        }
+        Assert.assertTrue(predicate.test(dataset));
+        Assert.assertTrue(((SpecializingPredicate) predicate).isSpecialized());
+        Assert.assertFalse(predicate.test(ImmutableMultimap.of("b", 1)));
+    }
+
+    @Test
+    public void testZeroThresholdSpecializesImmediately() {
+        ConditionTree tree = (ConditionTree) compiler.parse("a = 1");
+        Assert.assertTrue(compiler.compile(tree, LocalEvaluation.EVALUATOR,
+                0) instanceof MethodHandlePredicate);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeThreshold() {
+        ConditionTree tree = (ConditionTree) compiler.parse("a = 1");
+        compiler.compile(tree, LocalEvaluation.EVALUATOR, -1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testEvaluatorExceptionIsPropagated() {
+        ConditionTree tree = (ConditionTree) compiler.parse("a like 1");
+        new MethodHandlePredicate(compiler, tree, LocalEvaluation.EVALUATOR)
+                .test(ImmutableMultimap.of("a", 1));
+    }
+
+}
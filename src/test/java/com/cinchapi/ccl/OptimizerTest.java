@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
+
+/**
+ * Unit tests for {@link Optimizer} and {@link Compiler#optimize}.
+ *
+ * @author Jeff Nelson
+ */
+public class OptimizerTest {
+
+    /**
+     * The {@link Compiler} to use in the tests.
+     */
+    private final Compiler compiler = Compiler.create(Convert::stringToJava,
+            Convert::stringToOperator);
+
+    @Test
+    public void testDuplicatesAreRemoved() {
+        assertOptimized("a = 1", "a = 1 or a = 1");
+        assertOptimized("a = 1 and b = 2", "a = 1 and (b = 2 and a = 1)");
+        assertOptimized("(a = 1 or b = 2) and c = 3",
+                "(a = 1 or b = 2) and c = 3 and (b = 2 or a = 1)");
+    }
+
+    @Test
+    public void testAbsorption() {
+        assertOptimized("a = 1", "a = 1 or (a = 1 and b = 2)");
+        assertOptimized("a = 1", "(a = 1 or b = 2) and a = 1");
+        assertOptimized("a = 1 and b = 2 or c = 3",
+                "(a = 1 and b = 2) or c = 3 or (b = 2 and c = 4 and a = 1)");
+    }
+
+    @Test
+    public void testNestedConjunctionsAreFlattened() {
+        assertOptimized("a = 1 and b = 2 and c = 3 and d = 4",
+                "a = 1 and (b = 2 and (c = 3 and d = 4))");
+    }
+
+    @Test
+    public void testContradictionRequiresSingleValuedKey() {
+        assertOptimized("a = 1 and a = 2", "a = 1 and a = 2");
+        Assert.assertTrue(optimize("a = 1 and a = 2", "a").isAlwaysFalse());
+        Assert.assertTrue(optimize("a > 5 and b = 1 and a <= 5", "a")
+                .isAlwaysFalse());
+        Assert.assertTrue(optimize("a = 1 and a != 1", "a").isAlwaysFalse());
+        Assert.assertFalse(optimize("a = 1 and b = 2", "a").isAlwaysFalse());
+    }
+
+    @Test
+    public void testConstantsAreFolded() {
+        Assert.assertTrue(optimize("a = 1 or a != 1", "a").isAlwaysTrue());
+        assertOptimized("b = 2", "(a = 1 and a = 2) or b = 2", "a");
+        assertOptimized("c = 3", "(a > 1 or a <= 1) and c = 3", "a");
+        Assert.assertTrue(optimize("(a = 1 and a = 2) or (a < 0 and a > 0)",
+                "a").isAlwaysFalse());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testConstantHasNoTree() {
+        optimize("a = 1 and a = 2", "a").tree();
+    }
+
+    @Test
+    public void testOptimizedTreeIsEquivalent() {
+        List<String> statements = ImmutableList.of(
+                "a = 1 or (a = 1 and b = 2) or (b = 2 and (c = 3 or a = 1))",
+                "(a > 1 or b < 2) and (b < 2 or a > 1) and c = 1",
+                "a = 1 and a != 1 or b = 2 and (b = 2 or c = 3)",
+                "(a = 1 and a = 2) or (a > 1 and b = 1) or b = 1");
+        String[] keys = { "a", "b", "c" };
+        List<Multimap<String, Object>> singleValued = LocalEvaluation
+                .datasets(3, 500, 1, 4, keys);
+        List<Multimap<String, Object>> multiValued = LocalEvaluation
+                .datasets(5, 500, 2, 4, keys);
+        for (String ccl : statements) {
+            ConditionTree tree = (ConditionTree) compiler.parse(ccl);
+            Optimization single = compiler.optimize(tree,
+                    ImmutableSet.copyOf(keys));
+            LocalEvaluation.assertSameResults(compiler, tree,
+                    dataset -> evaluate(single, dataset), singleValued);
+            Optimization multi = compiler.optimize(tree);
+            LocalEvaluation.assertSameResults(compiler, tree,
+                    dataset -> evaluate(multi, dataset), multiValued);
+        }
+    }
+
+    /**
+     * Assert that optimizing the {@code ccl} produces the same tree as parsing
+     * the {@code expected} statement.
+     *
+     * @param expected
+     * @param ccl
+     * @param singleValuedKeys
+     */
+    private void assertOptimized(String expected, String ccl,
+            String... singleValuedKeys) {
+        Assert.assertEquals(
+                compiler.tokenize(compiler.parse(expected)).toString(),
+                compiler.tokenize(optimize(ccl, singleValuedKeys).tree())
+                        .toString());
+    }
+
+    /**
+     * Return the {@link Optimization} of the {@code ccl}.
+     *
+     * @param ccl
+     * @param singleValuedKeys
+     * @return the {@link Optimization}
+     */
+    private Optimization optimize(String ccl, String... singleValuedKeys) {
+        return compiler.optimize((ConditionTree) compiler.parse(ccl),
+                ImmutableSet.copyOf(singleValuedKeys));
+    }
+
+    /**
+     * Evaluate the {@code optimization} against the {@code dataset}.
+     *
+     * @param optimization
+     * @param dataset
+     * @return the result
+     */
+    private boolean evaluate(Optimization optimization,
+            Multimap<String, Object> dataset) {
+        if(optimization.isAlwaysTrue()) {
+            return true;
+        }
+        else if(optimization.isAlwaysFalse()) {
+            return false;
+        }
+        else {
+            return compiler.evaluate(optimization.tree(), dataset, LocalEvaluation.EVALUATOR);
+        }
+    }
+
+}
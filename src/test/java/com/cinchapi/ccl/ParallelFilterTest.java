@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.common.function.TriFunction;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+
+/**
+ * Unit tests for {@link ParallelFilter} and the {@code filter} methods in
+ * {@link Compiler}.
+ *
+ * @author Jeff Nelson
+ */
+public class ParallelFilterTest {
+
+    /**
+     * The {@link Compiler} to use in the tests.
+     */
+    private final Compiler compiler = Compiler.create(Convert::stringToJava,
+            Convert::stringToOperator);
+
+    @Test
+    public void testFilterReturnsMatchesInOrder() {
+        List<Multimap<String, Object>> records = records(10000);
+        ConditionTree tree = (ConditionTree) compiler
+                .parse("a > 10 and b = 3 or a < 2");
+        List<Multimap<String, Object>> expected = records.stream()
+                .filter(record -> compiler.evaluate(tree, record, LocalEvaluation.EVALUATOR))
+                .collect(Collectors.toList());
+        List<Multimap<String, Object>> actual = compiler.filter(tree,
+                records.spliterator(), () -> LocalEvaluation.EVALUATOR, true,
+                new ForkJoinPool(4));
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testUnorderedFilterReturnsSameMatches() {
+        List<Multimap<String, Object>> records = records(10000);
+        ConditionTree tree = (ConditionTree) compiler.parse("a = 7 or b > 4");
+        List<Multimap<String, Object>> expected = records.stream()
+                .filter(record -> compiler.evaluate(tree, record, LocalEvaluation.EVALUATOR))
+                .collect(Collectors.toList());
+        List<Multimap<String, Object>> actual = compiler.filter(tree,
+                records.stream().spliterator(), () -> LocalEvaluation.EVALUATOR, false);
+        Assert.assertEquals(expected.size(), actual.size());
+        Assert.assertEquals(Sets.newHashSet(expected),
+                Sets.newHashSet(actual));
+    }
+
+    @Test
+    public void testFilterMap() {
+        Map<Long, Multimap<String, Object>> records = Maps.newLinkedHashMap();
+        List<Multimap<String, Object>> data = records(5000);
+        for (int i = 0; i < data.size(); ++i) {
+            records.put((long) (data.size() - i), data.get(i));
+        }
+        ConditionTree tree = (ConditionTree) compiler.parse("b = 2");
+        Map<Long, Multimap<String, Object>> filtered = compiler.filter(tree,
+                records, () -> LocalEvaluation.EVALUATOR);
+        List<Long> expected = records.entrySet().stream()
+                .filter(entry -> compiler.evaluate(tree, entry.getValue(),
+                        LocalEvaluation.EVALUATOR))
+                .map(Map.Entry::getKey).collect(Collectors.toList());
+        Assert.assertEquals(expected, Lists.newArrayList(filtered.keySet()));
+    }
+
+    @Test
+    public void testEachWorkerHasItsOwnEvaluator() {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        Set<Object> evaluators = ConcurrentHashMap.newKeySet();
+        List<Multimap<String, Object>> records = records(20000);
+        compiler.filter((ConditionTree) compiler.parse("a = 1"),
+                records.spliterator(), () -> {
+                    Thread owner = Thread.currentThread();
+                    TriFunction<Object, Operator, List<Object>, Boolean> evaluator = (
+                            value, operator, values) -> {
+                        Assert.assertSame(owner, Thread.currentThread());
+                        return LocalEvaluation.EVALUATOR.apply(value, operator, values);
+                    };
+                    threads.add(owner);
+                    evaluators.add(evaluator);
+                    return evaluator;
+                }, true, new ForkJoinPool(4));
+        Assert.assertEquals(threads.size(), evaluators.size());
+    }
+
+    /**
+     * Return {@code count} records with pseudo random values for the keys
+     * {@code a} and {@code b}.
+     *
+     * @param count
+     * @return the records
+     */
+    private static List<Multimap<String, Object>> records(int count) {
+        List<Multimap<String, Object>> records = Lists
+                .newArrayListWithCapacity(count);
+        for (int i = 0; i < count; ++i) {
+            records.add(ImmutableMultimap.of("a", (i * 31) % 17, "b", i % 7,
+                    "id", i));
+        }
+        return records;
+    }
+
+}
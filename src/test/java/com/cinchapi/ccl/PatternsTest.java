@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cinchapi.concourse.util.Convert;
+
+/**
+ * Unit tests for {@link Patterns}.
+ *
+ * @author Jeff Nelson
+ */
+public class PatternsTest {
+
+    @Test
+    public void testPatternsAreCached() {
+        Assert.assertSame(Patterns.regex("a.*b"), Patterns.regex("a.*b"));
+        Assert.assertSame(Patterns.like("a%b"), Patterns.like("a%b"));
+        Assert.assertNotSame(Patterns.regex("a%b"), Patterns.like("a%b"));
+    }
+
+    @Test
+    public void testLike() {
+        Assert.assertTrue(Patterns.like("%email.com%")
+                .matcher("jeff@email.com").matches());
+        Assert.assertFalse(Patterns.like("email.com%")
+                .matcher("jeff@email.com").matches());
+        Assert.assertTrue(Patterns.like("(?i:%jeff%)")
+                .matcher("Mr JEFF Nelson").matches());
+        Assert.assertFalse(Patterns.like("(?i:%jeff%)")
+                .matcher("Mr Jef Nelson").matches());
+        Assert.assertTrue(
+                Patterns.like("user_name").matcher("user_name").matches());
+        Assert.assertFalse(
+                Patterns.like("user_name").matcher("userXname").matches());
+    }
+
+    @Test(expected = PatternSyntaxException.class)
+    public void testInvalidLike() {
+        Patterns.like("%a(%");
+    }
+
+    @Test
+    public void testOf() {
+        Assert.assertSame(Patterns.regex("a+"),
+                Patterns.of(Convert.stringToOperator("nregex"), "a+"));
+        Assert.assertSame(Patterns.like("a%"),
+                Patterns.of(Convert.stringToOperator("like"), "a%"));
+        Assert.assertNull(Patterns.of(Convert.stringToOperator("="), "a"));
+    }
+
+    @Test(expected = PatternSyntaxException.class)
+    public void testInvalidRegex() {
+        Patterns.regex("a(");
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.grammar.VariableSymbol;
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.cinchapi.ccl.syntax.AndTree;
+import com.cinchapi.ccl.syntax.CommandTree;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.common.function.TriFunction;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableMultimap;
+
+/**
+ * Unit tests for {@link PreparedStatement}.
+ *
+ * @author Jeff Nelson
+ */
+public class PreparedStatementTest {
+
+    /**
+     * The {@link Compiler} to use in the tests.
+     */
+    private final Compiler compiler = Compiler.create(Convert::stringToJava,
+            Convert::stringToOperator);
+
+    @Test
+    public void testBindMatchesParse() {
+        PreparedStatement statement = compiler
+                .prepare("name = ? and age > ?");
+        Assert.assertEquals(2, statement.parameters());
+        assertSameTree("name = jeff and age > 30",
+                statement.bind("jeff", 30));
+        assertSameTree("name = bob and age > 100",
+                statement.bind("bob", 100));
+    }
+
+    @Test
+    public void testBindMultipleValuesForOneExpression() {
+        PreparedStatement statement = compiler.prepare("age bw ? ? or a = 1");
+        Assert.assertEquals(2, statement.parameters());
+        assertSameTree("age bw 10 20 or a = 1", statement.bind(10, 20));
+    }
+
+    @Test
+    public void testBindCommand() {
+        PreparedStatement statement = compiler
+                .prepare("a = ? order by name page 2 size 3");
+        AbstractSyntaxTree tree = statement.bind(1);
+        Assert.assertTrue(tree instanceof CommandTree);
+        assertSameTree("a = 1 order by name page 2 size 3", tree);
+    }
+
+    @Test
+    public void testBoundValuesAreNotParsed() {
+        AbstractSyntaxTree tree = compiler.prepare("a = ?").bind("30");
+        Assert.assertEquals("30",
+                ((ExpressionSymbol) tree.root()).values().get(0).value());
+    }
+
+    @Test
+    public void testUnchangedSubtreesAreReused() {
+        PreparedStatement statement = compiler.prepare("a = 1 and b = ?");
+        AndTree first = (AndTree) statement.bind(2);
+        AndTree second = (AndTree) statement.bind(3);
+        Assert.assertSame(first.left(), second.left());
+        Assert.assertNotSame(first.right(), second.right());
+    }
+
+    @Test
+    public void testNoParameters() {
+        PreparedStatement statement = compiler.prepare("a = 1");
+        Assert.assertEquals(0, statement.parameters());
+        assertSameTree("a = 1", statement.bind());
+    }
+
+    @Test
+    public void testQuotedQuestionMarkIsNotParameter() {
+        PreparedStatement statement = compiler.prepare("a = '?'");
+        Assert.assertEquals(0, statement.parameters());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBindWrongNumberOfValues() {
+        compiler.prepare("name = ? and age > ?").bind("jeff");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBindNullValue() {
+        compiler.prepare("name = ?").bind((Object) null);
+    }
+
+    @Test(expected = SyntaxException.class)
+    public void testParameterInFunctionConditionIsSyntaxException() {
+        compiler.prepare("age > avg(age, age < ?)");
+    }
+
+    @Test
+    public void testVariablesAreDeferred() {
+        PreparedStatement statement = compiler
+                .prepare("age > $min and name = ?");
+        AbstractSyntaxTree tree = statement.bind("jeff");
+        Assert.assertEquals(new VariableSymbol("min"),
+                ((ExpressionSymbol) ((AndTree) tree).left().root()).values()
+                        .get(0));
+        assertSameTree("age > 30 and name = jeff",
+                statement.bind(ImmutableMultimap.of("min", 30), "jeff"));
+        assertSameTree("age > 50 and name = bob",
+                statement.bind(ImmutableMultimap.of("min", 50), "bob"));
+    }
+
+    @Test
+    public void testVariablesAreResolvedWhenPreparedIfPossible() {
+        PreparedStatement statement = compiler.prepare("age > $min",
+                ImmutableMultimap.of("min", 30));
+        assertSameTree("age > 30", statement.bind());
+    }
+
+    @Test(expected = SyntaxException.class)
+    public void testBindMissingVariable() {
+        compiler.prepare("age > $min").bind(ImmutableMultimap.of("max", 30));
+    }
+
+    @Test(expected = SyntaxException.class)
+    public void testBindVariableWithMultipleValues() {
+        compiler.prepare("age > $min")
+                .bind(ImmutableMultimap.of("min", 30, "min", 40));
+    }
+
+    @Test
+    public void testEvaluateResolvesVariables() {
+        ConditionTree tree = (ConditionTree) compiler.prepare("age > $min")
+                .bind();
+        TriFunction<Object, Operator, List<Object>, Boolean> evaluator = (value,
+                operator, values) -> (int) value > (int) values.get(0);
+        Assert.assertTrue(compiler.evaluate(tree,
+                ImmutableMultimap.of("age", 40, "min", 30), evaluator));
+        Assert.assertFalse(compiler.evaluate(tree,
+                ImmutableMultimap.of("age", 20, "min", 30), evaluator));
+    }
+
+    @Test
+    public void testPrepareWithEachEngine() {
+        for (Compiler.Engine engine : Compiler.Engine.values()) {
+            Compiler compiler = Compiler.create(Convert::stringToJava,
+                    Convert::stringToOperator, engine);
+            PreparedStatement statement = compiler
+                    .prepare("age > $min and name = ? or b = ?");
+            Assert.assertEquals(engine.toString(), 2, statement.parameters());
+            assertSameTree("age > 30 and name = jeff or b = 1", statement
+                    .bind(ImmutableMultimap.of("min", 30), "jeff", 1));
+        }
+    }
+
+    @Test
+    public void testPrepareNotifiesListener() {
+        Compiler compiler = Compiler.create(Convert::stringToJava,
+                Convert::stringToOperator);
+        List<String> parsed = new ArrayList<>();
+        compiler.setListener(new CompilerListener() {
+
+            @Override
+            public void onParse(String ccl, Statistics statistics) {
+                parsed.add(ccl);
+            }
+
+        });
+        Compiler.cache(compiler, 10).prepare("name = ? and age > $min");
+        Assert.assertEquals(Collections.singletonList("name = ? and age > $min"),
+                parsed);
+    }
+
+    @Test
+    public void testPrepareIsNotCached() {
+        CachingCompiler cache = Compiler.cache(compiler, 10);
+        PreparedStatement statement = cache.prepare("a = ?");
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(1, statement.parameters());
+        Assert.assertEquals(1, cache.prepare("a = ?").parameters());
+    }
+
+    /**
+     * Assert that {@code actual} is the same tree that is produced by parsing
+     * {@code ccl}.
+     *
+     * @param ccl
+     * @param actual
+     */
+    private void assertSameTree(String ccl, AbstractSyntaxTree actual) {
+        AbstractSyntaxTree expected = compiler.parse(ccl);
+        Assert.assertEquals(expected.getClass(), actual.getClass());
+        Assert.assertEquals(compiler.tokenize(expected).toString(),
+                compiler.tokenize(actual).toString());
+    }
+
+}
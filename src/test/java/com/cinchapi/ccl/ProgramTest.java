@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cinchapi.ccl.grammar.VariableSymbol;
+import com.cinchapi.ccl.syntax.AndTree;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.syntax.OrTree;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Unit tests for {@link Program}.
+ *
+ * @author Jeff Nelson
+ */
+public class ProgramTest {
+
+    /**
+     * The {@link Compiler} to use in the tests.
+     */
+    private final Compiler compiler = Compiler.create(Convert::stringToJava,
+            Convert::stringToOperator);
+
+    @Test
+    public void testSameResultsAsEvaluate() {
+        List<String> statements = ImmutableList.of("a = 1",
+                "a = 1 and b = 2 or c = 3",
+                "a = 1 and (b = 2 or c = 3) and a != 2",
+                "(a > 1 or b < 2) and (c = 1 or (a = 2 and b != 3))",
+                "a = 1 or b = 2 or c = 3 or a = 3",
+                "a < 3 and b = $c");
+        List<Multimap<String, Object>> datasets = LocalEvaluation.datasets(11,
+                300, 2, 4, "a", "b", "c");
+        for (String ccl : statements) {
+            ConditionTree tree = (ConditionTree) compiler.prepare(ccl).bind();
+            Program program = compiler.assemble(tree);
+            // A variable must resolve to exactly one value
+            LocalEvaluation.assertSameResults(compiler, tree,
+                    dataset -> compiler.evaluate(program, dataset,
+                            LocalEvaluation.EVALUATOR),
+                    ccl.contains("$") ? datasets.stream()
+                            .filter(dataset -> dataset.get("c").size() == 1)
+                            .collect(Collectors.toList()) : datasets);
+        }
+    }
+
+    @Test
+    public void testTimestamps() {
+        Program program = compiler.assemble((ConditionTree) compiler
+                .parse("a = 1 at 1602080000000000 and b = 2"));
+        Assert.assertEquals(1602080000000000L, program.timestamp(0));
+        Assert.assertEquals(0, program.timestamp(1));
+        Assert.assertNotEquals(program, compiler.assemble(
+                (ConditionTree) compiler.parse("a = 1 and b = 2")));
+    }
+
+    @Test
+    public void testLayout() {
+        Program program = compiler.assemble((ConditionTree) compiler
+                .parse("a = 1 and (b = 2 or a = 3) and a = 1"));
+        Assert.assertEquals(4, program.expressions());
+        Assert.assertEquals(14, program.length());
+        Assert.assertEquals("a", program.key(2));
+        Assert.assertEquals("=", program.operator(1).symbol());
+        Assert.assertEquals(ImmutableList.of(3), program.values(2));
+        Assert.assertEquals(
+                String.join(System.lineSeparator(), "0: TEST a = [1]",
+                        "2: JUMP_IF_FALSE 14", "4: TEST b = [2]",
+                        "6: JUMP_IF_TRUE 10", "8: TEST a = [3]",
+                        "10: JUMP_IF_FALSE 14", "12: TEST a = [1]", ""),
+                program.toString());
+    }
+
+    @Test
+    public void testVariablesAreResolvedFromTheData() {
+        Program program = compiler.assemble(
+                (ConditionTree) compiler.prepare("a = $b").bind());
+        Assert.assertTrue(program.hasVariables(0));
+        Assert.assertTrue(program.values(0).get(0) instanceof VariableSymbol);
+        Assert.assertTrue(compiler.evaluate(program,
+                ImmutableMultimap.of("a", 2, "b", 2), LocalEvaluation.EVALUATOR));
+        Assert.assertFalse(compiler.evaluate(program,
+                ImmutableMultimap.of("a", 2, "b", 3), LocalEvaluation.EVALUATOR));
+    }
+
+    @Test
+    public void testDeeplyNestedConjunctions() {
+        // a != 0 and (a = 1 or (a != 2 and (a = 3 or ...)))
+        int depth = 100000;
+        ConditionTree tree = (ConditionTree) compiler
+                .parse("a = " + (depth - 1));
+        for (int i = depth - 2; i >= 0; --i) {
+            ConditionTree leaf = (ConditionTree) compiler
+                    .parse(i % 2 == 0 ? "a != " + i : "a = " + i);
+            tree = i % 2 == 0 ? new AndTree(leaf, tree)
+                    : new OrTree(leaf, tree);
+        }
+        Program program = compiler.assemble(tree);
+        Assert.assertEquals(depth, program.expressions());
+        Assert.assertFalse(compiler.evaluate(program,
+                ImmutableMultimap.of("a", -1), LocalEvaluation.EVALUATOR));
+        Assert.assertTrue(compiler.evaluate(program,
+                ImmutableMultimap.of("a", depth - 1), LocalEvaluation.EVALUATOR));
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
+
+/**
+ * Unit tests for {@link RangeFusion}.
+ *
+ * @author Jeff Nelson
+ */
+public class RangeFusionTest {
+
+    /**
+     * The {@link Compiler} to use in the tests.
+     */
+    private final Compiler compiler = Compiler.create(Convert::stringToJava,
+            Convert::stringToOperator);
+
+    @Test
+    public void testSameResultsAsEvaluate() {
+        List<Multimap<String, Object>> datasets = ImmutableList.of(
+                ImmutableListMultimap.of("age", 30),
+                ImmutableListMultimap.of("age", 17, "age", 70),
+                ImmutableListMultimap.of("age", 25.5, "name", "jeff"),
+                ImmutableListMultimap.of("age", "thirty", "name", "ashleah"),
+                ImmutableListMultimap.of("age", 65, "age", 18),
+                ImmutableListMultimap.of("name", "jeff"),
+                ImmutableListMultimap.of());
+        List<String> statements = ImmutableList.of(
+                "age > 18 and age < 65 and age != 30 and age bw 20 70",
+                "age = 17 or age >= 65 or age <= 18",
+                "age > 18 and age < 65 and name = jeff",
+                "(age > 18 and age < 65) or (age = 17 and age = 70)",
+                "age != 30 or age = thirty", "age bw 70 20 or age = 30",
+                "age > 20 and (name = jeff or age < 10) and age <= 25.5");
+        List<Multimap<String, Object>> random = LocalEvaluation.datasets(7,
+                200, 3, 90, "age");
+        for (String ccl : statements) {
+            ConditionTree tree = (ConditionTree) compiler.parse(ccl);
+            Predicate<Multimap<String, Object>> predicate = compiler
+                    .compileWithRangeFusion(tree, LocalEvaluation.EVALUATOR);
+            LocalEvaluation.assertSameResults(compiler, tree, predicate,
+                    datasets);
+            LocalEvaluation.assertSameResults(compiler, tree, predicate,
+                    random);
+        }
+    }
+
+    @Test
+    public void testIntervalsContains() {
+        RangeSet<Double> range = TreeRangeSet.create();
+        range.add(Range.lessThan(0.0));
+        range.add(Range.closedOpen(1.0, 2.0));
+        range.add(Range.openClosed(3.0, 4.0));
+        range.add(Range.singleton(5.0));
+        range.add(Range.greaterThan(6.0));
+        RangeFusion.Intervals intervals = new RangeFusion.Intervals(range);
+        for (double value : new double[] { -10, -0.5, 0, 0.5, 1, 1.5, 2, 3,
+                3.5, 4, 4.5, 5, 5.5, 6, 7, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY }) {
+            Assert.assertEquals(String.valueOf(value), range.contains(value),
+                    intervals.contains(value));
+        }
+        Assert.assertFalse(
+                new RangeFusion.Intervals(ImmutableRangeSet.of()).contains(1));
+    }
+
+    @Test
+    public void testRange() {
+        Assert.assertEquals(ImmutableRangeSet.of(Range.closedOpen(20.0, 70.0)),
+                RangeFusion.range(Convert.stringToOperator("bw"),
+                        ImmutableList.of(20, 70)));
+        Assert.assertNull(RangeFusion.range(Convert.stringToOperator("="),
+                ImmutableList.of("jeff")));
+        Assert.assertNull(RangeFusion.range(Convert.stringToOperator("regex"),
+                ImmutableList.of(1)));
+        Assert.assertNull(RangeFusion.range(Convert.stringToOperator("="),
+                ImmutableList.of(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testAnalysisRanges() {
+        Map<String, RangeSet<Double>> ranges = ranges(
+                "age > 18 and age < 65 and age != 30 and (score bw 1 5 or score = 10) and name = jeff and height > 6 and height = tall");
+        Assert.assertEquals(ImmutableList.of("age", "score"),
+                ImmutableList.copyOf(ranges.keySet()));
+        Assert.assertEquals(
+                ImmutableRangeSet.<Double> builder()
+                        .add(Range.open(18.0, 30.0))
+                        .add(Range.open(30.0, 65.0)).build(),
+                ranges.get("age"));
+        Assert.assertEquals(
+                ImmutableRangeSet.<Double> builder()
+                        .add(Range.closedOpen(1.0, 5.0))
+                        .add(Range.singleton(10.0)).build(),
+                ranges.get("score"));
+    }
+
+    @Test
+    public void testAnalysisRangesIntersectUnderAnd() {
+        Assert.assertEquals(
+                ImmutableMap.of("age",
+                        ImmutableRangeSet.of(Range.open(18.0, 65.0))),
+                ranges("age > 18 and age < 65"));
+        Assert.assertEquals(
+                ImmutableMap.of("age",
+                        ImmutableRangeSet.<Double> builder()
+                                .add(Range.closedOpen(20.0, 30.0))
+                                .add(Range.open(30.0, 65.0)).build()),
+                ranges("age > 18 and age < 65 and age != 30 and age bw 20 70"));
+        Assert.assertEquals(ImmutableMap.of("age", ImmutableRangeSet.of()),
+                ranges("age > 65 and age < 18"));
+    }
+
+    @Test
+    public void testAnalysisRangesUniteUnderOr() {
+        Assert.assertEquals(ImmutableMap.of("age",
+                ImmutableRangeSet.<Double> builder()
+                        .add(Range.lessThan(5.0))
+                        .add(Range.greaterThan(18.0)).build()),
+                ranges("(age > 18 and score = 1) or age < 5"));
+        Assert.assertEquals(ImmutableMap.of(),
+                ranges("age > 18 or score = 1"));
+    }
+
+    @Test
+    public void testAnalysisRangesIgnoreHistoricalExpressions() {
+        Assert.assertEquals(
+                ImmutableMap.of("age",
+                        ImmutableRangeSet.of(Range.lessThan(10.0))),
+                ranges("age > 18 at 1602080000000000 and age < 10"));
+    }
+
+    /**
+     * Return the {@link StatementAnalysis#ranges() ranges} of the {@code ccl}.
+     *
+     * @param ccl
+     * @return the ranges
+     */
+    private Map<String, RangeSet<Double>> ranges(String ccl) {
+        return compiler.analyze((ConditionTree) compiler.parse(ccl)).ranges();
+    }
+
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.common.function.TriFunction;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+
+/**
+ * Unit tests for {@link SpecializedExpression} and
+ * {@link Compiler#compile(ConditionTree, Evaluator)}.
+ *
+ * @author Jeff Nelson
+ */
+public class SpecializedExpressionTest {
+
+    /**
+     * The {@link Compiler} to use in the tests.
+     */
+    private final Compiler compiler = Compiler.create(Convert::stringToJava,
+            Convert::stringToOperator);
+
+    @Test
+    public void testSameResultsAsEvaluate() {
+        CountingEvaluator evaluator = new CountingEvaluator();
+        TriFunction<Object, Operator, List<Object>, Boolean> function = (value,
+                operator, values) -> {
+            if(value instanceof Number) {
+                double actual = ((Number) value).doubleValue();
+                return evaluator.evaluate(actual, operator,
+                        values.stream().mapToDouble(v -> v instanceof Number
+                                ? ((Number) v).doubleValue()
+                                : Double.NaN).toArray());
+            }
+            else {
+                return evaluator.evaluate(value, operator, values);
+            }
+        };
+        List<Multimap<String, Object>> datasets = ImmutableList.of(
+                ImmutableMultimap.of("a", 5, "b", 12L, "c", "foo", "a", -1),
+                ImmutableMultimap.of("a", 1.5, "b", 12, "c", "bar"),
+                ImmutableMultimap.of("a", 2, "c", 4, "a", -1),
+                ImmutableMultimap.of("b", 2.0f, "c", "foo"),
+                ImmutableMultimap.of());
+        for (String ccl : ImmutableList.of("a > 1 AND b bw 10 15",
+                "a > 1.2 OR c = foo", "(a > 1 or b = 2) and c = foo",
+                "c = bar and (a = 1.5 or b > 1)", "a = 1",
+                "a < 0 or b bw 1.5 15 or c = 4")) {
+            ConditionTree tree = (ConditionTree) compiler.parse(ccl);
+            Predicate<Multimap<String, Object>> predicate = compiler
+                    .compile(tree, evaluator);
+            for (Multimap<String, Object> dataset : datasets) {
+                Assert.assertEquals(ccl + " " + dataset,
+                        compiler.evaluate(tree, dataset, function),
+                        predicate.test(dataset));
+            }
+        }
+    }
+
+    @Test
+    public void testIntegralValuesUseLongSpecialization() {
+        CountingEvaluator evaluator = new CountingEvaluator();
+        Predicate<Multimap<String, Object>> predicate = compiler.compile(
+                (ConditionTree) compiler.parse("a bw 1 10"), evaluator);
+        Assert.assertTrue(predicate.test(ImmutableMultimap.of("a", 5)));
+        Assert.assertFalse(predicate.test(ImmutableMultimap.of("a", 50L)));
+        Assert.assertEquals(2, evaluator.longs);
+        Assert.assertEquals(0, evaluator.doubles + evaluator.objects);
+    }
+
+    @Test
+    public void testMixedNumericValuesUseDoubleSpecialization() {
+        CountingEvaluator evaluator = new CountingEvaluator();
+        Predicate<Multimap<String, Object>> predicate = compiler.compile(
+                (ConditionTree) compiler.parse("a bw 1 10"), evaluator);
+        Assert.assertTrue(predicate.test(ImmutableMultimap.of("a", 1.5)));
+        Assert.assertEquals(1, evaluator.doubles);
+        predicate = compiler.compile(
+                (ConditionTree) compiler.parse("a bw 1.5 10"), evaluator);
+        Assert.assertFalse(predicate.test(ImmutableMultimap.of("a", 1)));
+        Assert.assertEquals(2, evaluator.doubles);
+        Assert.assertEquals(0, evaluator.longs + evaluator.objects);
+    }
+
+    @Test
+    public void testStringsUseCharSequenceSpecialization() {
+        CountingEvaluator evaluator = new CountingEvaluator();
+        Predicate<Multimap<String, Object>> predicate = compiler.compile(
+                (ConditionTree) compiler.parse("name = jeff"), evaluator);
+        Assert.assertTrue(predicate.test(ImmutableMultimap.of("name", "jeff")));
+        Assert.assertFalse(predicate.test(ImmutableMultimap.of("name", 1)));
+        Assert.assertEquals(1, evaluator.strings);
+        Assert.assertEquals(1, evaluator.objects);
+    }
+
+    @Test
+    public void testRegexPatternIsCompiledOnce() {
+        CountingEvaluator evaluator = new CountingEvaluator();
+        Predicate<Multimap<String, Object>> predicate = compiler.compile(
+                (ConditionTree) compiler.parse(
+                        "name regex j.*f or name nregex j.* or age like 3%"),
+                evaluator);
+        Assert.assertTrue(predicate.test(ImmutableMultimap.of("name", "jeff")));
+        Assert.assertTrue(predicate.test(ImmutableMultimap.of("name", "Ash")));
+        Assert.assertTrue(predicate.test(ImmutableMultimap.of("age", 32)));
+        Assert.assertFalse(predicate.test(ImmutableMultimap.of("age", 23)));
+        Assert.assertEquals(3, evaluator.patterns.size());
+        Assert.assertEquals(0, evaluator.objects + evaluator.strings);
+    }
+
+    @Test
+    public void testNumericComparisonsDoNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory
+                .getThreadMXBean();
+        Assume.assumeTrue(
+                bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean)
+                        .isThreadAllocatedMemorySupported());
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(mx.isThreadAllocatedMemoryEnabled());
+        Predicate<Multimap<String, Object>> predicate = compiler.compile(
+                (ConditionTree) compiler
+                        .parse("(a > 1 or b > 1.5) and c bw 1 3 and d > 1"),
+                new CountingEvaluator());
+        Multimap<String, Object> dataset = ImmutableListMultimap.of("a", 0L,
+                "b", 2.5, "c", 2, "d", 0, "d", 2);
+        boolean matches = false;
+        for (int i = 0; i < 10000; ++i) { // warm up
+            matches |= predicate.test(dataset);
+        }
+        int rounds = 100000;
+        long thread = Thread.currentThread().getId();
+        long before = mx.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < rounds; ++i) {
+            matches &= predicate.test(dataset);
+        }
+        long allocated = mx.getThreadAllocatedBytes(thread) - before;
+        Assert.assertTrue(matches);
+        Assert.assertTrue(allocated + " bytes allocated", allocated < rounds);
+    }
+
+    /**
+     * An {@link Evaluator} that counts how often each specialization is
+     * called.
+     *
+     * @author Jeff Nelson
+     */
+    private static class CountingEvaluator implements Evaluator {
+
+        int objects = 0;
+        int longs = 0;
+        int doubles = 0;
+        int strings = 0;
+        Set<Pattern> patterns = Sets.newIdentityHashSet();
+
+        @Override
+        public boolean evaluate(Object value, Operator operator,
+                List<Object> values) {
+            ++objects;
+            return operator.symbol().equals("=")
+                    && value.toString().equals(values.get(0).toString());
+        }
+
+        @Override
+        public boolean evaluate(long value, Operator operator, long[] values) {
+            ++longs;
+            switch (operator.symbol()) {
+            case "=":
+                return value == values[0];
+            case ">":
+                return value > values[0];
+            case "<":
+                return value < values[0];
+            case "><":
+                return value >= values[0] && value < values[1];
+            default:
+                throw new UnsupportedOperationException();
+            }
+        }
+
+        @Override
+        public boolean evaluate(double value, Operator operator,
+                double[] values) {
+            ++doubles;
+            switch (operator.symbol()) {
+            case "=":
+                return value == values[0];
+            case ">":
+                return value > values[0];
+            case "<":
+                return value < values[0];
+            case "><":
+                return value >= values[0] && value < values[1];
+            default:
+                throw new UnsupportedOperationException();
+            }
+        }
+
+        @Override
+        public boolean evaluate(CharSequence value, Operator operator,
+                CharSequence[] values) {
+            ++strings;
+            return operator.symbol().equals("=")
+                    && value.toString().equals(values[0].toString());
+        }
+
+        @Override
+        public boolean evaluate(CharSequence value, Operator operator,
+                Pattern pattern) {
+            patterns.add(pattern);
+            boolean matches = pattern.matcher(value).matches();
+            return operator.symbol().startsWith("n") ? !matches : matches;
+        }
+
+    }
+
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Unit tests for {@link StatementStore} and {@link PersistentCompiler}.
+ *
+ * @author Jeff Nelson
+ */
+public class StatementStoreTest {
+
+    /**
+     * The {@link Compiler} to use in the tests.
+     */
+    private final Compiler compiler = Compiler.create(Convert::stringToJava,
+            Convert::stringToOperator);
+
+    /**
+     * The file for the {@link StatementStore}.
+     */
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("ccl", ".store");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testEntriesSurviveReopening() {
+        try (StatementStore store = StatementStore.open(file)) {
+            Assert.assertTrue(store.put("a = 1", bytes(1, 2, 3)));
+            Assert.assertFalse(store.put("a = 1", bytes(4)));
+            Assert.assertTrue(store.put("b = 2", bytes()));
+            Assert.assertEquals(bytes(1, 2, 3), store.get("a = 1"));
+        }
+        try (StatementStore store = StatementStore.open(file)) {
+            Assert.assertEquals(2, store.size());
+            Assert.assertEquals(bytes(1, 2, 3), store.get("a = 1"));
+            Assert.assertEquals(bytes(), store.get("b = 2"));
+            Assert.assertNull(store.get("c = 3"));
+            Assert.assertTrue(store.get("a = 1").isReadOnly());
+        }
+    }
+
+    @Test
+    public void testStoreGrows() {
+        byte[] payload = new byte[1000];
+        try (StatementStore store = StatementStore.open(file)) {
+            for (int i = 0; i < 500; ++i) {
+                payload[0] = (byte) i;
+                store.put("a = " + i, ByteBuffer.wrap(payload));
+            }
+        }
+        try (StatementStore store = StatementStore.open(file)) {
+            Assert.assertEquals(500, store.size());
+            for (int i = 0; i < 500; ++i) {
+                ByteBuffer bytes = store.get("a = " + i);
+                Assert.assertEquals(1000, bytes.remaining());
+                Assert.assertEquals((byte) i, bytes.get(0));
+            }
+        }
+    }
+
+    @Test
+    public void testStaleVersionIsDiscarded() throws IOException {
+        try (StatementStore store = StatementStore.open(file)) {
+            store.put("a = 1", bytes(1));
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(),
+                "rw")) {
+            // Change the version of the encoding
+            raf.seek(8);
+            raf.writeInt(SyntaxTreeCodec.VERSION + 1);
+        }
+        try (StatementStore store = StatementStore.open(file)) {
+            Assert.assertEquals(0, store.size());
+            Assert.assertNull(store.get("a = 1"));
+        }
+    }
+
+    @Test
+    public void testPersistentCompilerOnlyParsesOnce() {
+        AtomicInteger parses = new AtomicInteger();
+        Compiler counting = new Compiler(Convert::stringToJava,
+                Convert::stringToOperator) {
+
+            @Override
+            public AbstractSyntaxTree parse(String ccl,
+                    Multimap<String, Object> data) {
+                parses.incrementAndGet();
+                return compiler.parse(ccl, data);
+            }
+
+        };
+        String ccl = "a = 1 and (b > 2 or c bw 1 5) order by a page 2 size 3";
+        try (StatementStore store = StatementStore.open(file)) {
+            Compiler persistent = Compiler.persist(counting, store);
+            Assert.assertEquals(compiler.parse(ccl), persistent.parse(ccl));
+            Assert.assertEquals(compiler.parse(ccl), persistent.parse(ccl));
+            Assert.assertEquals(1, parses.get());
+        }
+        try (StatementStore store = StatementStore.open(file)) {
+            Compiler persistent = Compiler.persist(counting, store);
+            Assert.assertEquals(compiler.parse(ccl), persistent.parse(ccl));
+            Assert.assertEquals(1, parses.get());
+        }
+    }
+
+    @Test
+    public void testStatementsWithVariablesAreNotStored() {
+        try (StatementStore store = StatementStore.open(file)) {
+            Compiler persistent = Compiler.persist(compiler, store);
+            Assert.assertEquals(compiler.parse("a = 1"),
+                    persistent.parse("a = $b", ImmutableMultimap.of("b", 1)));
+            Assert.assertEquals(compiler.parse("a = 2"),
+                    persistent.parse("a = $b", ImmutableMultimap.of("b", 2)));
+            Assert.assertFalse(store.contains("a = $b"));
+            persistent.parse("a = 1", ImmutableMultimap.of("b", 1));
+            Assert.assertTrue(store.contains("a = 1"));
+        }
+    }
+
+    @Test
+    public void testRelativeTimestampsAreNotStored()
+            throws InterruptedException {
+        String ccl = "name = jeff at 3 seconds ago";
+        try (StatementStore store = StatementStore.open(file)) {
+            Compiler persistent = Compiler.persist(compiler, store);
+            long a = timestamp(persistent.parse(ccl));
+            Thread.sleep(1500);
+            long b = timestamp(persistent.parse(ccl));
+            Assert.assertTrue(b - a >= TimeUnit.SECONDS.toMicros(1));
+            Assert.assertFalse(store.contains(ccl));
+            persistent.parse("name = jeff at 1602080000000000");
+            Assert.assertTrue(store.contains("name = jeff at 1602080000000000"));
+        }
+    }
+
+    @Test
+    public void testCorruptEntryIsParsedAgain() {
+        try (StatementStore store = StatementStore.open(file)) {
+            // A tree that refers to a string that was never read
+            store.put("a = 1", bytes('C', 'C', 'L', SyntaxTreeCodec.VERSION,
+                    3, 0, 0, 5));
+            Compiler persistent = Compiler.persist(compiler, store);
+            Assert.assertEquals(compiler.parse("a = 1"),
+                    persistent.parse("a = 1"));
+        }
+    }
+
+    @Test
+    public void testFileIsLocked() {
+        try (StatementStore store = StatementStore.open(file)) {
+            try {
+                StatementStore.open(file);
+                Assert.fail();
+            }
+            catch (IllegalStateException e) {
+                Assert.assertTrue(store.put("a = 1", bytes(1)));
+            }
+        }
+        try (StatementStore store = StatementStore.open(file)) {
+            Assert.assertEquals(bytes(1), store.get("a = 1"));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCannotPutAfterClose() {
+        StatementStore store = StatementStore.open(file);
+        store.close();
+        store.put("a = 1", bytes(1));
+    }
+
+    /**
+     * Return the timestamp of the expression at the root of the {@code tree}.
+     *
+     * @param tree
+     * @return the timestamp
+     */
+    private static long timestamp(AbstractSyntaxTree tree) {
+        return ((ExpressionSymbol) tree.root()).timestamp().timestamp();
+    }
+
+    /**
+     * Return a {@link ByteBuffer} that contains the {@code values}.
+     *
+     * @param values
+     * @return the {@link ByteBuffer}
+     */
+    private static ByteBuffer bytes(int... values) {
+        ByteBuffer bytes = ByteBuffer.allocate(values.length);
+        for (int value : values) {
+            bytes.put((byte) value);
+        }
+        bytes.flip();
+        return bytes;
+    }
+
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.grammar.KeySymbol;
+import com.cinchapi.ccl.grammar.OperatorSymbol;
+import com.cinchapi.ccl.grammar.ValueSymbol;
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.cinchapi.ccl.syntax.AndTree;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.syntax.ExpressionTree;
+import com.cinchapi.ccl.syntax.OrTree;
+import com.cinchapi.concourse.thrift.Operator;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Unit tests for {@link SyntaxTreeCodec}.
+ *
+ * @author Jeff Nelson
+ */
+public class SyntaxTreeCodecTest {
+
+    /**
+     * The {@link Compiler} to use in the tests.
+     */
+    private final Compiler compiler = Compiler.create(Convert::stringToJava,
+            Convert::stringToOperator);
+
+    @Test
+    public void testRoundTrip() {
+        List<String> statements = ImmutableList.of("a = 1", "a = 1.5",
+                "name = jeff", "a = true", "a = 9223372036854775807",
+                "a = -1 and (b = 2 or c != 3) and d bw 1 10",
+                "name = jeff at last week", "a = 1 at 1000",
+                "mother.name = jeff", "age > avg(age)", "age > avg(age, 1)",
+                "age bw avg(age, age > 10) 1000",
+                "age > avg(age, 1, 2)", "age | avg > avg(age, age < 30)",
+                "avg(age, [1,2,3,5,11], at today)",
+                "avg(age, age > 30, at today)", "avg(age, at today)",
+                "a = 1 order by name page 2 size 3",
+                "order by > age during 122, name desc",
+                "(a = 1 or b bw 2 3) and c regex foo page 2 size 3");
+        for (String ccl : statements) {
+            AbstractSyntaxTree expected = compiler.parse(ccl);
+            ByteBuffer bytes = compiler.serialize(expected);
+            AbstractSyntaxTree actual = compiler.deserialize(bytes);
+            Assert.assertEquals(ccl, expected, actual);
+            Assert.assertEquals(ccl, compiler.tokenize(expected),
+                    compiler.tokenize(actual));
+            Assert.assertFalse(bytes.hasRemaining());
+        }
+    }
+
+    @Test
+    public void testRepeatedStringsAreWrittenOnce() {
+        ByteBuffer one = compiler.serialize(
+                compiler.parse("description = abcdefghijklmnopqrstuvwxyz"));
+        ByteBuffer two = compiler.serialize(compiler.parse(
+                "description = abcdefghijklmnopqrstuvwxyz or description = abcdefghijklmnopqrstuvwxyz"));
+        Assert.assertTrue(two.remaining() < 2 * one.remaining() - 26);
+    }
+
+    @Test
+    public void testVariables() {
+        AbstractSyntaxTree tree = compiler.prepare("a = $b and c = 1").bind();
+        Assert.assertEquals(tree,
+                compiler.deserialize(compiler.serialize(tree)));
+    }
+
+    @Test
+    public void testCustomValueCodec() {
+        ValueCodec<UUID> codec = new ValueCodec<UUID>() {
+
+            @Override
+            public int id() {
+                return 7;
+            }
+
+            @Override
+            public Class<UUID> type() {
+                return UUID.class;
+            }
+
+            @Override
+            public void write(UUID value, DataOutput output)
+                    throws IOException {
+                output.writeLong(value.getMostSignificantBits());
+                output.writeLong(value.getLeastSignificantBits());
+            }
+
+            @Override
+            public UUID read(DataInput input) throws IOException {
+                return new UUID(input.readLong(), input.readLong());
+            }
+
+        };
+        UUID uuid = UUID.randomUUID();
+        ExpressionTree tree = new ExpressionTree(
+                ExpressionSymbol.create(new KeySymbol("id"),
+                        new OperatorSymbol(Operator.EQUALS),
+                        new ValueSymbol(uuid)));
+        SyntaxTreeCodec codecs = compiler.codec(codec);
+        AbstractSyntaxTree actual = codecs
+                .deserialize(codecs.serialize(tree));
+        Assert.assertEquals(tree, actual);
+        Assert.assertEquals(uuid,
+                ((ExpressionSymbol) actual.root()).values().get(0).value());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownCustomValueCodec() {
+        ValueCodec<UUID> codec = new ValueCodec<UUID>() {
+
+            @Override
+            public int id() {
+                return 1;
+            }
+
+            @Override
+            public Class<UUID> type() {
+                return UUID.class;
+            }
+
+            @Override
+            public void write(UUID value, DataOutput output) {}
+
+            @Override
+            public UUID read(DataInput input) {
+                return null;
+            }
+
+        };
+        ExpressionTree tree = new ExpressionTree(
+                ExpressionSymbol.create(new KeySymbol("id"),
+                        new OperatorSymbol(Operator.EQUALS),
+                        new ValueSymbol(UUID.randomUUID())));
+        compiler.deserialize(compiler.codec(codec).serialize(tree));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateCodecIds() {
+        ValueCodec<?> codec = new ValueCodec<String>() {
+
+            @Override
+            public int id() {
+                return 1;
+            }
+
+            @Override
+            public Class<String> type() {
+                return String.class;
+            }
+
+            @Override
+            public void write(String value, DataOutput output) {}
+
+            @Override
+            public String read(DataInput input) {
+                return null;
+            }
+
+        };
+        compiler.codec(codec, codec);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMagic() {
+        compiler.deserialize(ByteBuffer.wrap(new byte[] { 'X', 'Y', 'Z', 1 }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedVersion() {
+        compiler.deserialize(ByteBuffer.wrap(new byte[] { 'C', 'C', 'L',
+                SyntaxTreeCodec.VERSION + 1, 3 }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncated() {
+        ByteBuffer bytes = compiler.serialize(compiler.parse("a = 1 and b = 2"));
+        bytes.limit(bytes.limit() - 1);
+        compiler.deserialize(bytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLengthExceedsRemaining() {
+        // An expression whose key is a new string with a huge length
+        compiler.deserialize(ByteBuffer.wrap(new byte[] { 'C', 'C', 'L',
+                SyntaxTreeCodec.VERSION, 3, 0, 0, 0, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, 0x07 }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidStringReference() {
+        compiler.deserialize(ByteBuffer.wrap(new byte[] { 'C', 'C', 'L',
+                SyntaxTreeCodec.VERSION, 3, 0, 0, 5 }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTimestampPrecision() {
+        compiler.deserialize(ByteBuffer.wrap(new byte[] { 'C', 'C', 'L',
+                SyntaxTreeCodec.VERSION, 3, 100, 0 }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConjunctionOfNonCondition() {
+        // An AND of a page and an expression
+        ByteBuffer expression = compiler.serialize(compiler.parse("a = 1"));
+        expression.position(4);
+        ByteBuffer bytes = ByteBuffer.allocate(expression.remaining() + 8);
+        bytes.put(new byte[] { 'C', 'C', 'L', SyntaxTreeCodec.VERSION, 1, 5,
+                1, 1 });
+        bytes.put(expression);
+        bytes.flip();
+        compiler.deserialize(bytes);
+    }
+
+    @Test
+    public void testCorruptBuffersOnlyThrowIllegalArgumentException() {
+        Random random = new Random(17);
+        for (String ccl : ImmutableList.of(
+                "a = -1 and (b = 2 or c != 3) and d bw 1 10 at 1000",
+                "age bw avg(age, age > 10) 1000", "avg(age, [1,2,3], at today)",
+                "order by > age during 122, name desc",
+                "a = 1 order by name page 2 size 3")) {
+            byte[] encoded = compiler.serialize(compiler.parse(ccl)).array();
+            for (int i = 0; i < 1000; ++i) {
+                byte[] corrupt = encoded.clone();
+                for (int j = random.nextInt(3); j >= 0; --j) {
+                    corrupt[3 + random.nextInt(corrupt.length - 3)] = (byte) random
+                            .nextInt();
+                }
+                try {
+                    compiler.deserialize(ByteBuffer.wrap(corrupt));
+                }
+                catch (IllegalArgumentException e) {
+                    // expected, unless the corruption happens to be valid
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDeeplyNestedTree() {
+        int depth = 100000;
+        ConditionTree tree = (ConditionTree) compiler.parse("x = 0");
+        for (int i = 0; i < depth; ++i) {
+            ConditionTree leaf = (ConditionTree) compiler.parse("k" + i + " = " + i);
+            tree = i % 2 == 0 ? new AndTree(leaf, tree) : new OrTree(leaf, tree);
+        }
+        Assert.assertEquals(tree,
+                compiler.deserialize(compiler.serialize(tree)));
+    }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.cinchapi.ccl.Compiler;
+import com.cinchapi.ccl.Parsing;
+import com.cinchapi.ccl.StatementAnalysis;
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.grammar.PostfixNotationSymbol;
+import com.cinchapi.ccl.grammar.Symbol;
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.cinchapi.ccl.syntax.CommandTree;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.common.function.TriFunction;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+
+/**
+ * Measures the work that a {@link Compiler} does with the
+ * {@link ConditionTree} of each shape of statement in the {@link Corpus}
+ * after it has been parsed.
+ * <p>
+ * Run with {@code ./gradlew jmh -Pbenchmarks=CompilerBenchmark}.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompilerBenchmark {
+
+    /**
+     * The number of {@link #records}.
+     */
+    private static final int RECORDS = 1024;
+
+    /**
+     * An evaluator that compares numbers by value and anything else by its
+     * string form. Pattern operators are approximated by equality, so that
+     * matching doesn't dominate the measurement.
+     */
+    private static final TriFunction<Object, Operator, List<Object>, Boolean> EVALUATOR = (
+            value, operator, values) -> {
+        int c = compare(value, values.get(0));
+        switch (operator.symbol()) {
+        case "=":
+            return c == 0;
+        case "!=":
+            return c != 0;
+        case ">":
+            return c > 0;
+        case ">=":
+            return c >= 0;
+        case "<":
+            return c < 0;
+        case "<=":
+            return c <= 0;
+        case "><":
+            return c >= 0 && compare(value, values.get(1)) < 0;
+        case "nregex":
+        case "nlike":
+            return c != 0;
+        default:
+            return c == 0;
+        }
+    };
+
+    /**
+     * The {@link Compiler}.
+     */
+    private static final Compiler COMPILER = Compiler
+            .create(Convert::stringToJava, Convert::stringToOperator);
+
+    /**
+     * The shape of the statement.
+     */
+    @Param
+    public Corpus corpus;
+
+    /**
+     * The condition of the statement.
+     */
+    private ConditionTree tree;
+
+    /**
+     * The {@link #tree} in infix notation.
+     */
+    private List<Symbol> symbols;
+
+    /**
+     * The records against which the {@link #tree} is evaluated. Each has a
+     * value for every key in the statement, which satisfies the expressions
+     * on the key some of the time, so both outcomes of the expressions and
+     * conjunctions are exercised.
+     */
+    private List<Multimap<String, Object>> records;
+
+    @Setup
+    public void setup() {
+        AbstractSyntaxTree ast = COMPILER.parse(corpus.ccl());
+        tree = ast instanceof CommandTree ? ((CommandTree) ast).conditionTree()
+                : (ConditionTree) ast;
+        symbols = COMPILER.tokenize(tree);
+        List<ExpressionSymbol> expressions = Lists.newArrayList();
+        for (PostfixNotationSymbol symbol : COMPILER.arrange(tree)) {
+            if(symbol instanceof ExpressionSymbol) {
+                expressions.add((ExpressionSymbol) symbol);
+            }
+        }
+        Random random = new Random(1);
+        records = Lists.newArrayListWithCapacity(RECORDS);
+        for (int i = 0; i < RECORDS; ++i) {
+            Map<String, Object> values = Maps.newLinkedHashMap();
+            for (ExpressionSymbol expression : expressions) {
+                // A value that is just below, equal to or just above a
+                // numeric operand, or either equal to or different from any
+                // other operand
+                Object operand = expression.raw().values().get(0);
+                values.putIfAbsent(expression.raw().key(),
+                        operand instanceof Number
+                                ? ((Number) operand).longValue()
+                                        + random.nextInt(3) - 1
+                                : random.nextBoolean() ? operand
+                                        : random.nextInt(10));
+            }
+            records.add(ImmutableListMultimap.copyOf(Multimaps
+                    .forMap(values)));
+        }
+    }
+
+    @Benchmark
+    public void analyze(Blackhole blackhole) {
+        StatementAnalysis analysis = COMPILER.analyze(tree);
+        blackhole.consume(analysis.keys());
+        blackhole.consume(analysis.operators());
+        blackhole.consume(analysis.ranges());
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        for (Multimap<String, Object> record : records) {
+            blackhole.consume(COMPILER.evaluate(tree, record, EVALUATOR));
+        }
+    }
+
+    @Benchmark
+    public List<Symbol> tokenize() {
+        return COMPILER.tokenize(tree);
+    }
+
+    @Benchmark
+    public Queue<PostfixNotationSymbol> arrange() {
+        return COMPILER.arrange(tree);
+    }
+
+    @Benchmark
+    public Queue<PostfixNotationSymbol> toPostfixNotation() {
+        return Parsing.toPostfixNotation(symbols);
+    }
+
+    /**
+     * Compare the {@code value} to the {@code operand}.
+     *
+     * @param value
+     * @param operand
+     * @return a negative number, zero or a positive number if the
+     *         {@code value} is less than, equal to or greater than the
+     *         {@code operand}
+     */
+    private static int compare(Object value, Object operand) {
+        if(value instanceof Number && operand instanceof Number) {
+            return Double.compare(((Number) value).doubleValue(),
+                    ((Number) operand).doubleValue());
+        }
+        else {
+            return value.toString().compareTo(operand.toString());
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.cinchapi.ccl.Compiler;
+import com.cinchapi.ccl.syntax.ConditionTree;
+import com.cinchapi.ccl.type.Operator;
+import com.cinchapi.common.function.TriFunction;
+import com.cinchapi.concourse.util.Convert;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+
+/**
+ * Compares the ways that a {@link Compiler} can test records against a
+ * {@link ConditionTree}: interpreting the tree with
+ * {@link Compiler#evaluate(ConditionTree, Multimap, TriFunction)}, testing the
+ * {@link Predicate} from
+ * {@link Compiler#compile(ConditionTree, TriFunction)} and testing the
+ * {@link Predicate} that has been specialized into
+ * {@link java.lang.invoke.MethodHandle MethodHandles}.
+ * <p>
+ * Run with {@code ./gradlew jmh -Pbenchmarks=ConditionEvaluationBenchmark}.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConditionEvaluationBenchmark {
+
+    /**
+     * The keys in each record.
+     */
+    private static final String[] KEYS = { "a", "b", "c", "d", "e" };
+
+    /**
+     * An evaluator that compares integers.
+     */
+    private static final TriFunction<Object, Operator, List<Object>, Boolean> EVALUATOR = (
+            value, operator, values) -> {
+        int actual = (int) value;
+        int expected = (int) values.get(0);
+        switch (operator.symbol()) {
+        case "=":
+            return actual == expected;
+        case ">":
+            return actual > expected;
+        default:
+            return actual < expected;
+        }
+    };
+
+    /**
+     * The {@link Compiler}.
+     */
+    private static final Compiler COMPILER = Compiler
+            .create(Convert::stringToJava, Convert::stringToOperator);
+
+    /**
+     * The condition.
+     */
+    private static final ConditionTree TREE = (ConditionTree) COMPILER
+            .parse("(a > 1 or b > 1) and c > 1 and d < 5 or e = 3");
+
+    /**
+     * The compiled condition.
+     */
+    private static final Predicate<Multimap<String, Object>> COMPILED = COMPILER
+            .compile(TREE, EVALUATOR);
+
+    /**
+     * The specialized condition.
+     */
+    private static final Predicate<Multimap<String, Object>> SPECIALIZED = COMPILER
+            .compile(TREE, EVALUATOR, 0);
+
+    /**
+     * The records to test.
+     */
+    private List<Multimap<String, Object>> records;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        records = Lists.newArrayListWithCapacity(1024);
+        for (int i = 0; i < 1024; ++i) {
+            ImmutableListMultimap.Builder<String, Object> record = ImmutableListMultimap
+                    .builder();
+            for (String key : KEYS) {
+                record.put(key, random.nextInt(6));
+            }
+            records.add(record.build());
+        }
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        for (Multimap<String, Object> record : records) {
+            blackhole.consume(COMPILER.evaluate(TREE, record, EVALUATOR));
+        }
+    }
+
+    @Benchmark
+    public void compiled(Blackhole blackhole) {
+        for (Multimap<String, Object> record : records) {
+            blackhole.consume(COMPILED.test(record));
+        }
+    }
+
+    @Benchmark
+    public void specialized(Blackhole blackhole) {
+        for (Multimap<String, Object> record : records) {
+            blackhole.consume(SPECIALIZED.test(record));
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl.benchmark;
+
+/**
+ * The shapes of CCL statements over which the benchmarks are parameterized.
+ * Each shape stresses a different part of the grammar, so a change that
+ * speeds up one kind of statement can be checked against the others.
+ *
+ * @author Jeff Nelson
+ */
+public enum Corpus {
+
+    /**
+     * A single equality expression.
+     */
+    SIMPLE("name = jeff"),
+
+    /**
+     * Nested conjunctions and disjunctions.
+     */
+    DEEP_CONJUNCTION(
+            "(a = 1 and (b > 2 or (c < 3 and (d = 4 or (e != 5 and f >= 6))))) "
+                    + "or (g <= 7 and (h = 8 or i = 9))"),
+
+    /**
+     * Regular expression and like operators.
+     */
+    REGEX("name regex (?i:%jeff%) and email nregex .*@cinchapi.com "
+            + "or title like %engineer%"),
+
+    /**
+     * Between expressions.
+     */
+    BETWEEN("age bw 18 65 and salary >< 50000 100000"),
+
+    /**
+     * Keys that navigate through links to other records.
+     */
+    NAVIGATION("mother.name = jane and mother.mother.siblings > 3 "
+            + "or company.name = cinchapi"),
+
+    /**
+     * Values that are computed by functions.
+     */
+    FUNCTION_VALUE("age > avg(age) and salary bw avg(salary, age > 10) 1000"),
+
+    /**
+     * Expressions at natural language timestamps.
+     */
+    TIMESTAMP("name = jeff at \"last christmas\" "
+            + "and age > 30 at 3 seconds ago"),
+
+    /**
+     * A condition with order and page clauses.
+     */
+    ORDER_PAGE("(a = 1 or b bw 2 3) and c regex foo order by a desc, b "
+            + "page 2 size 30"),
+
+    /**
+     * A statement with 1000 expressions.
+     */
+    LARGE(large(1000));
+
+    /**
+     * The CCL statement.
+     */
+    private final String ccl;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param ccl
+     */
+    Corpus(String ccl) {
+        this.ccl = ccl;
+    }
+
+    /**
+     * Return the CCL statement.
+     *
+     * @return the statement
+     */
+    public String ccl() {
+        return ccl;
+    }
+
+    /**
+     * Return a statement with {@code terms} expressions that alternate
+     * between conjunctions and parenthesized disjunctions.
+     *
+     * @param terms
+     * @return the statement
+     */
+    private static String large(int terms) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < terms; i += 2) {
+            if(i > 0) {
+                sb.append(" and ");
+            }
+            sb.append("(k").append(i % 50).append(" = ").append(i)
+                    .append(" or k").append((i + 1) % 50).append(" > ")
+                    .append(i + 1).append(')');
+        }
+        return sb.toString();
+    }
+
+}
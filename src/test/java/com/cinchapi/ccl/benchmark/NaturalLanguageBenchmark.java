@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cinchapi.ccl.util.NaturalLanguage;
+
+/**
+ * Measures how long {@link NaturalLanguage#parseMicros(String)} takes to
+ * resolve the kinds of timestamps that appear in CCL statements.
+ * <p>
+ * Run with {@code ./gradlew jmh -Pbenchmarks=NaturalLanguageBenchmark}.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NaturalLanguageBenchmark {
+
+    /**
+     * The timestamp to resolve.
+     */
+    @Param({ "1602080000000000", "now", "yesterday", "3 seconds ago",
+            "last christmas", "10-08-2020" })
+    public String timestamp;
+
+    @Benchmark
+    public long parseMicros() {
+        return NaturalLanguage.parseMicros(timestamp);
+    }
+
+}
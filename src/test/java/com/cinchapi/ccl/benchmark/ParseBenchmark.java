@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cinchapi.ccl.Compiler;
+import com.cinchapi.ccl.syntax.AbstractSyntaxTree;
+import com.cinchapi.concourse.util.Convert;
+
+/**
+ * Measures how long each {@link Compiler.Engine} takes to
+ * {@link Compiler#parse(String) parse} each shape of statement in the
+ * {@link Corpus}.
+ * <p>
+ * Run with {@code ./gradlew jmh -Pbenchmarks=ParseBenchmark}.
+ * </p>
+ *
+ * @author Jeff Nelson
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    /**
+     * The shape of the statement to parse.
+     */
+    @Param
+    public Corpus corpus;
+
+    /**
+     * The {@link Compiler.Engine} that parses the statement.
+     */
+    @Param
+    public Compiler.Engine engine;
+
+    /**
+     * The {@link Compiler}.
+     */
+    private Compiler compiler;
+
+    /**
+     * The statement to parse.
+     */
+    private String ccl;
+
+    @Setup
+    public void setup() {
+        compiler = Compiler.create(Convert::stringToJava,
+                Convert::stringToOperator, engine);
+        ccl = corpus.ccl();
+    }
+
+    @Benchmark
+    public AbstractSyntaxTree parse() {
+        return compiler.parse(ccl);
+    }
+
+}
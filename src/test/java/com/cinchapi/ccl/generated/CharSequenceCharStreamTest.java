@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl.generated;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CharSequenceCharStream}.
+ *
+ * @author Jeff Nelson
+ */
+public class CharSequenceCharStreamTest {
+
+    @Test
+    public void testTokensMatchSimpleCharStream() {
+        assertSameTokens("name = jeff and age > 30");
+    }
+
+    @Test
+    public void testTokensMatchSimpleCharStreamWithTabsAndQuotes() {
+        assertSameTokens("name = jeff\tand age >\t30 or b = “quoted value”");
+    }
+
+    @Test
+    public void testLineAndColumnAcrossLineBreaks() throws IOException {
+        String text = "ab\r\nc\nd\re";
+        CharSequenceCharStream actual = new CharSequenceCharStream(text);
+        SimpleCharStream expected = new SimpleCharStream(
+                new StringReader(text));
+        for (int i = 0; i < text.length(); ++i) {
+            Assert.assertEquals(expected.BeginToken(), actual.BeginToken());
+            Assert.assertEquals(expected.getBeginLine(),
+                    actual.getBeginLine());
+            Assert.assertEquals(expected.getBeginColumn(),
+                    actual.getBeginColumn());
+        }
+    }
+
+    @Test
+    public void testReInit() throws IOException {
+        CharSequenceCharStream stream = new CharSequenceCharStream("ab");
+        stream.BeginToken();
+        stream.readChar();
+        Assert.assertEquals("ab", stream.GetImage());
+        stream.ReInit("cd");
+        Assert.assertEquals('c', stream.BeginToken());
+        Assert.assertEquals(1, stream.getBeginColumn());
+    }
+
+    @Test
+    public void testGetSuffix() throws IOException {
+        CharSequenceCharStream stream = new CharSequenceCharStream("abcd");
+        stream.BeginToken();
+        stream.readChar();
+        stream.readChar();
+        Assert.assertArrayEquals(new char[] { 'b', 'c' }, stream.GetSuffix(2));
+    }
+
+    /**
+     * Assert that lexing {@code ccl} from a {@link CharSequenceCharStream}
+     * produces the same tokens, with the same positions, as lexing it from a
+     * {@link SimpleCharStream}.
+     *
+     * @param ccl
+     */
+    private static void assertSameTokens(String ccl) {
+        GrammarTokenManager expected = new GrammarTokenManager(
+                new SimpleCharStreamAdapter(ccl));
+        GrammarTokenManager actual = new GrammarTokenManager(
+                new CharSequenceCharStream(ccl));
+        Token e;
+        do {
+            e = expected.getNextToken();
+            Token a = actual.getNextToken();
+            Assert.assertEquals(e.kind, a.kind);
+            Assert.assertEquals(e.image, a.image);
+            Assert.assertEquals(e.beginLine, a.beginLine);
+            Assert.assertEquals(e.beginColumn, a.beginColumn);
+            Assert.assertEquals(e.endLine, a.endLine);
+            Assert.assertEquals(e.endColumn, a.endColumn);
+        }
+        while (e.kind != GrammarConstants.EOF);
+    }
+
+    /**
+     * A {@link CharStream} that delegates to a {@link SimpleCharStream}.
+     *
+     * @author Jeff Nelson
+     */
+    private static class SimpleCharStreamAdapter implements CharStream {
+
+        /**
+         * The delegate.
+         */
+        private final SimpleCharStream stream;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param ccl
+         */
+        SimpleCharStreamAdapter(String ccl) {
+            this.stream = new SimpleCharStream(new StringReader(ccl));
+        }
+
+        @Override
+        public char readChar() throws IOException {
+            return stream.readChar();
+        }
+
+        @Override
+        @Deprecated
+        public int getColumn() {
+            return stream.getColumn();
+        }
+
+        @Override
+        @Deprecated
+        public int getLine() {
+            return stream.getLine();
+        }
+
+        @Override
+        public int getEndColumn() {
+            return stream.getEndColumn();
+        }
+
+        @Override
+        public int getEndLine() {
+            return stream.getEndLine();
+        }
+
+        @Override
+        public int getBeginColumn() {
+            return stream.getBeginColumn();
+        }
+
+        @Override
+        public int getBeginLine() {
+            return stream.getBeginLine();
+        }
+
+        @Override
+        public void backup(int amount) {
+            stream.backup(amount);
+        }
+
+        @Override
+        public char BeginToken() throws IOException {
+            return stream.BeginToken();
+        }
+
+        @Override
+        public String GetImage() {
+            return stream.GetImage();
+        }
+
+        @Override
+        public char[] GetSuffix(int len) {
+            return stream.GetSuffix(len);
+        }
+
+        @Override
+        public void Done() {
+            stream.Done();
+        }
+
+        @Override
+        public void setTabSize(int i) {
+            stream.setTabSize(i);
+        }
+
+        @Override
+        public int getTabSize() {
+            return stream.getTabSize();
+        }
+
+        @Override
+        public boolean getTrackLineColumn() {
+            return stream.getTrackLineColumn();
+        }
+
+        @Override
+        public void setTrackLineColumn(boolean trackLineColumn) {
+            stream.setTrackLineColumn(trackLineColumn);
+        }
+
+    }
+
+}
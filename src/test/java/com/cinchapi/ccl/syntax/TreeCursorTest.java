@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2013-2020 Cinchapi Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cinchapi.ccl.syntax;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cinchapi.ccl.grammar.ExpressionSymbol;
+import com.cinchapi.ccl.grammar.KeySymbol;
+import com.cinchapi.ccl.grammar.OperatorSymbol;
+import com.cinchapi.ccl.grammar.ValueSymbol;
+import com.cinchapi.concourse.thrift.Operator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Unit tests for {@link TreeCursor}.
+ *
+ * @author Jeff Nelson
+ */
+public class TreeCursorTest {
+
+    @Test
+    public void testTraversalOrder() {
+        ExpressionTree a = leaf("a");
+        ExpressionTree b = leaf("b");
+        ExpressionTree c = leaf("c");
+        OrTree or = new OrTree(b, c);
+        AndTree and = new AndTree(a, or);
+        Assert.assertEquals(ImmutableList.of(and, a, or, b, c),
+                ImmutableList.copyOf(TreeCursor.preOrder(and)));
+        Assert.assertEquals(ImmutableList.of(a, b, c, or, and),
+                ImmutableList.copyOf(TreeCursor.postOrder(and)));
+    }
+
+    @Test
+    public void testCursorPosition() {
+        ExpressionTree a = leaf("a");
+        ExpressionTree b = leaf("b");
+        ExpressionTree c = leaf("c");
+        OrTree or = new OrTree(b, c);
+        AndTree and = new AndTree(a, or);
+        TreeCursor cursor = TreeCursor.of(and);
+        List<String> events = Lists.newArrayList();
+        while (cursor.advance()) {
+            events.add((cursor.entering() ? "+" : "-")
+                    + cursor.tree().root().toString().charAt(0)
+                    + cursor.depth() + cursor.index()
+                    + (cursor.parent() == null ? "" : "^"));
+        }
+        Assert.assertEquals(ImmutableList.of("+A00", "+a10^", "-a10^",
+                "+O11^", "+b20^", "-b20^", "+c21^", "-c21^", "-O11^", "-A00"),
+                events);
+        Assert.assertFalse(cursor.advance());
+    }
+
+    @Test
+    public void testSkip() {
+        ExpressionTree a = leaf("a");
+        OrTree or = new OrTree(leaf("b"), leaf("c"));
+        AndTree and = new AndTree(a, or);
+        TreeCursor cursor = TreeCursor.of(and);
+        List<AbstractSyntaxTree> exited = Lists.newArrayList();
+        while (cursor.advance()) {
+            if(cursor.entering() && cursor.tree() == or) {
+                cursor.skip();
+            }
+            else if(!cursor.entering()) {
+                exited.add(cursor.tree());
+            }
+        }
+        Assert.assertEquals(ImmutableList.of(a, or, and), exited);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCannotSkipWhenExiting() {
+        TreeCursor cursor = TreeCursor.of(leaf("a"));
+        cursor.advance();
+        cursor.advance();
+        cursor.skip();
+    }
+
+    @Test
+    public void testDeeplyNestedTree() {
+        int depth = 100000;
+        ConditionTree x = leaf("x");
+        ConditionTree y = leaf("x");
+        for (int i = 0; i < depth; ++i) {
+            ConditionTree leaf = leaf("k" + i);
+            x = i % 2 == 0 ? new AndTree(leaf, x) : new OrTree(leaf, x);
+            y = i % 2 == 0 ? new AndTree(leaf("k" + i), y)
+                    : new OrTree(leaf("k" + i), y);
+        }
+        int count = 0;
+        int max = 0;
+        TreeCursor cursor = TreeCursor.of(x);
+        while (cursor.advance()) {
+            if(cursor.entering()) {
+                ++count;
+                max = Math.max(max, cursor.depth());
+            }
+        }
+        Assert.assertEquals(2 * depth + 1, count);
+        Assert.assertEquals(depth, max);
+        Assert.assertEquals(x, y);
+        Assert.assertEquals(x.hashCode(), y.hashCode());
+        Assert.assertNotEquals(x, new AndTree(leaf("k"), y));
+    }
+
+    /**
+     * Return an {@link ExpressionTree} for {@code key = value}.
+     *
+     * @param key
+     * @return the {@link ExpressionTree}
+     */
+    private static ExpressionTree leaf(String key) {
+        return new ExpressionTree(ExpressionSymbol.create(new KeySymbol(key),
+                new OperatorSymbol(Operator.EQUALS), new ValueSymbol("value")));
+    }
+
+}